@@ -27,6 +27,7 @@ import io.atomix.catalyst.util.concurrent.CatalystThreadFactory;
 import io.atomix.catalyst.util.concurrent.ThreadContext;
 import io.atomix.copycat.client.session.Session;
 
+import java.time.Duration;
 import java.util.Arrays;
 import java.util.Collection;
 import java.util.HashSet;
@@ -459,6 +460,8 @@ public interface CopycatClient extends Managed<CopycatClient> {
     private ServerSelectionStrategy serverSelectionStrategy = ServerSelectionStrategies.ANY;
     private RetryStrategy retryStrategy = RetryStrategies.FIBONACCI_BACKOFF;
     private RecoveryStrategy recoveryStrategy = RecoveryStrategies.CLOSE;
+    private int commandBatchSize = 1;
+    private Duration commandBatchLinger = Duration.ofMillis(1);
 
     private Builder(Collection<Address> members) {
       this.members = new HashSet<>(Assert.notNull(members, "members"));
@@ -561,6 +564,39 @@ public interface CopycatClient extends Managed<CopycatClient> {
       return this;
     }
 
+    /**
+     * Sets the maximum number of commands to submit to the cluster in a single request.
+     * <p>
+     * By default, each command is submitted to the cluster in its own request. When the batch size is greater
+     * than {@code 1}, commands submitted within the {@link #withCommandBatchLinger(Duration) batch linger time}
+     * are sent to the cluster in a single request and appended to the leader's log together. Batching reduces
+     * per-request overhead for clients that submit many small commands at the expense of up to the linger time
+     * of additional latency per command.
+     *
+     * @param commandBatchSize The maximum number of commands to submit in a single request.
+     * @return The client builder.
+     * @throws IllegalArgumentException if {@code commandBatchSize} is not positive
+     */
+    public Builder withCommandBatchSize(int commandBatchSize) {
+      this.commandBatchSize = Assert.arg(commandBatchSize, commandBatchSize > 0, "commandBatchSize must be positive");
+      return this;
+    }
+
+    /**
+     * Sets the maximum time to wait for additional commands before submitting a command batch.
+     * <p>
+     * The linger time applies only when the {@link #withCommandBatchSize(int) command batch size} is greater
+     * than {@code 1}. Pending commands are also sent immediately when a query is submitted.
+     *
+     * @param commandBatchLinger The maximum time to wait for additional commands before submitting a batch.
+     * @return The client builder.
+     * @throws NullPointerException if {@code commandBatchLinger} is null
+     */
+    public Builder withCommandBatchLinger(Duration commandBatchLinger) {
+      this.commandBatchLinger = Assert.notNull(commandBatchLinger, "commandBatchLinger");
+      return this;
+    }
+
     /**
      * @throws ConfigurationException if transport is not configured and {@code io.atomix.catalyst.transport.NettyTransport}
      * is not found on the classpath
@@ -584,7 +620,7 @@ public interface CopycatClient extends Managed<CopycatClient> {
       if (context != null) {
         context.serializer().resolve(new ServiceLoaderTypeResolver());
 
-        return new DefaultCopycatClient(transport, members, context, threadFactory, serverSelectionStrategy, connectionStrategy, retryStrategy, recoveryStrategy);
+        return new DefaultCopycatClient(transport, members, context, threadFactory, serverSelectionStrategy, connectionStrategy, retryStrategy, recoveryStrategy, commandBatchSize, commandBatchLinger);
       } else {
         // If no serializer instance was provided, create one.
         if (serializer == null) {
@@ -594,7 +630,7 @@ public interface CopycatClient extends Managed<CopycatClient> {
         // Add service loader types to the primary serializer.
         serializer.resolve(new ServiceLoaderTypeResolver());
 
-        return new DefaultCopycatClient(transport, members, serializer, threadFactory, serverSelectionStrategy, connectionStrategy, retryStrategy, recoveryStrategy);
+        return new DefaultCopycatClient(transport, members, serializer, threadFactory, serverSelectionStrategy, connectionStrategy, retryStrategy, recoveryStrategy, commandBatchSize, commandBatchLinger);
       }
     }
   }
@@ -32,6 +32,7 @@ import io.atomix.copycat.client.util.ClientSequencer;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.time.Duration;
 import java.util.Collection;
 import java.util.LinkedHashMap;
 import java.util.Map;
@@ -55,6 +56,8 @@ public class DefaultCopycatClient implements CopycatClient {
   private final ConnectionStrategy connectionStrategy;
   private final RetryStrategy retryStrategy;
   private final RecoveryStrategy recoveryStrategy;
+  private final int commandBatchSize;
+  private final Duration commandBatchLinger;
   private final ClientSequencer sequencer = new ClientSequencer();
   private ClientSession session;
   private volatile State state = State.CLOSED;
@@ -66,11 +69,11 @@ public class DefaultCopycatClient implements CopycatClient {
   private final Set<EventListener<?>> eventListeners = new CopyOnWriteArraySet<>();
   private Listener<Session.State> changeListener;
 
-  DefaultCopycatClient(Transport transport, Collection<Address> members, Serializer serializer, CatalystThreadFactory threadFactory, ServerSelectionStrategy selectionStrategy, ConnectionStrategy connectionStrategy, RetryStrategy retryStrategy, RecoveryStrategy recoveryStrategy) {
-    this(transport, members, new SingleThreadContext(threadFactory, serializer.clone()), threadFactory, selectionStrategy, connectionStrategy, retryStrategy, recoveryStrategy);
+  DefaultCopycatClient(Transport transport, Collection<Address> members, Serializer serializer, CatalystThreadFactory threadFactory, ServerSelectionStrategy selectionStrategy, ConnectionStrategy connectionStrategy, RetryStrategy retryStrategy, RecoveryStrategy recoveryStrategy, int commandBatchSize, Duration commandBatchLinger) {
+    this(transport, members, new SingleThreadContext(threadFactory, serializer.clone()), threadFactory, selectionStrategy, connectionStrategy, retryStrategy, recoveryStrategy, commandBatchSize, commandBatchLinger);
   }
 
-  DefaultCopycatClient(Transport transport, Collection<Address> members, ThreadContext context, CatalystThreadFactory threadFactory, ServerSelectionStrategy selectionStrategy, ConnectionStrategy connectionStrategy, RetryStrategy retryStrategy, RecoveryStrategy recoveryStrategy) {
+  DefaultCopycatClient(Transport transport, Collection<Address> members, ThreadContext context, CatalystThreadFactory threadFactory, ServerSelectionStrategy selectionStrategy, ConnectionStrategy connectionStrategy, RetryStrategy retryStrategy, RecoveryStrategy recoveryStrategy, int commandBatchSize, Duration commandBatchLinger) {
     this.transport = Assert.notNull(transport, "transport");
     this.context = Assert.notNull(context, "context");
     this.threadFactory = Assert.notNull(threadFactory, "threadFactory");
@@ -78,6 +81,8 @@ public class DefaultCopycatClient implements CopycatClient {
     this.connectionStrategy = Assert.notNull(connectionStrategy, "connectionStrategy");
     this.retryStrategy = Assert.notNull(retryStrategy, "retryStrategy");
     this.recoveryStrategy = Assert.notNull(recoveryStrategy, "recoveryStrategy");
+    this.commandBatchSize = commandBatchSize;
+    this.commandBatchLinger = Assert.notNull(commandBatchLinger, "commandBatchLinger");
   }
 
   @Override
@@ -126,7 +131,7 @@ public class DefaultCopycatClient implements CopycatClient {
    * Creates a new child session.
    */
   private ClientSession newSession() {
-    ClientSession session = new ClientSession(transport.client(), selector, new SingleThreadContext(threadFactory, context.serializer().clone()), connectionStrategy, retryStrategy);
+    ClientSession session = new ClientSession(transport.client(), selector, new SingleThreadContext(threadFactory, context.serializer().clone()), connectionStrategy, retryStrategy, commandBatchSize, commandBatchLinger);
 
     // Update the session change listener.
     if (changeListener != null)
@@ -24,6 +24,7 @@ import io.atomix.copycat.client.*;
 import io.atomix.copycat.client.util.AddressSelector;
 import io.atomix.copycat.client.util.ClientConnection;
 
+import java.time.Duration;
 import java.util.UUID;
 import java.util.concurrent.CompletableFuture;
 import java.util.function.Consumer;
@@ -46,16 +47,24 @@ public class ClientSession implements Session, Managed<Session> {
   }
 
   public ClientSession(UUID id, Client client, AddressSelector selector, ThreadContext context, ConnectionStrategy connectionStrategy, RetryStrategy retryStrategy) {
-    this(new ClientConnection(id, client, selector), new ClientSessionState(id), context, connectionStrategy, retryStrategy);
+    this(id, client, selector, context, connectionStrategy, retryStrategy, 1, Duration.ZERO);
   }
 
-  private ClientSession(ClientConnection connection, ClientSessionState state, ThreadContext context, ConnectionStrategy connectionStrategy, RetryStrategy retryStrategy) {
+  public ClientSession(Client client, AddressSelector selector, ThreadContext context, ConnectionStrategy connectionStrategy, RetryStrategy retryStrategy, int commandBatchSize, Duration commandBatchLinger) {
+    this(UUID.randomUUID(), client, selector, context, connectionStrategy, retryStrategy, commandBatchSize, commandBatchLinger);
+  }
+
+  public ClientSession(UUID id, Client client, AddressSelector selector, ThreadContext context, ConnectionStrategy connectionStrategy, RetryStrategy retryStrategy, int commandBatchSize, Duration commandBatchLinger) {
+    this(new ClientConnection(id, client, selector), new ClientSessionState(id), context, connectionStrategy, retryStrategy, commandBatchSize, commandBatchLinger);
+  }
+
+  private ClientSession(ClientConnection connection, ClientSessionState state, ThreadContext context, ConnectionStrategy connectionStrategy, RetryStrategy retryStrategy, int commandBatchSize, Duration commandBatchLinger) {
     this.connection = Assert.notNull(connection, "connection");
     this.state = Assert.notNull(state, "state");
     this.context = Assert.notNull(context, "context");
     this.manager = new ClientSessionManager(connection, state, context, connectionStrategy);
     this.listener = new ClientSessionListener(connection, state, context);
-    this.submitter = new ClientSessionSubmitter(connection, state, context, retryStrategy);
+    this.submitter = new ClientSessionSubmitter(connection, state, context, retryStrategy, commandBatchSize, commandBatchLinger);
   }
 
   @Override
@@ -17,14 +17,17 @@ package io.atomix.copycat.client.session;
 
 import io.atomix.catalyst.transport.Connection;
 import io.atomix.catalyst.util.Assert;
+import io.atomix.catalyst.util.concurrent.Scheduled;
 import io.atomix.catalyst.util.concurrent.ThreadContext;
 import io.atomix.copycat.client.*;
 import io.atomix.copycat.client.error.CommandException;
 import io.atomix.copycat.client.error.QueryException;
 import io.atomix.copycat.client.error.RaftError;
+import io.atomix.copycat.client.request.CommandBatchRequest;
 import io.atomix.copycat.client.request.CommandRequest;
 import io.atomix.copycat.client.request.OperationRequest;
 import io.atomix.copycat.client.request.QueryRequest;
+import io.atomix.copycat.client.response.CommandBatchResponse;
 import io.atomix.copycat.client.response.CommandResponse;
 import io.atomix.copycat.client.response.OperationResponse;
 import io.atomix.copycat.client.response.QueryResponse;
@@ -32,11 +35,18 @@ import io.atomix.copycat.client.response.Response;
 import io.atomix.copycat.client.util.ClientSequencer;
 
 import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.concurrent.CompletableFuture;
 import java.util.function.BiConsumer;
+import java.util.stream.Collectors;
 
 /**
  * Session operation submitter.
+ * <p>
+ * When command batching is enabled, commands submitted within the batch linger time are sent to the cluster in a
+ * single {@link CommandBatchRequest} of up to the maximum batch size. Commands in a batch are still assigned
+ * consecutive sequence numbers and their results are completed in sequence order.
  *
  * @author <a href="http://github.com/kuujo>Jordan Halterman</a>
  */
@@ -46,12 +56,22 @@ final class ClientSessionSubmitter {
   private final ThreadContext context;
   private final RetryStrategy strategy;
   private final ClientSequencer sequencer = new ClientSequencer();
+  private final int commandBatchSize;
+  private final Duration commandBatchLinger;
+  private final List<CommandAttempt<?>> commandBatch = new ArrayList<>();
+  private Scheduled commandBatchTimer;
 
   public ClientSessionSubmitter(Connection connection, ClientSessionState state, ThreadContext context, RetryStrategy retryStrategy) {
+    this(connection, state, context, retryStrategy, 1, Duration.ZERO);
+  }
+
+  public ClientSessionSubmitter(Connection connection, ClientSessionState state, ThreadContext context, RetryStrategy retryStrategy, int commandBatchSize, Duration commandBatchLinger) {
     this.connection = Assert.notNull(connection, "connection");
     this.state = Assert.notNull(state, "state");
     this.context = Assert.notNull(context, "context");
     this.strategy = Assert.notNull(retryStrategy, "retryStrategy");
+    this.commandBatchSize = Assert.arg(commandBatchSize, commandBatchSize > 0, "commandBatchSize must be positive");
+    this.commandBatchLinger = Assert.notNull(commandBatchLinger, "commandBatchLinger");
   }
 
   /**
@@ -76,7 +96,52 @@ final class ClientSessionSubmitter {
       .withSequence(state.nextCommandRequest())
       .withCommand(command)
       .build();
-    submitCommand(request, future);
+    if (commandBatchSize > 1) {
+      batchCommand(request, future);
+    } else {
+      submitCommand(request, future);
+    }
+  }
+
+  /**
+   * Adds a command request to the pending command batch.
+   */
+  private <T> void batchCommand(CommandRequest request, CompletableFuture<T> future) {
+    commandBatch.add(new CommandAttempt<>(sequencer.nextSequence(), request, future));
+    if (commandBatch.size() >= commandBatchSize) {
+      flushCommands();
+    } else if (commandBatchTimer == null) {
+      commandBatchTimer = context.schedule(commandBatchLinger, this::flushCommands);
+    }
+  }
+
+  /**
+   * Submits the pending command batch to the cluster.
+   */
+  private void flushCommands() {
+    if (commandBatchTimer != null) {
+      commandBatchTimer.cancel();
+      commandBatchTimer = null;
+    }
+
+    if (commandBatch.isEmpty()) {
+      return;
+    }
+
+    List<CommandAttempt<?>> attempts = new ArrayList<>(commandBatch);
+    commandBatch.clear();
+
+    // A batch of one command is sent as a normal command request.
+    if (attempts.size() == 1) {
+      submit(attempts.get(0));
+    } else {
+      CommandBatchRequest request = CommandBatchRequest.builder()
+        .withSession(state.getSessionId())
+        .withSequence(attempts.get(0).request.sequence())
+        .withCommands(attempts.stream().map(attempt -> attempt.request.command()).collect(Collectors.toList()))
+        .build();
+      submit(new CommandBatchAttempt(1, request, attempts));
+    }
   }
 
   /**
@@ -103,6 +168,9 @@ final class ClientSessionSubmitter {
    * Submits a query to the cluster.
    */
   private <T> void submitQuery(Query<T> query, CompletableFuture<T> future) {
+    // Send any pending commands before the query so the query doesn't wait on commands that haven't been sent.
+    flushCommands();
+
     if (query.consistency() == Query.ConsistencyLevel.CAUSAL) {
       QueryRequest request = QueryRequest.builder()
         .withSession(state.getSessionId())
@@ -143,13 +211,35 @@ final class ClientSessionSubmitter {
     }
   }
 
+  /**
+   * Submits a command batch attempt.
+   *
+   * @param attempt The attempt to submit.
+   */
+  private void submit(CommandBatchAttempt attempt) {
+    if (state.getState() == Session.State.CLOSED || state.getState() == Session.State.EXPIRED) {
+      attempt.fail(new ClosedSessionException("session closed"));
+    } else {
+      state.getLogger().debug("{} - Sending {}", state.getSessionId(), attempt.request);
+      connection.<CommandBatchRequest, CommandBatchResponse>send(attempt.request).whenComplete(attempt);
+    }
+  }
+
   /**
    * Closes the submitter.
+   * <p>
+   * Commands pending in the current command batch are flushed before the submitter is closed so they
+   * are handled like any other command submitted prior to closing the session.
    *
    * @return A completable future to be completed with a list of pending operations.
    */
   public CompletableFuture<Void> close() {
-    return CompletableFuture.completedFuture(null);
+    CompletableFuture<Void> future = new CompletableFuture<>();
+    context.executor().execute(() -> {
+      flushCommands();
+      future.complete(null);
+    });
+    return future;
   }
 
   /**
@@ -301,6 +391,70 @@ final class ClientSessionSubmitter {
     }
   }
 
+  /**
+   * Command batch attempt.
+   * <p>
+   * The batch is retried as a whole until the leader responds. Each command in the batch is then completed
+   * by its own {@link CommandAttempt}, so commands that fail individually are retried individually.
+   */
+  private final class CommandBatchAttempt implements RetryStrategy.Attempt, BiConsumer<CommandBatchResponse, Throwable> {
+    private final int attempt;
+    private final CommandBatchRequest request;
+    private final List<CommandAttempt<?>> attempts;
+
+    public CommandBatchAttempt(int attempt, CommandBatchRequest request, List<CommandAttempt<?>> attempts) {
+      this.attempt = attempt;
+      this.request = request;
+      this.attempts = attempts;
+    }
+
+    @Override
+    public int attempt() {
+      return attempt;
+    }
+
+    @Override
+    public Operation<?> operation() {
+      return request.operation();
+    }
+
+    @Override
+    public void accept(CommandBatchResponse response, Throwable error) {
+      if (error == null) {
+        state.getLogger().debug("{} - Received {}", state.getSessionId(), response);
+        if (response.status() == Response.Status.OK) {
+          for (int i = 0; i < attempts.size(); i++) {
+            attempts.get(i).accept(response.responses().get(i), null);
+          }
+        } else if (response.error() != RaftError.Type.UNKNOWN_SESSION_ERROR) {
+          strategy.attemptFailed(this, response.error().createException());
+        }
+      } else {
+        strategy.attemptFailed(this, error);
+      }
+    }
+
+    @Override
+    public void fail() {
+      fail(new CommandException("failed to complete command"));
+    }
+
+    @Override
+    public void fail(Throwable t) {
+      attempts.forEach(attempt -> attempt.fail(t));
+    }
+
+    @Override
+    public void retry() {
+      context.executor().execute(() -> submit(new CommandBatchAttempt(attempt + 1, request, attempts)));
+    }
+
+    @Override
+    public void retry(Duration after) {
+      context.schedule(after, () -> submit(new CommandBatchAttempt(attempt + 1, request, attempts)));
+    }
+  }
+
   /**
    * Query operation attempt.
    */
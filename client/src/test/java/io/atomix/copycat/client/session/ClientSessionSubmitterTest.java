@@ -16,18 +16,23 @@
 package io.atomix.copycat.client.session;
 
 import io.atomix.catalyst.transport.Connection;
+import io.atomix.catalyst.util.concurrent.Scheduled;
 import io.atomix.catalyst.util.concurrent.ThreadContext;
 import io.atomix.copycat.client.Command;
 import io.atomix.copycat.client.Query;
 import io.atomix.copycat.client.RetryStrategies;
+import io.atomix.copycat.client.request.CommandBatchRequest;
 import io.atomix.copycat.client.request.CommandRequest;
 import io.atomix.copycat.client.request.QueryRequest;
+import io.atomix.copycat.client.response.CommandBatchResponse;
 import io.atomix.copycat.client.response.CommandResponse;
 import io.atomix.copycat.client.response.QueryResponse;
 import io.atomix.copycat.client.response.Response;
 import org.mockito.Mockito;
 import org.testng.annotations.Test;
 
+import java.time.Duration;
+import java.util.Arrays;
 import java.util.UUID;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.Executor;
@@ -124,6 +129,84 @@ public class ClientSessionSubmitterTest {
     assertEquals(state.getResponseIndex(), 10);
   }
 
+  /**
+   * Tests submitting a batch of commands to the cluster.
+   */
+  public void testSubmitCommandBatch() throws Throwable {
+    Connection connection = mock(Connection.class);
+    when(connection.send(any(CommandBatchRequest.class)))
+      .thenReturn(CompletableFuture.completedFuture(CommandBatchResponse.builder()
+        .withStatus(Response.Status.OK)
+        .withResponses(Arrays.asList(
+          CommandResponse.builder()
+            .withStatus(Response.Status.OK)
+            .withIndex(10)
+            .withResult("Hello world!")
+            .build(),
+          CommandResponse.builder()
+            .withStatus(Response.Status.OK)
+            .withIndex(11)
+            .withResult("Hello world again!")
+            .build()))
+        .build()));
+
+    ClientSessionState state = new ClientSessionState(UUID.randomUUID())
+      .setSessionId(1)
+      .setState(Session.State.OPEN);
+
+    Executor executor = new MockExecutor();
+    ThreadContext context = mock(ThreadContext.class);
+    when(context.executor()).thenReturn(executor);
+
+    ClientSessionSubmitter submitter = new ClientSessionSubmitter(connection, state, context, RetryStrategies.RETRY, 2, Duration.ofMillis(10));
+
+    CompletableFuture<String> result1 = submitter.submit(new TestCommand());
+    assertFalse(result1.isDone());
+    assertEquals(state.getCommandRequest(), 1);
+    assertEquals(state.getCommandResponse(), 0);
+
+    CompletableFuture<String> result2 = submitter.submit(new TestCommand());
+    assertEquals(result1.get(), "Hello world!");
+    assertEquals(result2.get(), "Hello world again!");
+    assertEquals(state.getCommandRequest(), 2);
+    assertEquals(state.getCommandResponse(), 2);
+    assertEquals(state.getResponseIndex(), 11);
+  }
+
+  /**
+   * Tests that closing the submitter flushes the pending command batch.
+   */
+  public void testCloseFlushesCommandBatch() throws Throwable {
+    Connection connection = mock(Connection.class);
+    when(connection.send(any(CommandRequest.class)))
+      .thenReturn(CompletableFuture.completedFuture(CommandResponse.builder()
+        .withStatus(Response.Status.OK)
+        .withIndex(10)
+        .withResult("Hello world!")
+        .build()));
+
+    ClientSessionState state = new ClientSessionState(UUID.randomUUID())
+      .setSessionId(1)
+      .setState(Session.State.OPEN);
+
+    Executor executor = new MockExecutor();
+    Scheduled timer = mock(Scheduled.class);
+    ThreadContext context = mock(ThreadContext.class);
+    when(context.executor()).thenReturn(executor);
+    when(context.schedule(any(Duration.class), any(Runnable.class))).thenReturn(timer);
+
+    ClientSessionSubmitter submitter = new ClientSessionSubmitter(connection, state, context, RetryStrategies.RETRY, 2, Duration.ofMillis(10));
+
+    CompletableFuture<String> result = submitter.submit(new TestCommand());
+    assertFalse(result.isDone());
+
+    submitter.close().get();
+    verify(timer).cancel();
+    assertEquals(result.get(), "Hello world!");
+    assertEquals(state.getCommandResponse(), 1);
+    assertEquals(state.getResponseIndex(), 10);
+  }
+
   /**
    * Tests submitting a query to the cluster.
    */
@@ -0,0 +1,157 @@
+/*
+ * Copyright 2015 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.atomix.copycat.client.request;
+
+import io.atomix.catalyst.buffer.BufferInput;
+import io.atomix.catalyst.buffer.BufferOutput;
+import io.atomix.catalyst.serializer.SerializeWith;
+import io.atomix.catalyst.serializer.Serializer;
+import io.atomix.catalyst.util.Assert;
+import io.atomix.copycat.client.Command;
+import io.atomix.copycat.client.Operation;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * Client command batch request.
+ * <p>
+ * Command batch requests are submitted by clients to commit multiple {@link Command}s to the replicated state
+ * machine in a single request. Commands in the batch are assigned consecutive sequence numbers beginning with the
+ * request {@link #sequence()}, and the leader appends the commands to its log in sequence order. The result of each
+ * command is returned in a single {@link io.atomix.copycat.client.response.CommandBatchResponse}. As with
+ * {@link CommandRequest}s, failed batch requests should be resent with the same sequence numbers.
+ *
+ * @author <a href="http://github.com/kuujo">Jordan Halterman</a>
+ */
+@SerializeWith(id=237)
+public class CommandBatchRequest extends OperationRequest {
+
+  /**
+   * Returns a new command batch request builder.
+   *
+   * @return A new command batch request builder.
+   */
+  public static Builder builder() {
+    return new Builder(new CommandBatchRequest());
+  }
+
+  /**
+   * Returns a command batch request builder for an existing request.
+   *
+   * @param request The request to build.
+   * @return The command batch request builder.
+   * @throws NullPointerException if {@code request} is null
+   */
+  public static Builder builder(CommandBatchRequest request) {
+    return new Builder(request);
+  }
+
+  private List<Command> commands;
+
+  /**
+   * Returns the commands in the batch.
+   *
+   * @return The commands in the batch.
+   */
+  public List<Command> commands() {
+    return commands;
+  }
+
+  /**
+   * Returns the first command in the batch.
+   *
+   * @return The first command in the batch.
+   */
+  @Override
+  public Operation operation() {
+    return commands.get(0);
+  }
+
+  @Override
+  public void readObject(BufferInput<?> buffer, Serializer serializer) {
+    super.readObject(buffer, serializer);
+    int size = buffer.readInt();
+    commands = new ArrayList<>(size);
+    for (int i = 0; i < size; i++) {
+      commands.add(serializer.readObject(buffer));
+    }
+  }
+
+  @Override
+  public void writeObject(BufferOutput<?> buffer, Serializer serializer) {
+    super.writeObject(buffer, serializer);
+    buffer.writeInt(commands.size());
+    for (Command command : commands) {
+      serializer.writeObject(command, buffer);
+    }
+  }
+
+  @Override
+  public int hashCode() {
+    return Objects.hash(getClass(), session, sequence, commands);
+  }
+
+  @Override
+  public boolean equals(Object object) {
+    if (object instanceof CommandBatchRequest) {
+      CommandBatchRequest request = (CommandBatchRequest) object;
+      return request.session == session
+        && request.sequence == sequence
+        && request.commands.equals(commands);
+    }
+    return false;
+  }
+
+  @Override
+  public String toString() {
+    return String.format("%s[session=%d, sequence=%d, commands=[%d]]", getClass().getSimpleName(), session, sequence, commands.size());
+  }
+
+  /**
+   * Command batch request builder.
+   */
+  public static class Builder extends OperationRequest.Builder<Builder, CommandBatchRequest> {
+    protected Builder(CommandBatchRequest request) {
+      super(request);
+    }
+
+    /**
+     * Sets the request commands.
+     *
+     * @param commands The request commands.
+     * @return The request builder.
+     * @throws NullPointerException if {@code commands} is null
+     */
+    public Builder withCommands(List<Command> commands) {
+      request.commands = Assert.notNull(commands, "commands");
+      return this;
+    }
+
+    /**
+     * @throws IllegalStateException if session or sequence are less than 1, or commands is null or empty
+     */
+    @Override
+    public CommandBatchRequest build() {
+      super.build();
+      Assert.stateNot(request.commands == null, "commands cannot be null");
+      Assert.stateNot(request.commands.isEmpty(), "commands cannot be empty");
+      return request;
+    }
+  }
+
+}
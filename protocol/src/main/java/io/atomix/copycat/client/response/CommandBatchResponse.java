@@ -0,0 +1,154 @@
+/*
+ * Copyright 2015 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.atomix.copycat.client.response;
+
+import io.atomix.catalyst.buffer.BufferInput;
+import io.atomix.catalyst.buffer.BufferOutput;
+import io.atomix.catalyst.serializer.SerializeWith;
+import io.atomix.catalyst.serializer.Serializer;
+import io.atomix.catalyst.util.Assert;
+import io.atomix.copycat.client.error.RaftError;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * Client command batch response.
+ * <p>
+ * Command batch responses are sent by servers to clients upon the completion of a
+ * {@link io.atomix.copycat.client.request.CommandBatchRequest}. A successful batch response contains a
+ * {@link CommandResponse} for each command in the batch, in the order in which the commands appeared in the request.
+ * Each command response may itself indicate a failure of the individual command.
+ *
+ * @author <a href="http://github.com/kuujo">Jordan Halterman</a>
+ */
+@SerializeWith(id=238)
+public class CommandBatchResponse extends SessionResponse {
+
+  /**
+   * Returns a new command batch response builder.
+   *
+   * @return A new command batch response builder.
+   */
+  public static Builder builder() {
+    return new Builder(new CommandBatchResponse());
+  }
+
+  /**
+   * Returns a command batch response builder for an existing response.
+   *
+   * @param response The response to build.
+   * @return The command batch response builder.
+   * @throws NullPointerException if {@code response} is null
+   */
+  public static Builder builder(CommandBatchResponse response) {
+    return new Builder(response);
+  }
+
+  private List<CommandResponse> responses;
+
+  /**
+   * Returns the responses for each command in the batch.
+   *
+   * @return The responses for each command in the batch.
+   */
+  public List<CommandResponse> responses() {
+    return responses;
+  }
+
+  @Override
+  public void readObject(BufferInput<?> buffer, Serializer serializer) {
+    status = Status.forId(buffer.readByte());
+    if (status == Status.OK) {
+      error = null;
+      int size = buffer.readInt();
+      responses = new ArrayList<>(size);
+      for (int i = 0; i < size; i++) {
+        responses.add(serializer.readObject(buffer));
+      }
+    } else {
+      error = RaftError.forId(buffer.readByte());
+    }
+  }
+
+  @Override
+  public void writeObject(BufferOutput<?> buffer, Serializer serializer) {
+    buffer.writeByte(status.id());
+    if (status == Status.OK) {
+      buffer.writeInt(responses.size());
+      for (CommandResponse response : responses) {
+        serializer.writeObject(response, buffer);
+      }
+    } else {
+      buffer.writeByte(error.id());
+    }
+  }
+
+  @Override
+  public int hashCode() {
+    return Objects.hash(getClass(), status, responses);
+  }
+
+  @Override
+  public boolean equals(Object object) {
+    if (object instanceof CommandBatchResponse) {
+      CommandBatchResponse response = (CommandBatchResponse) object;
+      return response.status == status
+        && Objects.equals(response.responses, responses);
+    }
+    return false;
+  }
+
+  @Override
+  public String toString() {
+    return String.format("%s[status=%s, responses=[%d]]", getClass().getSimpleName(), status, responses != null ? responses.size() : 0);
+  }
+
+  /**
+   * Command batch response builder.
+   */
+  public static class Builder extends SessionResponse.Builder<Builder, CommandBatchResponse> {
+    protected Builder(CommandBatchResponse response) {
+      super(response);
+    }
+
+    /**
+     * Sets the responses for each command in the batch.
+     *
+     * @param responses The responses for each command in the batch.
+     * @return The response builder.
+     * @throws NullPointerException if {@code responses} is null
+     */
+    public Builder withResponses(List<CommandResponse> responses) {
+      response.responses = Assert.notNull(responses, "responses");
+      return this;
+    }
+
+    /**
+     * @throws IllegalStateException if status is OK and responses is null
+     */
+    @Override
+    public CommandBatchResponse build() {
+      super.build();
+      if (response.status == Status.OK) {
+        Assert.stateNot(response.responses == null, "responses cannot be null");
+      }
+      return response;
+    }
+  }
+
+}
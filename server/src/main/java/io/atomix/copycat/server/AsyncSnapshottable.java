@@ -0,0 +1,83 @@
+/*
+ * Copyright 2015 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.atomix.copycat.server;
+
+import io.atomix.copycat.server.storage.snapshot.SnapshotWriter;
+
+import java.util.function.Consumer;
+
+/**
+ * Support for writing {@link StateMachine} snapshots asynchronously.
+ * <p>
+ * Writing a {@link Snapshottable} state machine's snapshot via {@link #snapshot(SnapshotWriter)} blocks the state
+ * machine thread for the duration of the write, and no commands or queries can be applied to the state machine until
+ * the snapshot has been written. For state machines with large state, this can result in significant stalls.
+ * <p>
+ * State machines that implement this interface instead capture a point-in-time view of their state on the state
+ * machine thread. The view is then written to the snapshot on a background thread while the state machine continues
+ * to apply commands. The view must not be affected by commands applied after it's captured, so state machines
+ * typically implement views with immutable or copy-on-write data structures.
+ * <p>
+ * <pre>
+ *   {@code
+ *   public class MyStateMachine extends StateMachine implements AsyncSnapshottable {
+ *     private PersistentMap<String, String> map;
+ *
+ *     public Consumer<SnapshotWriter> snapshot() {
+ *       PersistentMap<String, String> view = map;
+ *       return writer -> writer.writeObject(view);
+ *     }
+ *
+ *     public void install(SnapshotReader reader) {
+ *       map = reader.readObject();
+ *     }
+ *   }
+ *   }
+ * </pre>
+ * Asynchronous snapshots are completed under the same conditions as synchronous snapshots. A snapshot is only
+ * completed once it has been fully written and all session events up to the snapshot index have been received
+ * by clients.
+ *
+ * @author <a href="http://github.com/kuujo>Jordan Halterman</a>
+ */
+public interface AsyncSnapshottable extends Snapshottable {
+
+  /**
+   * Captures a point-in-time view of the state machine state.
+   * <p>
+   * This method is called on the state machine thread and should return quickly. The returned view will be
+   * called on a background thread with the {@link SnapshotWriter} to which to write the state machine state. The
+   * view must write the state of the state machine at the time this method was called regardless of commands
+   * applied to the state machine after this method returns.
+   *
+   * @return A view of the state machine state to be written to the snapshot.
+   */
+  Consumer<SnapshotWriter> snapshot();
+
+  /**
+   * Takes a snapshot of the state machine state synchronously.
+   * <p>
+   * By default, the state machine state is written by capturing a {@link #snapshot() view} of the state and
+   * writing it in the calling thread.
+   *
+   * @param writer The snapshot writer.
+   */
+  @Override
+  default void snapshot(SnapshotWriter writer) {
+    snapshot().accept(writer);
+  }
+
+}
@@ -661,6 +661,13 @@ public class CopycatServer implements Managed<CopycatServer> {
     private static final Duration DEFAULT_ELECTION_TIMEOUT = Duration.ofMillis(750);
     private static final Duration DEFAULT_HEARTBEAT_INTERVAL = Duration.ofMillis(250);
     private static final Duration DEFAULT_SESSION_TIMEOUT = Duration.ofMillis(5000);
+    private static final int DEFAULT_APPEND_WINDOW_SIZE = 1;
+    private static final int DEFAULT_MAX_APPEND_BATCH_SIZE = 1024 * 1024 * 4;
+    private static final int DEFAULT_MAX_APPEND_BATCH_ENTRIES = 1024 * 16;
+    private static final int DEFAULT_SNAPSHOT_CHUNK_SIZE = 1024 * 1024;
+    private static final int DEFAULT_INSTALL_WINDOW_SIZE = 1;
+    private static final Duration DEFAULT_KEEP_ALIVE_BATCH_INTERVAL = Duration.ofMillis(10);
+    private static final int DEFAULT_QUERY_THREADS = Runtime.getRuntime().availableProcessors();
 
     private String name = DEFAULT_NAME;
     private Member.Type type = Member.Type.ACTIVE;
@@ -675,6 +682,15 @@ public class CopycatServer implements Managed<CopycatServer> {
     private Duration electionTimeout = DEFAULT_ELECTION_TIMEOUT;
     private Duration heartbeatInterval = DEFAULT_HEARTBEAT_INTERVAL;
     private Duration sessionTimeout = DEFAULT_SESSION_TIMEOUT;
+    private int appendWindowSize = DEFAULT_APPEND_WINDOW_SIZE;
+    private int maxAppendBatchSize = DEFAULT_MAX_APPEND_BATCH_SIZE;
+    private int maxAppendBatchEntries = DEFAULT_MAX_APPEND_BATCH_ENTRIES;
+    private int snapshotChunkSize = DEFAULT_SNAPSHOT_CHUNK_SIZE;
+    private int installWindowSize = DEFAULT_INSTALL_WINDOW_SIZE;
+    private Duration keepAliveBatchInterval = DEFAULT_KEEP_ALIVE_BATCH_INTERVAL;
+    private int queryThreads = DEFAULT_QUERY_THREADS;
+    private boolean followerReads;
+    private boolean compactReplication;
 
     private Builder(Address clientAddress, Address serverAddress, Collection<Address> cluster) {
       this.clientAddress = Assert.notNull(clientAddress, "clientAddress");
@@ -826,6 +842,163 @@ public class CopycatServer implements Managed<CopycatServer> {
       return this;
     }
 
+    /**
+     * Sets the maximum number of in-flight append requests per member, returning the Raft configuration for method chaining.
+     * <p>
+     * By default, the leader sends a single {@link io.atomix.copycat.server.request.AppendRequest} to each follower
+     * and waits for a response before sending the next batch of entries. Increasing the append window size enables
+     * pipelining, allowing the leader to optimistically send up to {@code appendWindowSize} batches of entries to a
+     * follower before receiving a response. Pipelining can significantly improve replication throughput to followers
+     * on high latency links.
+     *
+     * @param appendWindowSize The maximum number of in-flight append requests per member.
+     * @return The Raft configuration.
+     * @throws IllegalArgumentException If the append window size is not positive
+     */
+    public Builder withAppendWindowSize(int appendWindowSize) {
+      this.appendWindowSize = Assert.arg(appendWindowSize, appendWindowSize > 0, "appendWindowSize must be positive");
+      return this;
+    }
+
+    /**
+     * Sets the maximum size of a batch of entries sent to a member, returning the Raft configuration for method chaining.
+     * <p>
+     * The size of each batch of entries sent in an {@link io.atomix.copycat.server.request.AppendRequest} is adapted
+     * per member based on the measured round trip time and throughput to that member. Members that are catching up
+     * will be sent progressively larger batches up to the maximum batch size, and members that are caught up will be
+     * sent only the most recent entries. By default, the maximum batch size is {@code 1024 * 1024 * 4}.
+     *
+     * @param maxAppendBatchSize The maximum size of a batch of entries in bytes.
+     * @return The Raft configuration.
+     * @throws IllegalArgumentException If the maximum batch size is not positive
+     */
+    public Builder withMaxAppendBatchSize(int maxAppendBatchSize) {
+      this.maxAppendBatchSize = Assert.arg(maxAppendBatchSize, maxAppendBatchSize > 0, "maxAppendBatchSize must be positive");
+      return this;
+    }
+
+    /**
+     * Sets the maximum number of entries in a batch sent to a member, returning the Raft configuration for method chaining.
+     * <p>
+     * By default, the maximum number of entries per batch is {@code 1024 * 16}.
+     *
+     * @param maxAppendBatchEntries The maximum number of entries in a batch.
+     * @return The Raft configuration.
+     * @throws IllegalArgumentException If the maximum number of entries is not positive
+     */
+    public Builder withMaxAppendBatchEntries(int maxAppendBatchEntries) {
+      this.maxAppendBatchEntries = Assert.arg(maxAppendBatchEntries, maxAppendBatchEntries > 0, "maxAppendBatchEntries must be positive");
+      return this;
+    }
+
+    /**
+     * Sets the size of snapshot chunks sent to members, returning the Raft configuration for method chaining.
+     * <p>
+     * When a member falls behind the leader's most recent snapshot, the snapshot is streamed to the member in
+     * {@link io.atomix.copycat.server.request.InstallRequest}s of up to {@code snapshotChunkSize} bytes each.
+     * By default, the snapshot chunk size is {@code 1024 * 1024}.
+     *
+     * @param snapshotChunkSize The maximum number of bytes in a snapshot chunk.
+     * @return The Raft configuration.
+     * @throws IllegalArgumentException If the snapshot chunk size is not positive
+     */
+    public Builder withSnapshotChunkSize(int snapshotChunkSize) {
+      this.snapshotChunkSize = Assert.arg(snapshotChunkSize, snapshotChunkSize > 0, "snapshotChunkSize must be positive");
+      return this;
+    }
+
+    /**
+     * Sets the maximum number of in-flight snapshot chunks per member, returning the Raft configuration for method chaining.
+     * <p>
+     * By default, the leader sends a single {@link io.atomix.copycat.server.request.InstallRequest} to each member
+     * and waits for a response before sending the next chunk of the snapshot. Increasing the install window size
+     * enables streaming, allowing the leader to send up to {@code installWindowSize} chunks of a snapshot to a member
+     * before receiving a response. If any chunk fails, the snapshot is resent from the start once all in-flight
+     * chunks have completed.
+     *
+     * @param installWindowSize The maximum number of in-flight install requests per member.
+     * @return The Raft configuration.
+     * @throws IllegalArgumentException If the install window size is not positive
+     */
+    public Builder withInstallWindowSize(int installWindowSize) {
+      this.installWindowSize = Assert.arg(installWindowSize, installWindowSize > 0, "installWindowSize must be positive");
+      return this;
+    }
+
+    /**
+     * Sets the interval over which client keep-alives are batched by the leader, returning the Raft configuration for method chaining.
+     * <p>
+     * Rather than logging a separate entry for each client's {@link io.atomix.copycat.client.request.KeepAliveRequest},
+     * the leader collects keep-alive requests received within the batch interval and logs a single entry for all
+     * the sessions being kept alive. Responses are sent to each client once the entry is committed. A zero interval
+     * batches only those keep-alives that are received concurrently. By default, the batch interval is {@code 10}
+     * milliseconds.
+     *
+     * @param keepAliveBatchInterval The interval over which keep-alive requests are batched.
+     * @return The Raft configuration.
+     * @throws IllegalArgumentException If the batch interval is negative or is not less than the session timeout
+     * @throws NullPointerException if {@code keepAliveBatchInterval} is null
+     */
+    public Builder withKeepAliveBatchInterval(Duration keepAliveBatchInterval) {
+      Assert.argNot(keepAliveBatchInterval.isNegative(), "keepAliveBatchInterval cannot be negative");
+      Assert.argNot(keepAliveBatchInterval.toMillis() >= sessionTimeout.toMillis(), "keepAliveBatchInterval must be less than sessionTimeout");
+      this.keepAliveBatchInterval = Assert.notNull(keepAliveBatchInterval, "keepAliveBatchInterval");
+      return this;
+    }
+
+    /**
+     * Sets the number of threads with which to execute reader queries, returning the Raft configuration for method chaining.
+     * <p>
+     * Queries registered via {@link StateMachineExecutor#registerReader(Class, java.util.function.Function)} are
+     * executed concurrently on a pool of query threads rather than on the state machine thread. The pool is only
+     * created once the first reader query is executed. By default, the number of query threads is the number of
+     * available processors.
+     *
+     * @param queryThreads The number of threads with which to execute reader queries.
+     * @return The Raft configuration.
+     * @throws IllegalArgumentException If the number of query threads is not positive
+     */
+    public Builder withQueryThreads(int queryThreads) {
+      this.queryThreads = Assert.arg(queryThreads, queryThreads > 0, "queryThreads must be positive");
+      return this;
+    }
+
+    /**
+     * Enables or disables follower reads, returning the Raft configuration for method chaining.
+     * <p>
+     * By default, followers forward linearizable queries to the leader to be applied to the leader's state machine.
+     * When follower reads are enabled, a follower that receives a linearizable query instead requests the leader's
+     * current commit index via a {@link io.atomix.copycat.server.request.ReadIndexRequest}, waits for its own state
+     * machine to apply entries up to that index, and applies the query locally. This spreads the cost of linearizable
+     * queries across the cluster at the expense of additional latency while followers catch up to the leader's
+     * commit index. Follower reads are disabled by default.
+     *
+     * @param followerReads Whether to enable follower reads.
+     * @return The Raft configuration.
+     */
+    public Builder withFollowerReads(boolean followerReads) {
+      this.followerReads = followerReads;
+      return this;
+    }
+
+    /**
+     * Enables or disables compact replication, returning the Raft configuration for method chaining.
+     * <p>
+     * When compact replication is enabled, entries are sent to members in a compact batch encoding that writes
+     * indexes, terms, timestamps, and session and sequence numbers as variable length deltas rather than fixed
+     * width values. This significantly reduces replication bandwidth for small commands at the cost of deserializing
+     * entries read from the log before they're sent. Members advertise whether they can read compact batches in
+     * their append responses, so entries are only sent in compact batches to members that support them. Compact
+     * replication is disabled by default.
+     *
+     * @param compactReplication Whether to enable compact replication.
+     * @return The Raft configuration.
+     */
+    public Builder withCompactReplication(boolean compactReplication) {
+      this.compactReplication = compactReplication;
+      return this;
+    }
+
     /**
      * @throws ConfigurationException if a state machine, members or transport are not configured
      */
@@ -867,7 +1040,16 @@ public class CopycatServer implements Managed<CopycatServer> {
       ServerContext context = new ServerContext(name, type, serverAddress, clientAddress, cluster, storage, serializer, stateMachineFactory, connections, threadContext);
       context.setElectionTimeout(electionTimeout)
         .setHeartbeatInterval(heartbeatInterval)
-        .setSessionTimeout(sessionTimeout);
+        .setSessionTimeout(sessionTimeout)
+        .setAppendWindowSize(appendWindowSize)
+        .setMaxAppendBatchSize(maxAppendBatchSize)
+        .setMaxAppendBatchEntries(maxAppendBatchEntries)
+        .setSnapshotChunkSize(snapshotChunkSize)
+        .setInstallWindowSize(installWindowSize)
+        .setKeepAliveBatchInterval(keepAliveBatchInterval)
+        .setQueryThreads(queryThreads)
+        .setFollowerReads(followerReads)
+        .setCompactReplication(compactReplication);
 
       return new CopycatServer(name, clientTransport, serverTransport, context);
     }
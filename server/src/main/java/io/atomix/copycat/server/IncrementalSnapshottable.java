@@ -0,0 +1,105 @@
+/*
+ * Copyright 2015 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.atomix.copycat.server;
+
+import io.atomix.copycat.server.storage.snapshot.SnapshotReader;
+import io.atomix.copycat.server.storage.snapshot.SnapshotWriter;
+
+/**
+ * Support for incremental {@link StateMachine} snapshots.
+ * <p>
+ * {@link Snapshottable} state machines write their complete state to each snapshot, so the cost of taking a
+ * snapshot is proportional to the size of the state machine state. State machines with large but slowly changing
+ * state can implement this interface to write delta snapshots containing only the state that has changed since the
+ * previous snapshot. The cost of a delta snapshot is proportional to the rate of writes to the state machine.
+ * <p>
+ * Delta snapshots form a chain beginning with a full snapshot written by {@link #snapshot(SnapshotWriter)}. Once the
+ * chain reaches the {@link io.atomix.copycat.server.storage.Storage#maxSnapshotDeltas() maximum number of deltas},
+ * a new full snapshot is taken. State machines must track changes made since the last call to either
+ * {@link #snapshot(SnapshotWriter)} or {@link #snapshotDelta(SnapshotWriter)}, and installing a snapshot must
+ * reset tracked changes.
+ * <p>
+ * Full and delta snapshots of incremental state machines are taken and installed in the state machine thread, the
+ * same thread in which commands are applied, so changes can be tracked without synchronization. State machines
+ * that also implement {@link AsyncSnapshottable} capture their full snapshot view in the state machine thread via
+ * {@link AsyncSnapshottable#snapshot()}, but the view is written in a background thread and so must not access
+ * tracked changes.
+ * <p>
+ * <pre>
+ *   {@code
+ *   public class MyStateMachine extends StateMachine implements IncrementalSnapshottable {
+ *     private Map<String, String> map = new HashMap<>();
+ *     private Set<String> changes = new HashSet<>();
+ *
+ *     public void snapshot(SnapshotWriter writer) {
+ *       writer.writeObject(map);
+ *       changes.clear();
+ *     }
+ *
+ *     public void snapshotDelta(SnapshotWriter writer) {
+ *       Map<String, String> delta = new HashMap<>();
+ *       changes.forEach(key -> delta.put(key, map.get(key)));
+ *       writer.writeObject(delta);
+ *       changes.clear();
+ *     }
+ *
+ *     public void install(SnapshotReader reader) {
+ *       map = reader.readObject();
+ *       changes.clear();
+ *     }
+ *
+ *     public void installDelta(SnapshotReader reader) {
+ *       Map<String, String> delta = reader.readObject();
+ *       delta.forEach((key, value) -> {
+ *         if (value != null) {
+ *           map.put(key, value);
+ *         } else {
+ *           map.remove(key);
+ *         }
+ *       });
+ *       changes.clear();
+ *     }
+ *   }
+ *   }
+ * </pre>
+ * When a snapshot chain is installed, {@link #install(SnapshotReader)} is called with the full snapshot at the head
+ * of the chain and {@link #installDelta(SnapshotReader)} is then called with each delta snapshot in order.
+ *
+ * @author <a href="http://github.com/kuujo>Jordan Halterman</a>
+ */
+public interface IncrementalSnapshottable extends Snapshottable {
+
+  /**
+   * Takes a delta snapshot of the state machine state.
+   * <p>
+   * The delta snapshot should contain only the state that has changed since the last full or delta snapshot
+   * was taken or installed.
+   *
+   * @param writer The snapshot writer.
+   */
+  void snapshotDelta(SnapshotWriter writer);
+
+  /**
+   * Installs a delta snapshot of the state machine state.
+   * <p>
+   * Delta snapshots are installed in order after the full snapshot on which they're based has been
+   * {@link #install(SnapshotReader) installed}.
+   *
+   * @param reader The snapshot reader.
+   */
+  void installDelta(SnapshotReader reader);
+
+}
@@ -34,6 +34,9 @@ import io.atomix.copycat.server.storage.snapshot.SnapshotWriter;
  * To store a state machine's state, simply implement the {@link #snapshot(SnapshotWriter)} method and write the
  * complete state machine state to the snapshot via the {@link SnapshotWriter}. Copycat will periodically invoke
  * the method to take a new snapshot of the state machine's state when the underlying log rotates segments.
+ * Snapshots are written in the server thread, so state machines with large state should implement
+ * {@link AsyncSnapshottable} to write snapshots in a background thread instead. State machines with large but
+ * slowly changing state can implement {@link IncrementalSnapshottable} to write only changed state to each snapshot.
  * <p>
  * <pre>
  *   {@code
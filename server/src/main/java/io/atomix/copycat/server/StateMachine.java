@@ -87,7 +87,9 @@ import java.util.function.Function;
  * be deterministic. That is, state machines are guaranteed to see {@link Command}s in the same order on all servers,
  * and given the same commands in the same order, all servers' state machines should arrive at the same state with the
  * same output (return value). The return value of each operation callback is the response value that will be sent back
- * to the client.
+ * to the client. The only exception is queries registered as thread-safe
+ * {@link StateMachineExecutor#registerReader(Class, java.util.function.Function) readers}, which are executed
+ * concurrently on a pool of query threads.
  *
  * <h3>Deterministic scheduling</h3>
  * The {@link StateMachineExecutor} is responsible for executing state machine operations sequentially and provides an
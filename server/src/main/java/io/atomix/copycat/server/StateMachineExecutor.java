@@ -110,6 +110,28 @@ public interface StateMachineExecutor extends ThreadContext {
    */
   <T extends Operation<U>, U> StateMachineExecutor register(Class<T> type, Function<Commit<T>, U> callback);
 
+  /**
+   * Registers a thread-safe query callback.
+   * <p>
+   * Queries registered as readers are not executed on the state machine thread. Instead, once the state machine
+   * has applied commands up to the index required by the query's consistency level, reader callbacks are executed
+   * on a pool of query threads, concurrently with other readers and with the application of commands. This allows
+   * read throughput to scale with the number of query threads, but it means the state machine may have applied
+   * commands beyond the query's index by the time the reader is called. Reader callbacks must be safe to call
+   * concurrently with all other state machine callbacks.
+   * <p>
+   * Because readers are not executed on the state machine thread, they must not rely on the {@link #context() context}
+   * of the state machine. The query's index and time are available via {@link Commit#index()} and {@link Commit#time()}.
+   * Readers registered for a query type will also be used for subtypes of that type.
+   *
+   * @param type The query type.
+   * @param callback The query callback.
+   * @param <T> The query type.
+   * @return The state machine executor.
+   * @throws NullPointerException if {@code type} or {@code callback} are null
+   */
+  <T extends Query<U>, U> StateMachineExecutor registerReader(Class<T> type, Function<Commit<T>, U> callback);
+
   @Override
   default void close() {
   }
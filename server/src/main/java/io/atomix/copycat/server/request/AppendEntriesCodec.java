@@ -0,0 +1,304 @@
+/*
+ * Copyright 2015 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.atomix.copycat.server.request;
+
+import io.atomix.catalyst.buffer.Buffer;
+import io.atomix.catalyst.buffer.BufferInput;
+import io.atomix.catalyst.buffer.BufferOutput;
+import io.atomix.catalyst.buffer.HeapBuffer;
+import io.atomix.catalyst.serializer.Serializer;
+import io.atomix.copycat.server.storage.entry.*;
+
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Compact {@link AppendRequest} entry batch encoding.
+ * <p>
+ * Entries are written in runs of the same type, with the type written once at the start of each run. Each entry's
+ * index is written as a variable length delta from the previous index, and its term as a delta from the previous
+ * term. Timestamps are written as deltas from the first timestamp in the batch, and session IDs, sequence numbers
+ * and other counters are written as variable length integers. Entry types without a compact encoding are written
+ * with the {@link Serializer}.
+ * <p>
+ * {@link RawEntry Raw entries} are never deserialized. Their bytes are written as length prefixed bytes along with
+ * the raw entry's {@link RawEntry#getType() type}, so the receiver can determine the type of each raw entry without
+ * deserializing it.
+ *
+ * @author <a href="http://github.com/kuujo">Jordan Halterman</a>
+ */
+final class AppendEntriesCodec {
+  private static final int RAW = 0;
+  private static final int OBJECT = 1;
+  private static final int COMMAND = 2;
+  private static final int KEEP_ALIVE = 3;
+  private static final int MULTI_KEEP_ALIVE = 4;
+  private static final int REGISTER = 5;
+  private static final int UNREGISTER = 6;
+  private static final int INITIALIZE = 7;
+
+  private AppendEntriesCodec() {
+  }
+
+  /**
+   * Writes a batch of entries following the given log index.
+   */
+  static void write(List<Entry> entries, long logIndex, BufferOutput<?> buffer, Serializer serializer) {
+    int size = entries.size();
+    int[] types = new int[size];
+    for (int i = 0; i < size; i++) {
+      types[i] = typeOf(entries.get(i));
+    }
+
+    long previousIndex = logIndex;
+    long previousTerm = 0;
+    long timestamp = 0;
+    int i = 0;
+    while (i < size) {
+      int type = types[i];
+      int run = 1;
+      while (i + run < size && types[i + run] == type) {
+        run++;
+      }
+
+      buffer.writeByte(type);
+      writeLong(run, buffer);
+      for (int end = i + run; i < end; i++) {
+        Entry entry = entries.get(i);
+        writeLong(entry.getIndex() - previousIndex - 1, buffer);
+        writeLong(zigzag(entry.getTerm() - previousTerm), buffer);
+        previousIndex = entry.getIndex();
+        previousTerm = entry.getTerm();
+
+        // Entries with a compact encoding are all timestamped.
+        if (type != RAW && type != OBJECT) {
+          long entryTimestamp = ((TimestampedEntry) entry).getTimestamp();
+          writeLong(zigzag(entryTimestamp - timestamp), buffer);
+          if (timestamp == 0) {
+            timestamp = entryTimestamp;
+          }
+        }
+        writeEntry(type, entry, buffer, serializer);
+      }
+    }
+  }
+
+  /**
+   * Writes the type specific fields of an entry.
+   */
+  private static void writeEntry(int type, Entry entry, BufferOutput<?> buffer, Serializer serializer) {
+    switch (type) {
+      case RAW:
+        Buffer bytes = ((RawEntry) entry).getBytes().rewind();
+        writeLong(((RawEntry) entry).getType(), buffer);
+        writeLong(bytes.remaining(), buffer);
+        buffer.write(bytes);
+        bytes.rewind();
+        break;
+      case COMMAND:
+        CommandEntry command = (CommandEntry) entry;
+        writeLong(command.getSession(), buffer);
+        writeLong(command.getSequence(), buffer);
+        serializer.writeObject(command.getCommand(), buffer);
+        break;
+      case KEEP_ALIVE:
+        KeepAliveEntry keepAlive = (KeepAliveEntry) entry;
+        writeLong(keepAlive.getSession(), buffer);
+        writeLong(keepAlive.getCommandSequence(), buffer);
+        writeLong(keepAlive.getEventIndex(), buffer);
+        break;
+      case MULTI_KEEP_ALIVE:
+        MultiKeepAliveEntry multiKeepAlive = (MultiKeepAliveEntry) entry;
+        long[] sessions = multiKeepAlive.getSessions();
+        long[] commandSequences = multiKeepAlive.getCommandSequences();
+        long[] eventIndexes = multiKeepAlive.getEventIndexes();
+        writeLong(sessions.length, buffer);
+        for (int i = 0; i < sessions.length; i++) {
+          writeLong(sessions[i], buffer);
+          writeLong(commandSequences[i], buffer);
+          writeLong(eventIndexes[i], buffer);
+        }
+        break;
+      case REGISTER:
+        RegisterEntry register = (RegisterEntry) entry;
+        buffer.writeLong(register.getClient().getMostSignificantBits())
+          .writeLong(register.getClient().getLeastSignificantBits());
+        writeLong(register.getTimeout(), buffer);
+        break;
+      case UNREGISTER:
+        UnregisterEntry unregister = (UnregisterEntry) entry;
+        writeLong(unregister.getSession(), buffer);
+        buffer.writeBoolean(unregister.isExpired());
+        break;
+      case INITIALIZE:
+        break;
+      default:
+        serializer.writeObject(entry, buffer);
+        break;
+    }
+  }
+
+  /**
+   * Reads a batch of entries following the given log index.
+   */
+  static void read(List<Entry> entries, int count, long logIndex, BufferInput<?> buffer, Serializer serializer) {
+    long previousIndex = logIndex;
+    long previousTerm = 0;
+    long timestamp = 0;
+    while (entries.size() < count) {
+      int type = buffer.readByte() & 0xFF;
+      long run = readLong(buffer);
+      for (long i = 0; i < run; i++) {
+        long index = previousIndex + readLong(buffer) + 1;
+        long term = previousTerm + unzigzag(readLong(buffer));
+        previousIndex = index;
+        previousTerm = term;
+
+        long entryTimestamp = 0;
+        if (type != RAW && type != OBJECT) {
+          entryTimestamp = timestamp + unzigzag(readLong(buffer));
+          if (timestamp == 0) {
+            timestamp = entryTimestamp;
+          }
+        }
+
+        Entry entry = readEntry(type, buffer, serializer);
+        if (type != RAW && type != OBJECT) {
+          ((TimestampedEntry) entry).setTimestamp(entryTimestamp);
+        }
+        entries.add(entry.setIndex(index).setTerm(term));
+      }
+    }
+  }
+
+  /**
+   * Reads the type specific fields of an entry.
+   */
+  private static Entry readEntry(int type, BufferInput<?> buffer, Serializer serializer) {
+    switch (type) {
+      case RAW:
+        int rawType = (int) readLong(buffer);
+        byte[] bytes = new byte[(int) readLong(buffer)];
+        buffer.read(bytes);
+        return new RawEntry()
+          .setType(rawType)
+          .setBytes(HeapBuffer.allocate(bytes.length).write(bytes).flip())
+          .setSize(bytes.length);
+      case OBJECT:
+        return serializer.readObject(buffer);
+      case COMMAND:
+        return new CommandEntry()
+          .setSession(readLong(buffer))
+          .setSequence(readLong(buffer))
+          .setCommand(serializer.readObject(buffer));
+      case KEEP_ALIVE:
+        return new KeepAliveEntry()
+          .setSession(readLong(buffer))
+          .setCommandSequence(readLong(buffer))
+          .setEventIndex(readLong(buffer));
+      case MULTI_KEEP_ALIVE:
+        int size = (int) readLong(buffer);
+        long[] sessions = new long[size];
+        long[] commandSequences = new long[size];
+        long[] eventIndexes = new long[size];
+        for (int i = 0; i < size; i++) {
+          sessions[i] = readLong(buffer);
+          commandSequences[i] = readLong(buffer);
+          eventIndexes[i] = readLong(buffer);
+        }
+        return new MultiKeepAliveEntry()
+          .setSessions(sessions)
+          .setCommandSequences(commandSequences)
+          .setEventIndexes(eventIndexes);
+      case REGISTER:
+        return new RegisterEntry()
+          .setClient(new UUID(buffer.readLong(), buffer.readLong()))
+          .setTimeout(readLong(buffer));
+      case UNREGISTER:
+        return new UnregisterEntry()
+          .setSession(readLong(buffer))
+          .setExpired(buffer.readBoolean());
+      case INITIALIZE:
+        return new InitializeEntry();
+      default:
+        throw new IllegalStateException("unknown entry type: " + type);
+    }
+  }
+
+  /**
+   * Returns the compact type of the given entry.
+   */
+  private static int typeOf(Entry entry) {
+    Class<?> type = entry.getClass();
+    if (type == RawEntry.class) {
+      return RAW;
+    } else if (type == CommandEntry.class) {
+      return COMMAND;
+    } else if (type == KeepAliveEntry.class) {
+      return KEEP_ALIVE;
+    } else if (type == MultiKeepAliveEntry.class) {
+      return MULTI_KEEP_ALIVE;
+    } else if (type == RegisterEntry.class) {
+      return REGISTER;
+    } else if (type == UnregisterEntry.class) {
+      return UNREGISTER;
+    } else if (type == InitializeEntry.class) {
+      return INITIALIZE;
+    }
+    return OBJECT;
+  }
+
+  /**
+   * Writes an unsigned variable length long.
+   */
+  private static void writeLong(long value, BufferOutput<?> buffer) {
+    while ((value & ~0x7FL) != 0) {
+      buffer.writeByte((int) ((value & 0x7F) | 0x80));
+      value >>>= 7;
+    }
+    buffer.writeByte((int) value);
+  }
+
+  /**
+   * Reads an unsigned variable length long.
+   */
+  private static long readLong(BufferInput<?> buffer) {
+    long value = 0;
+    for (int shift = 0; shift < 64; shift += 7) {
+      int b = buffer.readByte() & 0xFF;
+      value |= (long) (b & 0x7F) << shift;
+      if ((b & 0x80) == 0) {
+        return value;
+      }
+    }
+    throw new IllegalStateException("malformed variable length long");
+  }
+
+  /**
+   * Maps a signed value to an unsigned value so small negative values have short encodings.
+   */
+  private static long zigzag(long value) {
+    return (value << 1) ^ (value >> 63);
+  }
+
+  /**
+   * Maps an unsigned value back to the signed value it was {@link #zigzag(long) encoded} from.
+   */
+  private static long unzigzag(long value) {
+    return (value >>> 1) ^ -(value & 1);
+  }
+
+}
@@ -34,6 +34,11 @@ import java.util.Objects;
  * Append entries requests are at the core of the replication protocol. Leaders send append requests
  * to followers to replicate and commit log entries, and followers sent append requests to passive members
  * to replicate committed log entries.
+ * <p>
+ * Entries may be written in a {@link Builder#withCompactEntries(boolean) compact} batch encoding that reduces the
+ * per-entry overhead of indexes, terms, timestamps, and session and sequence numbers. Compact batches are flagged by a
+ * negative entry count and can only be read by members that advertise support for them via
+ * {@link io.atomix.copycat.server.response.AppendResponse#compactEntries()}.
  *
  * @author <a href="http://github.com/kuujo">Jordan Halterman</a>
  */
@@ -66,6 +71,7 @@ public class AppendRequest extends AbstractRequest {
   private List<Entry> entries;
   private long commitIndex = -1;
   private long globalIndex = -1;
+  private boolean compactEntries;
 
   /**
    * Returns the requesting node's current term.
@@ -130,6 +136,15 @@ public class AppendRequest extends AbstractRequest {
     return globalIndex;
   }
 
+  /**
+   * Returns whether the request entries are written in the compact batch encoding.
+   *
+   * @return Whether the request entries are written in the compact batch encoding.
+   */
+  public boolean compactEntries() {
+    return compactEntries;
+  }
+
   @Override
   public void writeObject(BufferOutput<?> buffer, Serializer serializer) {
     buffer.writeLong(term)
@@ -139,10 +154,15 @@ public class AppendRequest extends AbstractRequest {
       .writeLong(commitIndex)
       .writeLong(globalIndex);
 
-    buffer.writeInt(entries.size());
-    for (Entry entry : entries) {
-      buffer.writeLong(entry.getIndex());
-      serializer.writeObject(entry, buffer);
+    if (compactEntries && !entries.isEmpty()) {
+      buffer.writeInt(-entries.size());
+      AppendEntriesCodec.write(entries, logIndex, buffer, serializer);
+    } else {
+      buffer.writeInt(entries.size());
+      for (Entry entry : entries) {
+        buffer.writeLong(entry.getIndex());
+        serializer.writeObject(entry, buffer);
+      }
     }
   }
 
@@ -156,12 +176,19 @@ public class AppendRequest extends AbstractRequest {
     globalIndex = buffer.readLong();
 
     int numEntries = buffer.readInt();
-    entries = new ArrayList<>(numEntries);
-    for (int i = 0; i < numEntries; i++) {
-      long index = buffer.readLong();
-      Entry entry = serializer.readObject(buffer);
-      entry.setIndex(index);
-      entries.add(entry);
+    if (numEntries < 0) {
+      compactEntries = true;
+      entries = new ArrayList<>(-numEntries);
+      AppendEntriesCodec.read(entries, -numEntries, logIndex, buffer, serializer);
+    } else {
+      compactEntries = false;
+      entries = new ArrayList<>(numEntries);
+      for (int i = 0; i < numEntries; i++) {
+        long index = buffer.readLong();
+        Entry entry = serializer.readObject(buffer);
+        entry.setIndex(index);
+        entries.add(entry);
+      }
     }
   }
 
@@ -282,6 +309,20 @@ public class AppendRequest extends AbstractRequest {
       return this;
     }
 
+    /**
+     * Sets whether to write the request entries in the compact batch encoding.
+     * <p>
+     * Compact batches can only be read by members that support them, so this should only be enabled for
+     * members that have advertised support via {@link io.atomix.copycat.server.response.AppendResponse#compactEntries()}.
+     *
+     * @param compactEntries Whether to write the request entries in the compact batch encoding.
+     * @return The append request builder.
+     */
+    public Builder withCompactEntries(boolean compactEntries) {
+      request.compactEntries = compactEntries;
+      return this;
+    }
+
     /**
      * Sets the request commit index.
      *
@@ -22,6 +22,7 @@ import io.atomix.catalyst.serializer.SerializeWith;
 import io.atomix.catalyst.serializer.Serializer;
 import io.atomix.catalyst.util.Assert;
 import io.atomix.copycat.client.request.AbstractRequest;
+import io.atomix.copycat.server.storage.snapshot.SnapshotCompression;
 
 import java.util.Objects;
 
@@ -34,6 +35,11 @@ import java.util.Objects;
  * the follower, the snapshot is reconstructed based on the provided {@link #offset()} and other
  * metadata. The last install request will be sent with {@link #complete()} being {@code true} to
  * indicate that all chunks of the snapshot have been sent.
+ * <p>
+ * Snapshot chunks are sent in the form in which the snapshot is stored by the leader. If the snapshot
+ * is compressed, the {@link #compression()} codec is used by the follower to store the snapshot.
+ * Delta snapshots are sent with the {@link #previousIndex()} of the snapshot on which they're based,
+ * which must already have been installed on the follower.
  *
  * @author <a href="http://github.com/kuujo">Jordan Halterman</a>
  */
@@ -62,9 +68,11 @@ public class InstallRequest extends AbstractRequest {
   private long term;
   private int leader;
   protected long index;
+  protected long previousIndex;
   protected int offset;
   protected Buffer data;
   protected boolean complete;
+  protected SnapshotCompression compression = SnapshotCompression.NONE;
 
   /**
    * Returns the requesting node's current term.
@@ -93,6 +101,15 @@ public class InstallRequest extends AbstractRequest {
     return index;
   }
 
+  /**
+   * Returns the index of the snapshot on which the snapshot is based.
+   *
+   * @return The index of the previous snapshot, or {@code 0} if the snapshot is a full snapshot.
+   */
+  public long previousIndex() {
+    return previousIndex;
+  }
+
   /**
    * Returns the offset of the snapshot chunk.
    *
@@ -120,13 +137,24 @@ public class InstallRequest extends AbstractRequest {
     return complete;
   }
 
+  /**
+   * Returns the snapshot compression codec.
+   *
+   * @return The snapshot compression codec.
+   */
+  public SnapshotCompression compression() {
+    return compression;
+  }
+
   @Override
   public void writeObject(BufferOutput<?> buffer, Serializer serializer) {
     buffer.writeLong(term)
       .writeInt(leader)
       .writeLong(index)
+      .writeLong(previousIndex)
       .writeInt(offset)
-      .writeBoolean(complete);
+      .writeBoolean(complete)
+      .writeByte(compression.id());
     serializer.writeObject(data, buffer);
   }
 
@@ -135,14 +163,16 @@ public class InstallRequest extends AbstractRequest {
     term = buffer.readLong();
     leader = buffer.readInt();
     index = buffer.readLong();
+    previousIndex = buffer.readLong();
     offset = buffer.readInt();
     complete = buffer.readBoolean();
+    compression = SnapshotCompression.forId(buffer.readByte());
     data = serializer.<Buffer>readObject(buffer).flip();
   }
 
   @Override
   public int hashCode() {
-    return Objects.hash(getClass(), term, leader, index, offset, complete, data);
+    return Objects.hash(getClass(), term, leader, index, previousIndex, offset, complete, compression, data);
   }
 
   @Override
@@ -152,8 +182,10 @@ public class InstallRequest extends AbstractRequest {
       return request.term == term
         && request.leader == leader
         && request.index == index
+        && request.previousIndex == previousIndex
         && request.offset == offset
         && request.complete == complete
+        && request.compression == compression
         && request.data == data;
     }
     return false;
@@ -161,7 +193,7 @@ public class InstallRequest extends AbstractRequest {
 
   @Override
   public String toString() {
-    return String.format("%s[term=%d, leader=%d, index=%d, offset=%d, data=%s, complete=%b]", getClass().getSimpleName(), term, leader, index, offset, data, complete);
+    return String.format("%s[term=%d, leader=%d, index=%d, previousIndex=%d, offset=%d, data=%s, complete=%b, compression=%s]", getClass().getSimpleName(), term, leader, index, previousIndex, offset, data, complete, compression);
   }
 
   /**
@@ -207,6 +239,17 @@ public class InstallRequest extends AbstractRequest {
       return this;
     }
 
+    /**
+     * Sets the index of the snapshot on which the snapshot is based.
+     *
+     * @param previousIndex The index of the previous snapshot, or {@code 0} for full snapshots.
+     * @return The request builder.
+     */
+    public Builder withPreviousIndex(long previousIndex) {
+      request.previousIndex = Assert.argNot(previousIndex, previousIndex < 0, "previousIndex must be positive");
+      return this;
+    }
+
     /**
      * Sets the request offset.
      *
@@ -241,6 +284,18 @@ public class InstallRequest extends AbstractRequest {
       return this;
     }
 
+    /**
+     * Sets the snapshot compression codec.
+     *
+     * @param compression The codec with which the snapshot is compressed.
+     * @return The request builder.
+     * @throws NullPointerException if {@code compression} is null
+     */
+    public Builder withCompression(SnapshotCompression compression) {
+      request.compression = Assert.notNull(compression, "compression");
+      return this;
+    }
+
     /**
      * @throws IllegalStateException if member is null
      */
@@ -0,0 +1,80 @@
+/*
+ * Copyright 2015 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.atomix.copycat.server.request;
+
+import io.atomix.catalyst.serializer.SerializeWith;
+import io.atomix.copycat.client.request.AbstractRequest;
+
+import java.util.Objects;
+
+/**
+ * Server read index request.
+ * <p>
+ * Read index requests are sent by followers to the leader when follower reads are enabled and a follower receives
+ * a linearizable query. Rather than forwarding the query to the leader, the follower requests the leader's current
+ * commit index. The leader confirms its leadership with a majority of the cluster and responds with the commit index
+ * from before the confirmation, and the follower applies the query to its own state machine once it has applied
+ * entries up to that index.
+ *
+ * @author <a href="http://github.com/kuujo">Jordan Halterman</a>
+ */
+@SerializeWith(id=235)
+public class ReadIndexRequest extends AbstractRequest {
+
+  /**
+   * Returns a new read index request builder.
+   *
+   * @return A new read index request builder.
+   */
+  public static Builder builder() {
+    return new Builder(new ReadIndexRequest());
+  }
+
+  /**
+   * Returns a read index request builder for an existing request.
+   *
+   * @param request The request to build.
+   * @return The read index request builder.
+   */
+  public static Builder builder(ReadIndexRequest request) {
+    return new Builder(request);
+  }
+
+  @Override
+  public int hashCode() {
+    return Objects.hash(getClass());
+  }
+
+  @Override
+  public boolean equals(Object object) {
+    return object instanceof ReadIndexRequest;
+  }
+
+  @Override
+  public String toString() {
+    return String.format("%s[]", getClass().getSimpleName());
+  }
+
+  /**
+   * Read index request builder.
+   */
+  public static class Builder extends AbstractRequest.Builder<Builder, ReadIndexRequest> {
+    protected Builder(ReadIndexRequest request) {
+      super(request);
+    }
+  }
+
+}
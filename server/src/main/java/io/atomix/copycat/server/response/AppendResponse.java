@@ -62,6 +62,7 @@ public class AppendResponse extends AbstractResponse {
   private long term;
   private boolean succeeded;
   private long logIndex;
+  private boolean compactEntries;
 
   /**
    * Returns the requesting node's current term.
@@ -90,6 +91,19 @@ public class AppendResponse extends AbstractResponse {
     return logIndex;
   }
 
+  /**
+   * Returns whether the responding member supports compact append request entry batches.
+   * <p>
+   * Support for compact batches is written as an optional trailing flag in successful responses. Members that
+   * predate compact batches do not write the flag, so their responses decode as not supporting compact batches.
+   * Error responses never advertise support.
+   *
+   * @return Whether the responding member supports compact append request entry batches.
+   */
+  public boolean compactEntries() {
+    return compactEntries;
+  }
+
   @Override
   public void readObject(BufferInput buffer, Serializer serializer) {
     status = Status.forId(buffer.readByte());
@@ -98,8 +112,10 @@ public class AppendResponse extends AbstractResponse {
       term = buffer.readLong();
       succeeded = buffer.readBoolean();
       logIndex = buffer.readLong();
+      compactEntries = buffer.hasRemaining() && buffer.readBoolean();
     } else {
       error = RaftError.forId(buffer.readByte());
+      compactEntries = false;
     }
   }
 
@@ -109,7 +125,8 @@ public class AppendResponse extends AbstractResponse {
     if (status == Response.Status.OK) {
       buffer.writeLong(term)
         .writeBoolean(succeeded)
-        .writeLong(logIndex);
+        .writeLong(logIndex)
+        .writeBoolean(compactEntries);
     } else {
       buffer.writeByte(error.id());
     }
@@ -180,6 +197,17 @@ public class AppendResponse extends AbstractResponse {
       return this;
     }
 
+    /**
+     * Sets whether the responding member supports compact append request entry batches.
+     *
+     * @param compactEntries Whether the responding member supports compact append request entry batches.
+     * @return The append response builder.
+     */
+    public Builder withCompactEntries(boolean compactEntries) {
+      response.compactEntries = compactEntries;
+      return this;
+    }
+
     /**
      * @throws IllegalStateException if status is ok and term is not positive or log index is negative
      */
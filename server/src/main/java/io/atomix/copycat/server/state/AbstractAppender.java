@@ -16,7 +16,6 @@
 package io.atomix.copycat.server.state;
 
 import io.atomix.catalyst.buffer.Buffer;
-import io.atomix.catalyst.buffer.HeapBuffer;
 import io.atomix.catalyst.transport.Connection;
 import io.atomix.catalyst.util.Assert;
 import io.atomix.copycat.client.response.Response;
@@ -27,6 +26,8 @@ import io.atomix.copycat.server.request.InstallRequest;
 import io.atomix.copycat.server.response.AppendResponse;
 import io.atomix.copycat.server.response.ConfigureResponse;
 import io.atomix.copycat.server.response.InstallResponse;
+import io.atomix.copycat.server.storage.Log;
+import io.atomix.copycat.server.storage.LogReader;
 import io.atomix.copycat.server.storage.entry.Entry;
 import io.atomix.copycat.server.storage.snapshot.Snapshot;
 import io.atomix.copycat.server.storage.snapshot.SnapshotReader;
@@ -41,37 +42,70 @@ import java.util.*;
  * @author <a href="http://github.com/kuujo>Jordan Halterman</a>
  */
 abstract class AbstractAppender implements AutoCloseable {
-  private static final int MAX_BATCH_SIZE = 1024 * 32;
+  private static final int MIN_BATCH_SIZE = 1024 * 32;
+  private static final double THROUGHPUT_WEIGHT = 0.25;
   protected final Logger LOGGER = LoggerFactory.getLogger(getClass());
   protected final ServerContext context;
-  private final Set<MemberState> appending = new HashSet<>();
+  private final Map<MemberState, Integer> appending = new HashMap<>();
   private final Set<MemberState> configuring = new HashSet<>();
-  private final Set<MemberState> installing = new HashSet<>();
+  private final Map<MemberState, Integer> installing = new HashMap<>();
+  private final Map<MemberState, SnapshotReader> snapshotReaders = new HashMap<>();
+  private Log readerLog;
+  private LogReader reader;
   protected boolean open = true;
 
   protected AbstractAppender(ServerContext context) {
     this.context = Assert.notNull(context, "context");
   }
 
+  /**
+   * Returns the number of in-flight {@link AppendRequest}s to the given member.
+   */
+  protected int appending(MemberState member) {
+    Integer count = appending.get(member);
+    return count != null ? count : 0;
+  }
+
   /**
    * Returns a boolean value indicating whether an {@link AppendRequest} can be sent to the given member.
    */
   protected boolean canAppend(MemberState member) {
-    return !appending.contains(member);
+    return appending(member) == 0;
+  }
+
+  /**
+   * Returns a boolean value indicating whether an {@link AppendRequest} can be pipelined to the given member.
+   * <p>
+   * Additional requests are pipelined only if the member is healthy, the number of in-flight requests is
+   * less than the configured append window size, and there are more entries to send to the member.
+   */
+  protected boolean canPipeline(MemberState member) {
+    int count = appending(member);
+    return count == 0 || (count < context.getAppendWindowSize()
+      && member.getFailureCount() == 0
+      && hasMoreEntries(member));
   }
 
   /**
    * Locks the {@link AppendRequest} lock for the given member.
    */
   protected boolean lockAppend(MemberState member) {
-    return appending.add(member);
+    return appending.merge(member, 1, Integer::sum) == 1;
   }
 
   /**
    * Unlocks the {@link AppendRequest} lock for the given member.
    */
   protected boolean unlockAppend(MemberState member) {
-    return appending.remove(member);
+    Integer count = appending.get(member);
+    if (count == null) {
+      return false;
+    } else if (count == 1) {
+      appending.remove(member);
+    } else {
+      appending.put(member, count - 1);
+    }
+    return true;
   }
 
   /**
@@ -95,25 +129,56 @@ abstract class AbstractAppender implements AutoCloseable {
     return configuring.remove(member);
   }
 
+  /**
+   * Returns the number of in-flight {@link InstallRequest}s to the given member.
+   */
+  protected int installing(MemberState member) {
+    Integer count = installing.get(member);
+    return count != null ? count : 0;
+  }
+
   /**
    * Returns a boolean value indicating whether an {@link InstallRequest} can be sent to the given member.
+   * <p>
+   * Additional snapshot chunks are streamed only if the member is healthy, the number of in-flight requests is
+   * less than the configured install window size, and more chunks of the snapshot being sent remain. The first
+   * chunk of a snapshot is only sent once all prior install requests to the member have completed.
    */
   protected boolean canInstall(MemberState member) {
-    return !installing.contains(member);
+    int count = installing(member);
+    if (count == 0) {
+      return true;
+    }
+
+    SnapshotReader reader = snapshotReaders.get(member);
+    Snapshot snapshot = nextSnapshot(member);
+    return count < context.getInstallWindowSize()
+      && member.getFailureCount() == 0
+      && member.getNextSnapshotOffset() > 0
+      && snapshot != null && snapshot.index() == member.getNextSnapshotIndex()
+      && reader != null && reader.hasRemaining();
   }
 
   /**
    * Locks the {@link InstallRequest} lock for the given member.
    */
   protected boolean lockInstall(MemberState member) {
-    return installing.add(member);
+    return installing.merge(member, 1, Integer::sum) == 1;
   }
 
   /**
    * Unlocks the {@link InstallRequest} lock for the given member.
    */
   protected boolean unlockInstall(MemberState member) {
-    return installing.remove(member);
+    Integer count = installing.get(member);
+    if (count == null) {
+      return false;
+    } else if (count == 1) {
+      installing.remove(member);
+    } else {
+      installing.put(member, count - 1);
+    }
+    return true;
   }
 
   /**
@@ -177,7 +242,8 @@ abstract class AbstractAppender implements AutoCloseable {
       .withLogIndex(prevEntry != null ? prevEntry.getIndex() : 0)
       .withLogTerm(prevEntry != null ? prevEntry.getTerm() : 0)
       .withCommitIndex(context.getCommitIndex())
-      .withGlobalIndex(context.getGlobalIndex());
+      .withGlobalIndex(context.getGlobalIndex())
+      .withCompactEntries(context.isCompactReplication() && member.isCompactEntries());
 
     // Calculate the starting index of the list of entries.
     final long index = prevEntry != null ? prevEntry.getIndex() + 1 : context.getLog().firstIndex();
@@ -185,20 +251,26 @@ abstract class AbstractAppender implements AutoCloseable {
     // Build a list of entries to send to the member.
     List<Entry> entries = new ArrayList<>((int) Math.min(8, context.getLog().lastIndex() - index + 1));
 
-    // Build a list of entries up to the MAX_BATCH_SIZE. Note that entries in the log may
+    // Build a list of entries up to the member's batch size. Note that entries in the log may
     // be null if they've been compacted and the member to which we're sending entries is just
     // joining the cluster or is otherwise far behind. Null entries are simply skipped and not
     // counted towards the size of the batch.
+    int batchSize = batchSize(member);
+    int maxEntries = context.getMaxAppendBatchEntries();
     int size = 0;
 
     // Iterate through remaining entries in the log up to the last index.
+    LogReader reader = reader(index);
     for (long i = index; i <= lastIndex; i++) {
       // Get the entry from the log and append it if it's not null. Entries in the log can be null
       // if they've been cleaned or compacted from the log. Each entry sent in the append request
-      // has a unique index to handle gaps in the log.
-      Entry entry = context.getLog().get(i);
+      // has a unique index to handle gaps in the log. Where possible, read the raw serialized entry
+      // to avoid deserializing and reserializing the entry when it's sent to the member.
+      Entry entry = reader.nextRaw();
       if (entry != null) {
-        if (size + entry.size() > MAX_BATCH_SIZE) {
+        // Always send at least one entry to ensure entries larger than the batch size can be replicated.
+        if (!entries.isEmpty() && (size + entry.size() > batchSize || entries.size() >= maxEntries)) {
+          entry.release();
           break;
         }
         size += entry.size();
@@ -215,6 +287,57 @@ abstract class AbstractAppender implements AutoCloseable {
     return builder.withEntries(entries).build();
   }
 
+  /**
+   * Returns the log reader positioned at the given index.
+   * <p>
+   * The reader is recreated if the server's log has been reset since the reader was created.
+   */
+  private LogReader reader(long index) {
+    Log log = context.getLog();
+    if (reader == null || readerLog != log) {
+      if (reader != null) {
+        reader.close();
+      }
+      reader = log.createReader(index);
+      readerLog = log;
+    }
+    return reader.reset(index);
+  }
+
+  /**
+   * Returns the current batch size for the given member.
+   */
+  protected int batchSize(MemberState member) {
+    int batchSize = member.getBatchSize();
+    return batchSize > 0 ? batchSize : Math.min(MIN_BATCH_SIZE, context.getMaxAppendBatchSize());
+  }
+
+  /**
+   * Adapts the batch size for the given member according to the measured round trip time of a batch of entries.
+   * <p>
+   * The throughput to the member is estimated from batches that were limited by the batch size, i.e. batches sent
+   * to a member that is catching up. Batches that were limited by the number of available entries measure latency
+   * rather than throughput and are ignored. The batch size is then computed as the number of bytes that can be
+   * transferred to the member in half a heartbeat interval, ensuring that large batches don't delay heartbeats
+   * while allowing lagging members to be caught up with far fewer round trips.
+   */
+  protected void updateBatchSize(MemberState member, int size, int count, long time) {
+    int batchSize = batchSize(member);
+    if (size < batchSize / 2 && count < context.getMaxAppendBatchEntries()) {
+      return;
+    }
+
+    double sample = size / (double) Math.max(time, 1);
+    double throughput = member.getThroughput() > 0 ? member.getThroughput() * (1 - THROUGHPUT_WEIGHT) + sample * THROUGHPUT_WEIGHT : sample;
+    member.setThroughput(throughput);
+
+    // Limit growth to doubling the batch size per round trip to avoid overwhelming the member.
+    long targetSize = (long) (throughput * Math.max(context.getHeartbeatInterval().toMillis() / 2, 1));
+    int maxSize = context.getMaxAppendBatchSize();
+    int minSize = Math.min(MIN_BATCH_SIZE, maxSize);
+    member.setBatchSize((int) Math.max(Math.min(Math.min(targetSize, (long) batchSize * 2), maxSize), minSize));
+  }
+
   /**
    * Gets the previous entry.
    */
@@ -238,6 +361,12 @@ abstract class AbstractAppender implements AutoCloseable {
     // Lock appending to this member.
     lockAppend(member);
 
+    // Optimistically advance the member's nextIndex past the entries being sent to allow the next batch of
+    // entries to be pipelined. If the request fails, the nextIndex will be rolled back.
+    if (!request.entries().isEmpty()) {
+      member.setNextIndex(Math.max(member.getNextIndex(), request.entries().get(request.entries().size() - 1).getIndex() + 1));
+    }
+
     LOGGER.debug("{} - Sent {} to {}", context.getCluster().member().address(), request, member.getMember().address());
     context.getConnections().getConnection(member.getMember().address()).whenComplete((connection, error) -> {
       context.checkThread();
@@ -260,6 +389,15 @@ abstract class AbstractAppender implements AutoCloseable {
    * Sends a commit message.
    */
   protected void sendAppendRequest(Connection connection, MemberState member, AppendRequest request) {
+    // Record the size of the batch and the time at which it was sent to adapt the member's batch size.
+    int size = 0;
+    for (Entry entry : request.entries()) {
+      size += entry.size();
+    }
+    final int batchSize = size;
+    final int batchCount = request.entries().size();
+    final long startTime = System.currentTimeMillis();
+
     connection.<AppendRequest, AppendResponse>send(request).whenComplete((response, error) -> {
       context.checkThread();
 
@@ -269,6 +407,9 @@ abstract class AbstractAppender implements AutoCloseable {
       if (open) {
         if (error == null) {
           LOGGER.debug("{} - Received {} from {}", context.getCluster().member().address(), response, member.getMember().address());
+          if (batchCount > 0 && response.status() == Response.Status.OK && response.succeeded()) {
+            updateBatchSize(member, batchSize, batchCount, System.currentTimeMillis() - startTime);
+          }
           handleAppendResponse(member, request, response);
         } else {
           handleAppendResponseFailure(member, request, error);
@@ -281,6 +422,9 @@ abstract class AbstractAppender implements AutoCloseable {
    * Handles an append failure.
    */
   protected void handleAppendRequestFailure(MemberState member, AppendRequest request, Throwable error) {
+    // Roll back the member's nextIndex to resend the failed entries.
+    rollbackNextIndex(member, request);
+
     // Log the failed attempt to contact the member.
     failAttempt(member, error);
   }
@@ -289,6 +433,9 @@ abstract class AbstractAppender implements AutoCloseable {
    * Handles an append failure.
    */
   protected void handleAppendResponseFailure(MemberState member, AppendRequest request, Throwable error) {
+    // Roll back the member's nextIndex to resend the failed entries.
+    rollbackNextIndex(member, request);
+
     // Log the failed attempt to contact the member.
     failAttempt(member, error);
   }
@@ -298,6 +445,8 @@ abstract class AbstractAppender implements AutoCloseable {
    */
   protected void handleAppendResponse(MemberState member, AppendRequest request, AppendResponse response) {
     if (response.status() == Response.Status.OK) {
+      // Successful responses advertise whether the member can read compact entry batches.
+      member.setCompactEntries(response.compactEntries());
       handleAppendResponseOk(member, request, response);
     } else {
       handleAppendResponseError(member, request, response);
@@ -343,6 +492,9 @@ abstract class AbstractAppender implements AutoCloseable {
    * Handles a {@link Response.Status#ERROR} response.
    */
   protected void handleAppendResponseError(MemberState member, AppendRequest request, AppendResponse response) {
+    // Roll back the member's nextIndex to resend the failed entries.
+    rollbackNextIndex(member, request);
+
     // If any other error occurred, increment the failure count for the member. Log the first three failures,
     // and thereafter log 1% of the failures. This keeps the log from filling up with annoying error messages
     // when attempting to send entries to down followers.
@@ -385,8 +537,13 @@ abstract class AbstractAppender implements AutoCloseable {
    * Updates the match index when a response is received.
    */
   protected void updateMatchIndex(MemberState member, AppendResponse response) {
-    // If the replica returned a valid match index then update the existing match index.
-    member.setMatchIndex(response.logIndex());
+    // If the replica returned a valid match index then update the existing match index. If other requests
+    // are still in flight, responses may be received out of order, so never decrease the match index.
+    if (appending(member) > 0) {
+      member.setMatchIndex(Math.max(member.getMatchIndex(), response.logIndex()));
+    } else {
+      member.setMatchIndex(response.logIndex());
+    }
   }
 
   /**
@@ -394,14 +551,41 @@ abstract class AbstractAppender implements AutoCloseable {
    */
   protected void updateNextIndex(MemberState member) {
     // If the match index was set, update the next index to be greater than the match index if necessary.
-    member.setNextIndex(Math.max(member.getMatchIndex() + 1, 1));
+    // If other requests are still in flight, the nextIndex has been optimistically advanced past the
+    // entries in those requests, so don't move it backwards.
+    if (appending(member) > 0) {
+      member.setNextIndex(Math.max(member.getNextIndex(), Math.max(member.getMatchIndex() + 1, 1)));
+    } else {
+      member.setNextIndex(Math.max(member.getMatchIndex() + 1, 1));
+    }
+  }
+
+  /**
+   * Rolls back the next index when an append request fails.
+   */
+  protected void rollbackNextIndex(MemberState member, AppendRequest request) {
+    // If the nextIndex was optimistically advanced past the entries in the failed request, reset the
+    // nextIndex to the first entry in the request to ensure the entries are resent. If a later pipelined
+    // request already succeeded, entries up to the member's matchIndex are known to be stored, so the
+    // nextIndex is never rolled back below matchIndex + 1.
+    long nextIndex = Math.max(member.getMatchIndex() + 1, request.logIndex() + 1);
+    if (!request.entries().isEmpty() && member.getNextIndex() > nextIndex) {
+      member.setNextIndex(nextIndex);
+      LOGGER.debug("{} - Rolled back next index for {} to {}", context.getCluster().member().address(), member, member.getNextIndex());
+    }
   }
 
   /**
    * Resets the match index when a response fails.
    */
   protected void resetMatchIndex(MemberState member, AppendResponse response) {
-    member.setMatchIndex(response.logIndex());
+    // If other requests are still in flight, a stale failure response may be received after later requests have
+    // already been acknowledged, so only reset the match index once no other requests are in flight.
+    if (appending(member) > 0) {
+      member.setMatchIndex(Math.max(member.getMatchIndex(), response.logIndex()));
+    } else {
+      member.setMatchIndex(response.logIndex());
+    }
     LOGGER.debug("{} - Reset match index for {} to {}", context.getCluster().member().address(), member, member.getMatchIndex());
   }
 
@@ -528,41 +712,93 @@ abstract class AbstractAppender implements AutoCloseable {
     // This prevents infinite loops when cluster configurations fail.
   }
 
+  /**
+   * Returns the next snapshot to send to the given member.
+   * <p>
+   * If the member has already installed a snapshot in the current snapshot chain, only the following delta
+   * snapshot needs to be sent. Otherwise, the chain is sent from the full snapshot at its head.
+   */
+  protected Snapshot nextSnapshot(MemberState member) {
+    Snapshot snapshot = context.getSnapshotStore().currentSnapshot();
+    if (snapshot == null) {
+      return null;
+    }
+
+    List<Snapshot> chain = context.getSnapshotStore().chain(snapshot);
+    for (Snapshot delta : chain) {
+      if (delta.isDelta() && delta.previousIndex() == member.getSnapshotIndex()) {
+        return delta;
+      }
+    }
+    return !chain.isEmpty() ? chain.get(0) : snapshot;
+  }
+
   /**
    * Builds an install request for the given member.
    */
   protected InstallRequest buildInstallRequest(MemberState member) {
-    Snapshot snapshot = context.getSnapshotStore().currentSnapshot();
+    Snapshot snapshot = nextSnapshot(member);
     if (member.getNextSnapshotIndex() != snapshot.index()) {
       member.setNextSnapshotIndex(snapshot.index()).setNextSnapshotOffset(0);
     }
 
-    InstallRequest request;
-    synchronized (snapshot) {
-      // Open a new snapshot reader.
-      try (SnapshotReader reader = snapshot.reader()) {
-        // Skip to the next batch of bytes according to the snapshot chunk size and current offset.
-        reader.skip(member.getNextSnapshotOffset() * MAX_BATCH_SIZE);
-        Buffer buffer = HeapBuffer.allocate(Math.min(MAX_BATCH_SIZE, reader.remaining()));
-        reader.read(buffer);
-
-        // Create the install request, indicating whether this is the last chunk of data based on the number
-        // of bytes remaining in the buffer.
-        ServerMember leader = context.getLeader();
-        request = InstallRequest.builder()
-          .withTerm(context.getTerm())
-          .withLeader(leader != null ? leader.id() : 0)
-          .withIndex(member.getNextSnapshotIndex())
-          .withOffset(member.getNextSnapshotOffset())
-          .withData(buffer.flip())
-          .withComplete(!reader.hasRemaining())
-          .build();
+    // A single reader is held open for each member for the duration of the snapshot's transfer. If this is the
+    // first chunk of the snapshot, open a new reader from which to stream the snapshot to the member. Snapshots
+    // are streamed in their stored form, so compressed snapshots are not decompressed by the leader.
+    SnapshotReader reader = snapshotReaders.get(member);
+    if (reader == null || member.getNextSnapshotOffset() == 0) {
+      closeSnapshotReader(member);
+      synchronized (snapshot) {
+        reader = snapshot.rawReader();
       }
+      snapshotReaders.put(member, reader);
     }
 
+    // Read the next chunk of the snapshot as a view of the snapshot's underlying buffer rather than copying it.
+    Buffer buffer = reader.slice(Math.min(context.getSnapshotChunkSize(), reader.remaining()));
+
+    // Create the install request, indicating whether this is the last chunk of data based on the number
+    // of bytes remaining in the reader.
+    ServerMember leader = context.getLeader();
+    InstallRequest request = InstallRequest.builder()
+      .withTerm(context.getTerm())
+      .withLeader(leader != null ? leader.id() : 0)
+      .withIndex(member.getNextSnapshotIndex())
+      .withPreviousIndex(snapshot.previousIndex())
+      .withOffset(member.getNextSnapshotOffset())
+      .withData(buffer)
+      .withComplete(!reader.hasRemaining())
+      .withCompression(snapshot.compression())
+      .build();
+
+    // Advance the member's snapshot offset to allow the next chunk to be streamed before a response is received.
+    member.setNextSnapshotOffset(member.getNextSnapshotOffset() + 1);
     return request;
   }
 
+  /**
+   * Closes the snapshot reader for the given member.
+   */
+  private void closeSnapshotReader(MemberState member) {
+    SnapshotReader reader = snapshotReaders.remove(member);
+    if (reader != null) {
+      reader.close();
+    }
+  }
+
+  /**
+   * Resets the snapshot being sent to the given member.
+   * <p>
+   * The snapshot is only reset if the failed request was for the snapshot currently being sent to the member.
+   * Once all in-flight install requests have completed, the snapshot will be resent from the first chunk.
+   */
+  private void resetInstall(MemberState member, InstallRequest request) {
+    if (request.index() == member.getNextSnapshotIndex()) {
+      member.setNextSnapshotIndex(0).setNextSnapshotOffset(0);
+      closeSnapshotReader(member);
+    }
+  }
+
   /**
    * Connects to the member and sends a snapshot request.
    */
@@ -616,6 +852,10 @@ abstract class AbstractAppender implements AutoCloseable {
    * Handles an install request failure.
    */
   protected void handleInstallRequestFailure(MemberState member, InstallRequest request, Throwable error) {
+    // Reset the member's snapshot index and offset to resend the snapshot from the start since
+    // subsequent chunks may have already been read from the member's snapshot reader.
+    resetInstall(member, request);
+
     // Log the failed attempt to contact the member.
     failAttempt(member, error);
   }
@@ -626,7 +866,7 @@ abstract class AbstractAppender implements AutoCloseable {
   protected void handleInstallResponseFailure(MemberState member, InstallRequest request, Throwable error) {
     // Reset the member's snapshot index and offset to resend the snapshot from the start
     // once a connection to the member is re-established.
-    member.setNextSnapshotIndex(0).setNextSnapshotOffset(0);
+    resetInstall(member, request);
 
     // Log the failed attempt to contact the member.
     failAttempt(member, error);
@@ -652,15 +892,14 @@ abstract class AbstractAppender implements AutoCloseable {
     succeedAttempt(member);
 
     // If the install request was completed successfully, set the member's snapshotIndex and reset
-    // the next snapshot index/offset.
+    // the next snapshot index/offset. The member's snapshot offset is incremented as each chunk is
+    // sent, so no state needs to be updated for intermediate chunks.
     if (request.complete()) {
-      member.setSnapshotIndex(request.index())
-        .setNextSnapshotIndex(0)
-        .setNextSnapshotOffset(0);
-    }
-    // If more install requests remain, increment the member's snapshot offset.
-    else {
-      member.setNextSnapshotOffset(request.offset() + 1);
+      member.setSnapshotIndex(request.index());
+      if (request.index() == member.getNextSnapshotIndex()) {
+        member.setNextSnapshotIndex(0).setNextSnapshotOffset(0);
+        closeSnapshotReader(member);
+      }
     }
 
     // Recursively append entries to the member.
@@ -673,12 +912,24 @@ abstract class AbstractAppender implements AutoCloseable {
   @SuppressWarnings("unused")
   protected void handleInstallResponseError(MemberState member, InstallRequest request, InstallResponse response) {
     LOGGER.warn("{} - Failed to install {}", context.getCluster().member().address(), member.getMember().serverAddress());
-    member.setNextSnapshotIndex(0).setNextSnapshotOffset(0);
+
+    // If a delta snapshot was rejected, the member may not have the snapshot on which it's based. Resend the
+    // snapshot chain from the full snapshot at its head.
+    if (request.previousIndex() > 0 && request.previousIndex() == member.getSnapshotIndex()) {
+      member.setSnapshotIndex(0);
+    }
+    resetInstall(member, request);
   }
 
   @Override
   public void close() {
     open = false;
+    snapshotReaders.values().forEach(SnapshotReader::close);
+    snapshotReaders.clear();
+    if (reader != null) {
+      reader.close();
+      reader = null;
+    }
   }
 
 }
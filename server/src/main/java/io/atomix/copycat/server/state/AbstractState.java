@@ -184,11 +184,21 @@ abstract class AbstractState implements Managed<AbstractState> {
    */
   protected abstract CompletableFuture<VoteResponse> vote(VoteRequest request);
 
+  /**
+   * Handles a read index request.
+   */
+  protected abstract CompletableFuture<ReadIndexResponse> readIndex(ReadIndexRequest request);
+
   /**
    * Handles a command request.
    */
   protected abstract CompletableFuture<CommandResponse> command(CommandRequest request);
 
+  /**
+   * Handles a command batch request.
+   */
+  protected abstract CompletableFuture<CommandBatchResponse> commandBatch(CommandBatchRequest request);
+
   /**
    * Handles a query request.
    */
@@ -25,7 +25,6 @@ import io.atomix.copycat.server.request.VoteRequest;
 import io.atomix.copycat.server.response.AppendResponse;
 import io.atomix.copycat.server.response.PollResponse;
 import io.atomix.copycat.server.response.VoteResponse;
-import io.atomix.copycat.server.storage.entry.ConnectEntry;
 import io.atomix.copycat.server.storage.entry.Entry;
 
 import java.util.concurrent.CompletableFuture;
@@ -51,7 +50,7 @@ abstract class ActiveState extends PassiveState {
     // assign that term and leader to the current context and transition to follower.
     boolean transition = updateTermAndLeader(request.term(), request.leader());
 
-    CompletableFuture<AppendResponse> future = CompletableFuture.completedFuture(logResponse(handleAppend(request)));
+    CompletableFuture<AppendResponse> future = syncResponse(handleAppend(request));
 
     // If a transition is required then transition back to the follower state.
     // If the node is already a follower then the transition will be ignored.
@@ -70,6 +69,7 @@ abstract class ActiveState extends PassiveState {
         .withTerm(context.getTerm())
         .withSucceeded(false)
         .withLogIndex(context.getLog().lastIndex())
+        .withCompactEntries(true)
         .build();
     } else if (request.logIndex() != 0 && context.getLog().lastIndex() != 0 && request.logIndex() > context.getLog().lastIndex()) {
       LOGGER.debug("{} - Rejected {}: Previous index ({}) is greater than the local log's last index ({})", context.getCluster().member().address(), request, request.logIndex(), context.getLog().lastIndex());
@@ -78,6 +78,7 @@ abstract class ActiveState extends PassiveState {
         .withTerm(context.getTerm())
         .withSucceeded(false)
         .withLogIndex(context.getLog().lastIndex())
+        .withCompactEntries(true)
         .build();
     }
 
@@ -90,6 +91,7 @@ abstract class ActiveState extends PassiveState {
         .withTerm(context.getTerm())
         .withSucceeded(false)
         .withLogIndex(request.logIndex() <= context.getLog().lastIndex() ? request.logIndex() - 1 : context.getLog().lastIndex())
+        .withCompactEntries(true)
         .build();
     } else {
       return appendEntries(request);
@@ -128,10 +130,7 @@ abstract class ActiveState extends PassiveState {
         }
 
         // If the entry is a connect entry then immediately configure the connection.
-        if (entry instanceof ConnectEntry) {
-          ConnectEntry connectEntry = (ConnectEntry) entry;
-          context.getStateMachine().executor().context().sessions().registerAddress(connectEntry.getClient(), connectEntry.getAddress());
-        }
+        registerConnection(entry);
       }
     }
 
@@ -147,6 +146,7 @@ abstract class ActiveState extends PassiveState {
       .withTerm(context.getTerm())
       .withSucceeded(true)
       .withLogIndex(context.getLog().lastIndex())
+      .withCompactEntries(true)
       .build();
   }
 
@@ -0,0 +1,143 @@
+/*
+ * Copyright 2015 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.atomix.copycat.server.state;
+
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Ring buffer of futures awaiting the commitment of log indexes.
+ * <p>
+ * Futures are registered in increasing index order as entries are appended to the leader's log and are completed
+ * in index order as the commit index advances. Indexes are stored in a primitive array alongside their futures,
+ * so completing futures is a single pass over the head of the ring. Futures for indexes lower than the last
+ * registered index are completed with the next registered future. This class is not thread safe.
+ *
+ * @author <a href="http://github.com/kuujo">Jordan Halterman</a>
+ */
+final class CommitQueue {
+  private static final int DEFAULT_CAPACITY = 64;
+  private long[] indexes;
+  private CompletableFuture<Long>[] futures;
+  private int head;
+  private int size;
+
+  CommitQueue() {
+    this(DEFAULT_CAPACITY);
+  }
+
+  @SuppressWarnings("unchecked")
+  CommitQueue(int capacity) {
+    int length = Integer.highestOneBit(Math.max(capacity, 2) - 1) << 1;
+    this.indexes = new long[length];
+    this.futures = new CompletableFuture[length];
+  }
+
+  /**
+   * Returns the number of registered futures.
+   *
+   * @return The number of registered futures.
+   */
+  int size() {
+    return size;
+  }
+
+  /**
+   * Returns the highest registered index.
+   *
+   * @return The highest registered index or {@code 0} if no futures are registered.
+   */
+  long lastIndex() {
+    return size > 0 ? indexes[position(size - 1)] : 0;
+  }
+
+  /**
+   * Returns a future to be completed once the given index has been committed.
+   *
+   * @param index The index for which to return a future.
+   * @return A future to be completed once the given index has been committed.
+   */
+  CompletableFuture<Long> register(long index) {
+    if (size == 0 || index > lastIndex()) {
+      if (size == indexes.length) {
+        grow();
+      }
+      int position = position(size++);
+      CompletableFuture<Long> future = new CompletableFuture<>();
+      indexes[position] = index;
+      futures[position] = future;
+      return future;
+    }
+
+    // Find the first registered index greater than or equal to the index.
+    int low = 0;
+    int high = size - 1;
+    while (low < high) {
+      int mid = (low + high) >>> 1;
+      if (indexes[position(mid)] < index) {
+        low = mid + 1;
+      } else {
+        high = mid;
+      }
+    }
+
+    int position = position(low);
+    if (indexes[position] == index) {
+      return futures[position];
+    }
+    return futures[position].thenApply(commitIndex -> index);
+  }
+
+  /**
+   * Completes all futures registered for indexes less than or equal to the given commit index.
+   *
+   * @param commitIndex The commit index.
+   */
+  void complete(long commitIndex) {
+    while (size > 0 && indexes[head] <= commitIndex) {
+      long index = indexes[head];
+      CompletableFuture<Long> future = futures[head];
+      futures[head] = null;
+      head = (head + 1) & (indexes.length - 1);
+      size--;
+      future.complete(index);
+    }
+  }
+
+  /**
+   * Returns the array position of the given offset from the head of the ring.
+   */
+  private int position(int offset) {
+    return (head + offset) & (indexes.length - 1);
+  }
+
+  /**
+   * Doubles the capacity of the ring.
+   */
+  @SuppressWarnings("unchecked")
+  private void grow() {
+    long[] indexes = new long[this.indexes.length * 2];
+    CompletableFuture<Long>[] futures = new CompletableFuture[this.futures.length * 2];
+    for (int i = 0; i < size; i++) {
+      int position = position(i);
+      indexes[i] = this.indexes[position];
+      futures[i] = this.futures[position];
+    }
+    this.indexes = indexes;
+    this.futures = futures;
+    this.head = 0;
+  }
+
+}
@@ -0,0 +1,115 @@
+/*
+ * Copyright 2015 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.atomix.copycat.server.state;
+
+import io.atomix.catalyst.util.Assert;
+import io.atomix.catalyst.util.concurrent.ThreadContext;
+
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Batched completion of futures in a thread context.
+ * <p>
+ * Operations applied on the state machine thread or query threads complete their futures in the server's thread
+ * context. Rather than submitting a task to the context for each completed operation, completions are added to a
+ * lock-free queue and the context is woken at most once to drain all completions queued since its last wakeup.
+ * <p>
+ * Other tasks submitted by the state machine to the server's thread context, such as session registration,
+ * keep-alive and compaction updates, must be submitted through {@link #execute(Runnable)} rather than directly
+ * to the context's executor. A drain may already be scheduled when a completion is added, so a completion
+ * added to the queue can run before a task submitted to the executor earlier. Submitting all tasks through the
+ * queue ensures tasks and completions are run in the order in which they were added by each producer thread.
+ * To avoid starving other tasks in the context, each wakeup drains a bounded number of tasks before
+ * rescheduling itself. Tasks left in the queue remain ahead of any tasks added later.
+ *
+ * @author <a href="http://github.com/kuujo">Jordan Halterman</a>
+ */
+final class CompletionQueue {
+  private static final int MAX_DRAIN_SIZE = 1024;
+  private final ThreadContext context;
+  private final Queue<Runnable> tasks = new ConcurrentLinkedQueue<>();
+  private final AtomicBoolean scheduled = new AtomicBoolean();
+
+  CompletionQueue(ThreadContext context) {
+    this.context = Assert.notNull(context, "context");
+  }
+
+  /**
+   * Returns the context in which completions are run.
+   *
+   * @return The context in which completions are run.
+   */
+  ThreadContext context() {
+    return context;
+  }
+
+  /**
+   * Completes the given future with a result in the queue's context.
+   *
+   * @param future The future to complete.
+   * @param result The future result.
+   */
+  <T> void complete(CompletableFuture<T> future, T result) {
+    execute(() -> future.complete(result));
+  }
+
+  /**
+   * Completes the given future exceptionally in the queue's context.
+   *
+   * @param future The future to complete.
+   * @param error The future error.
+   */
+  void fail(CompletableFuture<?> future, Throwable error) {
+    Assert.notNull(error, "error");
+    execute(() -> future.completeExceptionally(error));
+  }
+
+  /**
+   * Runs the given task in the queue's context after all previously queued tasks and completions.
+   *
+   * @param task The task to run.
+   */
+  void execute(Runnable task) {
+    tasks.add(Assert.notNull(task, "task"));
+    if (scheduled.compareAndSet(false, true)) {
+      context.executor().execute(this::drain);
+    }
+  }
+
+  /**
+   * Runs queued tasks in the queue's context.
+   */
+  private void drain() {
+    for (int i = 0; i < MAX_DRAIN_SIZE; i++) {
+      Runnable task = tasks.poll();
+      if (task == null) {
+        break;
+      }
+      task.run();
+    }
+
+    // Tasks added after the last poll but before the scheduled flag is reset will not have woken the
+    // context, so reschedule the drain if any tasks remain.
+    scheduled.set(false);
+    if (!tasks.isEmpty() && scheduled.compareAndSet(false, true)) {
+      context.executor().execute(this::drain);
+    }
+  }
+
+}
@@ -131,11 +131,21 @@ class InactiveState extends AbstractState {
     return Futures.exceptionalFuture(new IllegalStateException("inactive state"));
   }
 
+  @Override
+  protected CompletableFuture<ReadIndexResponse> readIndex(ReadIndexRequest request) {
+    return Futures.exceptionalFuture(new IllegalStateException("inactive state"));
+  }
+
   @Override
   protected CompletableFuture<CommandResponse> command(CommandRequest request) {
     return Futures.exceptionalFuture(new IllegalStateException("inactive state"));
   }
 
+  @Override
+  protected CompletableFuture<CommandBatchResponse> commandBatch(CommandBatchRequest request) {
+    return Futures.exceptionalFuture(new IllegalStateException("inactive state"));
+  }
+
   @Override
   protected CompletableFuture<QueryResponse> query(QueryRequest request) {
     return Futures.exceptionalFuture(new IllegalStateException("inactive state"));
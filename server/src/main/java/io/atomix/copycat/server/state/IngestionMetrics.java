@@ -0,0 +1,119 @@
+/*
+ * Copyright 2015 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.atomix.copycat.server.state;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Leader write ingestion metrics.
+ * <p>
+ * The leader queues command requests received within a single turn of the server's event loop and appends them
+ * to the log in a single batch, along with any pending keep-alive requests. These metrics track the number and size
+ * of batches, including a histogram of batch sizes. Histogram bucket {@code i} counts batches of between
+ * {@code 2^i} and {@code 2^(i+1) - 1} requests. Metrics are updated only by the server thread but may be read
+ * from any thread.
+ *
+ * @author <a href="http://github.com/kuujo">Jordan Halterman</a>
+ */
+public final class IngestionMetrics {
+  private static final int BUCKETS = 32;
+  private final AtomicLongArray histogram = new AtomicLongArray(BUCKETS);
+  private volatile long batches;
+  private volatile long requests;
+  private volatile int maxBatchSize;
+
+  /**
+   * Records an appended batch of requests.
+   *
+   * @param batchSize The number of requests in the batch.
+   */
+  void record(int batchSize) {
+    if (batchSize <= 0) {
+      return;
+    }
+    batches++;
+    requests += batchSize;
+    if (batchSize > maxBatchSize) {
+      maxBatchSize = batchSize;
+    }
+    histogram.incrementAndGet(31 - Integer.numberOfLeadingZeros(batchSize));
+  }
+
+  /**
+   * Returns the number of batches appended.
+   *
+   * @return The number of batches appended.
+   */
+  public long batches() {
+    return batches;
+  }
+
+  /**
+   * Returns the total number of requests appended.
+   *
+   * @return The total number of requests appended.
+   */
+  public long requests() {
+    return requests;
+  }
+
+  /**
+   * Returns the average number of requests per batch.
+   *
+   * @return The average number of requests per batch.
+   */
+  public double averageBatchSize() {
+    long batches = this.batches;
+    return batches > 0 ? requests / (double) batches : 0;
+  }
+
+  /**
+   * Returns the largest number of requests appended in a single batch.
+   *
+   * @return The largest number of requests appended in a single batch.
+   */
+  public int maxBatchSize() {
+    return maxBatchSize;
+  }
+
+  /**
+   * Returns the batch size histogram.
+   * <p>
+   * The returned array is a copy of the histogram in which element {@code i} is the number of batches of
+   * between {@code 2^i} and {@code 2^(i+1) - 1} requests. Trailing empty buckets are omitted.
+   *
+   * @return The batch size histogram.
+   */
+  public long[] histogram() {
+    int length = 0;
+    long[] counts = new long[BUCKETS];
+    for (int i = 0; i < BUCKETS; i++) {
+      counts[i] = histogram.get(i);
+      if (counts[i] > 0) {
+        length = i + 1;
+      }
+    }
+    long[] result = new long[length];
+    System.arraycopy(counts, 0, result, 0, length);
+    return result;
+  }
+
+  @Override
+  public String toString() {
+    return String.format("%s[batches=%d, requests=%d, maxBatchSize=%d]", getClass().getSimpleName(), batches, requests, maxBatchSize);
+  }
+
+}
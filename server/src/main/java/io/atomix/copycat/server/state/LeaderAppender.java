@@ -27,9 +27,7 @@ import io.atomix.copycat.server.response.AppendResponse;
 import io.atomix.copycat.server.response.ConfigureResponse;
 import io.atomix.copycat.server.response.InstallResponse;
 
-import java.util.HashMap;
 import java.util.List;
-import java.util.Map;
 import java.util.concurrent.CompletableFuture;
 
 /**
@@ -46,7 +44,8 @@ final class LeaderAppender extends AbstractAppender {
   private int commitFailures;
   private CompletableFuture<Long> commitFuture;
   private CompletableFuture<Long> nextCommitFuture;
-  private final Map<Long, CompletableFuture<Long>> commitFutures = new HashMap<>();
+  private CompletableFuture<Long> syncFuture;
+  private final CommitQueue commitFutures = new CommitQueue();
 
   LeaderAppender(LeaderState leader) {
     super(leader.context);
@@ -136,26 +135,48 @@ final class LeaderAppender extends AbstractAppender {
     if (index <= context.getCommitIndex())
       return CompletableFuture.completedFuture(index);
 
-    // If there are no other stateful servers in the cluster, immediately commit the index.
+    // If there are no other stateful servers in the cluster, commit the index once it's been synced to disk.
     if (context.getClusterState().getActiveMemberStates().isEmpty() && context.getClusterState().getPassiveMemberStates().isEmpty()) {
-      context.setCommitIndex(index);
-      context.setGlobalIndex(index);
-      return CompletableFuture.completedFuture(index);
+      return context.getLog().sync(index).thenApply(syncIndex -> {
+        context.setCommitIndex(index);
+        context.setGlobalIndex(index);
+        return index;
+      });
     }
-    // If there are no other active members in the cluster, update the commit index and complete the commit.
-    // The updated commit index will be sent to passive/reserve members on heartbeats.
+    // If there are no other active members in the cluster, update the commit index and complete the commit
+    // once the index has been synced to disk. The updated commit index will be sent to passive/reserve members
+    // on heartbeats.
     else if (context.getClusterState().getActiveMemberStates().isEmpty()) {
-      context.setCommitIndex(index);
-      return CompletableFuture.completedFuture(index);
+      return context.getLog().sync(index).thenApply(syncIndex -> {
+        context.setCommitIndex(index);
+        return index;
+      });
     }
 
-    // Only send entry-specific AppendRequests to active members of the cluster.
-    return commitFutures.computeIfAbsent(index, i -> {
+    // Only send entry-specific AppendRequests to active members of the cluster. Replication is triggered only
+    // for indexes beyond the last registered index. Appending an earlier index in a batch shares the replication
+    // round already triggered for the batch's last index.
+    boolean replicate = index > commitFutures.lastIndex();
+    CompletableFuture<Long> future = commitFutures.register(index);
+    if (replicate) {
       for (MemberState member : context.getClusterState().getActiveMemberStates()) {
         appendEntries(member);
       }
-      return new CompletableFuture<>();
-    });
+    }
+
+    // The leader's own log counts towards the commit index only once it has been synced to disk. Sync the log
+    // concurrently with replication and check commit indexes once the sync completes. Syncs are shared by all
+    // entries in a batch, so only a single callback is registered per sync.
+    CompletableFuture<Long> syncFuture = context.getLog().sync(index);
+    if (!syncFuture.isDone() && syncFuture != this.syncFuture) {
+      this.syncFuture = syncFuture;
+      syncFuture.whenComplete((syncIndex, error) -> {
+        if (open) {
+          commitEntries();
+        }
+      });
+    }
+    return future;
   }
 
   @Override
@@ -188,17 +209,22 @@ final class LeaderAppender extends AbstractAppender {
       }
     }
     // If the member's current snapshot index is less than the latest snapshot index and the latest snapshot index
-    // is less than the nextIndex, send a snapshot request.
+    // is less than the nextIndex, send a snapshot request. If streaming is enabled, continue sending chunks of the
+    // snapshot until the member's install window is full or no more chunks remain.
     else if (member.getMember().type() == Member.Type.ACTIVE && context.getSnapshotStore().currentSnapshot() != null
       && context.getSnapshotStore().currentSnapshot().index() >= member.getNextIndex()
       && context.getSnapshotStore().currentSnapshot().index() > member.getSnapshotIndex()) {
-      if (canInstall(member)) {
+      while (canInstall(member)) {
         sendInstallRequest(member, buildInstallRequest(member));
       }
     }
-    // If no AppendRequest is already being sent, send an AppendRequest.
-    else if (canAppend(member)) {
-      sendAppendRequest(member, buildAppendRequest(member, context.getLog().lastIndex()));
+    // If no AppendRequest is already being sent, send an AppendRequest. If pipelining is enabled, continue
+    // sending AppendRequests until the member's append window is full or no more entries remain.
+    else {
+      long lastIndex = context.getLog().lastIndex();
+      while (canPipeline(member)) {
+        sendAppendRequest(member, buildAppendRequest(member, lastIndex));
+      }
     }
   }
 
@@ -297,16 +323,15 @@ final class LeaderAppender extends AbstractAppender {
     // If the active members list is empty (a configuration change occurred between an append request/response)
     // ensure all commit futures are completed and cleared.
     if (members.isEmpty()) {
-      context.setCommitIndex(context.getLog().lastIndex());
-      for (Map.Entry<Long, CompletableFuture<Long>> entry : commitFutures.entrySet()) {
-        entry.getValue().complete(entry.getKey());
-      }
-      commitFutures.clear();
+      long syncIndex = context.getLog().syncIndex();
+      context.setCommitIndex(syncIndex);
+      commitFutures.complete(syncIndex);
       return;
     }
 
-    // Calculate the current commit index as the median matchIndex.
-    long commitIndex = members.get(quorumIndex()).getMatchIndex();
+    // Calculate the current commit index as the median matchIndex. The commit index cannot exceed the
+    // leader's own sync index since the leader counts towards the quorum.
+    long commitIndex = Math.min(members.get(quorumIndex()).getMatchIndex(), context.getLog().syncIndex());
 
     // If the commit index has increased then update the commit index. Note that in order to ensure
     // the leader completeness property holds, we verify that the commit index is greater than or equal to
@@ -315,13 +340,8 @@ final class LeaderAppender extends AbstractAppender {
     if (commitIndex > 0 && commitIndex > previousCommitIndex && (leaderIndex > 0 && commitIndex >= leaderIndex)) {
       context.setCommitIndex(commitIndex);
 
-      // Iterate from the previous commitIndex to the updated commitIndex and remove and complete futures.
-      for (long i = previousCommitIndex + 1; i <= commitIndex; i++) {
-        CompletableFuture<Long> future = commitFutures.remove(i);
-        if (future != null) {
-          future.complete(i);
-        }
-      }
+      // Complete futures registered for indexes up to the updated commitIndex.
+      commitFutures.complete(commitIndex);
     }
   }
 
@@ -15,11 +15,13 @@
  */
 package io.atomix.copycat.server.state;
 
+import io.atomix.catalyst.transport.Address;
 import io.atomix.catalyst.transport.Connection;
 import io.atomix.catalyst.util.concurrent.ComposableFuture;
 import io.atomix.catalyst.util.concurrent.Scheduled;
 import io.atomix.copycat.client.Command;
 import io.atomix.copycat.client.Query;
+import io.atomix.copycat.client.error.NoLeaderException;
 import io.atomix.copycat.client.error.RaftError;
 import io.atomix.copycat.client.error.RaftException;
 import io.atomix.copycat.client.request.*;
@@ -33,9 +35,16 @@ import io.atomix.copycat.server.storage.entry.*;
 import io.atomix.copycat.server.storage.system.Configuration;
 
 import java.time.Duration;
+import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.CompletionException;
+import java.util.function.BiConsumer;
 import java.util.stream.Collectors;
 
 /**
@@ -44,8 +53,15 @@ import java.util.stream.Collectors;
  * @author <a href="http://github.com/kuujo">Jordan Halterman</a>
  */
 final class LeaderState extends ActiveState {
+  private static final int MAX_KEEP_ALIVE_BATCH_SIZE = 1024 * 8;
   private final LeaderAppender appender;
+  private final List<PendingKeepAlive> pendingKeepAlives = new ArrayList<>();
+  private List<PendingCommand> pendingCommands = new ArrayList<>();
+  private boolean appendingCommands;
+  private List<PendingRead> pendingReads = new ArrayList<>();
+  private boolean confirmingReads;
   private Scheduled appendTimer;
+  private Scheduled keepAliveTimer;
   private long configuring;
 
   public LeaderState(ServerContext context) {
@@ -80,6 +96,7 @@ final class LeaderState extends ActiveState {
   private void takeLeadership() {
     context.setLeader(context.getCluster().member().id());
     context.getClusterState().getRemoteMemberStates().forEach(m -> m.resetState(context.getLog()));
+    context.getStateMachine().executor().context().sessions().collectSuspects(true);
   }
 
   /**
@@ -150,19 +167,25 @@ final class LeaderState extends ActiveState {
    * <p>
    * Copycat allows only leaders to explicitly unregister sessions due to expiration. This ensures
    * that sessions cannot be expired by lengthy election periods or other disruptions to time.
-   * To do so, the leader periodically iterates through registered sessions and checks for sessions
-   * that have been marked suspicious. The internal state machine marks sessions as suspicious when
-   * keep alive entries are not committed for longer than the session timeout. Once the leader marks
-   * a session as suspicious, it will log and replicate an {@link UnregisterEntry} to unregister the session.
+   * To do so, the leader periodically iterates through sessions that have been marked suspicious.
+   * The internal state machine marks sessions as suspicious when keep alive entries are not committed
+   * for longer than the session timeout. Once the leader finds a suspicious session, it will log and
+   * replicate an {@link UnregisterEntry} to unregister the session.
    */
   private void checkSessions() {
     long term = context.getTerm();
 
-    // Iterate through all currently registered sessions.
-    for (ServerSession session : context.getStateMachine().executor().context().sessions().sessions.values()) {
+    // Iterate through sessions that have been marked suspicious by the state machine. Sessions that have since
+    // been trusted, expired or closed are removed from the set of suspects.
+    Iterator<ServerSession> iterator = context.getStateMachine().executor().context().sessions().suspects().iterator();
+    while (iterator.hasNext()) {
+      ServerSession session = iterator.next();
+      if (session.state() != Session.State.UNSTABLE) {
+        iterator.remove();
+      }
       // If the session isn't already being unregistered by this leader and a keep-alive entry hasn't
       // been committed for the session in some time, log and commit a new UnregisterEntry.
-      if (session.state() == Session.State.UNSTABLE && !session.isUnregistering()) {
+      else if (!session.isUnregistering()) {
         LOGGER.debug("{} - Detected expired session: {}", context.getCluster().member().address(), session.id());
 
         // Log the unregister entry, indicating that the session was explicitly unregistered by the leader.
@@ -187,6 +210,9 @@ final class LeaderState extends ActiveState {
         // Mark the session as being unregistered in order to ensure this leader doesn't attempt
         // to unregister it again.
         session.unregister();
+        iterator.remove();
+      } else {
+        iterator.remove();
       }
     }
   }
@@ -445,6 +471,7 @@ final class LeaderState extends ActiveState {
         .withTerm(context.getTerm())
         .withSucceeded(false)
         .withLogIndex(context.getLog().lastIndex())
+        .withCompactEntries(true)
         .build()));
     } else {
       context.setLeader(request.leader()).transition(CopycatServer.State.FOLLOWER);
@@ -480,68 +507,169 @@ final class LeaderState extends ActiveState {
       return future;
     }
 
-    final long term = context.getTerm();
-    final long timestamp = System.currentTimeMillis();
-    final long index;
+    queueCommand(new PendingCommand(request.session(), request.sequence(), command, future));
 
-    // Create a CommandEntry and append it to the log.
-    try (CommandEntry entry = context.getLog().create(CommandEntry.class)) {
-      entry.setTerm(term)
-        .setSession(request.session())
-        .setTimestamp(timestamp)
-        .setSequence(request.sequence())
-        .setCommand(command);
-      index = context.getLog().append(entry);
-      LOGGER.debug("{} - Appended {} to log at index {}", context.getCluster().member().address(), entry, index);
+    // Set the last processed request for the session. This will cause sequential command callbacks to be executed.
+    session.setRequestSequence(request.sequence());
+
+    return future;
+  }
+
+  @Override
+  protected CompletableFuture<CommandBatchResponse> commandBatch(final CommandBatchRequest request) {
+    context.checkThread();
+    logRequest(request);
+
+    // Get the client's server session. If the session doesn't exist, return an unknown session error.
+    ServerSession session = context.getStateMachine().executor().context().sessions().getSession(request.session());
+    if (session == null) {
+      return CompletableFuture.completedFuture(logResponse(CommandBatchResponse.builder()
+        .withStatus(Response.Status.ERROR)
+        .withError(RaftError.Type.UNKNOWN_SESSION_ERROR)
+        .build()));
     }
 
-    appender.appendEntries(index).whenComplete((commitIndex, commitError) -> {
+    ComposableFuture<CommandBatchResponse> future = new ComposableFuture<>();
+
+    // As with individual commands, queue the batch if commands prior to the first command in the batch
+    // have not yet been received.
+    if (request.sequence() > session.nextRequestSequence()) {
+      session.registerRequest(request.sequence(), () -> context.getThreadContext().executor().execute(() -> commandBatch(request).whenComplete(future)));
+      return future;
+    }
+
+    // Queue all the commands in the batch so they're appended to the log and replicated together.
+    List<Command> commands = request.commands();
+    List<CompletableFuture<CommandResponse>> futures = new ArrayList<>(commands.size());
+    for (int i = 0; i < commands.size(); i++) {
+      CompletableFuture<CommandResponse> commandFuture = new CompletableFuture<>();
+      queueCommand(new PendingCommand(request.session(), request.sequence() + i, commands.get(i), commandFuture));
+      futures.add(commandFuture);
+    }
+
+    CompletableFuture.allOf(futures.toArray(new CompletableFuture[futures.size()])).whenComplete((result, error) -> {
+      future.complete(logResponse(CommandBatchResponse.builder()
+        .withStatus(Response.Status.OK)
+        .withResponses(futures.stream().map(CompletableFuture::join).collect(Collectors.toList()))
+        .build()));
+    });
+
+    // Set the last processed request for the session to the last command in the batch.
+    session.setRequestSequence(request.sequence() + commands.size() - 1);
+
+    return future;
+  }
+
+  /**
+   * Queues a command to be appended to the log.
+   * <p>
+   * Commands received within a single turn of the server's event loop are appended to the log together once the
+   * current turn completes, and a single replication round is triggered for the batch.
+   */
+  private void queueCommand(PendingCommand command) {
+    pendingCommands.add(command);
+    if (!appendingCommands) {
+      appendingCommands = true;
+      context.getThreadContext().executor().execute(this::appendCommands);
+    }
+  }
+
+  /**
+   * Appends all queued commands to the log and replicates them in a single round.
+   * <p>
+   * Pending keep-alives are committed along with the commands to share the replication round. Since the keep-alive
+   * entry is appended last, committing it triggers replication of the entire batch, and the futures registered for
+   * the commands are completed as the commit index passes each command's index.
+   */
+  private void appendCommands() {
+    appendingCommands = false;
+    if (!isOpen() || pendingCommands.isEmpty()) {
+      return;
+    }
+
+    final List<PendingCommand> commands = pendingCommands;
+    pendingCommands = new ArrayList<>();
+
+    final long[] indexes = new long[commands.size()];
+    for (int i = 0; i < commands.size(); i++) {
+      PendingCommand command = commands.get(i);
+      indexes[i] = appendCommand(command.session, command.sequence, command.command);
+    }
+
+    int keepAlives = pendingKeepAlives.size();
+    commitKeepAlives();
+    context.getIngestionMetrics().record(commands.size() + keepAlives);
+
+    appender.appendEntries(indexes[indexes.length - 1]).whenComplete((commitIndex, commitError) -> {
       context.checkThread();
       if (isOpen()) {
-        if (commitError == null) {
-          context.getStateMachine().apply(index).whenComplete((result, error) -> {
-            if (isOpen()) {
-              if (error == null) {
-                future.complete(logResponse(CommandResponse.builder()
-                  .withStatus(Response.Status.OK)
-                  .withIndex(commitIndex)
-                  .withResult(result)
-                  .build()));
-              } else if (error instanceof CompletionException && error.getCause() instanceof RaftException) {
-                future.complete(logResponse(CommandResponse.builder()
-                  .withStatus(Response.Status.ERROR)
-                  .withIndex(commitIndex)
-                  .withError(((RaftException) error.getCause()).getType())
-                  .build()));
-              } else if (error instanceof RaftException) {
-                future.complete(logResponse(CommandResponse.builder()
-                  .withStatus(Response.Status.ERROR)
-                  .withIndex(commitIndex)
-                  .withError(((RaftException) error).getType())
-                  .build()));
-              } else {
-                future.complete(logResponse(CommandResponse.builder()
-                  .withStatus(Response.Status.ERROR)
-                  .withIndex(commitIndex)
-                  .withError(RaftError.Type.INTERNAL_ERROR)
-                  .build()));
-              }
-              checkSessions();
-            }
-          });
-        } else {
-          future.complete(logResponse(CommandResponse.builder()
-            .withStatus(Response.Status.ERROR)
-            .withError(RaftError.Type.INTERNAL_ERROR)
-            .build()));
+        for (int i = 0; i < indexes.length; i++) {
+          completeCommand(indexes[i], indexes[i], commitError, commands.get(i).future);
         }
       }
     });
+  }
 
-    // Set the last processed request for the session. This will cause sequential command callbacks to be executed.
-    session.setRequestSequence(request.sequence());
+  /**
+   * Appends a command entry to the log.
+   *
+   * @return The index of the appended entry.
+   */
+  private long appendCommand(long session, long sequence, Command command) {
+    // Create a CommandEntry and append it to the log.
+    try (CommandEntry entry = context.getLog().create(CommandEntry.class)) {
+      entry.setTerm(context.getTerm())
+        .setSession(session)
+        .setTimestamp(System.currentTimeMillis())
+        .setSequence(sequence)
+        .setCommand(command);
+      long index = context.getLog().append(entry);
+      LOGGER.debug("{} - Appended {} to log at index {}", context.getCluster().member().address(), entry, index);
+      return index;
+    }
+  }
 
-    return future;
+  /**
+   * Applies a committed command entry to the state machine and completes the command response.
+   */
+  private void completeCommand(long index, long commitIndex, Throwable commitError, CompletableFuture<CommandResponse> future) {
+    if (commitError == null) {
+      context.getStateMachine().apply(index).whenComplete((result, error) -> {
+        if (isOpen()) {
+          if (error == null) {
+            future.complete(logResponse(CommandResponse.builder()
+              .withStatus(Response.Status.OK)
+              .withIndex(commitIndex)
+              .withResult(result)
+              .build()));
+          } else if (error instanceof CompletionException && error.getCause() instanceof RaftException) {
+            future.complete(logResponse(CommandResponse.builder()
+              .withStatus(Response.Status.ERROR)
+              .withIndex(commitIndex)
+              .withError(((RaftException) error.getCause()).getType())
+              .build()));
+          } else if (error instanceof RaftException) {
+            future.complete(logResponse(CommandResponse.builder()
+              .withStatus(Response.Status.ERROR)
+              .withIndex(commitIndex)
+              .withError(((RaftException) error).getType())
+              .build()));
+          } else {
+            future.complete(logResponse(CommandResponse.builder()
+              .withStatus(Response.Status.ERROR)
+              .withIndex(commitIndex)
+              .withError(RaftError.Type.INTERNAL_ERROR)
+              .build()));
+          }
+          checkSessions();
+        }
+      });
+    } else {
+      future.complete(logResponse(CommandResponse.builder()
+        .withStatus(Response.Status.ERROR)
+        .withError(RaftError.Type.INTERNAL_ERROR)
+        .build()));
+    }
   }
 
   @Override
@@ -602,31 +730,114 @@ final class LeaderState extends ActiveState {
    */
   private CompletableFuture<QueryResponse> submitQueryLinearizable(QueryEntry entry) {
     CompletableFuture<QueryResponse> future = new CompletableFuture<>();
-    appender.appendEntries().whenComplete((commitIndex, commitError) -> {
-      context.checkThread();
-      if (isOpen()) {
-        if (commitError == null) {
-          entry.acquire();
-          applyQuery(entry, future);
-        } else {
-          future.complete(logResponse(QueryResponse.builder()
-            .withStatus(Response.Status.ERROR)
-            .withError(RaftError.Type.QUERY_ERROR)
-            .build()));
+    confirmReadIndex((readIndex, error) -> {
+      if (error == null && isOpen()) {
+        // The state machine will not apply the query until it has applied entries up to the query index.
+        if (readIndex > entry.getIndex()) {
+          entry.setIndex(readIndex);
         }
+        entry.acquire();
+        applyQuery(entry, future);
+      } else {
+        future.complete(logResponse(QueryResponse.builder()
+          .withStatus(Response.Status.ERROR)
+          .withError(error instanceof RaftException ? ((RaftException) error).getType() : RaftError.Type.QUERY_ERROR)
+          .build()));
       }
       entry.release();
     });
     return future;
   }
 
+  @Override
+  protected CompletableFuture<ReadIndexResponse> readIndex(ReadIndexRequest request) {
+    context.checkThread();
+    logRequest(request);
+
+    CompletableFuture<ReadIndexResponse> future = new CompletableFuture<>();
+    confirmReadIndex((readIndex, error) -> {
+      if (error == null && isOpen()) {
+        future.complete(logResponse(ReadIndexResponse.builder()
+          .withStatus(Response.Status.OK)
+          .withIndex(readIndex)
+          .build()));
+      } else {
+        future.complete(logResponse(ReadIndexResponse.builder()
+          .withStatus(Response.Status.ERROR)
+          .withError(RaftError.Type.NO_LEADER_ERROR)
+          .build()));
+      }
+    });
+    return future;
+  }
+
+  /**
+   * Confirms the read index for a linearizable read.
+   * <p>
+   * Reads are batched. If no read batch is being confirmed, a new batch is started for the read. Otherwise, the
+   * read is queued and will be included in the next batch once the current batch is confirmed. The callback is
+   * called with the batch's read index once leadership has been confirmed.
+   */
+  private void confirmReadIndex(BiConsumer<Long, Throwable> callback) {
+    pendingReads.add(new PendingRead(callback, System.currentTimeMillis()));
+    if (!confirmingReads) {
+      confirmReads();
+    }
+  }
+
+  /**
+   * Returns the read index for the next batch of linearizable reads.
+   * <p>
+   * Entries committed in prior terms are not necessarily reflected in the leader's commit index until the leader's
+   * initial entry has been committed, so the read index is never less than the index of the initial entry.
+   */
+  long nextReadIndex() {
+    return Math.max(context.getCommitIndex(), appender.index());
+  }
+
+  /**
+   * Confirms a batch of linearizable reads.
+   * <p>
+   * The batch's read index is the {@link #nextReadIndex() read index} at the start of the batch. Once the leader has
+   * confirmed its leadership with a heartbeat to a majority of the cluster, reads in the batch can be applied to any
+   * state machine at or after the read index. Reads received while a batch is being confirmed are added to the next batch.
+   */
+  private void confirmReads() {
+    final List<PendingRead> reads = pendingReads;
+    final long readIndex = nextReadIndex();
+    pendingReads = new ArrayList<>();
+    confirmingReads = true;
+
+    appender.appendEntries().whenComplete((commitIndex, commitError) -> {
+      context.checkThread();
+      confirmingReads = false;
+
+      long time = System.currentTimeMillis();
+      long waitTime = 0;
+      long maxWaitTime = 0;
+      for (PendingRead read : reads) {
+        long readWaitTime = time - read.timestamp;
+        waitTime += readWaitTime;
+        maxWaitTime = Math.max(maxWaitTime, readWaitTime);
+        read.callback.accept(readIndex, commitError);
+      }
+
+      context.getReadIndexMetrics().record(reads.size(), waitTime, maxWaitTime);
+      LOGGER.debug("{} - Confirmed {} reads at index {}", context.getCluster().member().address(), reads.size(), readIndex);
+
+      if (isOpen() && !pendingReads.isEmpty()) {
+        confirmReads();
+      }
+    });
+  }
+
   /**
    * Applies a query to the state machine.
    */
   private CompletableFuture<QueryResponse> applyQuery(QueryEntry entry, CompletableFuture<QueryResponse> future) {
-    // In the case of the leader, the state machine is always up to date, so no queries will be queued and all query
-    // indexes will be the last applied index.
-    final long index = context.getStateMachine().getLastApplied();
+    // The state machine will apply the query once it has applied entries up to the query index, so the query is
+    // applied at the greater of the last applied index and the query index.
+    final long index = Math.max(context.getStateMachine().getLastApplied(), entry.getIndex());
     context.getStateMachine().apply(entry).whenComplete((result, error) -> {
       if (isOpen()) {
         if (error == null) {
@@ -808,69 +1019,152 @@ final class LeaderState extends ActiveState {
 
   @Override
   protected CompletableFuture<KeepAliveResponse> keepAlive(KeepAliveRequest request) {
-    final long timestamp = System.currentTimeMillis();
-    final long index;
-
     context.checkThread();
     logRequest(request);
 
-    try (KeepAliveEntry entry = context.getLog().create(KeepAliveEntry.class)) {
+    // Keep-alive requests are batched and committed in a single entry for all sessions once the batch
+    // interval has elapsed or the batch is full.
+    CompletableFuture<KeepAliveResponse> future = new CompletableFuture<>();
+    pendingKeepAlives.add(new PendingKeepAlive(request, future));
+    if (pendingKeepAlives.size() >= MAX_KEEP_ALIVE_BATCH_SIZE) {
+      commitKeepAlives();
+    } else if (keepAliveTimer == null) {
+      keepAliveTimer = context.getThreadContext().schedule(context.getKeepAliveBatchInterval(), this::commitKeepAlives);
+    }
+    return future;
+  }
+
+  /**
+   * Commits pending keep-alive requests in a single entry.
+   * <p>
+   * Keep-alive requests from the same session are merged, so each session is represented in the entry by the highest
+   * command sequence number and event index of its requests. Once the entry has been committed and applied to the state
+   * machine, responses are sent for each pending request.
+   */
+  private void commitKeepAlives() {
+    context.checkThread();
+    if (keepAliveTimer != null) {
+      keepAliveTimer.cancel();
+      keepAliveTimer = null;
+    }
+
+    if (!isOpen() || pendingKeepAlives.isEmpty()) {
+      return;
+    }
+
+    final List<PendingKeepAlive> keepAlives = new ArrayList<>(pendingKeepAlives);
+    pendingKeepAlives.clear();
+
+    // Requests may be received out of order, so merge duplicate requests by their highest sequence numbers.
+    Map<Long, long[]> requests = new LinkedHashMap<>();
+    for (PendingKeepAlive keepAlive : keepAlives) {
+      KeepAliveRequest request = keepAlive.request;
+      long[] sequences = requests.get(request.session());
+      if (sequences == null) {
+        requests.put(request.session(), new long[]{request.commandSequence(), request.eventIndex()});
+      } else {
+        sequences[0] = Math.max(sequences[0], request.commandSequence());
+        sequences[1] = Math.max(sequences[1], request.eventIndex());
+      }
+    }
+
+    long[] sessions = new long[requests.size()];
+    long[] commandSequences = new long[requests.size()];
+    long[] eventIndexes = new long[requests.size()];
+    int i = 0;
+    for (Map.Entry<Long, long[]> request : requests.entrySet()) {
+      sessions[i] = request.getKey();
+      commandSequences[i] = request.getValue()[0];
+      eventIndexes[i] = request.getValue()[1];
+      i++;
+    }
+
+    final long index;
+    try (MultiKeepAliveEntry entry = context.getLog().create(MultiKeepAliveEntry.class)) {
       entry.setTerm(context.getTerm())
-        .setSession(request.session())
-        .setCommandSequence(request.commandSequence())
-        .setEventIndex(request.eventIndex())
-        .setTimestamp(timestamp);
+        .setSessions(sessions)
+        .setCommandSequences(commandSequences)
+        .setEventIndexes(eventIndexes)
+        .setTimestamp(System.currentTimeMillis());
       index = context.getLog().append(entry);
       LOGGER.debug("{} - Appended {}", context.getCluster().member().address(), entry);
     }
 
-    CompletableFuture<KeepAliveResponse> future = new CompletableFuture<>();
     appender.appendEntries(index).whenComplete((commitIndex, commitError) -> {
       context.checkThread();
       if (isOpen()) {
         if (commitError == null) {
-          context.getStateMachine().apply(index).whenComplete((sessionResult, sessionError) -> {
+          context.getStateMachine().apply(index).whenComplete((result, sessionError) -> {
             if (isOpen()) {
-              if (sessionError == null) {
-                future.complete(logResponse(KeepAliveResponse.builder()
-                  .withStatus(Response.Status.OK)
-                  .withLeader(context.getCluster().member().clientAddress())
-                  .withMembers(context.getCluster().members().stream()
-                    .map(Member::clientAddress)
-                    .filter(m -> m != null)
-                    .collect(Collectors.toList())).build()));
-              } else if (sessionError instanceof CompletionException && sessionError.getCause() instanceof RaftException) {
-                future.complete(logResponse(KeepAliveResponse.builder()
-                  .withStatus(Response.Status.ERROR)
-                  .withLeader(context.getCluster().member().clientAddress())
-                  .withError(((RaftException) sessionError.getCause()).getType())
-                  .build()));
-              } else if (sessionError instanceof RaftException) {
-                future.complete(logResponse(KeepAliveResponse.builder()
-                  .withStatus(Response.Status.ERROR)
-                  .withLeader(context.getCluster().member().clientAddress())
-                  .withError(((RaftException) sessionError).getType())
-                  .build()));
-              } else {
-                future.complete(logResponse(KeepAliveResponse.builder()
-                  .withStatus(Response.Status.ERROR)
-                  .withLeader(context.getCluster().member().clientAddress())
-                  .withError(RaftError.Type.INTERNAL_ERROR)
-                  .build()));
+              List<Address> members = context.getCluster().members().stream()
+                .map(Member::clientAddress)
+                .filter(m -> m != null)
+                .collect(Collectors.toList());
+              for (PendingKeepAlive keepAlive : keepAlives) {
+                if (sessionError == null && ((Set<?>) result).contains(keepAlive.request.session())) {
+                  keepAlive.future.complete(logResponse(KeepAliveResponse.builder()
+                    .withStatus(Response.Status.OK)
+                    .withLeader(context.getCluster().member().clientAddress())
+                    .withMembers(members).build()));
+                } else if (sessionError == null) {
+                  keepAlive.future.complete(logResponse(KeepAliveResponse.builder()
+                    .withStatus(Response.Status.ERROR)
+                    .withLeader(context.getCluster().member().clientAddress())
+                    .withError(RaftError.Type.UNKNOWN_SESSION_ERROR)
+                    .build()));
+                } else {
+                  keepAlive.future.complete(logResponse(KeepAliveResponse.builder()
+                    .withStatus(Response.Status.ERROR)
+                    .withLeader(context.getCluster().member().clientAddress())
+                    .withError(RaftError.Type.INTERNAL_ERROR)
+                    .build()));
+                }
               }
               checkSessions();
             }
           });
         } else {
-          future.complete(logResponse(KeepAliveResponse.builder()
-            .withStatus(Response.Status.ERROR)
-            .withLeader(context.getCluster().member().clientAddress())
-            .withError(RaftError.Type.INTERNAL_ERROR)
-            .build()));
+          for (PendingKeepAlive keepAlive : keepAlives) {
+            keepAlive.future.complete(logResponse(KeepAliveResponse.builder()
+              .withStatus(Response.Status.ERROR)
+              .withLeader(context.getCluster().member().clientAddress())
+              .withError(RaftError.Type.INTERNAL_ERROR)
+              .build()));
+          }
         }
       }
     });
-    return future;
+  }
+
+  /**
+   * Fails queued commands when the leader is closed.
+   */
+  private void cancelCommands() {
+    for (PendingCommand command : pendingCommands) {
+      command.future.complete(logResponse(CommandResponse.builder()
+        .withStatus(Response.Status.ERROR)
+        .withError(RaftError.Type.NO_LEADER_ERROR)
+        .build()));
+    }
+    pendingCommands.clear();
+  }
+
+  /**
+   * Fails pending keep-alive requests when the leader is closed.
+   */
+  private void cancelKeepAlives() {
+    if (keepAliveTimer != null) {
+      keepAliveTimer.cancel();
+      keepAliveTimer = null;
+    }
+
+    for (PendingKeepAlive keepAlive : pendingKeepAlives) {
+      keepAlive.future.complete(logResponse(KeepAliveResponse.builder()
+        .withStatus(Response.Status.ERROR)
+        .withError(RaftError.Type.NO_LEADER_ERROR)
+        .build()));
+    }
+    pendingKeepAlives.clear();
   }
 
   @Override
@@ -931,6 +1225,16 @@ final class LeaderState extends ActiveState {
     return future;
   }
 
+  /**
+   * Fails pending linearizable reads when the leader is closed.
+   */
+  private void cancelReads() {
+    for (PendingRead read : pendingReads) {
+      read.callback.accept(0L, new NoLeaderException("leader closed"));
+    }
+    pendingReads.clear();
+  }
+
   /**
    * Cancels the append timer.
    */
@@ -945,6 +1249,7 @@ final class LeaderState extends ActiveState {
    * Ensures the local server is not the leader.
    */
   private void stepDown() {
+    context.getStateMachine().executor().context().sessions().collectSuspects(false);
     if (context.getLeader() != null && context.getLeader().equals(context.getCluster().member())) {
       context.setLeader(0);
     }
@@ -955,7 +1260,53 @@ final class LeaderState extends ActiveState {
     return super.close()
       .thenRun(appender::close)
       .thenRun(this::cancelAppendTimer)
+      .thenRun(this::cancelCommands)
+      .thenRun(this::cancelKeepAlives)
+      .thenRun(this::cancelReads)
       .thenRun(this::stepDown);
   }
 
+  /**
+   * Command pending append to the log in a batch.
+   */
+  private static final class PendingCommand {
+    private final long session;
+    private final long sequence;
+    private final Command command;
+    private final CompletableFuture<CommandResponse> future;
+
+    private PendingCommand(long session, long sequence, Command command, CompletableFuture<CommandResponse> future) {
+      this.session = session;
+      this.sequence = sequence;
+      this.command = command;
+      this.future = future;
+    }
+  }
+
+  /**
+   * Keep-alive request pending commitment in a batch.
+   */
+  private static final class PendingKeepAlive {
+    private final KeepAliveRequest request;
+    private final CompletableFuture<KeepAliveResponse> future;
+
+    private PendingKeepAlive(KeepAliveRequest request, CompletableFuture<KeepAliveResponse> future) {
+      this.request = request;
+      this.future = future;
+    }
+  }
+
+  /**
+   * Linearizable read pending confirmation of its read index.
+   */
+  private static final class PendingRead {
+    private final BiConsumer<Long, Throwable> callback;
+    private final long timestamp;
+
+    private PendingRead(BiConsumer<Long, Throwable> callback, long timestamp) {
+      this.callback = callback;
+      this.timestamp = timestamp;
+    }
+  }
+
 }
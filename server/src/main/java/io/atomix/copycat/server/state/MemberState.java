@@ -35,6 +35,9 @@ final class MemberState {
   private long commitTime;
   private long commitStartTime;
   private int failures;
+  private int batchSize;
+  private double throughput;
+  private boolean compactEntries;
 
   public MemberState(ServerMember member, ClusterState cluster) {
     this.member = Assert.notNull(member, "member").setCluster(cluster);
@@ -51,6 +54,9 @@ final class MemberState {
     commitTime = 0;
     commitStartTime = 0;
     failures = 0;
+    batchSize = 0;
+    throughput = 0;
+    compactEntries = false;
   }
 
   /**
@@ -270,6 +276,66 @@ final class MemberState {
     return this;
   }
 
+  /**
+   * Returns the member's current append batch size.
+   *
+   * @return The member's current append batch size in bytes, or {@code 0} if no batch size has been computed.
+   */
+  int getBatchSize() {
+    return batchSize;
+  }
+
+  /**
+   * Sets the member's current append batch size.
+   *
+   * @param batchSize The member's current append batch size in bytes.
+   * @return The member state.
+   */
+  MemberState setBatchSize(int batchSize) {
+    this.batchSize = batchSize;
+    return this;
+  }
+
+  /**
+   * Returns the member's estimated append throughput.
+   *
+   * @return The member's estimated append throughput in bytes per millisecond.
+   */
+  double getThroughput() {
+    return throughput;
+  }
+
+  /**
+   * Sets the member's estimated append throughput.
+   *
+   * @param throughput The member's estimated append throughput in bytes per millisecond.
+   * @return The member state.
+   */
+  MemberState setThroughput(double throughput) {
+    this.throughput = throughput;
+    return this;
+  }
+
+  /**
+   * Returns whether the member supports compact append request entry batches.
+   *
+   * @return Whether the member supports compact append request entry batches.
+   */
+  boolean isCompactEntries() {
+    return compactEntries;
+  }
+
+  /**
+   * Sets whether the member supports compact append request entry batches.
+   *
+   * @param compactEntries Whether the member supports compact append request entry batches.
+   * @return The member state.
+   */
+  MemberState setCompactEntries(boolean compactEntries) {
+    this.compactEntries = compactEntries;
+    return this;
+  }
+
   @Override
   public String toString() {
     return member.serverAddress().toString();
@@ -15,6 +15,7 @@
  */
 package io.atomix.copycat.server.state;
 
+import io.atomix.catalyst.buffer.Buffer;
 import io.atomix.catalyst.transport.Connection;
 import io.atomix.copycat.client.Query;
 import io.atomix.copycat.client.error.RaftError;
@@ -29,12 +30,15 @@ import io.atomix.copycat.server.cluster.Member;
 import io.atomix.copycat.server.request.AcceptRequest;
 import io.atomix.copycat.server.request.AppendRequest;
 import io.atomix.copycat.server.request.InstallRequest;
+import io.atomix.copycat.server.request.ReadIndexRequest;
 import io.atomix.copycat.server.response.AcceptResponse;
 import io.atomix.copycat.server.response.AppendResponse;
 import io.atomix.copycat.server.response.InstallResponse;
+import io.atomix.copycat.server.response.ReadIndexResponse;
 import io.atomix.copycat.server.storage.entry.ConnectEntry;
 import io.atomix.copycat.server.storage.entry.Entry;
 import io.atomix.copycat.server.storage.entry.QueryEntry;
+import io.atomix.copycat.server.storage.entry.RawEntry;
 import io.atomix.copycat.server.storage.snapshot.Snapshot;
 import io.atomix.copycat.server.storage.snapshot.SnapshotWriter;
 
@@ -112,7 +116,17 @@ class PassiveState extends ReserveState {
     logRequest(request);
     updateTermAndLeader(request.term(), request.leader());
 
-    return CompletableFuture.completedFuture(logResponse(handleAppend(request)));
+    return syncResponse(handleAppend(request));
+  }
+
+  /**
+   * Completes the given append response once the entries it acknowledges have been synced to disk.
+   */
+  protected CompletableFuture<AppendResponse> syncResponse(AppendResponse response) {
+    if (response.status() == Response.Status.OK && response.succeeded()) {
+      return context.getLog().sync(response.logIndex()).thenApply(index -> logResponse(response));
+    }
+    return CompletableFuture.completedFuture(logResponse(response));
   }
 
   /**
@@ -129,6 +143,7 @@ class PassiveState extends ReserveState {
         .withTerm(context.getTerm())
         .withSucceeded(false)
         .withLogIndex(context.getLog().lastIndex())
+        .withCompactEntries(true)
         .build();
     } else {
       return checkGlobalIndex(request);
@@ -172,6 +187,7 @@ class PassiveState extends ReserveState {
         .withTerm(context.getTerm())
         .withSucceeded(false)
         .withLogIndex(context.getLog().lastIndex())
+        .withCompactEntries(true)
         .build();
     } else if (request.logIndex() != 0 && context.getLog().lastIndex() != 0 && request.logIndex() > context.getLog().lastIndex()) {
       LOGGER.debug("{} - Rejected {}: Previous index ({}) is greater than the local log's last index ({})", context.getCluster().member().address(), request, request.logIndex(), context.getLog().lastIndex());
@@ -180,6 +196,7 @@ class PassiveState extends ReserveState {
         .withTerm(context.getTerm())
         .withSucceeded(false)
         .withLogIndex(context.getLog().lastIndex())
+        .withCompactEntries(true)
         .build();
     }
     return appendEntries(request);
@@ -200,10 +217,7 @@ class PassiveState extends ReserveState {
       }
 
       // If the entry is a connect entry then immediately configure the connection.
-      if (entry instanceof ConnectEntry) {
-        ConnectEntry connectEntry = (ConnectEntry) entry;
-        context.getStateMachine().executor().context().sessions().registerAddress(connectEntry.getClient(), connectEntry.getAddress());
-      }
+      registerConnection(entry);
     }
 
     // Update the context commit and global indices.
@@ -218,9 +232,36 @@ class PassiveState extends ReserveState {
       .withTerm(context.getTerm())
       .withSucceeded(true)
       .withLogIndex(context.getLog().lastIndex())
+      .withCompactEntries(true)
       .build();
   }
 
+  /**
+   * Registers the client address of the given entry if it is a connect entry.
+   * <p>
+   * Entries replicated from the leader's log may be {@link RawEntry raw entries}, in which case the entry type is
+   * checked without deserializing the entry, and only connect entries are deserialized.
+   */
+  protected void registerConnection(Entry entry) {
+    if (entry instanceof ConnectEntry) {
+      registerConnection((ConnectEntry) entry);
+    } else if (entry instanceof RawEntry && ((RawEntry) entry).isType(ConnectEntry.class)) {
+      Buffer bytes = ((RawEntry) entry).getBytes();
+      try (ConnectEntry connectEntry = context.getLog().serializer().readObject(bytes.rewind())) {
+        registerConnection(connectEntry);
+      } finally {
+        bytes.rewind();
+      }
+    }
+  }
+
+  /**
+   * Registers the client address of the given connect entry.
+   */
+  private void registerConnection(ConnectEntry entry) {
+    context.getStateMachine().executor().context().sessions().registerAddress(entry.getClient(), entry.getAddress());
+  }
+
   @Override
   protected CompletableFuture<QueryResponse> query(QueryRequest request) {
     context.checkThread();
@@ -245,12 +286,56 @@ class PassiveState extends ReserveState {
         return queryForward(request);
       }
 
-      return queryLocal(request);
+      return queryLocal(request, request.index());
+    }
+    // If follower reads are enabled, request the leader's read index and apply the query locally. The query must
+    // still be forwarded if this server has not yet applied entries up to the client's session ID.
+    else if (context.isFollowerReads() && context.getStateMachine().getLastApplied() >= request.session()) {
+      return queryReadIndex(request);
     } else {
       return queryForward(request);
     }
   }
 
+  /**
+   * Requests the leader's read index and performs a local query once the state machine has caught up.
+   * <p>
+   * If the read index cannot be obtained from the leader, the query is forwarded to the leader instead.
+   */
+  private CompletableFuture<QueryResponse> queryReadIndex(QueryRequest request) {
+    if (context.getLeader() == null) {
+      return CompletableFuture.completedFuture(logResponse(QueryResponse.builder()
+        .withStatus(Response.Status.ERROR)
+        .withError(RaftError.Type.NO_LEADER_ERROR)
+        .build()));
+    }
+
+    CompletableFuture<QueryResponse> future = new CompletableFuture<>();
+    ReadIndexRequest readIndexRequest = ReadIndexRequest.builder().build();
+    LOGGER.debug("{} - Sending {}", context.getCluster().member().address(), readIndexRequest);
+    this.<ReadIndexRequest, ReadIndexResponse>forward(readIndexRequest).whenCompleteAsync((response, error) -> {
+      if (isOpen()) {
+        CompletableFuture<QueryResponse> queryFuture;
+        if (error == null && response.status() == Response.Status.OK) {
+          LOGGER.debug("{} - Received {}", context.getCluster().member().address(), response);
+          queryFuture = queryLocal(request, Math.max(request.index(), response.index()));
+        } else {
+          queryFuture = queryForward(request);
+        }
+        queryFuture.whenComplete((queryResponse, queryError) -> {
+          if (queryError == null) {
+            future.complete(queryResponse);
+          } else {
+            future.completeExceptionally(queryError);
+          }
+        });
+      } else {
+        future.completeExceptionally(new IllegalStateException("state closed"));
+      }
+    }, context.getThreadContext().executor());
+    return future;
+  }
+
   /**
    * Forwards the query to the leader.
    */
@@ -268,12 +353,14 @@ class PassiveState extends ReserveState {
 
   /**
    * Performs a local query.
+   * <p>
+   * The query will not be applied until the state machine has applied entries up to the given index.
    */
-  private CompletableFuture<QueryResponse> queryLocal(QueryRequest request) {
+  private CompletableFuture<QueryResponse> queryLocal(QueryRequest request, long queryIndex) {
     CompletableFuture<QueryResponse> future = new CompletableFuture<>();
 
     QueryEntry entry = context.getLog().create(QueryEntry.class)
-      .setIndex(request.index())
+      .setIndex(queryIndex)
       .setTerm(context.getTerm())
       .setTimestamp(System.currentTimeMillis())
       .setSession(request.session())
@@ -287,7 +374,7 @@ class PassiveState extends ReserveState {
     if (request.query().consistency() == Query.ConsistencyLevel.CAUSAL) {
       index = context.getStateMachine().getLastApplied();
     } else {
-      index = Math.max(request.sequence(), context.getStateMachine().getLastApplied());
+      index = Math.max(Math.max(request.sequence(), context.getStateMachine().getLastApplied()), queryIndex);
     }
 
     context.getStateMachine().apply(entry).whenCompleteAsync((result, error) -> {
@@ -337,7 +424,8 @@ class PassiveState extends ReserveState {
     // where snapshots must be sent since entries can still legitimately exist prior to the snapshot,
     // and so snapshots aren't simply sent at the beginning of the follower's log, but rather the
     // leader dictates when a snapshot needs to be sent.
-    if (pendingSnapshot != null && request.index() != pendingSnapshot.index()) {
+    // Similarly, if the leader restarts the snapshot from the first chunk, discard the partially received snapshot.
+    if (pendingSnapshot != null && (request.index() != pendingSnapshot.index() || (request.offset() == 0 && nextSnapshotOffset > 0))) {
       pendingSnapshot.close();
       pendingSnapshot.delete();
       pendingSnapshot = null;
@@ -354,7 +442,15 @@ class PassiveState extends ReserveState {
           .build()));
       }
 
-      pendingSnapshot = context.getSnapshotStore().createSnapshot(request.index());
+      // Delta snapshots can only be installed if the snapshot on which they're based has been installed.
+      if (request.previousIndex() > 0 && context.getSnapshotStore().snapshot(request.previousIndex()) == null) {
+        return CompletableFuture.completedFuture(logResponse(InstallResponse.builder()
+          .withStatus(Response.Status.ERROR)
+          .withError(RaftError.Type.ILLEGAL_MEMBER_STATE_ERROR)
+          .build()));
+      }
+
+      pendingSnapshot = context.getSnapshotStore().createSnapshot(request.index(), request.previousIndex(), request.compression());
       nextSnapshotOffset = 0;
     }
 
@@ -366,8 +462,15 @@ class PassiveState extends ReserveState {
         .build()));
     }
 
-    // Write the data to the snapshot.
-    try (SnapshotWriter writer = pendingSnapshot.writer()) {
+    // If the chunk has already been written to the snapshot, acknowledge it without writing it again.
+    if (request.offset() < nextSnapshotOffset) {
+      return CompletableFuture.completedFuture(logResponse(InstallResponse.builder()
+        .withStatus(Response.Status.OK)
+        .build()));
+    }
+
+    // Write the data to the snapshot. Chunks are written as-is since they're sent in the leader's stored form.
+    try (SnapshotWriter writer = pendingSnapshot.rawWriter()) {
       writer.write(request.data());
     }
 
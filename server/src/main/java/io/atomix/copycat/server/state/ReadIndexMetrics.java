@@ -0,0 +1,115 @@
+/*
+ * Copyright 2015 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.atomix.copycat.server.state;
+
+/**
+ * Linearizable read batching metrics.
+ * <p>
+ * When the leader receives {@link io.atomix.copycat.client.Query.ConsistencyLevel#LINEARIZABLE linearizable} queries,
+ * it batches the queries and confirms its leadership once per batch. These metrics track the number and size of
+ * batches and the time queries spend waiting for leadership to be confirmed. Metrics are updated only by the server
+ * thread but may be read from any thread.
+ *
+ * @author <a href="http://github.com/kuujo">Jordan Halterman</a>
+ */
+public final class ReadIndexMetrics {
+  private volatile long batches;
+  private volatile long reads;
+  private volatile int maxBatchSize;
+  private volatile long totalWaitTime;
+  private volatile long maxWaitTime;
+
+  /**
+   * Records a confirmed batch of reads.
+   *
+   * @param batchSize The number of reads in the batch.
+   * @param waitTime The total time in milliseconds reads in the batch spent waiting for confirmation.
+   * @param maxWaitTime The longest time in milliseconds a read in the batch spent waiting for confirmation.
+   */
+  void record(int batchSize, long waitTime, long maxWaitTime) {
+    batches++;
+    reads += batchSize;
+    totalWaitTime += waitTime;
+    if (batchSize > this.maxBatchSize) {
+      this.maxBatchSize = batchSize;
+    }
+    if (maxWaitTime > this.maxWaitTime) {
+      this.maxWaitTime = maxWaitTime;
+    }
+  }
+
+  /**
+   * Returns the number of read batches confirmed.
+   *
+   * @return The number of read batches confirmed.
+   */
+  public long batches() {
+    return batches;
+  }
+
+  /**
+   * Returns the total number of reads confirmed.
+   *
+   * @return The total number of reads confirmed.
+   */
+  public long reads() {
+    return reads;
+  }
+
+  /**
+   * Returns the average number of reads per batch.
+   *
+   * @return The average number of reads per batch.
+   */
+  public double averageBatchSize() {
+    long batches = this.batches;
+    return batches > 0 ? reads / (double) batches : 0;
+  }
+
+  /**
+   * Returns the largest number of reads confirmed in a single batch.
+   *
+   * @return The largest number of reads confirmed in a single batch.
+   */
+  public int maxBatchSize() {
+    return maxBatchSize;
+  }
+
+  /**
+   * Returns the average time in milliseconds reads spent waiting for leadership to be confirmed.
+   *
+   * @return The average read wait time in milliseconds.
+   */
+  public double averageWaitTime() {
+    long reads = this.reads;
+    return reads > 0 ? totalWaitTime / (double) reads : 0;
+  }
+
+  /**
+   * Returns the longest time in milliseconds a read spent waiting for leadership to be confirmed.
+   *
+   * @return The longest read wait time in milliseconds.
+   */
+  public long maxWaitTime() {
+    return maxWaitTime;
+  }
+
+  @Override
+  public String toString() {
+    return String.format("%s[batches=%d, reads=%d, maxBatchSize=%d, maxWaitTime=%d]", getClass().getSimpleName(), batches, reads, maxBatchSize, maxWaitTime);
+  }
+
+}
@@ -66,6 +66,7 @@ class ReserveState extends InactiveState {
       .withTerm(context.getTerm())
       .withSucceeded(true)
       .withLogIndex(0)
+      .withCompactEntries(true)
       .build()));
   }
 
@@ -92,6 +93,16 @@ class ReserveState extends InactiveState {
       .build()));
   }
 
+  @Override
+  protected CompletableFuture<ReadIndexResponse> readIndex(ReadIndexRequest request) {
+    context.checkThread();
+    logRequest(request);
+    return CompletableFuture.completedFuture(logResponse(ReadIndexResponse.builder()
+      .withStatus(Response.Status.ERROR)
+      .withError(RaftError.Type.ILLEGAL_MEMBER_STATE_ERROR)
+      .build()));
+  }
+
   @Override
   protected CompletableFuture<CommandResponse> command(CommandRequest request) {
     context.checkThread();
@@ -107,6 +118,21 @@ class ReserveState extends InactiveState {
     }
   }
 
+  @Override
+  protected CompletableFuture<CommandBatchResponse> commandBatch(CommandBatchRequest request) {
+    context.checkThread();
+    logRequest(request);
+
+    if (context.getLeader() == null) {
+      return CompletableFuture.completedFuture(logResponse(CommandBatchResponse.builder()
+        .withStatus(Response.Status.ERROR)
+        .withError(RaftError.Type.NO_LEADER_ERROR)
+        .build()));
+    } else {
+      return this.<CommandBatchRequest, CommandBatchResponse>forward(request).thenApply(this::logResponse);
+    }
+  }
+
   @Override
   protected CompletableFuture<QueryResponse> query(QueryRequest request) {
     context.checkThread();
@@ -24,6 +24,7 @@ import io.atomix.copycat.server.storage.Log;
 import io.atomix.copycat.server.storage.entry.OperationEntry;
 
 import java.time.Instant;
+import java.util.concurrent.Executor;
 
 /**
  * Server commit.
@@ -37,6 +38,7 @@ final class ServerCommit implements Commit<Operation<?>> {
   private ServerSession session;
   private Instant instant;
   private Operation operation;
+  private Executor releaseExecutor;
   private volatile boolean open;
 
   public ServerCommit(ServerCommitPool pool, Log log) {
@@ -58,6 +60,20 @@ final class ServerCommit implements Commit<Operation<?>> {
     open = true;
   }
 
+  /**
+   * Sets the executor in which the commit is released once closed.
+   * <p>
+   * Session references are not thread safe, so commits that may be closed outside the thread in which they were
+   * acquired must be released in that thread.
+   *
+   * @param releaseExecutor The executor in which to release the commit.
+   * @return The commit.
+   */
+  ServerCommit setReleaseExecutor(Executor releaseExecutor) {
+    this.releaseExecutor = releaseExecutor;
+    return this;
+  }
+
   /**
    * Checks whether the commit is open and throws an exception if not.
    */
@@ -99,22 +115,34 @@ final class ServerCommit implements Commit<Operation<?>> {
   @Override
   public void close() {
     if (open) {
-      if (operation instanceof Command && log.isOpen()) {
-        try {
-          log.clean(index);
-        } catch (IllegalStateException e) {
-        }
+      open = false;
+      if (releaseExecutor != null) {
+        releaseExecutor.execute(this::release);
+      } else {
+        release();
       }
+    }
+  }
 
-      session.release();
-
-      index = 0;
-      session = null;
-      instant = null;
-      operation = null;
-      pool.release(this);
-      open = false;
+  /**
+   * Releases the commit back to the pool.
+   */
+  private void release() {
+    if (operation instanceof Command && log.isOpen()) {
+      try {
+        log.clean(index);
+      } catch (IllegalStateException e) {
+      }
     }
+
+    session.release();
+
+    index = 0;
+    session = null;
+    instant = null;
+    operation = null;
+    releaseExecutor = null;
+    pool.release(this);
   }
 
   @Override
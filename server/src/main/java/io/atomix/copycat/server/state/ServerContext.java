@@ -57,6 +57,8 @@ public class ServerContext implements AutoCloseable {
   private final ThreadContext threadContext;
   private final Supplier<StateMachine> stateMachineFactory;
   private final ClusterState cluster;
+  private final ReadIndexMetrics readIndexMetrics = new ReadIndexMetrics();
+  private final IngestionMetrics ingestionMetrics = new IngestionMetrics();
   private final Storage storage;
   private final Serializer serializer;
   private MetaStore meta;
@@ -69,6 +71,15 @@ public class ServerContext implements AutoCloseable {
   private Duration electionTimeout = Duration.ofMillis(500);
   private Duration sessionTimeout = Duration.ofMillis(5000);
   private Duration heartbeatInterval = Duration.ofMillis(150);
+  private int appendWindowSize = 1;
+  private int maxAppendBatchSize = 1024 * 1024 * 4;
+  private int maxAppendBatchEntries = 1024 * 16;
+  private int snapshotChunkSize = 1024 * 1024;
+  private int installWindowSize = 1;
+  private Duration keepAliveBatchInterval = Duration.ofMillis(10);
+  private int queryThreads = Runtime.getRuntime().availableProcessors();
+  private boolean followerReads;
+  private boolean compactReplication;
   private volatile int leader;
   private volatile long term;
   private int lastVotedFor;
@@ -194,6 +205,186 @@ public class ServerContext implements AutoCloseable {
     return heartbeatInterval;
   }
 
+  /**
+   * Sets the maximum number of in-flight append requests per member.
+   *
+   * @param appendWindowSize The maximum number of in-flight append requests per member.
+   * @return The Raft context.
+   */
+  public ServerContext setAppendWindowSize(int appendWindowSize) {
+    this.appendWindowSize = appendWindowSize;
+    return this;
+  }
+
+  /**
+   * Returns the maximum number of in-flight append requests per member.
+   *
+   * @return The maximum number of in-flight append requests per member.
+   */
+  public int getAppendWindowSize() {
+    return appendWindowSize;
+  }
+
+  /**
+   * Sets the maximum size of an append batch in bytes.
+   *
+   * @param maxAppendBatchSize The maximum size of an append batch in bytes.
+   * @return The Raft context.
+   */
+  public ServerContext setMaxAppendBatchSize(int maxAppendBatchSize) {
+    this.maxAppendBatchSize = maxAppendBatchSize;
+    return this;
+  }
+
+  /**
+   * Returns the maximum size of an append batch in bytes.
+   *
+   * @return The maximum size of an append batch in bytes.
+   */
+  public int getMaxAppendBatchSize() {
+    return maxAppendBatchSize;
+  }
+
+  /**
+   * Sets the maximum number of entries in an append batch.
+   *
+   * @param maxAppendBatchEntries The maximum number of entries in an append batch.
+   * @return The Raft context.
+   */
+  public ServerContext setMaxAppendBatchEntries(int maxAppendBatchEntries) {
+    this.maxAppendBatchEntries = maxAppendBatchEntries;
+    return this;
+  }
+
+  /**
+   * Returns the maximum number of entries in an append batch.
+   *
+   * @return The maximum number of entries in an append batch.
+   */
+  public int getMaxAppendBatchEntries() {
+    return maxAppendBatchEntries;
+  }
+
+  /**
+   * Sets the maximum size of a snapshot chunk in bytes.
+   *
+   * @param snapshotChunkSize The maximum size of a snapshot chunk in bytes.
+   * @return The Raft context.
+   */
+  public ServerContext setSnapshotChunkSize(int snapshotChunkSize) {
+    this.snapshotChunkSize = snapshotChunkSize;
+    return this;
+  }
+
+  /**
+   * Returns the maximum size of a snapshot chunk in bytes.
+   *
+   * @return The maximum size of a snapshot chunk in bytes.
+   */
+  public int getSnapshotChunkSize() {
+    return snapshotChunkSize;
+  }
+
+  /**
+   * Sets the maximum number of in-flight install requests per member.
+   *
+   * @param installWindowSize The maximum number of in-flight install requests per member.
+   * @return The Raft context.
+   */
+  public ServerContext setInstallWindowSize(int installWindowSize) {
+    this.installWindowSize = installWindowSize;
+    return this;
+  }
+
+  /**
+   * Returns the maximum number of in-flight install requests per member.
+   *
+   * @return The maximum number of in-flight install requests per member.
+   */
+  public int getInstallWindowSize() {
+    return installWindowSize;
+  }
+
+  /**
+   * Sets the interval over which client keep-alives are batched.
+   *
+   * @param keepAliveBatchInterval The interval over which client keep-alives are batched.
+   * @return The Raft context.
+   */
+  public ServerContext setKeepAliveBatchInterval(Duration keepAliveBatchInterval) {
+    this.keepAliveBatchInterval = keepAliveBatchInterval;
+    return this;
+  }
+
+  /**
+   * Returns the interval over which client keep-alives are batched.
+   *
+   * @return The interval over which client keep-alives are batched.
+   */
+  public Duration getKeepAliveBatchInterval() {
+    return keepAliveBatchInterval;
+  }
+
+  /**
+   * Sets the number of threads with which to execute reader queries.
+   *
+   * @param queryThreads The number of threads with which to execute reader queries.
+   * @return The Raft context.
+   */
+  public ServerContext setQueryThreads(int queryThreads) {
+    this.queryThreads = queryThreads;
+    return this;
+  }
+
+  /**
+   * Returns the number of threads with which to execute reader queries.
+   *
+   * @return The number of threads with which to execute reader queries.
+   */
+  public int getQueryThreads() {
+    return queryThreads;
+  }
+
+  /**
+   * Sets whether linearizable queries are applied on followers.
+   *
+   * @param followerReads Whether linearizable queries are applied on followers.
+   * @return The Raft context.
+   */
+  public ServerContext setFollowerReads(boolean followerReads) {
+    this.followerReads = followerReads;
+    return this;
+  }
+
+  /**
+   * Returns whether linearizable queries are applied on followers.
+   *
+   * @return Whether linearizable queries are applied on followers.
+   */
+  public boolean isFollowerReads() {
+    return followerReads;
+  }
+
+  /**
+   * Sets whether entries are replicated in compact append request batches.
+   *
+   * @param compactReplication Whether entries are replicated in compact batches.
+   * @return The Raft context.
+   */
+  public ServerContext setCompactReplication(boolean compactReplication) {
+    this.compactReplication = compactReplication;
+    return this;
+  }
+
+  /**
+   * Returns whether entries are replicated in compact append request batches.
+   *
+   * @return Whether entries are replicated in compact batches.
+   */
+  public boolean isCompactReplication() {
+    return compactReplication;
+  }
+
   /**
    * Returns the session timeout.
    *
@@ -263,6 +454,24 @@ public class ServerContext implements AutoCloseable {
     return cluster;
   }
 
+  /**
+   * Returns the linearizable read batching metrics.
+   *
+   * @return The linearizable read batching metrics.
+   */
+  public ReadIndexMetrics getReadIndexMetrics() {
+    return readIndexMetrics;
+  }
+
+  /**
+   * Returns the leader write ingestion metrics.
+   *
+   * @return The leader write ingestion metrics.
+   */
+  public IngestionMetrics getIngestionMetrics() {
+    return ingestionMetrics;
+  }
+
   /**
    * Returns the state leader.
    *
@@ -494,6 +703,7 @@ public class ServerContext implements AutoCloseable {
     connection.handler(KeepAliveRequest.class, request -> state.keepAlive(request));
     connection.handler(UnregisterRequest.class, request -> state.unregister(request));
     connection.handler(CommandRequest.class, request -> state.command(request));
+    connection.handler(CommandBatchRequest.class, request -> state.commandBatch(request));
     connection.handler(QueryRequest.class, request -> state.query(request));
 
     connection.closeListener(stateMachine.executor().context().sessions()::unregisterConnection);
@@ -522,7 +732,9 @@ public class ServerContext implements AutoCloseable {
     connection.handler(AppendRequest.class, request -> state.append(request));
     connection.handler(PollRequest.class, request -> state.poll(request));
     connection.handler(VoteRequest.class, request -> state.vote(request));
+    connection.handler(ReadIndexRequest.class, request -> state.readIndex(request));
     connection.handler(CommandRequest.class, request -> state.command(request));
+    connection.handler(CommandBatchRequest.class, request -> state.commandBatch(request));
     connection.handler(QueryRequest.class, request -> state.query(request));
 
     connection.closeListener(stateMachine.executor().context().sessions()::unregisterConnection);
@@ -610,6 +822,8 @@ public class ServerContext implements AutoCloseable {
 
   @Override
   public void close() {
+    // Close the state machine first to wait for in-flight snapshot writes before closing storage.
+    stateMachine.close();
     try {
       log.close();
     } catch (Exception e) {
@@ -622,7 +836,6 @@ public class ServerContext implements AutoCloseable {
       snapshot.close();
     } catch (Exception e) {
     }
-    stateMachine.close();
     threadContext.close();
   }
 
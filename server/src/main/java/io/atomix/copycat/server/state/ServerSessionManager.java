@@ -36,6 +36,10 @@ class ServerSessionManager implements Sessions {
   final Map<Long, ServerSession> sessions = new ConcurrentHashMap<>();
   final Map<UUID, ServerSession> clients = new ConcurrentHashMap<>();
   final Set<SessionListener> listeners = new HashSet<>();
+  private final TreeSet<ServerSession> timeouts = new TreeSet<>(Comparator.comparingLong((ServerSession session) -> session.getTimestamp() + session.timeout())
+    .thenComparingLong(ServerSession::id));
+  private final Set<ServerSession> suspects = new LinkedHashSet<>();
+  private boolean collectSuspects;
 
   @Override
   public Session session(long sessionId) {
@@ -120,6 +124,98 @@ class ServerSessionManager implements Sessions {
     return session;
   }
 
+  /**
+   * Updates a session's timestamp.
+   * <p>
+   * Sessions are indexed by the time at which they will time out, so session timestamps must be updated via this
+   * method in order for sessions to be {@link #suspectSessions(long, long) suspected} once they time out. The index
+   * is only accessed by the server thread.
+   *
+   * @param session The session for which to update the timestamp.
+   * @param timestamp The session timestamp.
+   * @return The updated session.
+   */
+  ServerSession setTimestamp(ServerSession session, long timestamp) {
+    timeouts.remove(session);
+    session.setTimestamp(timestamp);
+    timeouts.add(session);
+    return session;
+  }
+
+  /**
+   * Removes a session from the timeout index and the set of suspicious sessions.
+   * <p>
+   * Sessions are untracked once an unregister entry for the session is applied, before the session is unregistered
+   * by the state machine. The index is only accessed by the server thread.
+   *
+   * @param session The session to untrack.
+   * @return The untracked session.
+   */
+  ServerSession untrackSession(ServerSession session) {
+    timeouts.remove(session);
+    suspects.remove(session);
+    return session;
+  }
+
+  /**
+   * Sets whether sessions that time out are collected in the set of {@link #suspects() suspects}.
+   * <p>
+   * Only the leader unregisters suspicious sessions, so suspects are only collected while the server is the leader.
+   * Sessions that timed out before the server became the leader remain in the timeout index and are collected the
+   * next time sessions are suspected. Disabling collection clears the set of suspects.
+   *
+   * @param collectSuspects Whether to collect suspicious sessions.
+   * @return The session manager.
+   */
+  ServerSessionManager collectSuspects(boolean collectSuspects) {
+    this.collectSuspects = collectSuspects;
+    if (!collectSuspects) {
+      suspects.clear();
+    }
+    return this;
+  }
+
+  /**
+   * Marks as suspicious sessions that have timed out according to the given timestamp.
+   * <p>
+   * Only sessions that have timed out are visited. Sessions that have been unregistered or are no longer active are
+   * removed from the timeout index as they're encountered. Suspicious sessions are only added to the set of
+   * {@link #suspects() suspects} if suspects are being {@link #collectSuspects(boolean) collected}.
+   *
+   * @param exclude The ID of a session to exclude from suspicion.
+   * @param timestamp The current state machine timestamp.
+   */
+  void suspectSessions(long exclude, long timestamp) {
+    Iterator<ServerSession> iterator = timeouts.iterator();
+    while (iterator.hasNext()) {
+      ServerSession session = iterator.next();
+      if (timestamp - session.timeout() <= session.getTimestamp()) {
+        break;
+      }
+
+      if (sessions.get(session.id()) != session || !session.state().active()) {
+        iterator.remove();
+      } else if (session.id() != exclude) {
+        session.suspect();
+        if (collectSuspects) {
+          suspects.add(session);
+        }
+      }
+    }
+  }
+
+  /**
+   * Returns sessions that have been marked suspicious.
+   * <p>
+   * Sessions are retained in the returned set until they're removed by the caller. The set is only accessed by
+   * the server thread.
+   *
+   * @return The set of suspicious sessions.
+   */
+  Set<ServerSession> suspects() {
+    return suspects;
+  }
+
   /**
    * Gets a session by session ID.
    *
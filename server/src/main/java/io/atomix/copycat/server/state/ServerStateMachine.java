@@ -16,25 +16,41 @@
 package io.atomix.copycat.server.state;
 
 import io.atomix.catalyst.util.Assert;
+import io.atomix.catalyst.util.concurrent.CatalystThreadFactory;
 import io.atomix.catalyst.util.concurrent.ComposableFuture;
 import io.atomix.catalyst.util.concurrent.Futures;
 import io.atomix.catalyst.util.concurrent.ThreadContext;
 import io.atomix.copycat.client.Command;
 import io.atomix.copycat.client.error.InternalException;
 import io.atomix.copycat.client.error.UnknownSessionException;
+import io.atomix.copycat.server.AsyncSnapshottable;
+import io.atomix.copycat.server.IncrementalSnapshottable;
 import io.atomix.copycat.server.Snapshottable;
 import io.atomix.copycat.server.StateMachine;
 import io.atomix.copycat.server.session.SessionListener;
 import io.atomix.copycat.server.storage.Log;
+import io.atomix.copycat.server.storage.LogReader;
 import io.atomix.copycat.server.storage.entry.*;
 import io.atomix.copycat.server.storage.snapshot.Snapshot;
 import io.atomix.copycat.server.storage.snapshot.SnapshotReader;
+import io.atomix.copycat.server.storage.snapshot.SnapshotStore;
 import io.atomix.copycat.server.storage.snapshot.SnapshotWriter;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
 
 /**
  * Internal server state machine.
@@ -51,9 +67,16 @@ final class ServerStateMachine implements AutoCloseable {
   private final Log log;
   private final ServerStateMachineExecutor executor;
   private final ServerCommitPool commits;
+  private final CompletionQueue completions;
+  private LogReader reader;
   private volatile long lastApplied;
   private long lastCompleted;
   private Snapshot pendingSnapshot;
+  private CompletableFuture<Void> pendingSnapshotWrite;
+  private ExecutorService snapshotExecutor;
+  private ExecutorService queryExecutor;
+  private long lastSnapshotIndex;
+  private final Map<Long, Integer> keepAliveReferences = new ConcurrentHashMap<>();
 
   ServerStateMachine(StateMachine stateMachine, ServerContext state, ThreadContext executor) {
     this.stateMachine = Assert.notNull(stateMachine, "stateMachine");
@@ -61,6 +84,7 @@ final class ServerStateMachine implements AutoCloseable {
     this.log = state.getLog();
     this.executor = new ServerStateMachineExecutor(new ServerStateMachineContext(state.getConnections(), new ServerSessionManager()), executor);
     this.commits = new ServerCommitPool(log, this.executor.context().sessions());
+    this.completions = new CompletionQueue(state.getThreadContext());
     init();
   }
 
@@ -87,16 +111,111 @@ final class ServerStateMachine implements AutoCloseable {
     Snapshot currentSnapshot = state.getSnapshotStore().currentSnapshot();
     if (pendingSnapshot == null && stateMachine instanceof Snapshottable
       && (currentSnapshot == null || (log.compactor().compactIndex() > currentSnapshot.index() && lastApplied > currentSnapshot.index()))) {
-      pendingSnapshot = state.getSnapshotStore().createSnapshot(lastApplied);
+      pendingSnapshot = createSnapshot(currentSnapshot);
+      lastSnapshotIndex = pendingSnapshot.index();
 
       // Write the snapshot data. Note that we don't complete the snapshot here since the completion
       // of a snapshot is predicated on session events being received by clients up to the snapshot index.
       LOGGER.info("{} - Taking snapshot {}", state.getCluster().member().address(), pendingSnapshot.index());
-      synchronized (pendingSnapshot) {
-        try (SnapshotWriter writer = pendingSnapshot.writer()) {
-          ((Snapshottable) stateMachine).snapshot(writer);
+      if (pendingSnapshot.isDelta() || (stateMachine instanceof IncrementalSnapshottable && !(stateMachine instanceof AsyncSnapshottable))) {
+        takeIncrementalSnapshot(pendingSnapshot);
+      } else if (stateMachine instanceof AsyncSnapshottable) {
+        takeSnapshotAsync(pendingSnapshot);
+      } else {
+        synchronized (pendingSnapshot) {
+          try (SnapshotWriter writer = pendingSnapshot.writer()) {
+            ((Snapshottable) stateMachine).snapshot(writer);
+          }
+        }
+      }
+    }
+  }
+
+  /**
+   * Creates a new snapshot at the last applied index.
+   * <p>
+   * A delta snapshot is created if the state machine supports incremental snapshots, the state machine's changes
+   * are being tracked from the current snapshot, and the current snapshot chain has not reached the maximum number
+   * of deltas. Otherwise, a full snapshot is created.
+   */
+  private Snapshot createSnapshot(Snapshot currentSnapshot) {
+    SnapshotStore store = state.getSnapshotStore();
+    if (stateMachine instanceof IncrementalSnapshottable && currentSnapshot != null
+      && currentSnapshot.index() == lastSnapshotIndex
+      && store.chain(currentSnapshot).size() <= state.getStorage().maxSnapshotDeltas()) {
+      return store.createDeltaSnapshot(lastApplied, currentSnapshot.index());
+    }
+    return store.createSnapshot(lastApplied);
+  }
+
+  /**
+   * Takes a full or delta snapshot of an incremental state machine.
+   * <p>
+   * Changes are tracked by the state machine in the state machine thread and are reset by both full and delta
+   * snapshots, so incremental snapshots are written in the state machine thread after all entries up to the snapshot
+   * index have been applied. The size of a delta is bounded by the rate of writes, so the delta is written directly
+   * to the snapshot rather than in a background thread.
+   */
+  private void takeIncrementalSnapshot(Snapshot snapshot) {
+    ThreadContext context = state.getThreadContext();
+    pendingSnapshotWrite = CompletableFuture.runAsync(() -> {
+      synchronized (snapshot) {
+        try (SnapshotWriter writer = snapshot.writer()) {
+          if (snapshot.isDelta()) {
+            ((IncrementalSnapshottable) stateMachine).snapshotDelta(writer);
+          } else {
+            ((IncrementalSnapshottable) stateMachine).snapshot(writer);
+          }
         }
       }
+    }, executor.executor());
+    pendingSnapshotWrite.whenComplete((result, error) -> execute(() -> snapshotWritten(snapshot, error), context));
+  }
+
+  /**
+   * Takes an asynchronous snapshot of the state machine state.
+   * <p>
+   * The view of the state machine state is captured in the state machine thread after all entries up to the
+   * snapshot index have been applied, and the view is then written to the snapshot in a background thread. The
+   * snapshot cannot be completed until the write is complete.
+   */
+  private void takeSnapshotAsync(Snapshot snapshot) {
+    if (snapshotExecutor == null) {
+      snapshotExecutor = Executors.newSingleThreadExecutor(new CatalystThreadFactory("copycat-snapshot-%d"));
+    }
+
+    ThreadContext context = state.getThreadContext();
+    pendingSnapshotWrite = CompletableFuture.supplyAsync(((AsyncSnapshottable) stateMachine)::snapshot, executor.executor())
+      .thenAcceptAsync(view -> {
+        synchronized (snapshot) {
+          try (SnapshotWriter writer = snapshot.writer()) {
+            view.accept(writer);
+          }
+        }
+      }, snapshotExecutor);
+    pendingSnapshotWrite.whenComplete((result, error) -> execute(() -> snapshotWritten(snapshot, error), context));
+  }
+
+  /**
+   * Handles the completion of an asynchronous or incremental snapshot write.
+   */
+  private void snapshotWritten(Snapshot snapshot, Throwable error) {
+    if (snapshot != pendingSnapshot) {
+      return;
+    }
+
+    // If the snapshot could not be written, discard it. A new snapshot will be taken once another entry is applied.
+    // Changes tracked by the state machine may have been reset by the discarded snapshot, so the next snapshot
+    // must be a full snapshot.
+    if (error != null) {
+      LOGGER.warn("{} - Failed to write snapshot {}", state.getCluster().member().address(), snapshot.index(), error);
+      pendingSnapshot = null;
+      pendingSnapshotWrite = null;
+      lastSnapshotIndex = 0;
+      snapshot.close();
+      snapshot.delete();
+    } else {
+      completeSnapshot();
     }
   }
 
@@ -117,14 +236,23 @@ final class ServerStateMachine implements AutoCloseable {
       // synchronize on the snapshot object. In practice, this probably isn't even necessary and could prove
       // to be an expensive operation. Snapshots can be read concurrently with separate SnapshotReaders since
       // memory snapshots are copied to the reader and file snapshots open a separate FileBuffer for each reader.
+      // Delta snapshots are installed by installing each snapshot in the snapshot's chain in order.
       LOGGER.info("{} - Installing snapshot {}", state.getCluster().member().address(), currentSnapshot.index());
+      List<Snapshot> chain = state.getSnapshotStore().chain(currentSnapshot);
       executor.executor().execute(() -> {
-        synchronized (currentSnapshot) {
-          try (SnapshotReader reader = currentSnapshot.reader()) {
-            ((Snapshottable) stateMachine).install(reader);
+        for (Snapshot snapshot : chain) {
+          synchronized (snapshot) {
+            try (SnapshotReader reader = snapshot.reader()) {
+              if (snapshot.isDelta()) {
+                ((IncrementalSnapshottable) stateMachine).installDelta(reader);
+              } else {
+                ((Snapshottable) stateMachine).install(reader);
+              }
+            }
           }
         }
       });
+      lastSnapshotIndex = currentSnapshot.index();
 
       // Once a snapshot has been applied, snapshot dependent entries can be cleaned from the log.
       log.compactor().snapshotIndex(currentSnapshot.index());
@@ -142,13 +270,16 @@ final class ServerStateMachine implements AutoCloseable {
    */
   private void completeSnapshot() {
     // If a snapshot is pending to be persisted and the last completed index is greater than the
-    // waiting snapshot index, persist the snapshot and update the last snapshot index.
-    if (pendingSnapshot != null && lastCompleted >= pendingSnapshot.index()) {
+    // waiting snapshot index, persist the snapshot and update the last snapshot index. Asynchronous
+    // snapshots must also have been written successfully.
+    if (pendingSnapshot != null && lastCompleted >= pendingSnapshot.index()
+      && (pendingSnapshotWrite == null || (pendingSnapshotWrite.isDone() && !pendingSnapshotWrite.isCompletedExceptionally()))) {
       long snapshotIndex = pendingSnapshot.index();
       LOGGER.debug("{} - Completing snapshot {}", state.getCluster().member().address(), snapshotIndex);
       synchronized (pendingSnapshot) {
         pendingSnapshot.complete();
         pendingSnapshot = null;
+        pendingSnapshotWrite = null;
       }
 
       // Once the snapshot has been completed, snapshot dependent entries can be cleaned from the log.
@@ -261,8 +392,9 @@ final class ServerStateMachine implements AutoCloseable {
     // If the effective commit index is greater than the last index applied to the state machine then apply remaining entries.
     long lastIndex = Math.min(index, log.lastIndex());
     if (lastIndex > lastApplied) {
+      LogReader reader = reader(lastApplied + 1);
       for (long i = lastApplied + 1; i <= lastIndex; i++) {
-        Entry entry = log.get(i);
+        Entry entry = reader.next();
         if (entry != null) {
           LOGGER.debug("{} - Applying {}", state.getCluster().member().address(), entry);
           apply(entry, false).whenComplete((result, error) -> entry.release());
@@ -272,6 +404,16 @@ final class ServerStateMachine implements AutoCloseable {
     }
   }
 
+  /**
+   * Returns the log reader positioned at the given index.
+   */
+  private LogReader reader(long index) {
+    if (reader == null) {
+      reader = log.createReader(index);
+    }
+    return reader.reset(index);
+  }
+
   /**
    * Applies the entry at the given index to the state machine.
    * <p>
@@ -331,6 +473,8 @@ final class ServerStateMachine implements AutoCloseable {
       return apply((RegisterEntry) entry, expectResult);
     } else if (entry instanceof KeepAliveEntry) {
       return apply((KeepAliveEntry) entry);
+    } else if (entry instanceof MultiKeepAliveEntry) {
+      return apply((MultiKeepAliveEntry) entry);
     } else if (entry instanceof UnregisterEntry) {
       return apply((UnregisterEntry) entry, expectResult);
     } else if (entry instanceof InitializeEntry) {
@@ -370,6 +514,10 @@ final class ServerStateMachine implements AutoCloseable {
   private CompletableFuture<Void> apply(ConnectEntry entry) {
     // Connections are stored in the state machine when they're *written* to the log, so we need only
     // clean them once they're committed.
+    // Followers that receive connect entries in raw form can't register the address when the entry is written,
+    // so ensure the client's address is registered when the entry is applied.
+    executor().context().sessions().registerAddress(entry.getClient(), entry.getAddress());
+
     ServerSession session = executor().context().sessions().getSession(entry.getClient());
     if (session != null) {
       // Update the session connect index.
@@ -380,7 +528,7 @@ final class ServerStateMachine implements AutoCloseable {
       session.trust();
 
       // Update the session's timestamp with the current state machine time.
-      session.setTimestamp(entry.getTimestamp());
+      executor.context().sessions().setTimestamp(session, entry.getTimestamp());
 
       // Connections are also treated like keep-alive operations if a session exists for the client.
       session.setKeepAliveIndex(entry.getIndex());
@@ -402,13 +550,13 @@ final class ServerStateMachine implements AutoCloseable {
     long timestamp = executor.tick(entry.getTimestamp());
 
     long sessionId = entry.getIndex();
-    ServerSession session = new ServerSession(sessionId, entry.getClient(), log::clean, executor.context(), entry.getTimeout());
+    ServerSession session = new ServerSession(sessionId, entry.getClient(), this::clean, executor.context(), entry.getTimeout());
     executor.context().sessions().registerSession(session);
 
     // Update the session timestamp *after* executing any scheduled operations. The executor's timestamp
     // is guaranteed to be monotonically increasing, whereas the RegisterEntry may have an earlier timestamp
     // if, e.g., it was written shortly after a leader change.
-    session.setTimestamp(timestamp);
+    executor.context().sessions().setTimestamp(session, timestamp);
 
     // Determine whether any sessions appear to be expired. This won't immediately expire the session(s),
     // but it will make them available to be unregistered by the leader.
@@ -429,7 +577,7 @@ final class ServerStateMachine implements AutoCloseable {
    */
   private void registerSession(long index, long timestamp, boolean synchronous, ServerSession session, CompletableFuture<Long> future, ThreadContext context) {
     if (!log.isOpen()) {
-      context.executor().execute(() -> future.completeExceptionally(new IllegalStateException("log closed")));
+      execute(() -> future.completeExceptionally(new IllegalStateException("log closed")), context);
       return;
     }
 
@@ -450,7 +598,7 @@ final class ServerStateMachine implements AutoCloseable {
     long lastCompleted = calculateLastCompleted(index);
 
     // Update the highest index completed for all sessions to allow log compaction to progress.
-    context.executor().execute(() -> setLastCompleted(lastCompleted));
+    execute(() -> setLastCompleted(lastCompleted), context);
 
     // Once register callbacks have been completed, ensure that events published during the callbacks are
     // received by clients. The state machine context will generate an event future for all published events
@@ -458,10 +606,10 @@ final class ServerStateMachine implements AutoCloseable {
     CompletableFuture<Void> sessionFuture = executor.commit();
     if (sessionFuture != null) {
       sessionFuture.whenComplete((result, error) -> {
-        context.executor().execute(() -> future.complete(index));
+        execute(() -> future.complete(index), context);
       });
     } else {
-      context.executor().execute(() -> future.complete(index));
+      execute(() -> future.complete(index), context);
     }
   }
 
@@ -527,7 +675,7 @@ final class ServerStateMachine implements AutoCloseable {
       session.trust();
 
       // Update the session's timestamp with the current state machine time.
-      session.setTimestamp(timestamp);
+      executor.context().sessions().setTimestamp(session, timestamp);
 
       // Store the command/event sequence and event index instead of acquiring a reference to the entry.
       long commandSequence = entry.getCommandSequence();
@@ -546,18 +694,119 @@ final class ServerStateMachine implements AutoCloseable {
     return future;
   }
 
+  /**
+   * Applies a multi-session keep alive entry to the state machine.
+   * <p>
+   * Multi-session keep alive entries are committed by the leader in place of individual {@link KeepAliveEntry}s
+   * for keep-alive requests received within a short window. Each session in the entry is kept alive exactly as if
+   * a {@link KeepAliveEntry} had been committed for the session. The resulting future is completed with the set of
+   * sessions that were kept alive. Sessions missing from the set were unknown or inactive.
+   * <p>
+   * Because the entry is shared by all the sessions it keeps alive, it's retained in the log until every session
+   * in the entry has been kept alive again or expired.
+   */
+  private CompletableFuture<Set<Long>> apply(MultiKeepAliveEntry entry) {
+    // Update the deterministic executor time and allow the executor to execute any scheduled events.
+    long timestamp = executor.tick(entry.getTimestamp());
+
+    // Determine whether any sessions appear to be expired. Sessions kept alive by this entry will be trusted below.
+    suspectSessions(0, timestamp);
+
+    long index = entry.getIndex();
+    long[] sessionIds = entry.getSessions();
+    long[] commandSequences = entry.getCommandSequences();
+    long[] eventIndexes = entry.getEventIndexes();
+
+    List<ServerSession> sessions = new ArrayList<>(sessionIds.length);
+    List<Long> sessionCommandSequences = new ArrayList<>(sessionIds.length);
+    List<Long> sessionEventIndexes = new ArrayList<>(sessionIds.length);
+    for (int i = 0; i < sessionIds.length; i++) {
+      ServerSession session = executor.context().sessions().getSession(sessionIds[i]);
+      if (session != null && session.state().active()) {
+        sessions.add(session);
+        sessionCommandSequences.add(commandSequences[i]);
+        sessionEventIndexes.add(eventIndexes[i]);
+      }
+    }
+
+    // If none of the sessions are known, the entry can be cleaned immediately.
+    if (sessions.isEmpty()) {
+      log.clean(index);
+      return CompletableFuture.completedFuture(new HashSet<>());
+    }
+
+    // Count the number of sessions referencing the entry before updating session keep alive indexes
+    // to ensure the entry is only cleaned once it's no longer referenced by any session.
+    keepAliveReferences.put(index, sessions.size());
+
+    for (int i = 0; i < sessions.size(); i++) {
+      ServerSession session = sessions.get(i);
+      session.trust();
+      executor.context().sessions().setTimestamp(session, timestamp);
+      session.setKeepAliveIndex(index).setRequestSequence(sessionCommandSequences.get(i));
+    }
+
+    ThreadContext context = ThreadContext.currentContextOrThrow();
+    CompletableFuture<Set<Long>> future = new CompletableFuture<>();
+    executor.executor().execute(() -> keepAliveSessions(index, timestamp, sessions, sessionCommandSequences, sessionEventIndexes, future, context));
+    return future;
+  }
+
+  /**
+   * Applies a keep alive for multiple sessions.
+   */
+  private void keepAliveSessions(long index, long timestamp, List<ServerSession> sessions, List<Long> commandSequences, List<Long> eventIndexes, CompletableFuture<Set<Long>> future, ThreadContext context) {
+    if (!log.isOpen()) {
+      execute(() -> future.completeExceptionally(new IllegalStateException("log closed")), context);
+      return;
+    }
+
+    // Update the state machine context with the keep-alive entry's index. This ensures that events published
+    // as a result of asynchronous callbacks will be executed at the proper index with SEQUENTIAL consistency.
+    executor.init(index, Instant.ofEpochMilli(timestamp), false, Command.ConsistencyLevel.SEQUENTIAL);
+
+    // Sessions may have been closed by the state machine since the entry was applied, so only sessions that
+    // are still active are kept alive.
+    Set<Long> kept = new HashSet<>(sessions.size());
+    for (int i = 0; i < sessions.size(); i++) {
+      ServerSession session = sessions.get(i);
+      if (session.state().active()) {
+        session.clearResponses(commandSequences.get(i)).resendEvents(eventIndexes.get(i));
+        kept.add(session.id());
+      }
+    }
+
+    // Calculate the last completed index.
+    long lastCompleted = calculateLastCompleted(index);
+
+    CompletableFuture<Void> sessionFuture = executor.commit();
+    if (sessionFuture != null) {
+      sessionFuture.whenComplete((result, error) -> {
+        execute(() -> {
+          setLastCompleted(lastCompleted);
+          future.complete(kept);
+        }, context);
+      });
+    } else {
+      execute(() -> {
+        setLastCompleted(lastCompleted);
+        future.complete(kept);
+      }, context);
+    }
+  }
+
   /**
    * Applies a keep alive for a session.
    */
   private void keepAliveSession(long index, long timestamp, long commandSequence, long eventIndex, ServerSession session, CompletableFuture<Void> future, ThreadContext context) {
     if (!log.isOpen()) {
-      context.executor().execute(() -> future.completeExceptionally(new IllegalStateException("log closed")));
+      execute(() -> future.completeExceptionally(new IllegalStateException("log closed")), context);
       return;
     }
 
     // If the session is already in an inactive state, complete the future exceptionally.
     if (!session.state().active()) {
-      context.executor().execute(() -> future.completeExceptionally(new UnknownSessionException("inactive session: " + session.id())));
+      execute(() -> future.completeExceptionally(new UnknownSessionException("inactive session: " + session.id())), context);
       return;
     }
 
@@ -576,16 +825,16 @@ final class ServerStateMachine implements AutoCloseable {
     CompletableFuture<Void> sessionFuture = executor.commit();
     if (sessionFuture != null) {
       sessionFuture.whenComplete((result, error) -> {
-        context.executor().execute(() -> {
+        execute(() -> {
           setLastCompleted(lastCompleted);
           future.complete(null);
-        });
+        }, context);
       });
     } else {
-      context.executor().execute(() -> {
+      execute(() -> {
         setLastCompleted(lastCompleted);
         future.complete(null);
-      });
+      }, context);
     }
   }
 
@@ -642,6 +891,10 @@ final class ServerStateMachine implements AutoCloseable {
 
       long index = entry.getIndex();
 
+      // The session is being unregistered, so stop tracking its timeout. The timeout index and suspects are
+      // only accessed by this thread, whereas the session is unregistered in the state machine thread.
+      executor.context().sessions().untrackSession(session);
+
       // If the entry was marked expired, that indicates that the leader explicitly expired the session due to
       // the session not being kept alive by the client. In all other cases, we close the session normally.
       if (entry.isExpired()) {
@@ -662,13 +915,13 @@ final class ServerStateMachine implements AutoCloseable {
    */
   private void expireSession(long index, long timestamp, boolean synchronous, ServerSession session, CompletableFuture<Void> future, ThreadContext context) {
     if (!log.isOpen()) {
-      context.executor().execute(() -> future.completeExceptionally(new IllegalStateException("log closed")));
+      execute(() -> future.completeExceptionally(new IllegalStateException("log closed")), context);
       return;
     }
 
     // If the session is already in an inactive state, complete the future exceptionally.
     if (!session.state().active()) {
-      context.executor().execute(() -> future.completeExceptionally(new UnknownSessionException("inactive session: " + session.id())));
+      execute(() -> future.completeExceptionally(new UnknownSessionException("inactive session: " + session.id())), context);
       return;
     }
 
@@ -689,7 +942,7 @@ final class ServerStateMachine implements AutoCloseable {
     long lastCompleted = calculateLastCompleted(index);
 
     // Update the highest index completed for all sessions to allow log compaction to progress.
-    context.executor().execute(() -> setLastCompleted(lastCompleted));
+    execute(() -> setLastCompleted(lastCompleted), context);
 
     // Once expiration callbacks have been completed, ensure that events published during the callbacks
     // are published in batch. The state machine context will generate an event future for all published events
@@ -698,10 +951,10 @@ final class ServerStateMachine implements AutoCloseable {
     CompletableFuture<Void> sessionFuture = executor.commit();
     if (sessionFuture != null) {
       sessionFuture.whenComplete((result, error) -> {
-        context.executor().execute(() -> future.complete(null));
+        execute(() -> future.complete(null), context);
       });
     } else {
-      context.executor().execute(() -> future.complete(null));
+      execute(() -> future.complete(null), context);
     }
   }
 
@@ -710,13 +963,13 @@ final class ServerStateMachine implements AutoCloseable {
    */
   private void closeSession(long index, long timestamp, boolean synchronous, ServerSession session, CompletableFuture<Void> future, ThreadContext context) {
     if (!log.isOpen()) {
-      context.executor().execute(() -> future.completeExceptionally(new IllegalStateException("log closed")));
+      execute(() -> future.completeExceptionally(new IllegalStateException("log closed")), context);
       return;
     }
 
     // If the session is already in an inactive state, complete the future exceptionally.
     if (!session.state().active()) {
-      context.executor().execute(() -> future.completeExceptionally(new UnknownSessionException("inactive session: " + session.id())));
+      execute(() -> future.completeExceptionally(new UnknownSessionException("inactive session: " + session.id())), context);
       return;
     }
 
@@ -737,7 +990,7 @@ final class ServerStateMachine implements AutoCloseable {
     long lastCompleted = calculateLastCompleted(index);
 
     // Update the highest index completed for all sessions to allow log compaction to progress.
-    context.executor().execute(() -> setLastCompleted(lastCompleted));
+    execute(() -> setLastCompleted(lastCompleted), context);
 
     // Once close callbacks have been completed, ensure that events published during the callbacks
     // are published in batch. The state machine context will generate an event future for all published events
@@ -746,10 +999,10 @@ final class ServerStateMachine implements AutoCloseable {
     CompletableFuture<Void> sessionFuture = executor.commit();
     if (sessionFuture != null) {
       sessionFuture.whenComplete((result, error) -> {
-        context.executor().execute(() -> future.complete(null));
+        execute(() -> future.complete(null), context);
       });
     } else {
-      context.executor().execute(() -> future.complete(null));
+      execute(() -> future.complete(null), context);
     }
   }
 
@@ -825,7 +1078,7 @@ final class ServerStateMachine implements AutoCloseable {
 
       // Update the session timestamp and command sequence number. This is done in the caller's thread since all
       // timestamp/index/sequence checks are done in this thread prior to executing operations on the state machine thread.
-      session.setTimestamp(timestamp).setCommandSequence(sequence);
+      executor.context().sessions().setTimestamp(session, timestamp).setCommandSequence(sequence);
       return future;
     }
   }
@@ -835,7 +1088,7 @@ final class ServerStateMachine implements AutoCloseable {
    */
   private void sequenceCommand(long sequence, Command.ConsistencyLevel consistency, ServerSession session, CompletableFuture<Object> future, ThreadContext context) {
     if (!log.isOpen()) {
-      context.executor().execute(() -> future.completeExceptionally(new IllegalStateException("log closed")));
+      fail(future, new IllegalStateException("log closed"), context);
       return;
     }
 
@@ -844,11 +1097,11 @@ final class ServerStateMachine implements AutoCloseable {
     if (consistency == Command.ConsistencyLevel.SEQUENTIAL) {
       Object response = session.getResponse(sequence);
       if (response == null) {
-        context.executor().execute(() -> future.complete(null));
+        complete(future, null, context);
       } else if (response instanceof Throwable) {
-        context.executor().execute(() -> future.completeExceptionally((Throwable) response));
+        fail(future, (Throwable) response, context);
       } else {
-        context.executor().execute(() -> future.complete(response));
+        complete(future, response, context);
       }
     } else {
       // For linearizable commands, check whether a future is registered for the command. A future will be
@@ -860,11 +1113,11 @@ final class ServerStateMachine implements AutoCloseable {
         sessionFuture.whenComplete((result, error) -> {
           Object response = session.getResponse(sequence);
           if (response == null) {
-            context.executor().execute(() -> future.complete(null));
+            complete(future, null, context);
           } else if (response instanceof Throwable) {
-            context.executor().execute(() -> future.completeExceptionally((Throwable) response));
+            fail(future, (Throwable) response, context);
           } else {
-            context.executor().execute(() -> future.complete(response));
+            complete(future, response, context);
           }
         });
       } else {
@@ -872,11 +1125,11 @@ final class ServerStateMachine implements AutoCloseable {
         // server thread.
         Object response = session.getResponse(sequence);
         if (response == null) {
-          context.executor().execute(() -> future.complete(null));
+          complete(future, null, context);
         } else if (response instanceof Throwable) {
-          context.executor().execute(() -> future.completeExceptionally((Throwable) response));
+          fail(future, (Throwable) response, context);
         } else {
-          context.executor().execute(() -> future.complete(response));
+          complete(future, response, context);
         }
       }
     }
@@ -887,13 +1140,13 @@ final class ServerStateMachine implements AutoCloseable {
    */
   private void executeCommand(long sequence, ServerCommit commit, boolean synchronous, Command.ConsistencyLevel consistency, ServerSession session, CompletableFuture<Object> future, ThreadContext context) {
     if (!log.isOpen()) {
-      context.executor().execute(() -> future.completeExceptionally(new IllegalStateException("log closed")));
+      fail(future, new IllegalStateException("log closed"), context);
       return;
     }
 
     // If the session is already in an inactive state, complete the future exceptionally.
     if (!session.state().active()) {
-      context.executor().execute(() -> future.completeExceptionally(new UnknownSessionException("inactive session: " + session.id())));
+      fail(future, new UnknownSessionException("inactive session: " + session.id()), context);
       return;
     }
 
@@ -915,15 +1168,15 @@ final class ServerStateMachine implements AutoCloseable {
       session.registerResponse(sequence, result, sessionFuture);
       if (sessionFuture != null) {
         sessionFuture.whenComplete((sessionResult, sessionError) -> {
-          context.executor().execute(() -> future.complete(result));
+          complete(future, result, context);
         });
       } else {
-        context.executor().execute(() -> future.complete(result));
+        complete(future, result, context);
       }
     } catch (Exception e) {
       // If an exception occurs during execution of the command, store the exception.
       session.registerResponse(sequence, e, null);
-      context.executor().execute(() -> future.completeExceptionally(e));
+      fail(future, e, context);
     }
   }
 
@@ -980,10 +1233,10 @@ final class ServerStateMachine implements AutoCloseable {
         if (index > session.getLastApplied()) {
           session.registerIndexQuery(index, () -> {
             context.checkThread();
-            executor.executor().execute(() -> executeQuery(commit, session, future, context));
+            submitQuery(commit, session, future, context);
           });
         } else {
-          executor.executor().execute(() -> executeQuery(commit, session, future, context));
+          submitQuery(commit, session, future, context);
         }
       });
       return future;
@@ -997,30 +1250,84 @@ final class ServerStateMachine implements AutoCloseable {
       ServerCommit commit = commits.acquire(entry, session, executor.timestamp());
       session.registerIndexQuery(entry.getIndex(), () -> {
         context.checkThread();
-        executor.executor().execute(() -> executeQuery(commit, session, future, context));
+        submitQuery(commit, session, future, context);
       });
       return future;
     } else {
       CompletableFuture<Object> future = new CompletableFuture<>();
       ThreadContext context = ThreadContext.currentContextOrThrow();
       ServerCommit commit = commits.acquire(entry, session, executor.timestamp());
-      executor.executor().execute(() -> executeQuery(commit, session, future, context));
+      submitQuery(commit, session, future, context);
       return future;
     }
   }
 
+  /**
+   * Submits a state machine query for execution.
+   * <p>
+   * Queries for which the state machine registered a reader are executed on the query thread pool. All other
+   * queries are executed on the state machine thread. The last applied index is updated once commands have been
+   * submitted to the state machine thread rather than once they've been executed, so readers are handed off to the
+   * query thread pool from the state machine thread to ensure commands up to the query index have been executed.
+   * Reader commits are released in the caller's thread since session references are not thread safe.
+   */
+  private void submitQuery(ServerCommit commit, ServerSession session, CompletableFuture<Object> future, ThreadContext context) {
+    Function reader = executor.reader(commit.type());
+    if (reader != null) {
+      if (queryExecutor == null) {
+        queryExecutor = Executors.newFixedThreadPool(state.getQueryThreads(), new CatalystThreadFactory("copycat-query-%d"));
+      }
+      ExecutorService queryExecutor = this.queryExecutor;
+      commit.setReleaseExecutor(context.executor());
+      executor.executor().execute(() -> {
+        try {
+          queryExecutor.execute(() -> executeReader(reader, commit, session, future, context));
+        } catch (RejectedExecutionException e) {
+          fail(future, new IllegalStateException("state machine closed"), context);
+        }
+      });
+    } else {
+      executor.executor().execute(() -> executeQuery(commit, session, future, context));
+    }
+  }
+
+  /**
+   * Executes a state machine query with a reader.
+   */
+  private void executeReader(Function reader, ServerCommit commit, ServerSession session, CompletableFuture<Object> future, ThreadContext context) {
+    if (!log.isOpen()) {
+      fail(future, new IllegalStateException("log closed"), context);
+      return;
+    }
+
+    // If the session is already in an inactive state, complete the future exceptionally.
+    if (!session.state().active()) {
+      fail(future, new UnknownSessionException("inactive session: " + session.id()), context);
+      return;
+    }
+
+    // Readers are executed concurrently with the state machine thread, so the state machine context is not
+    // updated. Readers can only access the query's index and time through the commit.
+    try {
+      Object result = executor.executeReader(reader, commit);
+      complete(future, result, context);
+    } catch (Exception e) {
+      fail(future, e, context);
+    }
+  }
+
   /**
    * Executes a state machine query.
    */
   private void executeQuery(ServerCommit commit, ServerSession session, CompletableFuture<Object> future, ThreadContext context) {
     if (!log.isOpen()) {
-      context.executor().execute(() -> future.completeExceptionally(new IllegalStateException("log closed")));
+      fail(future, new IllegalStateException("log closed"), context);
       return;
     }
 
     // If the session is already in an inactive state, complete the future exceptionally.
     if (!session.state().active()) {
-      context.executor().execute(() -> future.completeExceptionally(new UnknownSessionException("inactive session: " + session.id())));
+      fail(future, new UnknownSessionException("inactive session: " + session.id()), context);
       return;
     }
 
@@ -1031,12 +1338,44 @@ final class ServerStateMachine implements AutoCloseable {
 
     try {
       Object result = executor.executeOperation(commit);
-      context.executor().execute(() -> future.complete(result));
+      complete(future, result, context);
     } catch (Exception e) {
-      context.executor().execute(() -> future.completeExceptionally(e));
+      fail(future, e, context);
+    }
+  }
+
+  /**
+   * Runs a task in the caller's context.
+   * <p>
+   * Tasks for the server thread are run through the batched completion queue, which wakes the server thread once
+   * for all tasks submitted since its last wakeup. All tasks submitted from the state machine to the server thread
+   * must go through the queue to preserve the order in which they were submitted.
+   */
+  private void execute(Runnable task, ThreadContext context) {
+    if (context == completions.context()) {
+      completions.execute(task);
+    } else {
+      context.executor().execute(task);
     }
   }
 
+  /**
+   * Completes an operation future in the caller's context.
+   * <p>
+   * Futures for operations submitted from the server thread are completed through the batched completion queue,
+   * which wakes the server thread once for all operations completed since its last wakeup.
+   */
+  private <T> void complete(CompletableFuture<T> future, T result, ThreadContext context) {
+    execute(() -> future.complete(result), context);
+  }
+
+  /**
+   * Completes an operation future exceptionally in the caller's context.
+   */
+  private void fail(CompletableFuture<?> future, Throwable error, ThreadContext context) {
+    execute(() -> future.completeExceptionally(error), context);
+  }
+
   /**
    * Applies an initialize entry to the state machine.
    * <p>
@@ -1051,7 +1390,7 @@ final class ServerStateMachine implements AutoCloseable {
     // timeout during leadership changes or shortly thereafter.
     long timestamp = executor.tick(entry.getTimestamp());
     for (ServerSession session : executor.context().sessions().sessions.values()) {
-      session.setTimestamp(timestamp);
+      executor.context().sessions().setTimestamp(session, timestamp);
     }
     log.clean(entry.getIndex());
     return Futures.completedFutureAsync(entry.getIndex(), ThreadContext.currentContextOrThrow().executor());
@@ -1065,18 +1404,56 @@ final class ServerStateMachine implements AutoCloseable {
    * that a session could be marked expired when in fact its keep alive entries were simply compacted
    * from the log. Forcing the leader to expire sessions ensures that keep alives are not missed with
    * regard to session expiration.
+   * <p>
+   * Sessions are indexed by the time at which they time out, so only sessions that have actually timed out
+   * are visited.
    */
   private void suspectSessions(long exclude, long timestamp) {
-    for (ServerSession session : executor.context().sessions().sessions.values()) {
-      if (session.id() != exclude && timestamp - session.timeout() > session.getTimestamp()) {
-        session.suspect();
-      }
+    executor.context().sessions().suspectSessions(exclude, timestamp);
+  }
+
+  /**
+   * Cleans the given index from the log.
+   * <p>
+   * Multi-session keep alive entries are referenced by each of the sessions they kept alive, so they're only
+   * cleaned from the log once all referencing sessions have released the entry.
+   */
+  private void clean(long index) {
+    Integer references = keepAliveReferences.computeIfPresent(index, (i, count) -> count - 1);
+    if (references == null) {
+      log.clean(index);
+    } else if (references == 0 && keepAliveReferences.remove(index, 0)) {
+      log.clean(index);
     }
   }
 
   @Override
   public void close() {
+    if (reader != null) {
+      reader.close();
+    }
+    // Wait for in-flight snapshot writes and queries to complete before the log and snapshot store are closed.
+    if (snapshotExecutor != null) {
+      shutdown(snapshotExecutor);
+    }
+    if (queryExecutor != null) {
+      shutdown(queryExecutor);
+    }
     executor.close();
   }
 
+  /**
+   * Shuts down the given executor and waits for running tasks to complete.
+   */
+  private void shutdown(ExecutorService executor) {
+    executor.shutdown();
+    try {
+      if (!executor.awaitTermination(30, TimeUnit.SECONDS)) {
+        LOGGER.warn("{} - Timed out waiting for state machine tasks to complete", state.getCluster().member().address());
+      }
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+  }
+
 }
@@ -23,6 +23,7 @@ import io.atomix.catalyst.util.concurrent.ThreadContext;
 import io.atomix.copycat.client.Command;
 import io.atomix.copycat.client.NoOpCommand;
 import io.atomix.copycat.client.Operation;
+import io.atomix.copycat.client.Query;
 import io.atomix.copycat.client.error.ApplicationException;
 import io.atomix.copycat.server.Commit;
 import io.atomix.copycat.server.StateMachineExecutor;
@@ -33,6 +34,7 @@ import java.time.Duration;
 import java.time.Instant;
 import java.util.*;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.Executor;
 import java.util.function.Consumer;
 import java.util.function.Function;
@@ -51,6 +53,7 @@ class ServerStateMachineExecutor implements StateMachineExecutor {
   private final List<ServerScheduledTask> scheduledTasks = new ArrayList<>();
   private final List<ServerScheduledTask> complete = new ArrayList<>();
   private final Map<Class, Function> operations = new HashMap<>();
+  private final Map<Class, Function> readers = new ConcurrentHashMap<>();
   private long timestamp;
 
   ServerStateMachineExecutor(ServerStateMachineContext context, ThreadContext executor) {
@@ -135,6 +138,42 @@ class ServerStateMachineExecutor implements StateMachineExecutor {
     }
   }
 
+  /**
+   * Returns the reader registered for the given query type.
+   *
+   * @return The reader for the given query type or {@code null} if the query is not executed by a reader.
+   */
+  Function reader(Class type) {
+    if (readers.isEmpty()) {
+      return null;
+    }
+
+    Function reader = readers.get(type);
+    if (reader == null) {
+      // If no reader was found for the class, try to find a reader registered with a parent class.
+      for (Map.Entry<Class, Function> entry : readers.entrySet()) {
+        if (entry.getKey().isAssignableFrom(type)) {
+          reader = entry.getValue();
+          readers.put(type, reader);
+          break;
+        }
+      }
+    }
+    return reader;
+  }
+
+  /**
+   * Executes a query with a reader.
+   */
+  @SuppressWarnings("unchecked")
+  <U> U executeReader(Function reader, Commit commit) {
+    try {
+      return (U) reader.apply(commit);
+    } catch (Exception e) {
+      throw new ApplicationException("An application error occurred", e);
+    }
+  }
+
   /**
    * Commits the application of a command to the state machine.
    */
@@ -245,6 +284,15 @@ class ServerStateMachineExecutor implements StateMachineExecutor {
     return this;
   }
 
+  @Override
+  public <T extends Query<U>, U> StateMachineExecutor registerReader(Class<T> type, Function<Commit<T>, U> callback) {
+    Assert.notNull(type, "type");
+    Assert.notNull(callback, "callback");
+    readers.put(type, callback);
+    LOGGER.debug("Registered reader callback {}", type);
+    return this;
+  }
+
   @Override
   public void close() {
     executor.close();
@@ -0,0 +1,59 @@
+/*
+ * Copyright 2015 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.atomix.copycat.server.storage;
+
+/**
+ * {@link Log} durability configuration values which control when appended entries are flushed to disk.
+ * <p>
+ * Durability modes dictate how the log {@link Log#sync(long) syncs} {@link io.atomix.copycat.server.storage.entry.Entry entries}
+ * written to persistent {@link StorageLevel storage levels}. Because Raft requires that entries be persisted before
+ * they're acknowledged to a leader or counted towards a commitment, the durability mode bounds the safety of the
+ * system in the event of a crash. Durability modes have no effect on {@link StorageLevel#MEMORY} logs.
+ *
+ * @see Storage
+ *
+ * @author <a href="http://github.com/kuujo>Jordan Halterman</a>
+ */
+public enum DurabilityMode {
+
+  /**
+   * Never explicitly flushes the log.
+   * <p>
+   * Entries are considered durable as soon as they're written to the underlying {@link io.atomix.catalyst.buffer.Buffer}
+   * and will be flushed to disk at the discretion of the operating system. This mode provides the lowest latency but
+   * entries acknowledged to the cluster may be lost in the event of a crash.
+   */
+  NONE,
+
+  /**
+   * Flushes the log once per batch of appended entries.
+   * <p>
+   * All entries appended to the log between two turns of the log's {@link io.atomix.catalyst.util.concurrent.ThreadContext}
+   * are grouped and flushed with a single {@code fsync}. Callers waiting on {@link Log#sync(long)} for any entry in
+   * the batch are completed once the batch has been flushed. This is the default durability mode.
+   */
+  BATCH,
+
+  /**
+   * Flushes the log periodically.
+   * <p>
+   * The log is flushed at the {@link Storage#flushInterval() flush interval}, and callers waiting on
+   * {@link Log#sync(long)} are completed once the next periodic flush has completed. This mode trades latency for
+   * fewer {@code fsync} calls under high load.
+   */
+  PERIODIC
+
+}
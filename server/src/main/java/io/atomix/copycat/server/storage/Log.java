@@ -15,14 +15,19 @@
  */
 package io.atomix.copycat.server.storage;
 
+import io.atomix.catalyst.buffer.Buffer;
 import io.atomix.catalyst.serializer.Serializer;
 import io.atomix.catalyst.util.Assert;
 import io.atomix.catalyst.util.concurrent.CatalystThreadFactory;
+import io.atomix.catalyst.util.concurrent.Scheduled;
+import io.atomix.catalyst.util.concurrent.ThreadContext;
 import io.atomix.copycat.server.storage.compaction.Compaction;
 import io.atomix.copycat.server.storage.compaction.Compactor;
 import io.atomix.copycat.server.storage.entry.Entry;
+import io.atomix.copycat.server.storage.entry.RawEntry;
 import io.atomix.copycat.server.storage.entry.TypedEntryPool;
 
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.Executors;
 
 /**
@@ -110,6 +115,11 @@ import java.util.concurrent.Executors;
  * live entries, it combines multiple segments up to the configured segment capacity. When a segment becomes full during
  * major compaction, the compaction process rolls over to a new segment and continues compaction. This results in a
  * significantly smaller number of files.
+ * <p>
+ * Entries appended to the log are not necessarily persisted to disk. In order to ensure an entry is durable, callers
+ * must wait for the log to {@link #sync(long) sync} the entry. The log groups syncs according to the configured
+ * {@link Storage#durabilityMode()} such that multiple entries appended in a single batch can be flushed with a single
+ * {@code fsync}.
  *
  * @author <a href="http://github.com/kuujo">Jordan Halterman</a>
  */
@@ -117,6 +127,11 @@ public class Log implements AutoCloseable {
   final SegmentManager segments;
   private final Compactor compactor;
   private final TypedEntryPool entryPool = new TypedEntryPool();
+  private final DurabilityMode durabilityMode;
+  private final ThreadContext context;
+  private Scheduled flushTimer;
+  private CompletableFuture<Long> syncFuture;
+  private long syncIndex;
   private boolean open = true;
 
   /**
@@ -125,6 +140,12 @@ public class Log implements AutoCloseable {
   protected Log(String name, Storage storage, Serializer serializer) {
     this.segments = new SegmentManager(name, storage, serializer);
     this.compactor = new Compactor(storage, segments, Executors.newScheduledThreadPool(storage.compactionThreads(), new CatalystThreadFactory("copycat-compactor-%d")));
+    this.durabilityMode = storage.level() == StorageLevel.MEMORY ? DurabilityMode.NONE : storage.durabilityMode();
+    this.context = ThreadContext.currentContext();
+    this.syncIndex = lastIndex();
+    if (durabilityMode == DurabilityMode.PERIODIC && context != null) {
+      flushTimer = context.schedule(storage.flushInterval(), storage.flushInterval(), this::syncBatch);
+    }
   }
 
   /**
@@ -246,7 +267,13 @@ public class Log implements AutoCloseable {
    * Checks whether we need to roll over to a new segment.
    */
   private void checkRoll() {
-    if (segments.currentSegment().isFull()) {
+    // Segments written in an older record format are rolled over so new entries are written in the current format.
+    Segment currentSegment = segments.currentSegment();
+    if (currentSegment.isFull() || (currentSegment.descriptor().format() < SegmentDescriptor.CURRENT_FORMAT && !currentSegment.isEmpty())) {
+      // Flush the full segment before rolling over since only the current segment is flushed on sync.
+      if (durabilityMode != DurabilityMode.NONE) {
+        segments.currentSegment().flush();
+      }
       segments.nextSegment();
     }
   }
@@ -342,51 +369,138 @@ public class Log implements AutoCloseable {
     // Get the entry from the segment. If the entry hasn't already been compacted from the segment,
     // it will be non-null.
     T entry = segment.get(index);
+    return entry != null ? visible(segment, entry) : null;
+  }
 
-    // For non-null entries, we determine whether the entry should be exposed to the Raft algorithm
-    // based on the type of entry and whether it has been cleaned.
-    if (entry != null) {
-      // The last entry in the log is always visible. This is necessary to ensure that candidates
-      // can properly read the last entry term for the voting protocol.
-      if (index == lastIndex()) {
-        return entry;
-      }
+  /**
+   * Returns the given entry if it should be exposed to the Raft algorithm, otherwise releases the entry.
+   * <p>
+   * Whether an entry is visible is determined by the type of entry and whether it has been cleaned.
+   */
+  <T extends Entry> T visible(Segment segment, T entry) {
+    long index = entry.getIndex();
 
-      Compaction.Mode mode = entry.getCompactionMode();
-      if (mode == Compaction.Mode.DEFAULT) {
-        mode = compactor.getDefaultCompactionMode();
-      }
+    // The last entry in the log is always visible. This is necessary to ensure that candidates
+    // can properly read the last entry term for the voting protocol.
+    if (index == lastIndex()) {
+      return entry;
+    }
 
-      // Return the entry according to the compaction mode.
-      switch (mode) {
-        // SNAPSHOT entries are returned if the snapshotIndex is less than the entry index.
-        case SNAPSHOT:
-          if (index > compactor.snapshotIndex()) {
-            return entry;
-          }
-          break;
-        // QUORUM entries are returned if the minorIndex is less than the entry index or the
-        // entry has not been cleaned.
-        case QUORUM:
-          if (index > compactor.minorIndex() || !segment.isClean(index)) {
-            return entry;
-          }
-          break;
-        // FULL entries are returned if the minorIndex or majorIndex is less than the entry index or
-        // if the entry hasn't been cleaned.
-        // SEQUENTIAL entries are returned if the minorIndex or majorIndex is less than the entry index or
-        // if the entry hasn't been cleaned.
-        case FULL:
-        case SEQUENTIAL:
-          if (index > compactor.minorIndex() || index > compactor.majorIndex() || !segment.isClean(index)) {
-            return entry;
-          }
-          break;
-      }
+    Compaction.Mode mode = entry.getCompactionMode();
+    if (mode == Compaction.Mode.DEFAULT) {
+      mode = compactor.getDefaultCompactionMode();
     }
+
+    // Return the entry according to the compaction mode.
+    switch (mode) {
+      // SNAPSHOT entries are returned if the snapshotIndex is less than the entry index.
+      case SNAPSHOT:
+        if (index > compactor.snapshotIndex()) {
+          return entry;
+        }
+        break;
+      // QUORUM entries are returned if the minorIndex is less than the entry index or the
+      // entry has not been cleaned.
+      case QUORUM:
+        if (index > compactor.minorIndex() || !segment.isClean(index)) {
+          return entry;
+        }
+        break;
+      // FULL entries are returned if the minorIndex or majorIndex is less than the entry index or
+      // if the entry hasn't been cleaned.
+      // SEQUENTIAL entries are returned if the minorIndex or majorIndex is less than the entry index or
+      // if the entry hasn't been cleaned.
+      case FULL:
+      case SEQUENTIAL:
+        if (index > compactor.minorIndex() || index > compactor.majorIndex() || !segment.isClean(index)) {
+          return entry;
+        }
+        break;
+    }
+
+    entry.release();
     return null;
   }
 
+  /**
+   * Returns a boolean value indicating whether a cleaned entry at the given index is hidden regardless of its
+   * compaction mode. Cleaned entries that are hidden can be skipped without being read from the segment.
+   */
+  boolean isHidden(long index) {
+    return index != lastIndex()
+      && index <= compactor.minorIndex()
+      && index <= compactor.majorIndex()
+      && index <= compactor.snapshotIndex();
+  }
+
+  /**
+   * Gets the serialized form of an entry from the log at the given index.
+   * <p>
+   * Raw entries wrap a slice of the serialized entry bytes in the underlying {@link Segment} and can be replicated
+   * or {@link #append(Entry) appended} to another log without deserializing and reserializing the entry. Because
+   * the visibility of cleaned entries depends on the entry's {@link Compaction.Mode}, raw entries can only be read
+   * for indexes greater than the compactor's minor and snapshot indexes. For all other indexes, this method returns
+   * {@code null} and the entry must be read via {@link #get(long)}.
+   * <p>
+   * Entries returned by this method are pooled and {@link io.atomix.catalyst.util.ReferenceCounted reference counted}.
+   * Once the entry has been written, it should be released via {@link Entry#close()}.
+   *
+   * @param index The index of the entry to get.
+   * @return The raw entry at the given index or {@code null} if the entry cannot be read in raw form.
+   * @throws IllegalStateException If the log is not open.
+   * @throws IndexOutOfBoundsException If the given index is not within the bounds of the log.
+   */
+  public RawEntry getRaw(long index) {
+    assertIsOpen();
+    assertValidIndex(index);
+
+    if (!isRaw(index)) {
+      return null;
+    }
+
+    Segment segment = segments.segment(index);
+    Assert.index(segment != null, "invalid index: " + index);
+
+    Buffer bytes = segment.getBytes(index);
+    return bytes != null ? raw(segment, index, bytes, segment.getType(index)) : null;
+  }
+
+  /**
+   * Returns a boolean value indicating whether the entry at the given index can be read in raw form.
+   * <p>
+   * Entries above the minor and snapshot indexes are visible regardless of compaction mode. Segments
+   * containing those entries are also not eligible for compaction, so slices of the segment remain valid.
+   */
+  boolean isRaw(long index) {
+    return index > compactor.minorIndex() && index > compactor.snapshotIndex();
+  }
+
+  /**
+   * Wraps the serialized bytes of the entry at the given index in a pooled raw entry.
+   */
+  RawEntry raw(Segment segment, long index, Buffer bytes, int type) {
+    RawEntry entry = entryPool.acquire(RawEntry.class, index);
+    return entry.setBytes(bytes)
+      .setType(type)
+      .setTerm(segment.term(index))
+      .setSize((int) bytes.remaining());
+  }
+
+  /**
+   * Creates a new sequential reader starting at the given index.
+   * <p>
+   * Readers iterate over entries in the log in order, avoiding segment lookups and index searches for each entry.
+   * Readers are not thread safe, and each reader should be {@link LogReader#close() closed} once it is no longer used.
+   *
+   * @param index The index from which to begin reading.
+   * @return A new log reader.
+   * @throws IllegalStateException If the log is not open.
+   */
+  public LogReader createReader(long index) {
+    assertIsOpen();
+    return new LogReader(this, index);
+  }
+
   /**
    * Returns a boolean value indicating whether the given index is within the bounds of the log.
    * <p>
@@ -500,6 +614,9 @@ public class Log implements AutoCloseable {
     if (lastIndex() == index)
       return this;
 
+    // Entries appended after the truncated index must be synced again.
+    syncIndex = Math.min(syncIndex, index);
+
     for (Segment segment : segments.reverseSegments()) {
       if (segment.validIndex(index)) {
         segment.truncate(index);
@@ -511,6 +628,76 @@ public class Log implements AutoCloseable {
     return this;
   }
 
+  /**
+   * Returns the highest index known to have been synced to disk.
+   * <p>
+   * If the log's {@link Storage#durabilityMode()} is {@link DurabilityMode#NONE} or the log is stored in
+   * {@link StorageLevel#MEMORY memory}, all entries are considered synced and the sync index will be equal
+   * to the {@link #lastIndex()}.
+   *
+   * @return The highest index known to have been synced to disk.
+   * @throws IllegalStateException If the log is not open.
+   */
+  public long syncIndex() {
+    assertIsOpen();
+    long lastIndex = lastIndex();
+    return durabilityMode == DurabilityMode.NONE ? lastIndex : Math.min(syncIndex, lastIndex);
+  }
+
+  /**
+   * Syncs the log up to the given index.
+   * <p>
+   * The returned future will be completed once all entries up to and including the given {@code index} have been
+   * flushed to disk according to the configured {@link Storage#durabilityMode()}. Futures are shared by all callers
+   * waiting on the same flush. In {@link DurabilityMode#BATCH} mode, the first call to this method after an entry is
+   * appended schedules a single flush on the log's {@link ThreadContext}, and all entries appended before that flush
+   * is executed are synced together. In {@link DurabilityMode#PERIODIC} mode, the returned future will be completed
+   * by the next periodic flush.
+   *
+   * @param index The index up to which to sync the log.
+   * @return A completable future to be completed once the log has been synced up to the given index.
+   * @throws IllegalStateException If the log is not open.
+   */
+  public CompletableFuture<Long> sync(long index) {
+    assertIsOpen();
+    if (index <= syncIndex()) {
+      return CompletableFuture.completedFuture(index);
+    }
+
+    CompletableFuture<Long> future = syncFuture;
+    if (future == null) {
+      future = new CompletableFuture<>();
+      syncFuture = future;
+
+      // If no thread context is available then the log cannot be flushed asynchronously.
+      if (context == null) {
+        syncBatch();
+      } else if (durabilityMode == DurabilityMode.BATCH) {
+        context.execute(this::syncBatch);
+      }
+    }
+    return future;
+  }
+
+  /**
+   * Flushes the current batch of entries to disk and completes the pending sync future.
+   */
+  private void syncBatch() {
+    if (!open)
+      return;
+
+    if (syncIndex < lastIndex()) {
+      segments.currentSegment().flush();
+      syncIndex = lastIndex();
+    }
+
+    CompletableFuture<Long> future = syncFuture;
+    if (future != null) {
+      syncFuture = null;
+      future.complete(syncIndex);
+    }
+  }
+
   /**
    * Flushes the log to disk.
    *
@@ -529,7 +716,16 @@ public class Log implements AutoCloseable {
   @Override
   public void close() {
     assertIsOpen();
+    if (flushTimer != null) {
+      flushTimer.cancel();
+      flushTimer = null;
+    }
     flush();
+    syncIndex = lastIndex();
+    if (syncFuture != null) {
+      syncFuture.complete(syncIndex);
+      syncFuture = null;
+    }
     compactor.close();
     segments.close();
     open = false;
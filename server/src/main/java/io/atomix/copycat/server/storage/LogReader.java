@@ -0,0 +1,245 @@
+/*
+ * Copyright 2015 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.atomix.copycat.server.storage;
+
+import io.atomix.catalyst.buffer.Buffer;
+import io.atomix.catalyst.buffer.HeapBuffer;
+import io.atomix.catalyst.util.Assert;
+import io.atomix.copycat.server.storage.entry.Entry;
+
+/**
+ * Sequential log reader.
+ * <p>
+ * The log reader iterates over entries in a {@link Log} in order. Whereas {@link Log#get(long)} must look up the
+ * {@link Segment} and search the segment's offset index for each entry, the reader tracks the current segment and
+ * the position of the last entry read within the segment's offset index. Cleaned entries that are hidden
+ * regardless of their compaction mode are skipped without being read from the segment.
+ * <p>
+ * Segments stored on {@link StorageLevel#DISK disk} or {@link StorageLevel#MAPPED mapped} files cannot be read
+ * concurrently since reads must be synchronized with appends. For those segments, the reader copies committed records from the segment in large chunks and deserializes
+ * entries from the copy. Uncommitted records are always read directly from the segment since they may be truncated.
+ * <p>
+ * Readers are not thread safe. Each thread that reads the log should create its own reader via
+ * {@link Log#createReader(long)}, and readers should be closed once they're no longer used.
+ *
+ * @author <a href="http://github.com/kuujo">Jordan Halterman</a>
+ */
+public class LogReader implements AutoCloseable {
+  private static final int READ_AHEAD_SIZE = 1024 * 1024;
+  private final Log log;
+  private Segment segment;
+  private long offset = -1;
+  private long position = -1;
+  private long nextIndex;
+  private Buffer chunk;
+  private Segment chunkSegment;
+  private long chunkPosition;
+  private long chunkIndex;
+  private boolean open = true;
+
+  LogReader(Log log, long index) {
+    this.log = Assert.notNull(log, "log");
+    this.nextIndex = Assert.argNot(index, index < 1, "index must be positive");
+  }
+
+  /**
+   * Returns the index of the next entry to be read.
+   *
+   * @return The index of the next entry to be read.
+   */
+  public long nextIndex() {
+    return nextIndex;
+  }
+
+  /**
+   * Returns a boolean value indicating whether the log contains another entry to be read.
+   *
+   * @return Indicates whether the log contains another entry to be read.
+   * @throws IllegalStateException If the reader or log is not open.
+   */
+  public boolean hasNext() {
+    assertIsOpen();
+    return !log.isEmpty() && nextIndex <= log.lastIndex();
+  }
+
+  /**
+   * Resets the reader to the given index.
+   *
+   * @param index The index from which to continue reading.
+   * @return The log reader.
+   * @throws IllegalStateException If the reader is not open.
+   */
+  public LogReader reset(long index) {
+    assertIsOpen();
+    Assert.argNot(index < 1, "index must be positive");
+    if (index != nextIndex) {
+      nextIndex = index;
+      offset = -1;
+      position = -1;
+    }
+    return this;
+  }
+
+  /**
+   * Reads the next entry in the log.
+   * <p>
+   * The reader is advanced even if the entry at the next index has been compacted from the log. Entries returned
+   * by this method are pooled and {@link io.atomix.catalyst.util.ReferenceCounted reference counted} just as
+   * entries returned by {@link Log#get(long)}.
+   *
+   * @return The next entry in the log or {@code null} if the entry has been compacted.
+   * @throws IllegalStateException If the reader or log is not open.
+   * @throws IndexOutOfBoundsException If the next index is not within the bounds of the log.
+   */
+  public <T extends Entry> T next() {
+    long index = nextIndex;
+    Segment segment = segment(index);
+    nextIndex++;
+
+    // Find the real offset of the entry in the segment using the last read offset as a hint.
+    long offset = segment.offset(index, this.offset);
+    if (offset == -1) {
+      return null;
+    }
+    long position = position(segment, index, offset);
+
+    // Skip cleaned entries that would not be visible regardless of the entry's compaction mode.
+    if (segment.isCleanOffset(offset) && log.isHidden(index)) {
+      return null;
+    }
+
+    T entry = read(segment, index, position);
+    return entry != null ? log.visible(segment, entry) : null;
+  }
+
+  /**
+   * Reads the next entry in the log in its serialized form where possible.
+   * <p>
+   * If the next entry cannot be read as a {@link io.atomix.copycat.server.storage.entry.RawEntry} (see
+   * {@link Log#getRaw(long)}), the deserialized entry is returned instead.
+   *
+   * @return The next entry in the log or {@code null} if the entry has been compacted.
+   * @throws IllegalStateException If the reader or log is not open.
+   * @throws IndexOutOfBoundsException If the next index is not within the bounds of the log.
+   */
+  public Entry nextRaw() {
+    long index = nextIndex;
+    if (!log.isRaw(index)) {
+      return next();
+    }
+
+    Segment segment = segment(index);
+    nextIndex++;
+
+    long offset = segment.offset(index, this.offset);
+    if (offset == -1) {
+      return null;
+    }
+    long position = position(segment, index, offset);
+    return log.raw(segment, index, segment.readBytes(index, position), segment.readType(position));
+  }
+
+  /**
+   * Returns the segment for the given index.
+   */
+  private Segment segment(long index) {
+    assertIsOpen();
+    Assert.index(!log.isEmpty() && index >= log.firstIndex() && index <= log.lastIndex(), "invalid index: " + index);
+
+    // Segments may be replaced during compaction, in which case the old segment will have been closed.
+    if (segment == null || !segment.isOpen() || index < segment.index() || index > segment.lastIndex()) {
+      segment = log.segments.segment(index);
+      Assert.index(segment != null, "invalid index: " + index);
+      offset = -1;
+      position = -1;
+    }
+    return segment;
+  }
+
+  /**
+   * Returns the position of the entry at the given index and real offset, updating the last read record.
+   * <p>
+   * The position of the previously read record is used as a hint to avoid scanning sparse segment indexes. The
+   * chunk is only used to locate the next record if the previous record was committed when the chunk was copied.
+   */
+  private long position(Segment segment, long index, long offset) {
+    Buffer source = chunk != null && chunkSegment == segment && index - 1 <= chunkIndex ? chunk : null;
+    long position = segment.position(offset, this.offset, this.position, source, chunkPosition);
+    this.offset = offset;
+    this.position = position;
+    return position;
+  }
+
+  /**
+   * Reads the entry at the given index from the record at the given position in the segment.
+   */
+  private <T extends Entry> T read(Segment segment, long index, long position) {
+    // Segments that support concurrent reads are read in place. Uncommitted entries are read directly
+    // from the segment since they may be truncated after being copied.
+    if (segment.isConcurrent() || index > log.segments.commitIndex()) {
+      return segment.read(index, position);
+    }
+
+    // Attempt to read the entry from the previously copied chunk.
+    if (chunk != null && chunkSegment == segment && index <= chunkIndex) {
+      T entry = segment.read(index, position, chunk, chunkPosition);
+      if (entry != null) {
+        return entry;
+      }
+    }
+
+    // Copy the next chunk of the segment starting at the entry's record. Read the commit index before copying
+    // to ensure all records up to the commit index have been written to the segment.
+    if (chunk == null) {
+      chunk = HeapBuffer.allocate(READ_AHEAD_SIZE);
+    }
+    chunkIndex = log.segments.commitIndex();
+    chunkSegment = segment;
+    chunkPosition = position;
+    segment.readAhead(chunkPosition, chunk.clear());
+
+    // If the record is larger than the chunk, read the entry directly from the segment.
+    T entry = segment.read(index, position, chunk, chunkPosition);
+    return entry != null ? entry : segment.read(index, position);
+  }
+
+  /**
+   * Asserts that the reader and log are open.
+   */
+  private void assertIsOpen() {
+    Assert.state(open, "reader is not open");
+    Assert.state(log.isOpen(), "log is not open");
+  }
+
+  @Override
+  public void close() {
+    if (open) {
+      open = false;
+      segment = null;
+      chunkSegment = null;
+      if (chunk != null) {
+        chunk.close();
+        chunk = null;
+      }
+    }
+  }
+
+  @Override
+  public String toString() {
+    return String.format("%s[nextIndex=%d]", getClass().getSimpleName(), nextIndex);
+  }
+
+}
@@ -17,6 +17,7 @@ package io.atomix.copycat.server.storage;
 
 import io.atomix.catalyst.buffer.Buffer;
 import io.atomix.catalyst.buffer.FileBuffer;
+import io.atomix.catalyst.buffer.HeapBuffer;
 import io.atomix.catalyst.buffer.MappedBuffer;
 import io.atomix.catalyst.util.Assert;
 
@@ -42,6 +43,17 @@ import io.atomix.catalyst.util.Assert;
  * as they're written to the index. The bit array is sized according to the underlying index buffer. Prior to searching
  * for an offset in the index, the {@link io.atomix.catalyst.buffer.util.BitArray} is checked for existence of the offset in the index. Only if the offset
  * exists in the index is a binary search required.
+ * <p>
+ * The index supports a single writer and multiple concurrent readers. Readers do not share any mutable state, and
+ * new entries are published to readers by updating the volatile {@link #lastOffset()} only after the entry has been
+ * written to the index buffer. Readers that iterate the index sequentially can provide the position of the last
+ * matched offset to {@link #find(long, long)} to avoid a binary search for each lookup.
+ * <p>
+ * Indexes for segments in which offsets are contiguous can be created in sparse mode. A sparse index stores only
+ * one entry per {@code interval} records or per {@code intervalBytes} bytes, and the positions of records between
+ * indexed entries are found by scanning forward from the nearest preceding indexed record using the segment's
+ * {@link Scanner}. If an offset is skipped, the sparse index is converted to a dense index, storing an entry for
+ * every record in the segment.
  *
  * @author <a href="http://github.com/kuujo">Jordan Halterman</a>
  */
@@ -54,22 +66,73 @@ final class OffsetIndex implements AutoCloseable {
     return (long) maxEntries * 12 + 16;
   }
 
+  /**
+   * Default number of records per entry in a sparse index.
+   */
+  static final int SPARSE_INTERVAL = 64;
+
+  /**
+   * Default maximum number of bytes between entries in a sparse index.
+   */
+  static final int SPARSE_INTERVAL_BYTES = 1024 * 16;
+
   private static final long MAX_POSITION = (long) Math.pow(2, 32) - 1;
   private static final int ENTRY_SIZE = 12;
   private static final int OFFSET_SIZE = 8;
 
-  private final Buffer buffer;
-  private boolean skipped;
-  private int size;
-  private long lastOffset = -1;
-  private long currentOffset = -1;
-  private long currentMatch = -1;
+  private volatile Buffer buffer;
+  private final int interval;
+  private final int intervalBytes;
+  private Scanner scanner;
+  private volatile boolean sparse;
+  private volatile boolean skipped;
+  private volatile int entries;
+  private volatile int size;
+  private volatile long lastOffset = -1;
 
   /**
    * @throws NullPointerException if {@code buffer} is null
    */
   public OffsetIndex(Buffer buffer) {
+    this(buffer, 1, 0);
+  }
+
+  /**
+   * Creates a sparse offset index.
+   * <p>
+   * A {@link Scanner} must be provided via {@link #scanner(Scanner)} before positions can be looked up in a
+   * sparse index.
+   *
+   * @param buffer The index buffer.
+   * @param interval The maximum number of records between entries in the index.
+   * @param intervalBytes The maximum number of bytes between entries in the index.
+   * @throws NullPointerException if {@code buffer} is null
+   */
+  OffsetIndex(Buffer buffer, int interval, int intervalBytes) {
     this.buffer = Assert.notNull(buffer, "buffer");
+    this.interval = Assert.argNot(interval, interval < 1, "interval must be positive");
+    this.intervalBytes = intervalBytes;
+    this.sparse = interval > 1;
+  }
+
+  /**
+   * Sets the scanner with which to locate records between entries in a sparse index.
+   *
+   * @param scanner The segment record scanner.
+   * @return The offset index.
+   */
+  OffsetIndex scanner(Scanner scanner) {
+    this.scanner = Assert.notNull(scanner, "scanner");
+    return this;
+  }
+
+  /**
+   * Returns a boolean value indicating whether the index is sparse.
+   *
+   * @return Indicates whether the index is sparse.
+   */
+  public boolean isSparse() {
+    return sparse;
   }
 
   /**
@@ -87,12 +150,23 @@ final class OffsetIndex implements AutoCloseable {
    * @throws IllegalArgumentException if the {@code offset} is less than or equal to the last offset in the index, 
    * or {@code position} is greater than MAX_POSITION
    */
-  public synchronized void index(long offset, long position) {
+  public void index(long offset, long position) {
     Assert.argNot(offset, lastOffset > -1 && offset <= lastOffset,
       "offset cannot be less than or equal to the last offset in the index");
     Assert.argNot(position > MAX_POSITION, "position cannot be greater than " + MAX_POSITION);
 
-    buffer.writeLong(offset).writeUnsignedInt(position);
+    // Sparse indexes rely on offsets being contiguous, so store all entries once an offset has been skipped.
+    if (sparse && offset > lastOffset + 1) {
+      densify();
+    }
+
+    int entries = this.entries;
+    if (!sparse || entries == 0
+      || offset - buffer.readLong((entries - 1) * ENTRY_SIZE) >= interval
+      || position - buffer.readUnsignedInt((entries - 1) * ENTRY_SIZE + OFFSET_SIZE) >= intervalBytes) {
+      buffer.writeLong(offset).writeUnsignedInt(position);
+      this.entries = entries + 1;
+    }
 
     size++;
     if (offset > lastOffset + 1)
@@ -100,6 +174,31 @@ final class OffsetIndex implements AutoCloseable {
     lastOffset = offset;
   }
 
+  /**
+   * Converts a sparse index to a dense index by scanning the positions of all records in the segment.
+   * <p>
+   * The dense entries are written to a new buffer which is published before the index is marked dense. Concurrent
+   * readers of the sparse index remain correct since offsets in the sparse index are contiguous.
+   */
+  private void densify() {
+    Buffer buffer = this.buffer;
+    Buffer dense = HeapBuffer.allocate(buffer.capacity(), buffer.maxCapacity());
+    long lastOffset = this.lastOffset;
+    if (lastOffset != -1) {
+      long position = buffer.readUnsignedInt(OFFSET_SIZE);
+      for (long offset = 0; offset <= lastOffset; offset++) {
+        if (offset > 0) {
+          position = scanner.next(position);
+        }
+        dense.writeLong(offset).writeUnsignedInt(position);
+      }
+    }
+
+    this.buffer = dense;
+    this.entries = size;
+    this.sparse = false;
+  }
+
   /**
    * Returns a boolean value indicating whether the index is empty.
    *
@@ -134,28 +233,101 @@ final class OffsetIndex implements AutoCloseable {
    * @param offset The offset to look up.
    * @return The starting position of the given offset.
    */
-  public synchronized long position(long offset) {
+  public long position(long offset) {
     long relativeOffset = find(offset);
     return relativeOffset != -1 ? buffer.readUnsignedInt(relativeOffset * ENTRY_SIZE + OFFSET_SIZE) : -1;
   }
 
+  /**
+   * Returns the position stored at the given real offset.
+   *
+   * @param match The real offset of the entry in the index.
+   * @return The starting position of the entry at the given real offset.
+   */
+  public long positionAt(long match) {
+    if (!sparse) {
+      return buffer.readUnsignedInt(match * ENTRY_SIZE + OFFSET_SIZE);
+    }
+
+    // Find the nearest preceding entry in the sparse index and scan forward to the record.
+    int entries = this.entries;
+    Buffer buffer = this.buffer;
+    int floor = floor(buffer, entries, match);
+    long position = buffer.readUnsignedInt(floor * ENTRY_SIZE + OFFSET_SIZE);
+    for (long offset = buffer.readLong(floor * ENTRY_SIZE); offset < match; offset++) {
+      position = scanner.next(position);
+    }
+    return position;
+  }
+
+  /**
+   * Returns the position of the greatest entry less than or equal to the given offset.
+   */
+  private static int floor(Buffer buffer, int entries, long offset) {
+    int low = 0;
+    int high = entries - 1;
+    while (low <= high) {
+      int mid = (low + high) >>> 1;
+      long midOffset = buffer.readLong(mid * ENTRY_SIZE);
+      if (midOffset < offset) {
+        low = mid + 1;
+      } else if (midOffset > offset) {
+        high = mid - 1;
+      } else {
+        return mid;
+      }
+    }
+    return high;
+  }
+
+  /**
+   * Returns the relative offset stored at the given real offset.
+   *
+   * @param match The real offset of the entry in the index.
+   * @return The relative offset of the entry at the given real offset.
+   */
+  public long offsetAt(long match) {
+    return sparse ? match : buffer.readLong(match * ENTRY_SIZE);
+  }
+
   /**
    * Finds the real offset for the given relative offset.
    */
-  public synchronized long find(long offset) {
-    if (size == 0) {
+  public long find(long offset) {
+    return find(offset, -1);
+  }
+
+  /**
+   * Finds the real offset for the given relative offset using the real offset of a prior lookup as a hint.
+   * <p>
+   * Sequential readers can pass the result of the previous lookup as the {@code hint} to check the next
+   * entry in the index before falling back to a binary search.
+   *
+   * @param offset The relative offset to find.
+   * @param hint The real offset of a prior lookup or {@code -1} if no prior lookup was performed.
+   * @return The real offset for the given relative offset or {@code -1} if the offset is not in the index.
+   */
+  public long find(long offset, long hint) {
+    // Read the last offset first to ensure entries up to the last offset are visible.
+    long lastOffset = this.lastOffset;
+    if (this.size == 0 || lastOffset == -1) {
       return -1;
     }
 
+    // Sparse indexes are never skipped, so only dense indexes are searched.
     if (!skipped && offset <= lastOffset) {
       return offset;
     }
 
-    if (offset == currentOffset) {
-      return currentMatch;
-    } else if (currentOffset != -1 && currentMatch + 1 < size && buffer.readLong((currentMatch + 1) * ENTRY_SIZE) == offset) {
-      currentOffset = offset;
-      return ++currentMatch;
+    int size = this.entries;
+    Buffer buffer = this.buffer;
+
+    if (hint != -1) {
+      if (hint < size && buffer.readLong(hint * ENTRY_SIZE) == offset) {
+        return hint;
+      } else if (hint + 1 < size && buffer.readLong((hint + 1) * ENTRY_SIZE) == offset) {
+        return hint + 1;
+      }
     }
 
     int lo = 0;
@@ -165,14 +337,10 @@ final class OffsetIndex implements AutoCloseable {
       int mid = lo + (hi - lo) / 2;
       long i = buffer.readLong(mid * ENTRY_SIZE);
       if (i == offset) {
-        currentOffset = offset;
-        currentMatch = mid;
         return mid;
       } else if (lo == mid) {
         i = buffer.readLong(hi * ENTRY_SIZE);
         if (i == offset) {
-          currentOffset = offset;
-          currentMatch = hi;
           return hi;
         }
         return -1;
@@ -184,8 +352,6 @@ final class OffsetIndex implements AutoCloseable {
     }
 
     if (buffer.readLong(hi * ENTRY_SIZE) == offset) {
-      currentOffset = offset;
-      currentMatch = hi;
       return hi;
     }
     return -1;
@@ -195,7 +361,7 @@ final class OffsetIndex implements AutoCloseable {
    * Returns the real offset nearest the given relative offset.
    */
   private long findAfter(long offset) {
-    if (size == 0) {
+    if (entries == 0) {
       return -1;
     }
 
@@ -204,7 +370,7 @@ final class OffsetIndex implements AutoCloseable {
     }
 
     int low  = 0;
-    int high = size-1;
+    int high = entries-1;
 
     while (low <= high) {
       int mid = low + ((high - low) / 2);
@@ -236,10 +402,18 @@ final class OffsetIndex implements AutoCloseable {
 
     if (offset == -1) {
       buffer.position(0).zero();
-      currentOffset = currentMatch = lastOffset = -1;
+      entries = 0;
+      size = 0;
+      skipped = false;
+      sparse = interval > 1;
+      lastOffset = -1;
       return 0;
     }
 
+    if (sparse) {
+      return truncateSparse(offset);
+    }
+
     long nearestOffset = findAfter(offset + 1);
 
     if (nearestOffset == -1)
@@ -250,6 +424,7 @@ final class OffsetIndex implements AutoCloseable {
     long lastOffset = lastOffset();
     for (long i = lastOffset; i > offset; i--) {
       if (position(i) != -1) {
+        entries--;
         size--;
       }
     }
@@ -259,11 +434,28 @@ final class OffsetIndex implements AutoCloseable {
     buffer.position(nearestIndex)
       .zero(nearestIndex);
     this.lastOffset = offset;
-    currentOffset = currentMatch = -1;
 
     return position;
   }
 
+  /**
+   * Truncates a sparse index up to the given offset.
+   */
+  private long truncateSparse(long offset) {
+    if (offset > lastOffset)
+      return -1;
+
+    long position = positionAt(offset + 1);
+    int entries = floor(buffer, this.entries, offset) + 1;
+    long nearestIndex = (long) entries * ENTRY_SIZE;
+    buffer.position(nearestIndex)
+      .zero(nearestIndex);
+    this.entries = entries;
+    this.size = (int) offset + 1;
+    this.lastOffset = offset;
+    return position;
+  }
+
   /**
    * Flushes the index to the underlying storage.
    */
@@ -276,6 +468,24 @@ final class OffsetIndex implements AutoCloseable {
     buffer.close();
   }
 
+  /**
+   * Segment record scanner.
+   * <p>
+   * The scanner is provided by the indexed {@link Segment} and is used by sparse indexes to locate records
+   * that are not stored in the index.
+   */
+  @FunctionalInterface
+  interface Scanner {
+
+    /**
+     * Returns the position of the record following the record at the given position.
+     *
+     * @param position The position of a record in the segment.
+     * @return The position of the next record in the segment.
+     */
+    long next(long position);
+  }
+
   /**
    * Deletes the index.
    */
@@ -19,8 +19,11 @@ import io.atomix.catalyst.buffer.*;
 import io.atomix.catalyst.serializer.Serializer;
 import io.atomix.catalyst.util.Assert;
 import io.atomix.copycat.server.storage.entry.Entry;
+import io.atomix.copycat.server.storage.entry.RawEntry;
 
+import java.io.File;
 import java.util.function.Predicate;
+import java.util.zip.CRC32;
 
 /**
  * Stores a set of sequential entries in a single file or memory {@link Buffer}.
@@ -38,8 +41,10 @@ import java.util.function.Predicate;
  * the Raft consensus algorithm, readers should typically benefit from O(1) lookups.
  * <p>
  * When a segment is constructed, the segment will attempt to rebuild its index from the underlying segment
- * {@link Buffer}. This is done by reading a 16-bit unsigned length and 32-bit offset for each entry. Once the
- * segment has been built, new entries will be {@link #append(Entry) appended} at the end of the segment.
+ * {@link Buffer}. This is done by reading the length and 64-bit offset for each entry. Once the
+ * segment has been built, new entries will be {@link #append(Entry) appended} at the end of the segment. Segments
+ * that are no longer written persist their indexes to a {@link SegmentIndexFile} from which the indexes are loaded
+ * rather than rebuilt.
  * <p>
  * Additionally, segments are responsible for keeping track of entries that have been {@link #clean(long) cleaned}.
  * Cleaned entries are tracked in an internal {@link io.atomix.catalyst.buffer.util.BitArray} with a size equal
@@ -47,15 +52,22 @@ import java.util.function.Predicate;
  * <p>
  * An entry in the log is written in binary format. The binary format of an entry is as follows:
  * <ul>
- *   <li>Required 16-bit unsigned entry length</li>
+ *   <li>Required 32-bit signed entry length, or 16-bit unsigned entry length for segments written in
+ *   {@link SegmentDescriptor#FORMAT_V0}</li>
+ *   <li>32-bit CRC32 checksum of the remainder of the record for segments written in {@link SegmentDescriptor#FORMAT_V2}</li>
  *   <li>Required 64-bit offset</li>
  *   <li>Required 8-bit term flag</li>
  *   <li>Optional 64-bit term</li>
+ *   <li>16-bit unsigned {@link RawEntry#typeOf(Class) entry type} for segments written in
+ *   {@link SegmentDescriptor#FORMAT_V3}</li>
  * </ul>
  *
  * @author <a href="http://github.com/kuujo">Jordan Halterman</a>
  */
 public class Segment implements AutoCloseable {
+  private static final int MAX_V0_ENTRY_SIZE = 65535;
+  private static final ThreadLocal<CRC32> CHECKSUM = ThreadLocal.withInitial(CRC32::new);
+  private static final ThreadLocal<byte[]> CHECKSUM_BUFFER = ThreadLocal.withInitial(() -> new byte[1024 * 8]);
   private final SegmentDescriptor descriptor;
   private final Serializer serializer;
   private final Buffer buffer;
@@ -63,13 +75,33 @@ public class Segment implements AutoCloseable {
   private final OffsetCleaner cleaner;
   private final TermIndex termIndex = new TermIndex();
   private final SegmentManager manager;
-  private long skip = 0;
-  private boolean open = true;
+  private final boolean concurrentReads;
+  private final int lengthBytes;
+  private final int checksumBytes;
+  private final int typeBytes;
+  private final int prefixLength;
+  private final boolean verifyChecksums;
+  private volatile long skip = 0;
+  private volatile boolean open = true;
 
   /**
    * @throws NullPointerException if any argument is null
    */
   Segment(Buffer buffer, SegmentDescriptor descriptor, OffsetIndex offsetIndex, OffsetCleaner cleaner, Serializer serializer, SegmentManager manager) {
+    this(buffer, descriptor, offsetIndex, null, cleaner, serializer, manager);
+  }
+
+  /**
+   * Constructs a segment, loading the segment's indexes from the given {@link SegmentIndexFile} if possible.
+   * <p>
+   * If the index file is valid, the loaded indexes are assumed to describe all records in the segment. The last
+   * indexed record is validated against the segment, and if the indexes are not consistent with the segment data
+   * they are discarded and rebuilt from the segment.
+   *
+   * @param indexFile The segment index file or {@code null} if the indexes should be rebuilt from the segment.
+   * @throws NullPointerException if any argument other than {@code indexFile} is null
+   */
+  Segment(Buffer buffer, SegmentDescriptor descriptor, OffsetIndex offsetIndex, File indexFile, OffsetCleaner cleaner, Serializer serializer, SegmentManager manager) {
     this.serializer = Assert.notNull(serializer, "serializer");
     this.buffer = Assert.notNull(buffer, "buffer");
     this.descriptor = Assert.notNull(descriptor, "descriptor");
@@ -77,21 +109,205 @@ public class Segment implements AutoCloseable {
     this.cleaner = Assert.notNull(cleaner, "cleaner");
     this.manager = Assert.notNull(manager, "manager");
 
-    // Rebuild the index from the segment data.
+    // Only heap buffers can be read without a lock. File buffers share a single file pointer between reads, and
+    // mapped buffers are remapped and the old mapping freed when they grow during an append, so a concurrent read
+    // could access unmapped memory. Segment buffers are slices of the underlying buffer, so check the root buffer.
+    Buffer root = buffer instanceof SlicedBuffer ? ((SlicedBuffer) buffer).root() : buffer;
+    this.concurrentReads = root instanceof HeapBuffer;
+
+    // Segments written in the original format store entry lengths as unsigned shorts.
+    this.lengthBytes = descriptor.format() == SegmentDescriptor.FORMAT_V0 ? Bytes.SHORT : Bytes.INTEGER;
+
+    // Segments written in the current format store a checksum of each record following the entry length.
+    this.checksumBytes = descriptor.format() >= SegmentDescriptor.FORMAT_V2 ? Bytes.INTEGER : 0;
+    this.prefixLength = lengthBytes + checksumBytes;
+
+    // Segments written in the current format store the type of each entry following the term.
+    this.typeBytes = descriptor.format() >= SegmentDescriptor.FORMAT_V3 ? Bytes.SHORT : 0;
+    this.verifyChecksums = checksumBytes > 0 && manager.verifyChecksums();
+
+    // Sparse offset indexes locate records that are not indexed by scanning the segment.
+    offsetIndex.scanner(this::nextPosition);
+
+    // If the indexes can be loaded from an index file, skip to the end of the indexed records.
+    long indexedLength = indexFile != null ? SegmentIndexFile.read(indexFile, descriptor, offsetIndex, termIndex) : -1;
+    if (indexedLength != -1) {
+      if (isIndexed(indexedLength)) {
+        buffer.position(indexedLength);
+        return;
+      }
+      offsetIndex.truncate(-1);
+      termIndex.truncate(-1);
+    }
+
+    // Rebuild the index from the segment data. Checksums are not verified when the index is rebuilt, but records
+    // with inconsistent lengths or offsets indicate the end of the valid records in the segment.
     long position = buffer.mark().position();
-    int length = buffer.readUnsignedShort();
-    while (length != 0) {
-      long offset = buffer.readLong();
+    int length = readLength();
+    while (length > 0) {
+      long offset = buffer.skip(checksumBytes).readLong();
+      if (offset <= offsetIndex.lastOffset()) {
+        break;
+      }
       if (buffer.readBoolean()) {
         termIndex.index(offset, buffer.readLong());
       }
       offsetIndex.index(offset, position);
-      position = buffer.skip(length).position();
-      length = buffer.mark().readUnsignedShort();
+      position = buffer.skip(typeBytes + length).position();
+      buffer.mark();
+      length = readLength();
     }
     buffer.reset();
   }
 
+  /**
+   * Returns a boolean value indicating whether the last indexed record ends at the given position in the segment.
+   */
+  private boolean isIndexed(long length) {
+    if (offsetIndex.isEmpty()) {
+      return false;
+    }
+
+    long position = offsetIndex.positionAt(offsetIndex.size() - 1);
+    try {
+      int entryLength = readLength(buffer, position);
+      boolean skipTerm = !buffer.readBoolean(position + prefixLength + Bytes.LONG);
+      return entryLength > 0
+        && buffer.readLong(position + prefixLength) == offsetIndex.lastOffset()
+        && position + headerLength(skipTerm) + entryLength == length
+        && (checksumBytes == 0 || isValid(buffer, position));
+    } catch (RuntimeException e) {
+      return false;
+    }
+  }
+
+  /**
+   * Returns the position of the record following the record at the given position in the segment.
+   */
+  long nextPosition(long position) {
+    if (concurrentReads) {
+      return position + recordLength(buffer, position);
+    }
+    synchronized (buffer) {
+      return position + recordLength(buffer, position);
+    }
+  }
+
+  /**
+   * Returns the total length of the record at the given position in the source buffer.
+   */
+  private long recordLength(Buffer source, long position) {
+    int length = readLength(source, position);
+    boolean skipTerm = !source.readBoolean(position + prefixLength + Bytes.LONG);
+    return headerLength(skipTerm) + length;
+  }
+
+  /**
+   * Reads an entry length from the current position of the segment buffer.
+   */
+  private int readLength() {
+    return lengthBytes == Bytes.SHORT ? buffer.readUnsignedShort() : buffer.readInt();
+  }
+
+  /**
+   * Reads the entry length of the record at the given position in the source buffer.
+   */
+  private int readLength(Buffer source, long position) {
+    return lengthBytes == Bytes.SHORT ? source.readUnsignedShort(position) : source.readInt(position);
+  }
+
+  /**
+   * Returns the length of a record header.
+   */
+  private int headerLength(boolean skipTerm) {
+    return prefixLength + Bytes.LONG + Bytes.BOOLEAN + (skipTerm ? 0 : Bytes.LONG) + typeBytes;
+  }
+
+  /**
+   * Computes the checksum of the record at the given position in the source buffer. The checksum covers all
+   * bytes in the record following the checksum itself.
+   */
+  private int checksum(Buffer source, long position) {
+    int length = readLength(source, position);
+    boolean skipTerm = !source.readBoolean(position + prefixLength + Bytes.LONG);
+    return checksum(source, position + prefixLength, headerLength(skipTerm) - prefixLength + length);
+  }
+
+  /**
+   * Computes the checksum of the given range of bytes in the source buffer.
+   */
+  private static int checksum(Buffer source, long offset, long length) {
+    CRC32 checksum = CHECKSUM.get();
+    byte[] bytes = CHECKSUM_BUFFER.get();
+    checksum.reset();
+    try (Buffer slice = source.slice(offset, length)) {
+      while (slice.remaining() > 0) {
+        int count = (int) Math.min(bytes.length, slice.remaining());
+        slice.read(bytes, 0, count);
+        checksum.update(bytes, 0, count);
+      }
+    }
+    return (int) checksum.getValue();
+  }
+
+  /**
+   * Returns a boolean value indicating whether the checksum of the record at the given position is valid.
+   */
+  private boolean isValid(Buffer source, long position) {
+    return source.readInt(position + lengthBytes) == checksum(source, position);
+  }
+
+  /**
+   * Verifies the checksum of the record for the given index if checksum verification is enabled.
+   *
+   * @throws StorageException if the record checksum does not match
+   */
+  private void verify(long index, Buffer source, long position) {
+    if (verifyChecksums && !isValid(source, position)) {
+      throw new StorageException("checksum mismatch for entry " + index + " in " + this);
+    }
+  }
+
+  /**
+   * Verifies the checksums of records in the segment, truncating the segment at the first invalid record.
+   * <p>
+   * A crash during a write can leave a partially written record at the end of the last segment in the log. When
+   * the log is opened, the last segment is recovered by verifying each record in the segment and discarding the
+   * first invalid record and all records following it. Segments written in formats that precede record checksums
+   * cannot be verified.
+   *
+   * @return Indicates whether the segment was truncated.
+   * @throws IllegalStateException if the segment is not open
+   */
+  boolean recover() {
+    assertSegmentOpen();
+    if (checksumBytes == 0) {
+      return false;
+    }
+
+    // Records are stored contiguously, so walk the records rather than looking up each position in the index.
+    long lastOffset = -1;
+    long position = !offsetIndex.isEmpty() ? offsetIndex.positionAt(0) : 0;
+    for (long match = 0; match < offsetIndex.size(); match++) {
+
+      // A corrupt length can reference bytes beyond the end of the buffer, in which case the record is invalid.
+      boolean valid;
+      try {
+        valid = isValid(buffer, position);
+      } catch (RuntimeException e) {
+        valid = false;
+      }
+
+      if (!valid) {
+        truncate(descriptor.index() + lastOffset);
+        return true;
+      }
+      lastOffset = buffer.readLong(position + prefixLength);
+      position += recordLength(buffer, position);
+    }
+    return false;
+  }
+
   /**
    * Returns the {@link SegmentDescriptor} for the segment.
    * <p>
@@ -293,35 +509,65 @@ public class Segment implements AutoCloseable {
     boolean skipTerm = term == lastTerm;
 
     // Calculate the length of the entry header bytes.
-    int headerLength = Bytes.SHORT + Bytes.LONG + Bytes.BOOLEAN + (skipTerm ? 0 : Bytes.LONG);
+    int headerLength = headerLength(skipTerm);
 
-    // Serialize the object into the segment buffer.
-    serializer.writeObject(entry, buffer.skip(headerLength));
+    // Serialize the object into the segment buffer. Raw entries are already serialized, so their bytes
+    // are written directly to the segment buffer.
+    if (entry instanceof RawEntry) {
+      buffer.skip(headerLength).write(((RawEntry) entry).getBytes().rewind());
+    } else {
+      serializer.writeObject(entry, buffer.skip(headerLength));
+    }
 
     // Calculate the length of the serialized bytes based on the resulting buffer position and the starting position.
     int length = (int) (buffer.position() - (position + headerLength));
 
+    // Segments written in the original format cannot store entries larger than an unsigned short. If the entry
+    // is too large, clear the serialized bytes so they're not read when the segment is reloaded.
+    if (lengthBytes == Bytes.SHORT && length > MAX_V0_ENTRY_SIZE) {
+      buffer.zero(position, headerLength + length).reset();
+      throw new StorageException("entry size " + length + " exceeds maximum entry size for segment format " + descriptor.format());
+    }
+
     // Set the entry size.
     entry.setSize(length);
 
     // Write the length of the entry for indexing.
-    buffer.reset().writeUnsignedShort(length).writeLong(offset);
+    buffer.reset();
+    if (lengthBytes == Bytes.SHORT) {
+      buffer.writeUnsignedShort(length);
+    } else {
+      buffer.writeInt(length);
+    }
+    buffer.skip(checksumBytes).writeLong(offset);
 
     // If the term has not yet been written, write the term to this entry.
     if (skipTerm) {
-      buffer.writeBoolean(false).skip(length);
+      buffer.writeBoolean(false);
     } else {
-      buffer.writeBoolean(true).writeLong(entry.getTerm()).skip(length);
+      buffer.writeBoolean(true).writeLong(entry.getTerm());
     }
 
-    // Index the offset, position, and length.
-    offsetIndex.index(offset, position);
+    // Write the entry type so that raw entries can be typed without deserializing them.
+    if (typeBytes > 0) {
+      buffer.writeUnsignedShort(entry instanceof RawEntry ? ((RawEntry) entry).getType() : RawEntry.typeOf(entry.getClass()));
+    }
+    buffer.skip(length);
+
+    // Once the record has been written, compute and write the record checksum.
+    if (checksumBytes > 0) {
+      buffer.writeInt(position + lengthBytes, checksum(buffer, position));
+    }
 
-    // If the entry term is greater than the last indexed term, index the term.
+    // If the entry term is greater than the last indexed term, index the term. The term must be indexed
+    // before the offset since indexing the offset makes the entry visible to concurrent readers.
     if (term > lastTerm) {
       termIndex.index(offset, term);
     }
 
+    // Index the offset, position, and length.
+    offsetIndex.index(offset, position);
+
     // Reset skip to zero since we wrote a new entry.
     skip = 0;
 
@@ -353,37 +599,245 @@ public class Segment implements AutoCloseable {
    * @return The entry at the given index.
    * @throws IllegalStateException if the segment is not open or {@code index} is inconsistent with the entry
    */
-  public synchronized <T extends Entry> T get(long index) {
+  public <T extends Entry> T get(long index) {
     assertSegmentOpen();
     checkRange(index);
 
+    // Get the real offset of the entry from the memory index. If the index contained the entry, read the entry.
+    long offset = offsetIndex.find(relativeOffset(index));
+    return offset != -1 ? read(index, offsetIndex.positionAt(offset)) : null;
+  }
+
+  /**
+   * Reads the entry at the given index from the record at the given position.
+   */
+  <T extends Entry> T read(long index, long position) {
+    if (concurrentReads) {
+      return readEntry(index, buffer, position);
+    }
+    synchronized (buffer) {
+      return readEntry(index, buffer, position);
+    }
+  }
+
+  /**
+   * Reads the entry at the given index from the record at the given position using a buffer containing a copy of
+   * the segment bytes starting at {@code sourcePosition}.
+   *
+   * @return The entry or {@code null} if the entry's record is not fully contained in the source buffer.
+   */
+  <T extends Entry> T read(long index, long recordPosition, Buffer source, long sourcePosition) {
+    long position = recordPosition - sourcePosition;
+    if (position < 0 || position + headerLength(true) > source.limit()) {
+      return null;
+    }
+
+    int length = readLength(source, position);
+    boolean skipTerm = !source.readBoolean(position + prefixLength + Bytes.LONG);
+    if (position + headerLength(skipTerm) + length > source.limit()) {
+      return null;
+    }
+    return readEntry(index, source, position);
+  }
+
+  /**
+   * Reads the entry record at the given position in the source buffer using absolute reads.
+   */
+  private <T extends Entry> T readEntry(long index, Buffer source, long position) {
     // Get the offset of the index within this segment.
     long offset = relativeOffset(index);
 
-    // Get the start position of the entry from the memory index.
-    long position = offsetIndex.position(offset);
+    // Read the length of the entry.
+    int length = readLength(source, position);
 
-    // If the index contained the entry, read the entry from the buffer.
-    if (position != -1) {
+    // Verify that the entry at the given offset matches.
+    long entryOffset = source.readLong(position + prefixLength);
+    Assert.state(entryOffset == offset, "inconsistent index: %s", index);
 
-      // Read the length of the entry.
-      int length = buffer.readUnsignedShort(position);
+    // If checksum verification is enabled, verify the record checksum.
+    verify(index, source, position);
 
-      // Verify that the entry at the given offset matches.
-      long entryOffset = buffer.readLong(position + Bytes.SHORT);
-      Assert.state(entryOffset == offset, "inconsistent index: %s", index);
+    // Determine whether to skip reading the term from this entry.
+    boolean skipTerm = !source.readBoolean(position + prefixLength + Bytes.LONG);
 
-      // Determine whether to skip reading the term from this entry.
-      boolean skipTerm = !buffer.readBoolean(position + Bytes.SHORT + Bytes.LONG);
+    // Read the entry buffer and deserialize the entry.
+    try (Buffer value = source.slice(position + headerLength(skipTerm), length)) {
+      T entry = serializer.readObject(value);
+      entry.setIndex(index).setTerm(termIndex.lookup(offset)).setSize(length);
+      return entry;
+    }
+  }
 
-      // Read the entry buffer and deserialize the entry.
-      try (Buffer value = buffer.slice(position + Bytes.SHORT + Bytes.LONG + Bytes.BOOLEAN + (skipTerm ? 0 : Bytes.LONG), length)) {
-        T entry = serializer.readObject(value);
-        entry.setIndex(index).setTerm(termIndex.lookup(offset)).setSize(length);
-        return entry;
+  /**
+   * Reads the serialized bytes of the entry at the given index.
+   * <p>
+   * The returned {@link Buffer} is a slice of the segment buffer containing the serialized entry without its record
+   * header. Record headers are relative to the segment in which the entry is stored, so callers must track the entry
+   * index and {@link #term(long) term} separately. Callers should close the returned buffer once the bytes have been read.
+   * <p>
+   * Only segments backed by a {@link HeapBuffer} can be read concurrently, so for file and mapped segments the bytes
+   * are copied into a {@link HeapBuffer} rather than sliced.
+   *
+   * @param index The index from which to read the entry bytes.
+   * @return A slice of the serialized entry or {@code null} if the entry has been compacted from the segment.
+   * @throws IllegalStateException if the segment is not open or {@code index} is inconsistent with the entry
+   */
+  public Buffer getBytes(long index) {
+    assertSegmentOpen();
+    checkRange(index);
+
+    // Get the real offset of the entry from the memory index. If the index contained the entry, read the bytes.
+    long offset = offsetIndex.find(relativeOffset(index));
+    return offset != -1 ? readBytes(index, offsetIndex.positionAt(offset)) : null;
+  }
+
+  /**
+   * Reads the serialized bytes of the entry at the given index from the record at the given position.
+   */
+  Buffer readBytes(long index, long position) {
+    if (concurrentReads) {
+      return sliceBytes(index, position);
+    }
+    synchronized (buffer) {
+      try (Buffer bytes = sliceBytes(index, position)) {
+        return HeapBuffer.allocate(bytes.remaining()).write(bytes).flip();
       }
     }
-    return null;
+  }
+
+  /**
+   * Slices the serialized bytes of the entry record at the given position from the segment buffer.
+   */
+  private Buffer sliceBytes(long index, long position) {
+    int length = readLength(buffer, position);
+    long entryOffset = buffer.readLong(position + prefixLength);
+    Assert.state(entryOffset == relativeOffset(index), "inconsistent index: %s", index);
+    verify(index, buffer, position);
+    boolean skipTerm = !buffer.readBoolean(position + prefixLength + Bytes.LONG);
+    return buffer.slice(position + headerLength(skipTerm), length);
+  }
+
+  /**
+   * Reads the type of the entry at the given index.
+   *
+   * @param index The index for which to read the entry type.
+   * @return The {@link RawEntry#typeOf(Class) type} of the entry or {@link RawEntry#UNKNOWN_TYPE} if the segment
+   *         predates stored entry types or the entry has been compacted from the segment.
+   * @throws IllegalStateException if the segment is not open
+   */
+  public int getType(long index) {
+    assertSegmentOpen();
+    checkRange(index);
+
+    long offset = offsetIndex.find(relativeOffset(index));
+    return offset != -1 ? readType(offsetIndex.positionAt(offset)) : RawEntry.UNKNOWN_TYPE;
+  }
+
+  /**
+   * Reads the type of the entry record at the given position.
+   */
+  int readType(long position) {
+    if (typeBytes == 0) {
+      return RawEntry.UNKNOWN_TYPE;
+    }
+    if (concurrentReads) {
+      return readType(buffer, position);
+    }
+    synchronized (buffer) {
+      return readType(buffer, position);
+    }
+  }
+
+  /**
+   * Reads the type of the entry record at the given position in the source buffer.
+   */
+  private int readType(Buffer source, long position) {
+    boolean skipTerm = !source.readBoolean(position + prefixLength + Bytes.LONG);
+    return source.readUnsignedShort(position + headerLength(skipTerm) - typeBytes);
+  }
+
+  /**
+   * Copies segment bytes starting at the given position into the given buffer.
+   * <p>
+   * At most {@code buffer.remaining()} bytes are copied. Bytes beyond the end of the segment's written records
+   * are never copied, but the last record copied may be incomplete.
+   *
+   * @param position The segment position from which to copy bytes.
+   * @param buffer The buffer into which to copy bytes.
+   * @return The flipped buffer.
+   */
+  Buffer readAhead(long position, Buffer buffer) {
+    synchronized (this.buffer) {
+      long length = Math.min(buffer.remaining(), this.buffer.position() - position);
+      if (length > 0) {
+        try (Buffer bytes = this.buffer.slice(position, length)) {
+          buffer.write(bytes);
+        }
+      }
+      return buffer.flip();
+    }
+  }
+
+  /**
+   * Returns a boolean value indicating whether the segment can be read concurrently without copying.
+   * <p>
+   * Segments backed by a {@link FileBuffer} share a file pointer between reads, and segments backed by a
+   * {@link MappedBuffer} are remapped when they grow, so both must be read under a lock.
+   */
+  boolean isConcurrent() {
+    return concurrentReads;
+  }
+
+  /**
+   * Returns the real offset of the given index, checking the given real offset of a prior lookup first.
+   *
+   * @param index The index for which to find the real offset.
+   * @param hint The real offset of a prior lookup or {@code -1}.
+   * @return The real offset of the entry or {@code -1} if the entry has been compacted from the segment.
+   */
+  long offset(long index, long hint) {
+    return offsetIndex.find(relativeOffset(index), hint);
+  }
+
+  /**
+   * Returns the position of the record at the given real offset.
+   */
+  long position(long offset) {
+    return offsetIndex.positionAt(offset);
+  }
+
+  /**
+   * Returns the position of the record at the given real offset using the position of a prior record as a hint.
+   * <p>
+   * Records are stored contiguously in the segment, so if the given real offset immediately follows {@code hint},
+   * the position is computed from the length of the record at {@code hintPosition} rather than by scanning from
+   * the nearest entry in a sparse offset index. If the hinted record's header is contained in the {@code source}
+   * buffer, the record length is read from the copy.
+   *
+   * @param offset The real offset of the record.
+   * @param hint The real offset of a prior record or {@code -1}.
+   * @param hintPosition The position of the record at the {@code hint} offset.
+   * @param source A buffer containing a copy of the segment bytes starting at {@code sourcePosition} or {@code null}.
+   * @param sourcePosition The segment position of the first byte in the {@code source} buffer.
+   * @return The position of the record at the given real offset.
+   */
+  long position(long offset, long hint, long hintPosition, Buffer source, long sourcePosition) {
+    if (!offsetIndex.isSparse() || hint == -1 || offset != hint + 1) {
+      return offsetIndex.positionAt(offset);
+    }
+
+    long position = hintPosition - sourcePosition;
+    if (source != null && position >= 0 && position + headerLength(true) <= source.limit()) {
+      return hintPosition + recordLength(source, position);
+    }
+    return nextPosition(hintPosition);
+  }
+
+  /**
+   * Returns a boolean value indicating whether the entry at the given real offset was cleaned from the segment.
+   */
+  boolean isCleanOffset(long offset) {
+    return cleaner.isClean(offset);
   }
 
   /**
@@ -497,10 +951,30 @@ public class Segment implements AutoCloseable {
         .zero(position)
         .flush();
       termIndex.truncate(offset);
+
+      // The persisted indexes no longer describe the segment once records have been removed.
+      manager.deleteIndexFile(descriptor);
     }
     return this;
   }
 
+  /**
+   * Persists the segment's indexes to the given index file.
+   * <p>
+   * Index files should only be written for segments to which no more entries will be appended. The indexes are
+   * loaded from the index file when the segment is reopened to avoid rebuilding them by reading the segment.
+   *
+   * @param file The index file to which to write the segment's indexes.
+   * @throws IllegalStateException if the segment is not open
+   */
+  void writeIndex(File file) {
+    assertSegmentOpen();
+    if (offsetIndex.isEmpty()) {
+      return;
+    }
+    SegmentIndexFile.write(file, descriptor, offsetIndex, this::nextPosition, termIndex, buffer.position());
+  }
+
   /**
    * Flushes the segment buffers to disk.
    *
@@ -533,6 +1007,7 @@ public class Segment implements AutoCloseable {
     }
 
     offsetIndex.delete();
+    manager.deleteIndexFile(descriptor);
   }
 
   @Override
@@ -48,6 +48,8 @@ import io.atomix.catalyst.util.Assert;
  *   <li>{@code locked} (8-bit boolean) - A boolean indicating whether the segment is locked. Segments will be locked once
  *   all entries have been committed to the segment. The lock state of each segment is used to determine log compaction
  *   and recovery behavior.</li>
+ *   <li>{@code format} (32-bit signed integer) - The format of entry records in the segment, stored at byte {@code 48}.
+ *   Segments written prior to the introduction of the format have a format of {@link #FORMAT_V0}.</li>
  * </ul>
  *
  * @author <a href="http://github.com/kuujo">Jordan Halterman</a>
@@ -55,6 +57,33 @@ import io.atomix.catalyst.util.Assert;
 public final class SegmentDescriptor implements AutoCloseable {
   public static final int BYTES = 64;
 
+  /**
+   * Record format in which entry lengths are stored as 16-bit unsigned integers, limiting entries to {@code 65535} bytes.
+   */
+  public static final int FORMAT_V0 = 0;
+
+  /**
+   * Record format in which entry lengths are stored as 32-bit signed integers.
+   */
+  public static final int FORMAT_V1 = 1;
+
+  /**
+   * Record format in which entry lengths are stored as 32-bit signed integers followed by a CRC32 checksum of the record.
+   */
+  public static final int FORMAT_V2 = 2;
+
+  /**
+   * Record format in which records in {@link #FORMAT_V2} also store the 16-bit unsigned type of the entry.
+   */
+  public static final int FORMAT_V3 = 3;
+
+  /**
+   * The record format with which new segments are written.
+   */
+  public static final int CURRENT_FORMAT = FORMAT_V3;
+
+  private static final int FORMAT_POSITION = 48;
+
   /**
    * Returns a descriptor builder.
    * <p>
@@ -85,9 +114,11 @@ public final class SegmentDescriptor implements AutoCloseable {
   private final long maxSegmentSize;
   private final int maxEntries;
   private boolean locked;
+  private final int format;
 
   /**
    * @throws NullPointerException if {@code buffer} is null
+   * @throws DescriptorException if the segment format is unknown
    */
   public SegmentDescriptor(Buffer buffer) {
     this.buffer = Assert.notNull(buffer, "buffer");
@@ -98,7 +129,12 @@ public final class SegmentDescriptor implements AutoCloseable {
     this.maxEntries = buffer.readInt();
     this.updated = buffer.readLong();
     this.locked = buffer.readBoolean();
-    buffer.skip(23);
+    buffer.skip(7);
+    this.format = buffer.readInt();
+    buffer.skip(12);
+    if (format < FORMAT_V0 || format > CURRENT_FORMAT) {
+      throw new DescriptorException("unknown segment format: %s", format);
+    }
   }
 
   /**
@@ -155,6 +191,17 @@ public final class SegmentDescriptor implements AutoCloseable {
     return maxEntries;
   }
 
+  /**
+   * Returns the format of entry records in the segment.
+   * <p>
+   * Segments written before the record format was stored in the descriptor have a format of {@link #FORMAT_V0}.
+   *
+   * @return The format of entry records in the segment.
+   */
+  public int format() {
+    return format;
+  }
+
   /**
    * Returns last time the segment was updated.
    * <p>
@@ -210,7 +257,9 @@ public final class SegmentDescriptor implements AutoCloseable {
       .writeInt(maxEntries)
       .writeLong(updated)
       .writeBoolean(locked)
-      .skip(23)
+      .skip(7)
+      .writeInt(format)
+      .skip(12)
       .flush();
     return this;
   }
@@ -239,6 +288,7 @@ public final class SegmentDescriptor implements AutoCloseable {
 
     private Builder(Buffer buffer) {
       this.buffer = Assert.notNull(buffer, "buffer");
+      buffer.writeInt(FORMAT_POSITION, CURRENT_FORMAT);
     }
 
     /**
@@ -296,6 +346,19 @@ public final class SegmentDescriptor implements AutoCloseable {
       return this;
     }
 
+    /**
+     * Sets the format of entry records in the segment.
+     *
+     * @param format The format of entry records in the segment.
+     * @return The segment descriptor builder.
+     * @throws IllegalArgumentException if the {@code format} is not a known format
+     */
+    public Builder withFormat(int format) {
+      Assert.arg(format >= FORMAT_V0 && format <= CURRENT_FORMAT, "unknown segment format: %s", format);
+      buffer.writeInt(FORMAT_POSITION, format);
+      return this;
+    }
+
     /**
      * Builds the segment descriptor.
      *
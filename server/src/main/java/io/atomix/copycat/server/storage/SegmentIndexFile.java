@@ -0,0 +1,178 @@
+/*
+ * Copyright 2015 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.atomix.copycat.server.storage;
+
+import io.atomix.catalyst.buffer.Buffer;
+import io.atomix.catalyst.buffer.FileBuffer;
+import io.atomix.catalyst.buffer.MappedBuffer;
+import io.atomix.catalyst.util.Assert;
+
+import java.io.File;
+import java.nio.channels.FileChannel;
+import java.util.zip.CRC32;
+
+/**
+ * Persisted segment index file.
+ * <p>
+ * Once a {@link Segment} has been filled and the log has rolled over to a new segment, the segment's offset and
+ * term indexes are persisted to an index file stored alongside the segment. When the log is reopened, the indexes
+ * of sealed segments are loaded from their index files rather than rebuilt by reading every record in the segment.
+ * <p>
+ * The index file is stored in the following format:
+ * <ul>
+ *   <li>{@code id} (64-bit signed integer) - The segment identifier</li>
+ *   <li>{@code version} (64-bit signed integer) - The segment version</li>
+ *   <li>{@code index} (64-bit signed integer) - The segment's first index</li>
+ *   <li>{@code length} (64-bit signed integer) - The position of the end of the last record in the segment</li>
+ *   <li>{@code lastOffset} (64-bit signed integer) - The offset of the last record in the segment</li>
+ *   <li>{@code offsets} (32-bit signed integer) - The number of entries in the offset index</li>
+ *   <li>{@code terms} (32-bit signed integer) - The number of entries in the term index</li>
+ *   <li>{@code checksum} (32-bit signed integer) - A CRC32 checksum of the offset and term index entries</li>
+ *   <li>{@code offsets} 64-bit offset and 32-bit unsigned position pairs</li>
+ *   <li>{@code terms} 64-bit offset and 64-bit term pairs</li>
+ * </ul>
+ * Index files are only valid for the segment version for which they were written. If a sealed segment is later
+ * truncated, its index file is deleted.
+ *
+ * @author <a href="http://github.com/kuujo">Jordan Halterman</a>
+ */
+final class SegmentIndexFile {
+  private static final int HEADER_SIZE = 52;
+  private static final int OFFSET_ENTRY_SIZE = 12;
+  private static final int TERM_ENTRY_SIZE = 16;
+
+  private SegmentIndexFile() {
+  }
+
+  /**
+   * Writes the given segment indexes to an index file.
+   *
+   * @param file The index file to write.
+   * @param descriptor The segment descriptor.
+   * @param offsetIndex The segment offset index.
+   * @param scanner The scanner with which to locate successive records in the segment.
+   * @param termIndex The segment term index.
+   * @param length The position of the end of the last record in the segment.
+   */
+  static void write(File file, SegmentDescriptor descriptor, OffsetIndex offsetIndex, OffsetIndex.Scanner scanner, TermIndex termIndex, long length) {
+    Assert.notNull(file, "file");
+    int offsets = offsetIndex.size();
+    int terms = termIndex.size();
+
+    // Remove any existing index file to ensure the length of the file matches the written indexes.
+    if (file.exists()) {
+      file.delete();
+    }
+
+    try (Buffer buffer = FileBuffer.allocate(file, HEADER_SIZE + (long) offsets * OFFSET_ENTRY_SIZE + (long) terms * TERM_ENTRY_SIZE)) {
+      // Records are stored contiguously in the segment, so the position of each record is found by scanning from
+      // the first record. This avoids a scan of the segment for each record in a sparse offset index.
+      buffer.position(HEADER_SIZE);
+      long position = offsetIndex.positionAt(0);
+      for (long i = 0; i < offsets; i++) {
+        if (i > 0) {
+          position = scanner.next(position);
+        }
+        buffer.writeLong(offsetIndex.offsetAt(i)).writeUnsignedInt(position);
+      }
+      for (int i = 0; i < terms; i++) {
+        buffer.writeLong(termIndex.offsetAt(i)).writeLong(termIndex.termAt(i));
+      }
+
+      int checksum = checksum(buffer, HEADER_SIZE, buffer.position() - HEADER_SIZE);
+      buffer.position(0)
+        .writeLong(descriptor.id())
+        .writeLong(descriptor.version())
+        .writeLong(descriptor.index())
+        .writeLong(length)
+        .writeLong(offsetIndex.lastOffset())
+        .writeInt(offsets)
+        .writeInt(terms)
+        .writeInt(checksum)
+        .flush();
+    }
+  }
+
+  /**
+   * Reads the segment indexes from the given index file.
+   * <p>
+   * Indexes are only populated if the index file exists, matches the given segment descriptor, and its checksum
+   * is valid. If the index file cannot be read, the given indexes are left empty.
+   *
+   * @param file The index file to read.
+   * @param descriptor The segment descriptor.
+   * @param offsetIndex The offset index to populate.
+   * @param termIndex The term index to populate.
+   * @return The position of the end of the last record in the segment or {@code -1} if the index file is not valid.
+   */
+  static long read(File file, SegmentDescriptor descriptor, OffsetIndex offsetIndex, TermIndex termIndex) {
+    if (!file.exists() || file.length() < HEADER_SIZE) {
+      return -1;
+    }
+
+    try (Buffer buffer = MappedBuffer.allocate(file, FileChannel.MapMode.READ_ONLY, file.length())) {
+      long id = buffer.readLong();
+      long version = buffer.readLong();
+      long index = buffer.readLong();
+      long length = buffer.readLong();
+      long lastOffset = buffer.readLong();
+      int offsets = buffer.readInt();
+      int terms = buffer.readInt();
+      int checksum = buffer.readInt();
+
+      if (id != descriptor.id() || version != descriptor.version() || index != descriptor.index()
+        || offsets <= 0 || terms < 0 || file.length() != HEADER_SIZE + (long) offsets * OFFSET_ENTRY_SIZE + (long) terms * TERM_ENTRY_SIZE
+        || checksum != checksum(buffer, HEADER_SIZE, file.length() - HEADER_SIZE)) {
+        return -1;
+      }
+
+      buffer.position(HEADER_SIZE);
+      for (int i = 0; i < offsets; i++) {
+        offsetIndex.index(buffer.readLong(), buffer.readUnsignedInt());
+      }
+      for (int i = 0; i < terms; i++) {
+        termIndex.index(buffer.readLong(), buffer.readLong());
+      }
+
+      if (offsetIndex.lastOffset() == lastOffset) {
+        return length;
+      }
+    } catch (RuntimeException e) {
+      // Fall through and discard any partially loaded indexes.
+    }
+
+    offsetIndex.truncate(-1);
+    termIndex.truncate(-1);
+    return -1;
+  }
+
+  /**
+   * Computes a checksum of the given range of bytes in the buffer.
+   */
+  private static int checksum(Buffer buffer, long offset, long length) {
+    CRC32 checksum = new CRC32();
+    byte[] bytes = new byte[(int) Math.min(length, 1024 * 8)];
+    try (Buffer slice = buffer.slice(offset, length)) {
+      while (slice.remaining() > 0) {
+        int count = (int) Math.min(bytes.length, slice.remaining());
+        slice.read(bytes, 0, count);
+        checksum.update(bytes, 0, count);
+      }
+    }
+    return (int) checksum.getValue();
+  }
+
+}
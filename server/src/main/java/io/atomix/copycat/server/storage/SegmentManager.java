@@ -21,15 +21,28 @@ import io.atomix.catalyst.buffer.HeapBuffer;
 import io.atomix.catalyst.buffer.MappedBuffer;
 import io.atomix.catalyst.serializer.Serializer;
 import io.atomix.catalyst.util.Assert;
+import io.atomix.catalyst.util.concurrent.CatalystThreadFactory;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.io.File;
+import java.util.ArrayList;
 import java.util.Collection;
+import java.util.List;
 import java.util.Map;
 import java.util.NavigableMap;
 import java.util.TreeMap;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
 
 /**
  * Manages creation and deletion of {@link Segment}s of the {@link Log}.
@@ -47,6 +60,8 @@ public class SegmentManager implements AutoCloseable {
   private final Storage storage;
   private final Serializer serializer;
   private final NavigableMap<Long, Segment> segments = new ConcurrentSkipListMap<>();
+  private final Map<File, Future<?>> indexWrites = new ConcurrentHashMap<>();
+  private final ExecutorService indexExecutor;
   private Segment currentSegment;
   private long commitIndex;
 
@@ -57,6 +72,7 @@ public class SegmentManager implements AutoCloseable {
     this.name = Assert.notNull(name, "name");
     this.storage = Assert.notNull(storage, "storage");
     this.serializer = Assert.notNull(serializer, "serializer");
+    this.indexExecutor = storage.level() != StorageLevel.MEMORY ? Executors.newSingleThreadExecutor(new CatalystThreadFactory("copycat-segment-index-%d")) : null;
     open();
   }
 
@@ -89,6 +105,13 @@ public class SegmentManager implements AutoCloseable {
     return commitIndex;
   }
 
+  /**
+   * Returns a boolean value indicating whether to verify record checksums when entries are read.
+   */
+  boolean verifyChecksums() {
+    return storage.verifyChecksums();
+  }
+
   /**
    * Opens the segments.
    */
@@ -101,6 +124,15 @@ public class SegmentManager implements AutoCloseable {
     // If a segment doesn't already exist, create an initial segment starting at index 1.
     if (!segments.isEmpty()) {
       currentSegment = segments.lastEntry().getValue();
+
+      // Entries will be appended to the current segment, so any persisted indexes for the segment are invalidated.
+      deleteIndexFile(currentSegment.descriptor());
+
+      // Only the last segment can contain a partially written record, so verify its records and truncate any
+      // records following the first invalid record.
+      if (currentSegment.recover()) {
+        LOGGER.warn("Truncated invalid records from segment: {}", currentSegment);
+      }
     } else {
       SegmentDescriptor descriptor = SegmentDescriptor.builder()
         .withId(1)
@@ -144,6 +176,9 @@ public class SegmentManager implements AutoCloseable {
   private void resetCurrentSegment() {
     Segment lastSegment = lastSegment();
     if (lastSegment != null) {
+      if (lastSegment != currentSegment) {
+        deleteIndexFile(lastSegment.descriptor());
+      }
       currentSegment = lastSegment;
     } else {
       SegmentDescriptor descriptor = SegmentDescriptor.builder()
@@ -191,6 +226,8 @@ public class SegmentManager implements AutoCloseable {
    */
   public Segment nextSegment() {
     assertOpen();
+    sealSegment(currentSegment);
+
     Segment lastSegment = lastSegment();
     SegmentDescriptor descriptor = SegmentDescriptor.builder()
       .withId(lastSegment != null ? lastSegment.descriptor().id() + 1 : 1)
@@ -264,9 +301,84 @@ public class SegmentManager implements AutoCloseable {
     // Put the new segment in the segments list.
     this.segments.put(segment.index(), segment);
 
+    // If the new segment is not the last segment, no more entries will be written to it.
+    if (segment != lastSegment()) {
+      sealSegment(segment);
+    }
+
     resetCurrentSegment();
   }
 
+  /**
+   * Persists the indexes of a segment to which no more entries will be written.
+   * <p>
+   * When the log is reopened, the indexes of sealed segments are loaded from the segment's index file rather
+   * than being rebuilt by reading all the entries in the segment. Segments are sealed on the append path, so
+   * the segment is flushed and its index file written on a background thread to avoid stalling appends.
+   *
+   * @param segment The segment to seal.
+   */
+  private void sealSegment(Segment segment) {
+    if (storage.level() != StorageLevel.MEMORY) {
+      File file = SegmentFile.createIndexFile(name, storage.directory(), segment.descriptor().id(), segment.descriptor().version());
+      indexWrites.values().removeIf(Future::isDone);
+      indexWrites.put(file, indexExecutor.submit(() -> writeIndex(segment, file)));
+    }
+  }
+
+  /**
+   * Flushes the given segment and writes its index file.
+   */
+  private void writeIndex(Segment segment, File file) {
+    try {
+      if (segment.isOpen()) {
+        segment.flush();
+        segment.writeIndex(file);
+      }
+    } catch (RuntimeException e) {
+      // If the segment was closed or modified while its indexes were being written, the index file may be
+      // inconsistent with the segment, so remove it to ensure indexes are rebuilt when the segment is loaded.
+      LOGGER.warn("Failed to write index file for segment: {}", segment, e);
+      file.delete();
+    }
+  }
+
+  /**
+   * Deletes the persisted index file for the given segment if one exists.
+   *
+   * @param descriptor The descriptor of the segment for which to delete the index file.
+   */
+  void deleteIndexFile(SegmentDescriptor descriptor) {
+    if (storage.level() != StorageLevel.MEMORY) {
+      File file = SegmentFile.createIndexFile(name, storage.directory(), descriptor.id(), descriptor.version());
+
+      // If the index file is still being written in the background, wait for the write to be cancelled or
+      // completed to ensure the write does not recreate the index file once it's been deleted.
+      Future<?> write = indexWrites.remove(file);
+      if (write != null) {
+        write.cancel(false);
+        awaitIndexWrite(write);
+      }
+
+      if (file.exists()) {
+        file.delete();
+      }
+    }
+  }
+
+  /**
+   * Waits for the given index file write to complete.
+   */
+  private void awaitIndexWrite(Future<?> write) {
+    try {
+      write.get();
+    } catch (CancellationException | ExecutionException e) {
+      // Failed writes remove their own index file, so there's nothing more to do.
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+  }
+
   /**
    * Removes a segment.
    *
@@ -353,7 +465,7 @@ public class SegmentManager implements AutoCloseable {
     File file = SegmentFile.createSegmentFile(name, storage.directory(), segmentId, segmentVersion);
     Buffer buffer = FileBuffer.allocate(file, Math.min(DEFAULT_BUFFER_SIZE, storage.maxSegmentSize()), Integer.MAX_VALUE);
     SegmentDescriptor descriptor = new SegmentDescriptor(buffer);
-    Segment segment = new Segment(buffer.position(SegmentDescriptor.BYTES).slice(), descriptor, createIndex(descriptor), new OffsetCleaner(), serializer.clone(), this);
+    Segment segment = loadSegment(buffer.position(SegmentDescriptor.BYTES).slice(), descriptor);
     LOGGER.debug("Loaded file segment: {} ({})", descriptor.id(), file.getName());
     return segment;
   }
@@ -365,7 +477,7 @@ public class SegmentManager implements AutoCloseable {
     File file = SegmentFile.createSegmentFile(name, storage.directory(), segmentId, segmentVersion);
     Buffer buffer = MappedBuffer.allocate(file, Math.min(DEFAULT_BUFFER_SIZE, storage.maxSegmentSize()), Integer.MAX_VALUE);
     SegmentDescriptor descriptor = new SegmentDescriptor(buffer);
-    Segment segment = new Segment(buffer.position(SegmentDescriptor.BYTES).slice(), descriptor, createIndex(descriptor), new OffsetCleaner(), serializer.clone(), this);
+    Segment segment = loadSegment(buffer.position(SegmentDescriptor.BYTES).slice(), descriptor);
     LOGGER.debug("Loaded mapped segment: {} ({})", descriptor.id(), file.getName());
     return segment;
   }
@@ -381,11 +493,26 @@ public class SegmentManager implements AutoCloseable {
     return segment;
   }
 
+  /**
+   * Loads a segment from the given buffer, reading the segment's indexes from its index file if possible.
+   */
+  private Segment loadSegment(Buffer buffer, SegmentDescriptor descriptor) {
+    File indexFile = SegmentFile.createIndexFile(name, storage.directory(), descriptor.id(), descriptor.version());
+    return new Segment(buffer, descriptor, createIndex(descriptor), indexFile, new OffsetCleaner(), serializer.clone(), this);
+  }
+
   /**
    * Creates an in memory segment index.
+   * <p>
+   * Segments written by log compaction contain gaps between entries and are indexed densely. All other segments
+   * are indexed sparsely, storing only a fraction of the entries in the segment in memory.
    */
   private OffsetIndex createIndex(SegmentDescriptor descriptor) {
-    return new OffsetIndex(HeapBuffer.allocate(Math.min(DEFAULT_BUFFER_SIZE, descriptor.maxEntries()), OffsetIndex.size(descriptor.maxEntries())));
+    if (descriptor.version() > 1) {
+      return new OffsetIndex(HeapBuffer.allocate(Math.min(DEFAULT_BUFFER_SIZE, descriptor.maxEntries()), OffsetIndex.size(descriptor.maxEntries())));
+    }
+    long initialCapacity = OffsetIndex.size(descriptor.maxEntries() / OffsetIndex.SPARSE_INTERVAL + 1);
+    return new OffsetIndex(HeapBuffer.allocate(Math.min(DEFAULT_BUFFER_SIZE, initialCapacity), OffsetIndex.size(descriptor.maxEntries())), OffsetIndex.SPARSE_INTERVAL, OffsetIndex.SPARSE_INTERVAL_BYTES);
   }
 
   /**
@@ -397,12 +524,11 @@ public class SegmentManager implements AutoCloseable {
     // Ensure log directories are created.
     storage.directory().mkdirs();
 
-    TreeMap<Long, Segment> segments = new TreeMap<>();
-
-    // Iterate through all files in the log directory.
+    // Read the descriptors of all segment files in the log directory.
+    List<SegmentFile> segmentFiles = new ArrayList<>();
     for (File file : storage.directory().listFiles(File::isFile)) {
 
-      // If the file looks like a segment file, attempt to load the segment.
+      // If the file looks like a segment file, read the segment descriptor.
       if (SegmentFile.isSegmentFile(name, file)) {
         SegmentFile segmentFile = new SegmentFile(file);
         SegmentDescriptor descriptor = new SegmentDescriptor(FileBuffer.allocate(file, SegmentDescriptor.BYTES));
@@ -410,44 +536,7 @@ public class SegmentManager implements AutoCloseable {
         // Valid segments will have been locked. Segments that resulting from failures during log cleaning will be
         // unlocked and should ultimately be deleted from disk.
         if (descriptor.locked()) {
-
-          // Load the segment.
-          Segment segment = loadSegment(descriptor.id(), descriptor.version());
-
-          // Check whether an existing segment with the segment index already exists. Note that we don't use segment IDs
-          // since the log compaction process combines segments and therefore it's not easy to determine which segment
-          // will contain a given starting index by ID.
-          Map.Entry<Long, Segment> existingEntry = segments.floorEntry(segment.descriptor().index());
-          if (existingEntry != null) {
-
-            // If an existing descriptor exists with a lower index than this segment's first index, check to determine
-            // whether this segment's first index is contained in that existing index. If it is, determine which segment
-            // should take precedence based on segment versions.
-            Segment existingSegment = existingEntry.getValue();
-            if (existingSegment.index() <= segment.index() && existingSegment.index() + existingSegment.length() > segment.index()) {
-              if (existingSegment.descriptor().version() < segment.descriptor().version()) {
-                LOGGER.debug("Replaced segment {} with newer version: {} ({})", existingSegment.descriptor().id(), segment.descriptor().version(), segmentFile.file().getName());
-                segments.remove(existingEntry.getKey());
-                existingSegment.close();
-                existingSegment.delete();
-                segments.put(segment.index(), segment);
-              } else {
-                segment.close();
-                segment.delete();
-              }
-            }
-            // If the next closest existing segment didn't contain this segment's first index, add this segment.
-            else {
-              LOGGER.debug("Found segment: {} ({})", segment.descriptor().id(), segmentFile.file().getName());
-              segments.put(segment.index(), segment);
-            }
-          }
-          // If there was no segment with a starting index close to this segment's index, add this segment.
-          else {
-            LOGGER.debug("Found segment: {} ({})", segment.descriptor().id(), segmentFile.file().getName());
-            segments.put(segment.index(), segment);
-          }
-
+          segmentFiles.add(segmentFile);
           descriptor.close();
         }
         // If the segment descriptor wasn't locked, close and delete the descriptor.
@@ -455,8 +544,53 @@ public class SegmentManager implements AutoCloseable {
           LOGGER.debug("Deleting unlocked segment: {}-{} ({})", descriptor.id(), descriptor.version(), segmentFile.file().getName());
           descriptor.close();
           descriptor.delete();
+          deleteIndexFile(descriptor);
+        }
+      }
+    }
+
+    // Load segments and rebuild their indexes in parallel. Segments are independent of one another until
+    // overlapping versions are resolved below.
+    List<Segment> loadedSegments = loadSegments(segmentFiles);
+
+    TreeMap<Long, Segment> segments = new TreeMap<>();
+    for (int i = 0; i < segmentFiles.size(); i++) {
+      SegmentFile segmentFile = segmentFiles.get(i);
+      Segment segment = loadedSegments.get(i);
+
+      // Check whether an existing segment with the segment index already exists. Note that we don't use segment IDs
+      // since the log compaction process combines segments and therefore it's not easy to determine which segment
+      // will contain a given starting index by ID.
+      Map.Entry<Long, Segment> existingEntry = segments.floorEntry(segment.descriptor().index());
+      if (existingEntry != null) {
+
+        // If an existing descriptor exists with a lower index than this segment's first index, check to determine
+        // whether this segment's first index is contained in that existing index. If it is, determine which segment
+        // should take precedence based on segment versions.
+        Segment existingSegment = existingEntry.getValue();
+        if (existingSegment.index() <= segment.index() && existingSegment.index() + existingSegment.length() > segment.index()) {
+          if (existingSegment.descriptor().version() < segment.descriptor().version()) {
+            LOGGER.debug("Replaced segment {} with newer version: {} ({})", existingSegment.descriptor().id(), segment.descriptor().version(), segmentFile.file().getName());
+            segments.remove(existingEntry.getKey());
+            existingSegment.close();
+            existingSegment.delete();
+            segments.put(segment.index(), segment);
+          } else {
+            segment.close();
+            segment.delete();
+          }
+        }
+        // If the next closest existing segment didn't contain this segment's first index, add this segment.
+        else {
+          LOGGER.debug("Found segment: {} ({})", segment.descriptor().id(), segmentFile.file().getName());
+          segments.put(segment.index(), segment);
         }
       }
+      // If there was no segment with a starting index close to this segment's index, add this segment.
+      else {
+        LOGGER.debug("Found segment: {} ({})", segment.descriptor().id(), segmentFile.file().getName());
+        segments.put(segment.index(), segment);
+      }
     }
 
     for (Long segmentId : segments.keySet()) {
@@ -473,8 +607,66 @@ public class SegmentManager implements AutoCloseable {
     return segments.values();
   }
 
+  /**
+   * Loads the given segment files on a bounded fork-join pool.
+   * <p>
+   * Loading a segment requires its indexes to be rebuilt by reading the segment's records, so segments are loaded
+   * concurrently with at most one thread per available processor.
+   *
+   * @param segmentFiles The segment files to load.
+   * @return The loaded segments in the order of the given segment files.
+   */
+  private List<Segment> loadSegments(List<SegmentFile> segmentFiles) {
+    if (segmentFiles.size() <= 1) {
+      return segmentFiles.stream()
+        .map(file -> loadSegment(file.id(), file.version()))
+        .collect(Collectors.toList());
+    }
+
+    ForkJoinPool pool = new ForkJoinPool(Math.min(Runtime.getRuntime().availableProcessors(), segmentFiles.size()));
+    try {
+      List<ForkJoinTask<Segment>> tasks = new ArrayList<>(segmentFiles.size());
+      for (SegmentFile segmentFile : segmentFiles) {
+        tasks.add(pool.submit(() -> loadSegment(segmentFile.id(), segmentFile.version())));
+      }
+
+      List<Segment> segments = new ArrayList<>(tasks.size());
+      RuntimeException error = null;
+      for (ForkJoinTask<Segment> task : tasks) {
+        try {
+          segments.add(task.join());
+        } catch (RuntimeException e) {
+          if (error == null) {
+            error = e;
+          } else {
+            error.addSuppressed(e);
+          }
+        }
+      }
+
+      // If any segment failed to load, close the segments that were loaded by the remaining tasks.
+      if (error != null) {
+        segments.forEach(Segment::close);
+        throw error;
+      }
+      return segments;
+    } finally {
+      pool.shutdown();
+    }
+  }
+
   @Override
   public void close() {
+    // Wait for pending index file writes to complete before closing the segments they read from.
+    if (indexExecutor != null) {
+      indexExecutor.shutdown();
+      try {
+        indexExecutor.awaitTermination(30, TimeUnit.SECONDS);
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+      }
+    }
+
     segments.values().forEach(s -> {
       LOGGER.debug("Closing segment: {}", s.descriptor().id());
       s.close();
@@ -18,6 +18,7 @@ package io.atomix.copycat.server.storage;
 import io.atomix.catalyst.util.Assert;
 import io.atomix.catalyst.util.concurrent.ThreadContext;
 import io.atomix.copycat.server.storage.snapshot.Snapshot;
+import io.atomix.copycat.server.storage.snapshot.SnapshotCompression;
 import io.atomix.copycat.server.storage.snapshot.SnapshotFile;
 import io.atomix.copycat.server.storage.snapshot.SnapshotStore;
 import io.atomix.copycat.server.storage.system.MetaStore;
@@ -64,10 +65,15 @@ public class Storage {
   private static final int DEFAULT_MAX_ENTRIES_PER_SEGMENT = 1024 * 1024;
   private static final int DEFAULT_MAX_SNAPSHOT_SIZE = 1024 * 1024 * 32;
   private static final boolean DEFAULT_RETAIN_STALE_SNAPSHOTS = false;
+  private static final SnapshotCompression DEFAULT_SNAPSHOT_COMPRESSION = SnapshotCompression.NONE;
+  private static final int DEFAULT_MAX_SNAPSHOT_DELTAS = 8;
   private static final int DEFAULT_COMPACTION_THREADS = Runtime.getRuntime().availableProcessors() / 2;
   private static final Duration DEFAULT_MINOR_COMPACTION_INTERVAL = Duration.ofMinutes(1);
   private static final Duration DEFAULT_MAJOR_COMPACTION_INTERVAL = Duration.ofHours(1);
   private static final double DEFAULT_COMPACTION_THRESHOLD = 0.5;
+  private static final DurabilityMode DEFAULT_DURABILITY_MODE = DurabilityMode.BATCH;
+  private static final Duration DEFAULT_FLUSH_INTERVAL = Duration.ofMillis(10);
+  private static final boolean DEFAULT_VERIFY_CHECKSUMS = false;
 
   private StorageLevel storageLevel = StorageLevel.DISK;
   private File directory = new File(DEFAULT_DIRECTORY);
@@ -75,10 +81,15 @@ public class Storage {
   private int maxEntriesPerSegment = DEFAULT_MAX_ENTRIES_PER_SEGMENT;
   private int maxSnapshotSize = DEFAULT_MAX_SNAPSHOT_SIZE;
   private boolean retainStaleSnapshots = DEFAULT_RETAIN_STALE_SNAPSHOTS;
+  private SnapshotCompression snapshotCompression = DEFAULT_SNAPSHOT_COMPRESSION;
+  private int maxSnapshotDeltas = DEFAULT_MAX_SNAPSHOT_DELTAS;
   private int compactionThreads = DEFAULT_COMPACTION_THREADS;
   private Duration minorCompactionInterval = DEFAULT_MINOR_COMPACTION_INTERVAL;
   private Duration majorCompactionInterval = DEFAULT_MAJOR_COMPACTION_INTERVAL;
   private double compactionThreshold = DEFAULT_COMPACTION_THRESHOLD;
+  private DurabilityMode durabilityMode = DEFAULT_DURABILITY_MODE;
+  private Duration flushInterval = DEFAULT_FLUSH_INTERVAL;
+  private boolean verifyChecksums = DEFAULT_VERIFY_CHECKSUMS;
 
   public Storage() {
   }
@@ -189,6 +200,31 @@ public class Storage {
     return retainStaleSnapshots;
   }
 
+  /**
+   * Returns the snapshot compression codec.
+   * <p>
+   * The snapshot compression codec dictates how new {@link Snapshot}s are compressed when they're written.
+   * Existing snapshots are always read with the codec with which they were written.
+   *
+   * @return The snapshot compression codec.
+   */
+  public SnapshotCompression snapshotCompression() {
+    return snapshotCompression;
+  }
+
+  /**
+   * Returns the maximum number of delta snapshots in a snapshot chain.
+   * <p>
+   * State machines that implement {@link io.atomix.copycat.server.IncrementalSnapshottable} write delta snapshots
+   * containing only the state changed since the previous snapshot. Once the current snapshot chain contains the
+   * maximum number of delta snapshots, a new full snapshot is taken and the prior chain is removed from disk.
+   *
+   * @return The maximum number of delta snapshots in a snapshot chain.
+   */
+  public int maxSnapshotDeltas() {
+    return maxSnapshotDeltas;
+  }
+
   /**
    * Returns the number of log compaction threads.
    * <p>
@@ -239,6 +275,42 @@ public class Storage {
     return compactionThreshold;
   }
 
+  /**
+   * Returns the log durability mode.
+   * <p>
+   * The durability mode dictates when entries appended to a {@link Log} are flushed to disk and thus when
+   * {@link Log#sync(long)} futures are completed.
+   *
+   * @return The log durability mode.
+   */
+  public DurabilityMode durabilityMode() {
+    return durabilityMode;
+  }
+
+  /**
+   * Returns the log flush interval.
+   * <p>
+   * The flush interval is the interval at which the log is flushed to disk when the {@link #durabilityMode()}
+   * is {@link DurabilityMode#PERIODIC}.
+   *
+   * @return The log flush interval.
+   */
+  public Duration flushInterval() {
+    return flushInterval;
+  }
+
+  /**
+   * Returns a boolean value indicating whether to verify record checksums when entries are read from the log.
+   * <p>
+   * Record checksums are always verified for the last segment in the log when the log is opened. If checksum
+   * verification is enabled, checksums will also be verified each time an entry is read from disk or memory.
+   *
+   * @return Indicates whether to verify record checksums when entries are read from the log.
+   */
+  public boolean verifyChecksums() {
+    return verifyChecksums;
+  }
+
   /**
    * Opens a new {@link MetaStore}.
    *
@@ -300,7 +372,7 @@ public class Storage {
    */
   public void deleteLog(String name) {
     StorageCleaner cleaner = new StorageCleaner(this);
-    cleaner.cleanFiles(f -> SegmentFile.isSegmentFile(name, f));
+    cleaner.cleanFiles(f -> SegmentFile.isSegmentFile(name, f) || SegmentFile.isIndexFile(name, f));
   }
 
   @Override
@@ -463,6 +535,39 @@ public class Storage {
       return this;
     }
 
+    /**
+     * Sets the snapshot compression codec, returning the builder for method chaining.
+     * <p>
+     * Snapshots are compressed in blocks as they're written and decompressed as they're read. Compressed snapshots
+     * are replicated to other servers in their compressed form. By default, snapshots are not compressed.
+     *
+     * @param snapshotCompression The snapshot compression codec.
+     * @return The storage builder.
+     * @throws NullPointerException if {@code snapshotCompression} is {@code null}
+     */
+    public Builder withSnapshotCompression(SnapshotCompression snapshotCompression) {
+      storage.snapshotCompression = Assert.notNull(snapshotCompression, "snapshotCompression");
+      return this;
+    }
+
+    /**
+     * Sets the maximum number of delta snapshots in a snapshot chain, returning the builder for method chaining.
+     * <p>
+     * Delta snapshots are only taken of state machines that implement {@link io.atomix.copycat.server.IncrementalSnapshottable}.
+     * Each delta snapshot depends on all the prior snapshots in its chain, so longer chains reduce the cost of taking
+     * snapshots at the expense of greater disk usage and longer recovery times. Once the chain reaches the maximum
+     * number of deltas, a new full snapshot is taken. Setting the maximum to {@code 0} disables delta snapshots.
+     * By default, chains may contain up to {@code 8} delta snapshots.
+     *
+     * @param maxSnapshotDeltas The maximum number of delta snapshots in a snapshot chain.
+     * @return The storage builder.
+     * @throws IllegalArgumentException if {@code maxSnapshotDeltas} is negative
+     */
+    public Builder withMaxSnapshotDeltas(int maxSnapshotDeltas) {
+      storage.maxSnapshotDeltas = Assert.argNot(maxSnapshotDeltas, maxSnapshotDeltas < 0, "maxSnapshotDeltas must not be negative");
+      return this;
+    }
+
     /**
      * Sets the number of log compaction threads, returning the builder for method chaining.
      * <p>
@@ -538,6 +643,70 @@ public class Storage {
       return this;
     }
 
+    /**
+     * Sets the log durability mode, returning the builder for method chaining.
+     * <p>
+     * The durability mode dictates when entries appended to the log are flushed to disk. Entries are not acknowledged
+     * to the leader or counted towards commitment until they've been flushed according to the durability mode. By
+     * default, the log uses {@link DurabilityMode#BATCH} durability, flushing all entries appended in a single batch
+     * with one {@code fsync}.
+     *
+     * @param durabilityMode The log durability mode.
+     * @return The storage builder.
+     * @throws NullPointerException if {@code durabilityMode} is {@code null}
+     */
+    public Builder withDurabilityMode(DurabilityMode durabilityMode) {
+      storage.durabilityMode = Assert.notNull(durabilityMode, "durabilityMode");
+      return this;
+    }
+
+    /**
+     * Sets the log flush interval, returning the builder for method chaining.
+     * <p>
+     * The flush interval is used only by the {@link DurabilityMode#PERIODIC} durability mode and dictates the interval
+     * at which the log is flushed to disk. By default, the flush interval is {@code 10} milliseconds.
+     *
+     * @param flushInterval The log flush interval.
+     * @return The storage builder.
+     * @throws NullPointerException if {@code flushInterval} is {@code null}
+     * @throws IllegalArgumentException if {@code flushInterval} is not positive
+     */
+    public Builder withFlushInterval(Duration flushInterval) {
+      Assert.notNull(flushInterval, "flushInterval");
+      storage.flushInterval = Assert.arg(flushInterval, !flushInterval.isNegative() && !flushInterval.isZero(), "flushInterval must be positive");
+      return this;
+    }
+
+    /**
+     * Enables verification of record checksums when entries are read, returning the builder for method chaining.
+     * <p>
+     * Each record in the log is stored with a checksum. By default, checksums are verified only for the last
+     * segment in the log when the log is opened in order to recover from partial writes. Enabling checksum
+     * verification will ensure that checksums are verified each time an entry is read from the log, e.g. to
+     * detect corruption of data on disk.
+     *
+     * @return The storage builder.
+     */
+    public Builder withVerifyChecksums() {
+      return withVerifyChecksums(true);
+    }
+
+    /**
+     * Sets whether to verify record checksums when entries are read, returning the builder for method chaining.
+     * <p>
+     * Each record in the log is stored with a checksum. By default, checksums are verified only for the last
+     * segment in the log when the log is opened in order to recover from partial writes. Enabling checksum
+     * verification will ensure that checksums are verified each time an entry is read from the log, e.g. to
+     * detect corruption of data on disk.
+     *
+     * @param verifyChecksums Whether to verify record checksums when entries are read.
+     * @return The storage builder.
+     */
+    public Builder withVerifyChecksums(boolean verifyChecksums) {
+      storage.verifyChecksums = verifyChecksums;
+      return this;
+    }
+
     /**
      * Builds the {@link Storage} object.
      *
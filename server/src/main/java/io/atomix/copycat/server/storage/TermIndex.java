@@ -15,8 +15,7 @@
  */
 package io.atomix.copycat.server.storage;
 
-import java.util.Map;
-import java.util.TreeMap;
+import java.util.Arrays;
 
 /**
  * Log entry term index.
@@ -26,25 +25,60 @@ import java.util.TreeMap;
  * we can assume that if entry {@code n}'s term is {@code t} then entry {@code n + 1}'s term
  * will be {@code t} or greater.
  * <p>
- * The implementation of the term index uses a {@link TreeMap} to store a map of offsets to
- * terms. To look up the term for any given offset, we use {@code map.floorEntry(offset)}
- * to loop up the term for the offset.
+ * The implementation of the term index uses a pair of append-only primitive arrays to store
+ * offsets and the terms that begin at those offsets. To look up the term for any given offset,
+ * we binary search the offsets array for the greatest offset less than or equal to the offset.
  * <p>
- * This class is thread safe.
+ * This class is thread safe for a single writer and multiple readers. Writes are published by
+ * updating the volatile index size only after the arrays have been updated, so readers never
+ * block. Readers should not expect consistent results for offsets that are concurrently
+ * {@link #truncate(long) truncated}.
  *
  * @author <a href="http://github.com/kuujo>Jordan Halterman</a>
  */
 final class TermIndex {
-  private final TreeMap<Long, Long> terms = new TreeMap<>();
+  private static final int DEFAULT_CAPACITY = 8;
+  private volatile long[] offsets = new long[DEFAULT_CAPACITY];
+  private volatile long[] terms = new long[DEFAULT_CAPACITY];
+  private volatile int size;
 
   /**
    * Returns the highest term in the index.
    *
    * @return The highest term in the index.
    */
-  public synchronized long term() {
-    Map.Entry<Long, Long> entry = terms.lastEntry();
-    return entry != null ? entry.getValue() : 0;
+  public long term() {
+    int size = this.size;
+    return size > 0 ? terms[size - 1] : 0;
+  }
+
+  /**
+   * Returns the number of terms in the index.
+   *
+   * @return The number of terms in the index.
+   */
+  public int size() {
+    return size;
+  }
+
+  /**
+   * Returns the first offset of the term at the given position in the index.
+   *
+   * @param position The position of the term in the index.
+   * @return The first offset of the term at the given position.
+   */
+  public long offsetAt(int position) {
+    return offsets[position];
+  }
+
+  /**
+   * Returns the term at the given position in the index.
+   *
+   * @param position The position of the term in the index.
+   * @return The term at the given position.
+   */
+  public long termAt(int position) {
+    return terms[position];
   }
 
   /**
@@ -53,10 +87,29 @@ final class TermIndex {
    * @param offset The offset to index.
    * @param term The term to index.
    */
-  public synchronized void index(long offset, long term) {
-    if (lookup(offset) != term) {
-      terms.put(offset, term);
+  public void index(long offset, long term) {
+    if (lookup(offset) == term) {
+      return;
+    }
+
+    // If the offset is not greater than the last indexed offset, remove the existing terms from the offset.
+    int size = this.size;
+    if (size > 0 && offsets[size - 1] >= offset) {
+      truncate(offset - 1);
+      size = this.size;
     }
+
+    // Grow the arrays if necessary. Arrays must be replaced before the size is updated.
+    if (size == offsets.length) {
+      long[] offsets = Arrays.copyOf(this.offsets, size * 2);
+      long[] terms = Arrays.copyOf(this.terms, size * 2);
+      this.offsets = offsets;
+      this.terms = terms;
+    }
+
+    offsets[size] = offset;
+    terms[size] = term;
+    this.size = size + 1;
   }
 
   /**
@@ -65,9 +118,32 @@ final class TermIndex {
    * @param offset The offset for which to look up the term.
    * @return The term for the entry at the given offset.
    */
-  public synchronized long lookup(long offset) {
-    Map.Entry<Long, Long> entry = terms.floorEntry(offset);
-    return entry != null ? entry.getValue() : 0;
+  public long lookup(long offset) {
+    int size = this.size;
+    long[] offsets = this.offsets;
+    long[] terms = this.terms;
+    int position = floor(offsets, size, offset);
+    return position != -1 ? terms[position] : 0;
+  }
+
+  /**
+   * Returns the position of the greatest offset less than or equal to the given offset.
+   */
+  private static int floor(long[] offsets, int size, long offset) {
+    int low = 0;
+    int high = size - 1;
+    while (low <= high) {
+      int mid = (low + high) >>> 1;
+      long midOffset = offsets[mid];
+      if (midOffset < offset) {
+        low = mid + 1;
+      } else if (midOffset > offset) {
+        high = mid - 1;
+      } else {
+        return mid;
+      }
+    }
+    return high;
   }
 
   /**
@@ -75,8 +151,12 @@ final class TermIndex {
    *
    * @param offset The offset to which to truncate the index.
    */
-  public synchronized void truncate(long offset) {
-    terms.tailMap(offset, false).clear();
+  public void truncate(long offset) {
+    int size = this.size;
+    int position = floor(offsets, size, offset);
+    if (position + 1 < size) {
+      this.size = position + 1;
+    }
   }
 
   @Override
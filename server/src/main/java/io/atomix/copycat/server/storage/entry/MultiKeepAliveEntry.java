@@ -0,0 +1,141 @@
+/*
+ * Copyright 2015 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.atomix.copycat.server.storage.entry;
+
+import io.atomix.catalyst.buffer.BufferInput;
+import io.atomix.catalyst.buffer.BufferOutput;
+import io.atomix.catalyst.serializer.SerializeWith;
+import io.atomix.catalyst.serializer.Serializer;
+import io.atomix.catalyst.util.Assert;
+import io.atomix.catalyst.util.ReferenceManager;
+
+/**
+ * Stores keep-alive requests for multiple sessions.
+ * <p>
+ * The {@code MultiKeepAliveEntry} is logged and replicated by the leader in place of a {@link KeepAliveEntry} for
+ * each {@link io.atomix.copycat.client.request.KeepAliveRequest} received within a short window. For each session,
+ * the entry stores the session ID along with the command sequence number and event index from the session's most
+ * recent keep-alive request. When the entry is committed to the internal Raft state machine, the session timeout
+ * for each session in the entry is reset as if a {@link KeepAliveEntry} had been committed for the session.
+ *
+ * @author <a href="http://github.com/kuujo">Jordan Halterman</a>
+ */
+@SerializeWith(id=234)
+public class MultiKeepAliveEntry extends TimestampedEntry<MultiKeepAliveEntry> {
+  private static final long[] EMPTY = new long[0];
+  private long[] sessions = EMPTY;
+  private long[] commandSequences = EMPTY;
+  private long[] eventIndexes = EMPTY;
+
+  public MultiKeepAliveEntry() {
+  }
+
+  public MultiKeepAliveEntry(ReferenceManager<Entry<?>> referenceManager) {
+    super(referenceManager);
+  }
+
+  /**
+   * Returns the session IDs.
+   *
+   * @return The session IDs.
+   */
+  public long[] getSessions() {
+    return sessions;
+  }
+
+  /**
+   * Sets the session IDs.
+   *
+   * @param sessions The session IDs.
+   * @return The keep alive entry.
+   */
+  public MultiKeepAliveEntry setSessions(long[] sessions) {
+    this.sessions = Assert.notNull(sessions, "sessions");
+    return this;
+  }
+
+  /**
+   * Returns the command sequence numbers for each session.
+   *
+   * @return The command sequence numbers for each session.
+   */
+  public long[] getCommandSequences() {
+    return commandSequences;
+  }
+
+  /**
+   * Sets the command sequence numbers for each session.
+   *
+   * @param commandSequences The command sequence numbers for each session.
+   * @return The keep alive entry.
+   */
+  public MultiKeepAliveEntry setCommandSequences(long[] commandSequences) {
+    this.commandSequences = Assert.notNull(commandSequences, "commandSequences");
+    return this;
+  }
+
+  /**
+   * Returns the event indexes for each session.
+   *
+   * @return The event indexes for each session.
+   */
+  public long[] getEventIndexes() {
+    return eventIndexes;
+  }
+
+  /**
+   * Sets the event indexes for each session.
+   *
+   * @param eventIndexes The event indexes for each session.
+   * @return The keep alive entry.
+   */
+  public MultiKeepAliveEntry setEventIndexes(long[] eventIndexes) {
+    this.eventIndexes = Assert.notNull(eventIndexes, "eventIndexes");
+    return this;
+  }
+
+  @Override
+  public void readObject(BufferInput buffer, Serializer serializer) {
+    super.readObject(buffer, serializer);
+    int size = buffer.readInt();
+    sessions = new long[size];
+    commandSequences = new long[size];
+    eventIndexes = new long[size];
+    for (int i = 0; i < size; i++) {
+      sessions[i] = buffer.readLong();
+      commandSequences[i] = buffer.readLong();
+      eventIndexes[i] = buffer.readLong();
+    }
+  }
+
+  @Override
+  public void writeObject(BufferOutput buffer, Serializer serializer) {
+    Assert.state(sessions.length == commandSequences.length && sessions.length == eventIndexes.length, "inconsistent session count");
+    super.writeObject(buffer, serializer);
+    buffer.writeInt(sessions.length);
+    for (int i = 0; i < sessions.length; i++) {
+      buffer.writeLong(sessions[i]);
+      buffer.writeLong(commandSequences[i]);
+      buffer.writeLong(eventIndexes[i]);
+    }
+  }
+
+  @Override
+  public String toString() {
+    return String.format("%s[index=%d, term=%d, sessions=%d, timestamp=%d]", getClass().getSimpleName(), getIndex(), getTerm(), sessions.length, getTimestamp());
+  }
+
+}
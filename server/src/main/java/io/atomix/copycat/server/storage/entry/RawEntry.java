@@ -0,0 +1,169 @@
+/*
+ * Copyright 2015 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.atomix.copycat.server.storage.entry;
+
+import io.atomix.catalyst.buffer.Buffer;
+import io.atomix.catalyst.buffer.BufferInput;
+import io.atomix.catalyst.buffer.BufferOutput;
+import io.atomix.catalyst.serializer.SerializeWith;
+import io.atomix.catalyst.serializer.Serializer;
+import io.atomix.catalyst.util.Assert;
+import io.atomix.catalyst.util.ReferenceManager;
+
+/**
+ * Wraps the serialized bytes of another entry.
+ * <p>
+ * Raw entries are read from a {@link io.atomix.copycat.server.storage.Log} via
+ * {@link io.atomix.copycat.server.storage.Log#getRaw(long)} and contain the exact bytes of an entry as they were
+ * serialized to the log. Raw entries allow leaders to replicate entries without deserializing and reserializing
+ * them, and when a raw entry is appended to a log its bytes are written directly to the underlying segment.
+ * Reading the entry back from the log results in the original entry type.
+ * <p>
+ * Because the entry bytes are opaque, the raw entry's {@link #getTerm() term} is serialized along with the bytes.
+ * Raw entries also carry the {@link #getType() type} of the wrapped entry, which is the {@link SerializeWith#id()}
+ * of the entry class. The type is stored with each record in the log, allowing the type of a raw entry to be
+ * determined without deserializing its bytes. Raw entries read from segments that predate stored entry types have
+ * an {@link #UNKNOWN_TYPE unknown} type.
+ *
+ * @author <a href="http://github.com/kuujo">Jordan Halterman</a>
+ */
+@SerializeWith(id=218)
+public class RawEntry extends Entry<RawEntry> {
+
+  /**
+   * The type of a raw entry whose wrapped entry type is not known.
+   */
+  public static final int UNKNOWN_TYPE = 0;
+
+  /**
+   * The maximum entry type that can be stored with a raw entry.
+   */
+  public static final int MAX_TYPE = 65535;
+
+  /**
+   * Returns the raw entry type of the given entry class.
+   * <p>
+   * The type of an entry is the {@link SerializeWith#id() serialization ID} with which the entry class is annotated.
+   * If the class is not annotated or its ID cannot be stored as an unsigned 16-bit integer, {@link #UNKNOWN_TYPE}
+   * is returned.
+   *
+   * @param type The entry class.
+   * @return The raw entry type of the given entry class.
+   */
+  public static int typeOf(Class<?> type) {
+    SerializeWith annotation = type.getAnnotation(SerializeWith.class);
+    if (annotation == null || annotation.id() <= UNKNOWN_TYPE || annotation.id() > MAX_TYPE) {
+      return UNKNOWN_TYPE;
+    }
+    return annotation.id();
+  }
+
+  private Buffer bytes;
+  private int type;
+
+  public RawEntry() {
+  }
+
+  public RawEntry(ReferenceManager<Entry<?>> referenceManager) {
+    super(referenceManager);
+  }
+
+  @Override
+  protected RawEntry reset() {
+    if (bytes != null) {
+      bytes.close();
+      bytes = null;
+    }
+    type = UNKNOWN_TYPE;
+    return super.reset();
+  }
+
+  /**
+   * Returns the serialized entry bytes.
+   *
+   * @return The serialized entry bytes.
+   */
+  public Buffer getBytes() {
+    return bytes;
+  }
+
+  /**
+   * Sets the serialized entry bytes.
+   *
+   * @param bytes The serialized entry bytes.
+   * @return The raw entry.
+   * @throws NullPointerException if {@code bytes} is null
+   */
+  public RawEntry setBytes(Buffer bytes) {
+    this.bytes = Assert.notNull(bytes, "bytes");
+    return this;
+  }
+
+  /**
+   * Returns the type of the wrapped entry.
+   *
+   * @return The {@link SerializeWith#id() serialization ID} of the wrapped entry or {@link #UNKNOWN_TYPE} if the
+   *         type of the wrapped entry is not known.
+   */
+  public int getType() {
+    return type;
+  }
+
+  /**
+   * Sets the type of the wrapped entry.
+   *
+   * @param type The {@link SerializeWith#id() serialization ID} of the wrapped entry or {@link #UNKNOWN_TYPE}.
+   * @return The raw entry.
+   * @throws IllegalArgumentException if {@code type} is not a valid raw entry type
+   */
+  public RawEntry setType(int type) {
+    this.type = Assert.arg(type, type >= UNKNOWN_TYPE && type <= MAX_TYPE, "invalid entry type: %s", type);
+    return this;
+  }
+
+  /**
+   * Returns a boolean value indicating whether the wrapped entry is of the given type.
+   *
+   * @param type The entry class.
+   * @return Indicates whether the wrapped entry is known to be of the given type.
+   */
+  public boolean isType(Class<? extends Entry> type) {
+    return this.type != UNKNOWN_TYPE && this.type == typeOf(type);
+  }
+
+  @Override
+  public void writeObject(BufferOutput buffer, Serializer serializer) {
+    super.writeObject(buffer, serializer);
+    buffer.writeLong(getTerm());
+    buffer.writeUnsignedShort(type);
+    serializer.writeObject(bytes.rewind(), buffer);
+  }
+
+  @Override
+  public void readObject(BufferInput buffer, Serializer serializer) {
+    super.readObject(buffer, serializer);
+    setTerm(buffer.readLong());
+    type = buffer.readUnsignedShort();
+    bytes = serializer.<Buffer>readObject(buffer).flip();
+    setSize((int) bytes.remaining());
+  }
+
+  @Override
+  public String toString() {
+    return String.format("%s[index=%d, term=%d, type=%d, size=%d]", getClass().getSimpleName(), getIndex(), getTerm(), type, bytes != null ? bytes.remaining() : 0);
+  }
+
+}
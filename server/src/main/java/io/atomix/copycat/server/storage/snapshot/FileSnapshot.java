@@ -30,11 +30,15 @@ import java.nio.file.Path;
  */
 final class FileSnapshot extends Snapshot {
   private final SnapshotFile file;
+  private final SnapshotCompression compression;
+  private final long previousIndex;
   private final SnapshotStore store;
 
-  FileSnapshot(SnapshotFile file, SnapshotStore store) {
+  FileSnapshot(SnapshotFile file, SnapshotDescriptor descriptor, SnapshotStore store) {
     super(store);
     this.file = Assert.notNull(file, "file");
+    this.compression = Assert.notNull(descriptor, "descriptor").compression();
+    this.previousIndex = descriptor.previousIndex();
     this.store = Assert.notNull(store, "store");
   }
 
@@ -48,19 +52,43 @@ final class FileSnapshot extends Snapshot {
     return file.timestamp();
   }
 
+  @Override
+  public SnapshotCompression compression() {
+    return compression;
+  }
+
+  @Override
+  public long previousIndex() {
+    return previousIndex;
+  }
+
   @Override
   public synchronized SnapshotWriter writer() {
+    return openWriter(compression);
+  }
+
+  @Override
+  public synchronized SnapshotWriter rawWriter() {
+    return openWriter(SnapshotCompression.NONE);
+  }
+
+  /**
+   * Opens a snapshot writer that encodes written bytes with the given codec.
+   */
+  private SnapshotWriter openWriter(SnapshotCompression codec) {
     checkWriter();
     SnapshotDescriptor descriptor = SnapshotDescriptor.builder()
       .withIndex(file.index())
       .withTimestamp(file.timestamp())
+      .withCompression(compression)
+      .withPreviousIndex(previousIndex)
       .build();
 
     Buffer buffer = FileBuffer.allocate(file.file(), SnapshotDescriptor.BYTES, store.storage.maxSnapshotSize());
     descriptor.copyTo(buffer);
 
     int length = buffer.position(SnapshotDescriptor.BYTES).readInt();
-    return openWriter(new SnapshotWriter(buffer.skip(length).mark(), this, store.serializer()), descriptor);
+    return openWriter(new SnapshotWriter(buffer.skip(length).mark(), this, store.serializer(), codec), descriptor);
   }
 
   @Override
@@ -72,11 +100,24 @@ final class FileSnapshot extends Snapshot {
 
   @Override
   public synchronized SnapshotReader reader() {
+    return openReader(true);
+  }
+
+  @Override
+  public synchronized SnapshotReader rawReader() {
+    return openReader(false);
+  }
+
+  /**
+   * Opens a snapshot reader, decompressing read bytes if necessary.
+   */
+  private SnapshotReader openReader(boolean decompress) {
     Assert.state(file.file().exists(), "missing snapshot file: %s", file.file());
     Buffer buffer = FileBuffer.allocate(file.file(), SnapshotDescriptor.BYTES, store.storage.maxSnapshotSize());
     SnapshotDescriptor descriptor = new SnapshotDescriptor(buffer);
+    SnapshotCompression codec = decompress ? descriptor.compression() : SnapshotCompression.NONE;
     int length = buffer.position(SnapshotDescriptor.BYTES).readInt();
-    return openReader(new SnapshotReader(buffer.mark().limit(SnapshotDescriptor.BYTES + Integer.BYTES + length), this, store.serializer()), descriptor);
+    return openReader(new SnapshotReader(buffer.mark().limit(SnapshotDescriptor.BYTES + Integer.BYTES + length), this, store.serializer(), codec), descriptor);
   }
 
   @Override
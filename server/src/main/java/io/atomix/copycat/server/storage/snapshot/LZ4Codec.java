@@ -0,0 +1,188 @@
+/*
+ * Copyright 2015 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.atomix.copycat.server.storage.snapshot;
+
+import io.atomix.copycat.server.storage.StorageException;
+
+import java.util.Arrays;
+
+/**
+ * LZ4 block format compression.
+ * <p>
+ * This is a simple single-pass implementation of the LZ4 block format. Matches are found with a hash table of
+ * the most recent position of each 4 byte sequence, and each sequence is encoded as a token followed by literals
+ * and a 16-bit match offset. The encoder favors speed over compression ratio.
+ *
+ * @author <a href="http://github.com/kuujo>Jordan Halterman</a>
+ */
+final class LZ4Codec {
+  private static final int MIN_MATCH = 4;
+  private static final int LAST_LITERALS = 5;
+  private static final int MATCH_LIMIT = 12;
+  private static final int MAX_OFFSET = 65535;
+  private static final int HASH_BITS = 12;
+
+  private LZ4Codec() {
+  }
+
+  /**
+   * Compresses the first {@code length} bytes of the given array.
+   */
+  static byte[] compress(byte[] bytes, int length) {
+    byte[] output = new byte[length + length / 255 + 16];
+    int[] table = new int[1 << HASH_BITS];
+    int anchor = 0;
+    int position = 0;
+    int outputPosition = 0;
+    int limit = length - MATCH_LIMIT;
+
+    while (position < limit) {
+      int sequence = readInt(bytes, position);
+      int hash = (sequence * -1640531535) >>> (32 - HASH_BITS);
+      int match = table[hash] - 1;
+      table[hash] = position + 1;
+
+      if (match < 0 || position - match > MAX_OFFSET || readInt(bytes, match) != sequence) {
+        position++;
+        continue;
+      }
+
+      int matchLength = MIN_MATCH;
+      int maxMatchLength = length - LAST_LITERALS - position;
+      while (matchLength < maxMatchLength && bytes[match + matchLength] == bytes[position + matchLength]) {
+        matchLength++;
+      }
+
+      outputPosition = writeSequence(bytes, anchor, position - anchor, position - match, matchLength, output, outputPosition);
+      position += matchLength;
+      anchor = position;
+    }
+
+    outputPosition = writeSequence(bytes, anchor, length - anchor, 0, 0, output, outputPosition);
+    return Arrays.copyOf(output, outputPosition);
+  }
+
+  /**
+   * Writes a sequence of literals followed by a match. A match length of {@code 0} writes only literals.
+   */
+  private static int writeSequence(byte[] bytes, int literalPosition, int literalLength, int offset, int matchLength, byte[] output, int position) {
+    int tokenPosition = position++;
+    int token;
+    if (literalLength >= 15) {
+      token = 15 << 4;
+      position = writeLength(literalLength - 15, output, position);
+    } else {
+      token = literalLength << 4;
+    }
+
+    System.arraycopy(bytes, literalPosition, output, position, literalLength);
+    position += literalLength;
+
+    if (matchLength > 0) {
+      output[position++] = (byte) offset;
+      output[position++] = (byte) (offset >>> 8);
+      int length = matchLength - MIN_MATCH;
+      if (length >= 15) {
+        token |= 15;
+        position = writeLength(length - 15, output, position);
+      } else {
+        token |= length;
+      }
+    }
+
+    output[tokenPosition] = (byte) token;
+    return position;
+  }
+
+  /**
+   * Writes the remainder of a literal or match length.
+   */
+  private static int writeLength(int length, byte[] output, int position) {
+    while (length >= 255) {
+      output[position++] = (byte) 255;
+      length -= 255;
+    }
+    output[position++] = (byte) length;
+    return position;
+  }
+
+  /**
+   * Decompresses the first {@code length} bytes of the given array into the output array.
+   */
+  static void decompress(byte[] bytes, int length, byte[] output) {
+    int position = 0;
+    int outputPosition = 0;
+    try {
+      while (position < length) {
+        int token = bytes[position++] & 0xFF;
+
+        int literalLength = token >>> 4;
+        if (literalLength == 15) {
+          int b;
+          do {
+            b = bytes[position++] & 0xFF;
+            literalLength += b;
+          } while (b == 255);
+        }
+
+        System.arraycopy(bytes, position, output, outputPosition, literalLength);
+        position += literalLength;
+        outputPosition += literalLength;
+        if (position >= length) {
+          break;
+        }
+
+        int offset = (bytes[position++] & 0xFF) | (bytes[position++] & 0xFF) << 8;
+        int matchLength = token & 0x0F;
+        if (matchLength == 15) {
+          int b;
+          do {
+            b = bytes[position++] & 0xFF;
+            matchLength += b;
+          } while (b == 255);
+        }
+        matchLength += MIN_MATCH;
+
+        int match = outputPosition - offset;
+        if (offset == 0 || match < 0) {
+          throw new StorageException("corrupted snapshot block");
+        }
+
+        // Matches may overlap the bytes being written, so they must be copied one byte at a time.
+        for (int i = 0; i < matchLength; i++) {
+          output[outputPosition++] = output[match + i];
+        }
+      }
+    } catch (IndexOutOfBoundsException e) {
+      throw new StorageException("corrupted snapshot block", e);
+    }
+
+    if (outputPosition != output.length) {
+      throw new StorageException("corrupted snapshot block");
+    }
+  }
+
+  /**
+   * Reads a 32-bit integer from the given position in the array.
+   */
+  private static int readInt(byte[] bytes, int position) {
+    return (bytes[position] & 0xFF)
+      | (bytes[position + 1] & 0xFF) << 8
+      | (bytes[position + 2] & 0xFF) << 16
+      | (bytes[position + 3] & 0xFF) << 24;
+  }
+
+}
@@ -47,8 +47,24 @@ final class MemorySnapshot extends Snapshot {
     return descriptor.timestamp();
   }
 
+  @Override
+  public SnapshotCompression compression() {
+    return descriptor.compression();
+  }
+
+  @Override
+  public long previousIndex() {
+    return descriptor.previousIndex();
+  }
+
   @Override
   public SnapshotWriter writer() {
+    checkWriter();
+    return new SnapshotWriter(buffer.reset().slice(), this, store.serializer(), descriptor.compression());
+  }
+
+  @Override
+  public SnapshotWriter rawWriter() {
     checkWriter();
     return new SnapshotWriter(buffer.reset().slice(), this, store.serializer());
   }
@@ -61,6 +77,11 @@ final class MemorySnapshot extends Snapshot {
 
   @Override
   public synchronized SnapshotReader reader() {
+    return openReader(new SnapshotReader(buffer.reset().slice(), this, store.serializer(), descriptor.compression()), descriptor);
+  }
+
+  @Override
+  public synchronized SnapshotReader rawReader() {
     return openReader(new SnapshotReader(buffer.reset().slice(), this, store.serializer()), descriptor);
   }
 
@@ -78,6 +78,37 @@ public abstract class Snapshot implements AutoCloseable {
    */
   public abstract long timestamp();
 
+  /**
+   * Returns the snapshot compression codec.
+   * <p>
+   * The compression codec is the codec with which the snapshot is stored. Snapshots are compressed and decompressed
+   * transparently by {@link #writer() writers} and {@link #reader() readers}.
+   *
+   * @return The snapshot compression codec.
+   */
+  public abstract SnapshotCompression compression();
+
+  /**
+   * Returns the index of the snapshot on which this snapshot is based.
+   * <p>
+   * Full snapshots contain the complete state machine state and have a previous index of {@code 0}. Delta
+   * snapshots contain only the changes to the state machine state since the snapshot at the previous index
+   * and must be installed after the snapshots on which they're based.
+   *
+   * @return The index of the snapshot on which this snapshot is based.
+   * @see SnapshotStore#chain(Snapshot)
+   */
+  public abstract long previousIndex();
+
+  /**
+   * Returns a boolean indicating whether the snapshot is a delta snapshot.
+   *
+   * @return Indicates whether the snapshot stores only changes since a previous snapshot.
+   */
+  public boolean isDelta() {
+    return previousIndex() > 0;
+  }
+
   /**
    * Returns a new snapshot writer.
    * <p>
@@ -90,6 +121,17 @@ public abstract class Snapshot implements AutoCloseable {
    */
   public abstract SnapshotWriter writer();
 
+  /**
+   * Returns a new writer for the snapshot's stored bytes.
+   * <p>
+   * Unlike {@link #writer()}, the returned writer does not compress bytes written to a {@link #compression() compressed}
+   * snapshot. Raw writers are used to install snapshots replicated from other servers in their stored form.
+   *
+   * @return A new raw snapshot writer.
+   * @throws IllegalStateException if a writer was already created or the snapshot is {@link #complete() complete}
+   */
+  public abstract SnapshotWriter rawWriter();
+
   /**
    * Checks that the snapshot can be written.
    */
@@ -126,6 +168,17 @@ public abstract class Snapshot implements AutoCloseable {
    */
   public abstract SnapshotReader reader();
 
+  /**
+   * Returns a new reader for the snapshot's stored bytes.
+   * <p>
+   * Unlike {@link #reader()}, the returned reader does not decompress a {@link #compression() compressed} snapshot.
+   * Raw readers are used to replicate snapshots to other servers in their stored form.
+   *
+   * @return A new raw snapshot reader.
+   * @throws IllegalStateException if the snapshot is not {@link #complete() complete}
+   */
+  public abstract SnapshotReader rawReader();
+
   /**
    * Opens the given snapshot reader.
    */
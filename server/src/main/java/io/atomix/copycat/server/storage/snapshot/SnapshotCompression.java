@@ -0,0 +1,168 @@
+/*
+ * Copyright 2015 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.atomix.copycat.server.storage.snapshot;
+
+import io.atomix.copycat.server.storage.StorageException;
+
+import java.util.Arrays;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * {@link Snapshot} compression codecs.
+ * <p>
+ * When a snapshot is compressed, bytes written to the {@link SnapshotWriter} are buffered in blocks and each block
+ * is compressed with the snapshot's codec before it's written to the underlying snapshot buffer. The codec with which
+ * a snapshot was written is recorded in the {@link SnapshotDescriptor}, and {@link SnapshotReader}s decompress blocks
+ * as they're read. Snapshots are replicated to other members in their compressed form.
+ *
+ * @see io.atomix.copycat.server.storage.Storage
+ *
+ * @author <a href="http://github.com/kuujo>Jordan Halterman</a>
+ */
+public enum SnapshotCompression {
+
+  /**
+   * Stores snapshots uncompressed.
+   * <p>
+   * This is the default snapshot compression mode.
+   */
+  NONE(0) {
+    @Override
+    byte[] compress(byte[] bytes, int length) {
+      return Arrays.copyOf(bytes, length);
+    }
+
+    @Override
+    void decompress(byte[] bytes, int length, byte[] output) {
+      System.arraycopy(bytes, 0, output, 0, length);
+    }
+  },
+
+  /**
+   * Compresses snapshots with the LZ4 block format.
+   * <p>
+   * LZ4 compression favors speed over compression ratio and is suitable for most state machines.
+   */
+  LZ4(1) {
+    @Override
+    byte[] compress(byte[] bytes, int length) {
+      return LZ4Codec.compress(bytes, length);
+    }
+
+    @Override
+    void decompress(byte[] bytes, int length, byte[] output) {
+      LZ4Codec.decompress(bytes, length, output);
+    }
+  },
+
+  /**
+   * Compresses snapshots with the JDK's {@link Deflater}.
+   * <p>
+   * Deflate compression achieves better compression ratios than {@link #LZ4} at a significantly greater CPU cost.
+   */
+  DEFLATE(2) {
+    @Override
+    byte[] compress(byte[] bytes, int length) {
+      Deflater deflater = new Deflater();
+      try {
+        deflater.setInput(bytes, 0, length);
+        deflater.finish();
+        byte[] output = new byte[length + (length >> 12) + (length >> 14) + 64];
+        int position = 0;
+        while (!deflater.finished()) {
+          if (position == output.length) {
+            output = Arrays.copyOf(output, output.length * 2);
+          }
+          position += deflater.deflate(output, position, output.length - position);
+        }
+        return Arrays.copyOf(output, position);
+      } finally {
+        deflater.end();
+      }
+    }
+
+    @Override
+    void decompress(byte[] bytes, int length, byte[] output) {
+      Inflater inflater = new Inflater();
+      try {
+        inflater.setInput(bytes, 0, length);
+        int position = 0;
+        while (position < output.length && !inflater.finished()) {
+          int count = inflater.inflate(output, position, output.length - position);
+          if (count == 0 && (inflater.needsInput() || inflater.needsDictionary())) {
+            break;
+          }
+          position += count;
+        }
+        if (position != output.length) {
+          throw new StorageException("corrupted snapshot block");
+        }
+      } catch (DataFormatException e) {
+        throw new StorageException("corrupted snapshot block", e);
+      } finally {
+        inflater.end();
+      }
+    }
+  };
+
+  /**
+   * Returns the compression codec for the given identifier.
+   *
+   * @param id The compression codec identifier.
+   * @return The compression codec.
+   * @throws IllegalArgumentException if {@code id} is not a known codec identifier
+   */
+  public static SnapshotCompression forId(int id) {
+    for (SnapshotCompression compression : values()) {
+      if (compression.id == id) {
+        return compression;
+      }
+    }
+    throw new IllegalArgumentException("unknown snapshot compression: " + id);
+  }
+
+  private final int id;
+
+  SnapshotCompression(int id) {
+    this.id = id;
+  }
+
+  /**
+   * Returns the compression codec identifier.
+   * <p>
+   * The identifier is stored in the {@link SnapshotDescriptor} of snapshots written with this codec.
+   *
+   * @return The compression codec identifier.
+   */
+  public int id() {
+    return id;
+  }
+
+  /**
+   * Compresses the first {@code length} bytes of the given array.
+   */
+  abstract byte[] compress(byte[] bytes, int length);
+
+  /**
+   * Decompresses the first {@code length} bytes of the given array into the output array.
+   * <p>
+   * The output array must be exactly the size of the decompressed bytes.
+   */
+  abstract void decompress(byte[] bytes, int length, byte[] output);
+
+}
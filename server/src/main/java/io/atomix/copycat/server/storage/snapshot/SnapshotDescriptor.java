@@ -58,6 +58,8 @@ public final class SnapshotDescriptor implements AutoCloseable {
   private final long index;
   private final long timestamp;
   private boolean locked;
+  private final SnapshotCompression compression;
+  private final long previousIndex;
 
   /**
    * @throws NullPointerException if {@code buffer} is null
@@ -67,6 +69,8 @@ public final class SnapshotDescriptor implements AutoCloseable {
     this.index = buffer.readLong();
     this.timestamp = buffer.readLong();
     this.locked = buffer.readBoolean();
+    this.compression = SnapshotCompression.forId(buffer.readByte());
+    this.previousIndex = buffer.readLong();
     buffer.skip(BYTES - buffer.position());
   }
 
@@ -88,6 +92,29 @@ public final class SnapshotDescriptor implements AutoCloseable {
     return timestamp;
   }
 
+  /**
+   * Returns the snapshot compression codec.
+   * <p>
+   * Snapshots written prior to the introduction of compression are read as {@link SnapshotCompression#NONE}.
+   *
+   * @return The snapshot compression codec.
+   */
+  public SnapshotCompression compression() {
+    return compression;
+  }
+
+  /**
+   * Returns the index of the snapshot on which this snapshot is based.
+   * <p>
+   * Full snapshots have a previous index of {@code 0}. Delta snapshots store only the changes to the state
+   * machine state since the snapshot at the previous index.
+   *
+   * @return The index of the snapshot on which this snapshot is based.
+   */
+  public long previousIndex() {
+    return previousIndex;
+  }
+
   /**
    * Returns whether the snapshot has been locked by commitment.
    * <p>
@@ -117,6 +144,8 @@ public final class SnapshotDescriptor implements AutoCloseable {
       .writeLong(index)
       .writeLong(timestamp)
       .writeBoolean(locked)
+      .writeByte(compression.id())
+      .writeLong(previousIndex)
       .skip(BYTES - buffer.position())
       .flush();
     return this;
@@ -167,6 +196,29 @@ public final class SnapshotDescriptor implements AutoCloseable {
       return this;
     }
 
+    /**
+     * Sets the snapshot compression codec.
+     *
+     * @param compression The snapshot compression codec.
+     * @return The snapshot builder.
+     * @throws NullPointerException if {@code compression} is null
+     */
+    public Builder withCompression(SnapshotCompression compression) {
+      buffer.writeByte(17, Assert.notNull(compression, "compression").id());
+      return this;
+    }
+
+    /**
+     * Sets the index of the snapshot on which the snapshot is based.
+     *
+     * @param previousIndex The index of the previous snapshot, or {@code 0} for full snapshots.
+     * @return The snapshot builder.
+     */
+    public Builder withPreviousIndex(long previousIndex) {
+      buffer.writeLong(18, previousIndex);
+      return this;
+    }
+
     /**
      * Builds the segment descriptor.
      *
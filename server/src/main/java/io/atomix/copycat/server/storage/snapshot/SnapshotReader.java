@@ -18,6 +18,7 @@ package io.atomix.copycat.server.storage.snapshot;
 import io.atomix.catalyst.buffer.Buffer;
 import io.atomix.catalyst.buffer.BufferInput;
 import io.atomix.catalyst.buffer.Bytes;
+import io.atomix.catalyst.buffer.HeapBuffer;
 import io.atomix.catalyst.serializer.Serializer;
 import io.atomix.catalyst.util.Assert;
 
@@ -31,6 +32,10 @@ import io.atomix.catalyst.util.Assert;
  * In addition to standard {@link BufferInput} methods, snapshot readers support reading
  * {@link java.io.Serializable} and {@link io.atomix.catalyst.serializer.CatalystSerializable} objects
  * from the snapshot via the {@link #readObject()}} method.
+ * <p>
+ * If the snapshot is {@link SnapshotCompression compressed}, blocks are decompressed into memory as they're read.
+ * Each write to a {@link SnapshotWriter} is stored within a single block, so values should be read with the same
+ * methods with which they were written.
  *
  * @author <a href="http://github.com/kuujo>Jordan Halterman</a>
  */
@@ -38,29 +43,116 @@ public class SnapshotReader implements BufferInput<SnapshotReader> {
   private final Buffer buffer;
   private final Snapshot snapshot;
   private final Serializer serializer;
+  private final SnapshotCompression compression;
+  private Buffer input;
 
   SnapshotReader(Buffer buffer, Snapshot snapshot, Serializer serializer) {
+    this(buffer, snapshot, serializer, SnapshotCompression.NONE);
+  }
+
+  SnapshotReader(Buffer buffer, Snapshot snapshot, Serializer serializer, SnapshotCompression compression) {
     this.buffer = Assert.notNull(buffer, "buffer");
     this.snapshot = Assert.notNull(snapshot, "snapshot");
     this.serializer = Assert.notNull(serializer, "serializer");
+    this.compression = Assert.notNull(compression, "compression");
+    this.input = compression == SnapshotCompression.NONE ? buffer : null;
+  }
+
+  /**
+   * Returns the buffer from which to read the given number of bytes, decompressing blocks as necessary.
+   */
+  private Buffer input(long bytes) {
+    if (input == buffer) {
+      return buffer;
+    }
+
+    while ((input == null || input.remaining() < bytes) && buffer.hasRemaining()) {
+      readBlock();
+    }
+    return input != null ? input : buffer;
+  }
+
+  /**
+   * Reads and decompresses the next block from the snapshot buffer.
+   * <p>
+   * Any bytes remaining in the current block are carried over to the head of the new block to allow values
+   * to be read across block boundaries.
+   */
+  private void readBlock() {
+    int length = buffer.readInt();
+    int storedLength = buffer.readInt();
+    byte[] stored = new byte[storedLength];
+    buffer.read(stored);
+
+    byte[] bytes;
+    if (storedLength == length) {
+      bytes = stored;
+    } else {
+      bytes = new byte[length];
+      compression.decompress(stored, storedLength, bytes);
+    }
+
+    int remaining = input != null ? (int) input.remaining() : 0;
+    Buffer block = HeapBuffer.allocate(remaining + length);
+    if (remaining > 0) {
+      byte[] carry = new byte[remaining];
+      input.read(carry);
+      block.write(carry);
+    }
+    input = block.write(bytes).flip();
   }
 
   @Override
   public long remaining() {
-    return buffer.remaining();
+    if (input == buffer) {
+      return buffer.remaining();
+    }
+
+    // Sum the uncompressed lengths of the remaining blocks from their headers.
+    long remaining = input != null ? input.remaining() : 0;
+    long position = buffer.position();
+    long limit = position + buffer.remaining();
+    while (position < limit) {
+      remaining += buffer.readInt(position);
+      position += Integer.BYTES * 2 + buffer.readInt(position + Integer.BYTES);
+    }
+    return remaining;
   }
 
   @Override
   public boolean hasRemaining() {
-    return buffer.hasRemaining();
+    return (input != null && input.hasRemaining()) || buffer.hasRemaining();
   }
 
   @Override
   public SnapshotReader skip(long bytes) {
-    buffer.skip(bytes);
+    while (bytes > 0) {
+      Buffer input = input(1);
+      long count = Math.min(bytes, input.remaining());
+      Assert.state(count > 0, "insufficient bytes remaining in snapshot");
+      input.skip(count);
+      bytes -= count;
+    }
     return this;
   }
 
+  /**
+   * Reads the given number of bytes from the snapshot without copying them.
+   * <p>
+   * The returned buffer is a view of the next {@code length} bytes of the snapshot and shares the snapshot's
+   * underlying memory or file. The view is only valid until this reader is {@link #close() closed}. If the
+   * snapshot is compressed, the view shares the memory of the decompressed block.
+   *
+   * @param length The number of bytes to read.
+   * @return A view of the next {@code length} bytes of the snapshot.
+   */
+  public Buffer slice(long length) {
+    Buffer input = input(length);
+    Buffer slice = input.slice(length);
+    input.skip(length);
+    return slice;
+  }
+
   /**
    * Reads an object from the buffer.
    *
@@ -68,112 +160,134 @@ public class SnapshotReader implements BufferInput<SnapshotReader> {
    * @return The read object.
    */
   public <T> T readObject() {
-    return serializer.readObject(buffer);
+    return serializer.readObject(input(1));
   }
 
   @Override
   public SnapshotReader read(Bytes bytes) {
-    buffer.read(bytes);
-    return this;
+    return read(bytes, 0, bytes.size());
   }
 
   @Override
   public SnapshotReader read(byte[] bytes) {
-    buffer.read(bytes);
-    return this;
+    return read(bytes, 0, bytes.length);
   }
 
   @Override
   public SnapshotReader read(Bytes bytes, long offset, long length) {
-    buffer.read(bytes, offset, length);
+    while (length > 0) {
+      Buffer input = input(1);
+      long count = Math.min(length, input.remaining());
+      Assert.state(count > 0, "insufficient bytes remaining in snapshot");
+      input.read(bytes, offset, count);
+      offset += count;
+      length -= count;
+    }
     return this;
   }
 
   @Override
   public SnapshotReader read(byte[] bytes, long offset, long length) {
-    buffer.read(bytes, offset, length);
+    while (length > 0) {
+      Buffer input = input(1);
+      long count = Math.min(length, input.remaining());
+      Assert.state(count > 0, "insufficient bytes remaining in snapshot");
+      input.read(bytes, offset, count);
+      offset += count;
+      length -= count;
+    }
     return this;
   }
 
   @Override
   public SnapshotReader read(Buffer buffer) {
-    this.buffer.read(buffer);
+    if (input == this.buffer) {
+      this.buffer.read(buffer);
+      return this;
+    }
+
+    while (buffer.hasRemaining() && hasRemaining()) {
+      Buffer input = input(1);
+      byte[] bytes = new byte[(int) Math.min(buffer.remaining(), input.remaining())];
+      input.read(bytes);
+      buffer.write(bytes);
+    }
     return this;
   }
 
   @Override
   public int readByte() {
-    return buffer.readByte();
+    return input(1).readByte();
   }
 
   @Override
   public int readUnsignedByte() {
-    return buffer.readUnsignedByte();
+    return input(1).readUnsignedByte();
   }
 
   @Override
   public char readChar() {
-    return buffer.readChar();
+    return input(2).readChar();
   }
 
   @Override
   public short readShort() {
-    return buffer.readShort();
+    return input(2).readShort();
   }
 
   @Override
   public int readUnsignedShort() {
-    return buffer.readUnsignedShort();
+    return input(2).readUnsignedShort();
   }
 
   @Override
   public int readMedium() {
-    return buffer.readMedium();
+    return input(3).readMedium();
   }
 
   @Override
   public int readUnsignedMedium() {
-    return buffer.readUnsignedMedium();
+    return input(3).readUnsignedMedium();
   }
 
   @Override
   public int readInt() {
-    return buffer.readInt();
+    return input(4).readInt();
   }
 
   @Override
   public long readUnsignedInt() {
-    return buffer.readUnsignedInt();
+    return input(4).readUnsignedInt();
   }
 
   @Override
   public long readLong() {
-    return buffer.readLong();
+    return input(8).readLong();
   }
 
   @Override
   public float readFloat() {
-    return buffer.readFloat();
+    return input(4).readFloat();
   }
 
   @Override
   public double readDouble() {
-    return buffer.readDouble();
+    return input(8).readDouble();
   }
 
   @Override
   public boolean readBoolean() {
-    return buffer.readBoolean();
+    return input(1).readBoolean();
   }
 
   @Override
   public String readString() {
-    return buffer.readString();
+    return input(1).readString();
   }
 
   @Override
   public String readUTF8() {
-    return buffer.readUTF8();
+    return input(1).readUTF8();
   }
 
   @Override
@@ -66,6 +66,12 @@ import java.util.*;
  * the state machine state, only prior entries that contributed to the state stored in the snapshot -
  * commands marked with the {@link io.atomix.copycat.client.Command.CompactionMode#SNAPSHOT SNAPSHOT}
  * compaction mode - are removed from the log prior to the snapshot.
+ * <p>
+ * Snapshots may be full snapshots of the state machine state or {@link Snapshot#isDelta() delta} snapshots that
+ * store only the changes since a {@link Snapshot#previousIndex() previous} snapshot. A delta snapshot and the
+ * snapshots on which it's based form a {@link #chain(Snapshot) chain} beginning with a full snapshot. The store
+ * retains all the snapshots in the chain of the current snapshot, and a snapshot is only made current if its
+ * chain is complete.
  *
  * @author <a href="http://github.com/kuujo>Jordan Halterman</a>
  */
@@ -92,8 +98,12 @@ public class SnapshotStore implements AutoCloseable {
       snapshots.put(snapshot.index(), snapshot);
     }
 
-    if (!snapshots.isEmpty()) {
-      currentSnapshot = snapshots.lastEntry().getValue();
+    // The current snapshot is the most recent snapshot for which all the snapshots in its chain are available.
+    for (Snapshot snapshot : snapshots.descendingMap().values()) {
+      if (!chain(snapshot).isEmpty()) {
+        currentSnapshot = snapshot;
+        break;
+      }
     }
   }
 
@@ -142,6 +152,31 @@ public class SnapshotStore implements AutoCloseable {
     return snapshots.get(index);
   }
 
+  /**
+   * Returns the chain of snapshots required to install the given snapshot.
+   * <p>
+   * The chain begins with the full snapshot on which the given snapshot is based, followed by each delta snapshot
+   * in order up to and including the given snapshot. To restore the state machine state, each snapshot in the chain
+   * must be installed in order. If the given snapshot is a full snapshot, the chain contains only that snapshot.
+   *
+   * @param snapshot The snapshot for which to return the chain.
+   * @return The snapshot chain, or an empty list if any snapshot in the chain is missing.
+   */
+  public List<Snapshot> chain(Snapshot snapshot) {
+    Assert.notNull(snapshot, "snapshot");
+    LinkedList<Snapshot> chain = new LinkedList<>();
+    chain.addFirst(snapshot);
+    while (snapshot.isDelta()) {
+      Snapshot previous = snapshots.get(snapshot.previousIndex());
+      if (previous == null || previous.index() >= snapshot.index()) {
+        return Collections.emptyList();
+      }
+      chain.addFirst(previous);
+      snapshot = previous;
+    }
+    return chain;
+  }
+
   /**
    * Loads all available snapshots from disk.
    *
@@ -165,7 +200,7 @@ public class SnapshotStore implements AutoCloseable {
         // unlocked and should ultimately be deleted from disk.
         if (descriptor.locked()) {
           LOGGER.debug("Loaded disk snapshot: {} ({})", snapshotFile.index(), snapshotFile.file().getName());
-          snapshots.add(new FileSnapshot(snapshotFile, this));
+          snapshots.add(new FileSnapshot(snapshotFile, descriptor, this));
           descriptor.close();
         }
         // If the segment descriptor wasn't locked, close and delete the descriptor.
@@ -187,9 +222,57 @@ public class SnapshotStore implements AutoCloseable {
    * @return The snapshot.
    */
   public Snapshot createSnapshot(long index) {
+    return createSnapshot(index, storage.snapshotCompression());
+  }
+
+  /**
+   * Creates a new snapshot with the given compression codec.
+   * <p>
+   * Snapshots installed from other servers are created with the compression codec with which they were written
+   * to allow their stored bytes to be written as-is via {@link Snapshot#rawWriter()}.
+   *
+   * @param index The snapshot index.
+   * @param compression The snapshot compression codec.
+   * @return The snapshot.
+   */
+  public Snapshot createSnapshot(long index, SnapshotCompression compression) {
+    return createSnapshot(index, 0, compression);
+  }
+
+  /**
+   * Creates a new delta snapshot.
+   * <p>
+   * The delta snapshot stores only the changes to the state machine state since the snapshot at {@code previousIndex}.
+   * The previous snapshot must be retained by the store in order for the delta snapshot to be installed.
+   *
+   * @param index The snapshot index.
+   * @param previousIndex The index of the snapshot on which the delta snapshot is based.
+   * @return The snapshot.
+   * @throws IllegalArgumentException if {@code previousIndex} is not less than {@code index}
+   */
+  public Snapshot createDeltaSnapshot(long index, long previousIndex) {
+    return createSnapshot(index, previousIndex, storage.snapshotCompression());
+  }
+
+  /**
+   * Creates a new snapshot based on the given previous snapshot with the given compression codec.
+   * <p>
+   * Snapshots installed from other servers are created with the previous index and compression codec with
+   * which they were written to allow their stored bytes to be written as-is via {@link Snapshot#rawWriter()}.
+   *
+   * @param index The snapshot index.
+   * @param previousIndex The index of the snapshot on which the snapshot is based, or {@code 0} for full snapshots.
+   * @param compression The snapshot compression codec.
+   * @return The snapshot.
+   * @throws IllegalArgumentException if {@code previousIndex} is not less than {@code index}
+   */
+  public Snapshot createSnapshot(long index, long previousIndex, SnapshotCompression compression) {
+    Assert.argNot(previousIndex > 0 && previousIndex >= index, "previousIndex must be less than index");
     SnapshotDescriptor descriptor = SnapshotDescriptor.builder()
       .withIndex(index)
       .withTimestamp(System.currentTimeMillis())
+      .withCompression(compression)
+      .withPreviousIndex(previousIndex)
       .build();
     return createSnapshot(descriptor);
   }
@@ -220,7 +303,7 @@ public class SnapshotStore implements AutoCloseable {
    */
   private Snapshot createDiskSnapshot(SnapshotDescriptor descriptor) {
     SnapshotFile file = new SnapshotFile(SnapshotFile.createSnapshotFile(name, storage.directory(), descriptor.index(), descriptor.timestamp()));
-    Snapshot snapshot = new FileSnapshot(file, this);
+    Snapshot snapshot = new FileSnapshot(file, descriptor, this);
     LOGGER.debug("Created disk snapshot: {}", snapshot);
     return snapshot;
   }
@@ -232,16 +315,18 @@ public class SnapshotStore implements AutoCloseable {
     Assert.notNull(snapshot, "snapshot");
     snapshots.put(snapshot.index(), snapshot);
 
-    if (currentSnapshot == null || snapshot.index() > currentSnapshot.index()) {
+    if ((currentSnapshot == null || snapshot.index() > currentSnapshot.index()) && !chain(snapshot).isEmpty()) {
       currentSnapshot = snapshot;
     }
 
-    // Delete old snapshots if necessary.
-    if (!storage.retainStaleSnapshots()) {
+    // Delete old snapshots if necessary. Snapshots in the chain of the current snapshot are retained since
+    // they're required to install the current snapshot.
+    if (!storage.retainStaleSnapshots() && currentSnapshot != null) {
+      Set<Snapshot> chain = new HashSet<>(chain(currentSnapshot));
       Iterator<Map.Entry<Long, Snapshot>> iterator = snapshots.entrySet().iterator();
       while (iterator.hasNext()) {
         Snapshot oldSnapshot = iterator.next().getValue();
-        if (oldSnapshot.index() < currentSnapshot.index()) {
+        if (oldSnapshot.index() < currentSnapshot.index() && !chain.contains(oldSnapshot)) {
           iterator.remove();
           oldSnapshot.close();
           oldSnapshot.delete();
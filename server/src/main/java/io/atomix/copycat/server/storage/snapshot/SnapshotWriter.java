@@ -18,6 +18,7 @@ package io.atomix.copycat.server.storage.snapshot;
 import io.atomix.catalyst.buffer.Buffer;
 import io.atomix.catalyst.buffer.BufferOutput;
 import io.atomix.catalyst.buffer.Bytes;
+import io.atomix.catalyst.buffer.HeapBuffer;
 import io.atomix.catalyst.serializer.Serializer;
 import io.atomix.catalyst.util.Assert;
 
@@ -31,18 +32,66 @@ import io.atomix.catalyst.util.Assert;
  * In addition to standard {@link BufferOutput} methods, snapshot writers support writing
  * {@link java.io.Serializable} and {@link io.atomix.catalyst.serializer.CatalystSerializable} objects
  * to the snapshot via the {@link #writeObject(Object)} method.
+ * <p>
+ * If the snapshot is {@link SnapshotCompression compressed}, bytes are buffered in memory and compressed in blocks
+ * as they're written. The final block is written to the snapshot when the writer is {@link #close() closed}.
  *
  * @author <a href="http://github.com/kuujo>Jordan Halterman</a>
  */
 public class SnapshotWriter implements BufferOutput<SnapshotWriter> {
+  private static final int BLOCK_SIZE = 1024 * 64;
   final Buffer buffer;
+  private final Buffer output;
   private final Snapshot snapshot;
   private final Serializer serializer;
+  private final SnapshotCompression compression;
 
   SnapshotWriter(Buffer buffer, Snapshot snapshot, Serializer serializer) {
+    this(buffer, snapshot, serializer, SnapshotCompression.NONE);
+  }
+
+  SnapshotWriter(Buffer buffer, Snapshot snapshot, Serializer serializer, SnapshotCompression compression) {
     this.buffer = Assert.notNull(buffer, "buffer");
     this.snapshot = Assert.notNull(snapshot, "snapshot");
     this.serializer = Assert.notNull(serializer, "serializer");
+    this.compression = Assert.notNull(compression, "compression");
+    this.output = compression != SnapshotCompression.NONE ? HeapBuffer.allocate(BLOCK_SIZE, Integer.MAX_VALUE) : buffer;
+  }
+
+  /**
+   * Compresses the current block once it has been filled.
+   * <p>
+   * Blocks are only compressed between writes, so the bytes of any single write are always stored in the same block.
+   */
+  private SnapshotWriter written() {
+    if (output != buffer && output.position() >= BLOCK_SIZE) {
+      writeBlock();
+    }
+    return this;
+  }
+
+  /**
+   * Compresses the current block and writes it to the snapshot buffer.
+   * <p>
+   * Each block is written as the 32-bit length of the uncompressed block followed by the 32-bit length of the stored
+   * block and the stored bytes. If compression does not reduce the size of the block, the block is stored uncompressed.
+   */
+  private void writeBlock() {
+    int length = (int) output.position();
+    if (length == 0) {
+      return;
+    }
+
+    byte[] bytes = new byte[length];
+    output.flip().read(bytes);
+    output.clear();
+
+    byte[] compressed = compression.compress(bytes, length);
+    if (compressed.length < length) {
+      buffer.writeInt(length).writeInt(compressed.length).write(compressed);
+    } else {
+      buffer.writeInt(length).writeInt(length).write(bytes);
+    }
   }
 
   /**
@@ -52,138 +101,144 @@ public class SnapshotWriter implements BufferOutput<SnapshotWriter> {
    * @return The snapshot writer.
    */
   public SnapshotWriter writeObject(Object object) {
-    serializer.writeObject(object, buffer);
-    return this;
+    serializer.writeObject(object, output);
+    return written();
   }
 
   @Override
   public SnapshotWriter write(Bytes bytes) {
-    buffer.write(bytes);
-    return this;
+    output.write(bytes);
+    return written();
   }
 
   @Override
   public SnapshotWriter write(byte[] bytes) {
-    buffer.write(bytes);
-    return this;
+    output.write(bytes);
+    return written();
   }
 
   @Override
   public SnapshotWriter write(Bytes bytes, long offset, long length) {
-    buffer.write(bytes, offset, length);
-    return this;
+    output.write(bytes, offset, length);
+    return written();
   }
 
   @Override
   public SnapshotWriter write(byte[] bytes, long offset, long length) {
-    buffer.write(bytes, offset, length);
-    return this;
+    output.write(bytes, offset, length);
+    return written();
   }
 
   @Override
   public SnapshotWriter write(Buffer buffer) {
-    this.buffer.write(buffer);
-    return this;
+    output.write(buffer);
+    return written();
   }
 
   @Override
   public SnapshotWriter writeByte(int b) {
-    buffer.writeByte(b);
-    return this;
+    output.writeByte(b);
+    return written();
   }
 
   @Override
   public SnapshotWriter writeUnsignedByte(int b) {
-    buffer.writeUnsignedByte(b);
-    return this;
+    output.writeUnsignedByte(b);
+    return written();
   }
 
   @Override
   public SnapshotWriter writeChar(char c) {
-    buffer.writeChar(c);
-    return this;
+    output.writeChar(c);
+    return written();
   }
 
   @Override
   public SnapshotWriter writeShort(short s) {
-    buffer.writeShort(s);
-    return this;
+    output.writeShort(s);
+    return written();
   }
 
   @Override
   public SnapshotWriter writeUnsignedShort(int s) {
-    buffer.writeUnsignedShort(s);
-    return this;
+    output.writeUnsignedShort(s);
+    return written();
   }
 
   @Override
   public SnapshotWriter writeMedium(int m) {
-    buffer.writeMedium(m);
-    return this;
+    output.writeMedium(m);
+    return written();
   }
 
   @Override
   public SnapshotWriter writeUnsignedMedium(int m) {
-    buffer.writeUnsignedMedium(m);
-    return this;
+    output.writeUnsignedMedium(m);
+    return written();
   }
 
   @Override
   public SnapshotWriter writeInt(int i) {
-    buffer.writeInt(i);
-    return this;
+    output.writeInt(i);
+    return written();
   }
 
   @Override
   public SnapshotWriter writeUnsignedInt(long i) {
-    buffer.writeUnsignedInt(i);
-    return this;
+    output.writeUnsignedInt(i);
+    return written();
   }
 
   @Override
   public SnapshotWriter writeLong(long l) {
-    buffer.writeLong(l);
-    return this;
+    output.writeLong(l);
+    return written();
   }
 
   @Override
   public SnapshotWriter writeFloat(float f) {
-    buffer.writeFloat(f);
-    return this;
+    output.writeFloat(f);
+    return written();
   }
 
   @Override
   public SnapshotWriter writeDouble(double d) {
-    buffer.writeDouble(d);
-    return this;
+    output.writeDouble(d);
+    return written();
   }
 
   @Override
   public SnapshotWriter writeBoolean(boolean b) {
-    buffer.writeBoolean(b);
-    return this;
+    output.writeBoolean(b);
+    return written();
   }
 
   @Override
   public SnapshotWriter writeString(String s) {
-    buffer.writeString(s);
-    return this;
+    output.writeString(s);
+    return written();
   }
 
   @Override
   public SnapshotWriter writeUTF8(String s) {
-    buffer.writeUTF8(s);
-    return this;
+    output.writeUTF8(s);
+    return written();
   }
 
   @Override
   public SnapshotWriter flush() {
+    if (output != buffer) {
+      writeBlock();
+    }
     buffer.flush();
     return this;
   }
 
   @Override
   public void close() {
+    if (output != buffer) {
+      writeBlock();
+    }
     snapshot.closeWriter(this);
     buffer.close();
   }
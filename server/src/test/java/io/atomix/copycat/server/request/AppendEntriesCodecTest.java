@@ -0,0 +1,331 @@
+/*
+ * Copyright 2015 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.atomix.copycat.server.request;
+
+import io.atomix.catalyst.buffer.Buffer;
+import io.atomix.catalyst.buffer.HeapBuffer;
+import io.atomix.catalyst.serializer.Serializer;
+import io.atomix.catalyst.serializer.ServiceLoaderTypeResolver;
+import io.atomix.copycat.client.Command;
+import io.atomix.copycat.server.storage.TestEntry;
+import io.atomix.copycat.server.storage.entry.*;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Objects;
+import java.util.UUID;
+
+import static org.testng.Assert.*;
+
+/**
+ * Compact append entries encoding test.
+ *
+ * @author <a href="http://github.com/kuujo">Jordan Halterman</a>
+ */
+@Test
+public class AppendEntriesCodecTest {
+  private Serializer serializer;
+
+  @BeforeMethod
+  public void createSerializer() {
+    serializer = new Serializer(new ServiceLoaderTypeResolver());
+    serializer.disableWhitelist();
+  }
+
+  /**
+   * Tests encoding command entries.
+   */
+  public void testCommand() {
+    assertRoundTrip(10, command(11, 1, 1000, 1, 1, "foo"), command(12, 1, 1005, 1, 2, "bar"), command(13, 1, 1001, 2, 1, "baz"));
+  }
+
+  /**
+   * Tests encoding keep-alive entries.
+   */
+  public void testKeepAlive() {
+    assertRoundTrip(0, keepAlive(1, 1, 1000, 1, 5, 3), keepAlive(2, 1, 2000, 2, 0, 0));
+  }
+
+  /**
+   * Tests encoding multi-session keep-alive entries.
+   */
+  public void testMultiKeepAlive() {
+    assertRoundTrip(0, multiKeepAlive(1, 1, 1000, new long[]{1, 2, 3}, new long[]{4, 5, 6}, new long[]{7, 8, 9}),
+      multiKeepAlive(2, 1, 1000, new long[0], new long[0], new long[0]));
+  }
+
+  /**
+   * Tests encoding register entries.
+   */
+  public void testRegister() {
+    assertRoundTrip(0, register(1, 1, 1000, UUID.randomUUID(), 5000), register(2, 1, 1001, UUID.randomUUID(), 0));
+  }
+
+  /**
+   * Tests encoding unregister entries.
+   */
+  public void testUnregister() {
+    assertRoundTrip(0, unregister(1, 1, 1000, 1, true), unregister(2, 1, 1000, 2, false));
+  }
+
+  /**
+   * Tests encoding initialize entries.
+   */
+  public void testInitialize() {
+    assertRoundTrip(0, initialize(1, 1, 1000), initialize(2, 2, 2000));
+  }
+
+  /**
+   * Tests encoding entries without a compact encoding.
+   */
+  public void testObject() {
+    assertRoundTrip(0, object(1, 1), object(2, 1));
+  }
+
+  /**
+   * Tests encoding raw entries whose type has no compact encoding.
+   */
+  public void testRaw() {
+    List<Entry> entries = roundTrip(0, raw(object(1, 1)), raw(object(2, 2)));
+    for (Entry entry : entries) {
+      assertTrue(entry instanceof RawEntry);
+    }
+    assertEquals(entries.get(0).getIndex(), 1);
+    assertEquals(entries.get(0).getTerm(), 1);
+    assertEquals(entries.get(1).getIndex(), 2);
+    assertEquals(entries.get(1).getTerm(), 2);
+    assertEquals(bytes(((RawEntry) entries.get(0)).getBytes()), bytes(((RawEntry) raw(object(1, 1))).getBytes()));
+  }
+
+  /**
+   * Tests that raw entries are not decoded and retain their type.
+   */
+  public void testRawType() {
+    Entry command = command(1, 1, 1000, 1, 1, "foo");
+    Entry keepAlive = keepAlive(2, 1, 1001, 1, 1, 0);
+    Entry initialize = initialize(3, 1, 1002);
+    List<Entry> entries = roundTrip(0, raw(command), raw(keepAlive), raw(initialize));
+    assertEntry(entries.get(0), raw(command));
+    assertEntry(entries.get(1), raw(keepAlive));
+    assertEntry(entries.get(2), raw(initialize));
+    assertTrue(((RawEntry) entries.get(0)).isType(CommandEntry.class));
+    assertTrue(((RawEntry) entries.get(1)).isType(KeepAliveEntry.class));
+    assertTrue(((RawEntry) entries.get(2)).isType(InitializeEntry.class));
+  }
+
+  /**
+   * Tests encoding decreasing terms and timestamps.
+   */
+  public void testNegativeDeltas() {
+    assertRoundTrip(100,
+      command(101, 5, 5000, 1, 1, "foo"),
+      command(102, 3, 4000, 1, 2, "bar"),
+      keepAlive(103, 1, 1000, 1, 2, 0),
+      initialize(110, 4, 500));
+  }
+
+  /**
+   * Tests encoding mixed runs of entry types.
+   */
+  public void testMixedRuns() {
+    assertRoundTrip(0,
+      initialize(1, 1, 1000),
+      register(2, 1, 1001, UUID.randomUUID(), 5000),
+      command(3, 1, 1002, 2, 1, "foo"),
+      command(4, 1, 1003, 2, 2, "bar"),
+      object(5, 1),
+      keepAlive(6, 1, 1004, 2, 2, 0),
+      raw(object(7, 1)),
+      raw(object(8, 1)),
+      multiKeepAlive(9, 1, 1005, new long[]{2}, new long[]{2}, new long[]{0}),
+      command(10, 1, 1006, 2, 3, "baz"),
+      unregister(11, 1, 1007, 2, false),
+      raw(command(12, 1, 1008, 2, 4, "foo")),
+      object(13, 1));
+  }
+
+  /**
+   * Encodes and decodes the given entries and asserts that the decoded entries match.
+   */
+  private void assertRoundTrip(long logIndex, Entry... entries) {
+    List<Entry> decoded = roundTrip(logIndex, entries);
+    for (int i = 0; i < entries.length; i++) {
+      assertEntry(decoded.get(i), entries[i]);
+    }
+  }
+
+  /**
+   * Encodes and decodes the given entries.
+   */
+  private List<Entry> roundTrip(long logIndex, Entry... entries) {
+    Buffer buffer = HeapBuffer.allocate(1024);
+    AppendEntriesCodec.write(Arrays.asList(entries), logIndex, buffer, serializer);
+    buffer.writeLong(Long.MAX_VALUE);
+    buffer.flip();
+
+    List<Entry> decoded = new ArrayList<>();
+    AppendEntriesCodec.read(decoded, entries.length, logIndex, buffer, serializer);
+    assertEquals(decoded.size(), entries.length);
+    assertEquals(buffer.readLong(), Long.MAX_VALUE);
+    return decoded;
+  }
+
+  /**
+   * Asserts that a decoded entry matches the given entry.
+   */
+  private void assertEntry(Entry actual, Entry expected) {
+    assertEquals(actual.getClass(), expected.getClass());
+    assertEquals(actual.getIndex(), expected.getIndex());
+    assertEquals(actual.getTerm(), expected.getTerm());
+    if (expected instanceof TimestampedEntry) {
+      assertEquals(((TimestampedEntry) actual).getTimestamp(), ((TimestampedEntry) expected).getTimestamp());
+    }
+
+    if (expected instanceof CommandEntry) {
+      assertEquals(((CommandEntry) actual).getSession(), ((CommandEntry) expected).getSession());
+      assertEquals(((CommandEntry) actual).getSequence(), ((CommandEntry) expected).getSequence());
+      assertEquals(((CommandEntry) actual).getCommand(), ((CommandEntry) expected).getCommand());
+    } else if (expected instanceof KeepAliveEntry) {
+      assertEquals(((KeepAliveEntry) actual).getSession(), ((KeepAliveEntry) expected).getSession());
+      assertEquals(((KeepAliveEntry) actual).getCommandSequence(), ((KeepAliveEntry) expected).getCommandSequence());
+      assertEquals(((KeepAliveEntry) actual).getEventIndex(), ((KeepAliveEntry) expected).getEventIndex());
+    } else if (expected instanceof MultiKeepAliveEntry) {
+      assertEquals(((MultiKeepAliveEntry) actual).getSessions(), ((MultiKeepAliveEntry) expected).getSessions());
+      assertEquals(((MultiKeepAliveEntry) actual).getCommandSequences(), ((MultiKeepAliveEntry) expected).getCommandSequences());
+      assertEquals(((MultiKeepAliveEntry) actual).getEventIndexes(), ((MultiKeepAliveEntry) expected).getEventIndexes());
+    } else if (expected instanceof RegisterEntry) {
+      assertEquals(((RegisterEntry) actual).getClient(), ((RegisterEntry) expected).getClient());
+      assertEquals(((RegisterEntry) actual).getTimeout(), ((RegisterEntry) expected).getTimeout());
+    } else if (expected instanceof UnregisterEntry) {
+      assertEquals(((UnregisterEntry) actual).getSession(), ((UnregisterEntry) expected).getSession());
+      assertEquals(((UnregisterEntry) actual).isExpired(), ((UnregisterEntry) expected).isExpired());
+    } else if (expected instanceof RawEntry) {
+      assertEquals(((RawEntry) actual).getType(), ((RawEntry) expected).getType());
+      assertEquals(bytes(((RawEntry) actual).getBytes()), bytes(((RawEntry) expected).getBytes()));
+    }
+  }
+
+  /**
+   * Returns the bytes of the given buffer.
+   */
+  private byte[] bytes(Buffer buffer) {
+    byte[] bytes = new byte[(int) buffer.rewind().remaining()];
+    buffer.read(bytes);
+    buffer.rewind();
+    return bytes;
+  }
+
+  private Entry command(long index, long term, long timestamp, long session, long sequence, String value) {
+    return new CommandEntry()
+      .setCommand(new TestCommand(value))
+      .setSession(session)
+      .setSequence(sequence)
+      .setTimestamp(timestamp)
+      .setIndex(index)
+      .setTerm(term);
+  }
+
+  private Entry keepAlive(long index, long term, long timestamp, long session, long commandSequence, long eventIndex) {
+    return new KeepAliveEntry()
+      .setCommandSequence(commandSequence)
+      .setEventIndex(eventIndex)
+      .setSession(session)
+      .setTimestamp(timestamp)
+      .setIndex(index)
+      .setTerm(term);
+  }
+
+  private Entry multiKeepAlive(long index, long term, long timestamp, long[] sessions, long[] commandSequences, long[] eventIndexes) {
+    return new MultiKeepAliveEntry()
+      .setSessions(sessions)
+      .setCommandSequences(commandSequences)
+      .setEventIndexes(eventIndexes)
+      .setTimestamp(timestamp)
+      .setIndex(index)
+      .setTerm(term);
+  }
+
+  private Entry register(long index, long term, long timestamp, UUID client, long timeout) {
+    return new RegisterEntry()
+      .setClient(client)
+      .setTimeout(timeout)
+      .setTimestamp(timestamp)
+      .setIndex(index)
+      .setTerm(term);
+  }
+
+  private Entry unregister(long index, long term, long timestamp, long session, boolean expired) {
+    return new UnregisterEntry()
+      .setExpired(expired)
+      .setSession(session)
+      .setTimestamp(timestamp)
+      .setIndex(index)
+      .setTerm(term);
+  }
+
+  private Entry initialize(long index, long term, long timestamp) {
+    return new InitializeEntry()
+      .setTimestamp(timestamp)
+      .setIndex(index)
+      .setTerm(term);
+  }
+
+  private Entry object(long index, long term) {
+    return new TestEntry()
+      .setIndex(index)
+      .setTerm(term);
+  }
+
+  /**
+   * Wraps the serialized bytes of the given entry in a raw entry.
+   */
+  private Entry raw(Entry entry) {
+    Buffer bytes = HeapBuffer.allocate(64);
+    serializer.writeObject(entry, bytes);
+    bytes.flip();
+    return new RawEntry()
+      .setType(RawEntry.typeOf(entry.getClass()))
+      .setBytes(bytes.slice())
+      .setSize((int) bytes.remaining())
+      .setIndex(entry.getIndex())
+      .setTerm(entry.getTerm());
+  }
+
+  /**
+   * Test command.
+   */
+  private static class TestCommand implements Command<String> {
+    private final String value;
+
+    private TestCommand(String value) {
+      this.value = value;
+    }
+
+    @Override
+    public int hashCode() {
+      return Objects.hash(value);
+    }
+
+    @Override
+    public boolean equals(Object object) {
+      return object instanceof TestCommand && Objects.equals(((TestCommand) object).value, value);
+    }
+  }
+
+}
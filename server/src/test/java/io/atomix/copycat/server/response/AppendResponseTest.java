@@ -0,0 +1,116 @@
+/*
+ * Copyright 2015 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.atomix.copycat.server.response;
+
+import io.atomix.catalyst.buffer.Buffer;
+import io.atomix.catalyst.buffer.HeapBuffer;
+import io.atomix.catalyst.serializer.Serializer;
+import io.atomix.catalyst.serializer.ServiceLoaderTypeResolver;
+import io.atomix.copycat.client.error.RaftError;
+import io.atomix.copycat.client.response.Response;
+import org.testng.annotations.Test;
+
+import static org.testng.Assert.*;
+
+/**
+ * Append response test.
+ *
+ * @author <a href="http://github.com/kuujo">Jordan Halterman</a>
+ */
+@Test
+public class AppendResponseTest {
+
+  /**
+   * Tests that the compact entries flag is read independent of trailing bytes.
+   */
+  public void testCompactEntriesFlag() {
+    for (boolean compactEntries : new boolean[]{true, false}) {
+      AppendResponse response = roundTrip(AppendResponse.builder()
+        .withStatus(Response.Status.OK)
+        .withTerm(2)
+        .withSucceeded(true)
+        .withLogIndex(10)
+        .withCompactEntries(compactEntries)
+        .build());
+      assertEquals(response.term(), 2);
+      assertTrue(response.succeeded());
+      assertEquals(response.logIndex(), 10);
+      assertEquals(response.compactEntries(), compactEntries);
+    }
+  }
+
+  /**
+   * Tests that responses do not advertise compact entries support by default.
+   */
+  public void testCompactEntriesDefault() {
+    AppendResponse response = AppendResponse.builder()
+      .withStatus(Response.Status.OK)
+      .withTerm(2)
+      .withSucceeded(true)
+      .withLogIndex(10)
+      .build();
+    assertFalse(response.compactEntries());
+  }
+
+  /**
+   * Tests reading a response written without the compact entries flag.
+   */
+  public void testMissingCompactEntriesFlag() {
+    Serializer serializer = new Serializer(new ServiceLoaderTypeResolver());
+    Buffer buffer = HeapBuffer.allocate(64);
+    buffer.writeByte(Response.Status.OK.id())
+      .writeLong(2)
+      .writeBoolean(true)
+      .writeLong(10);
+    buffer.flip();
+
+    AppendResponse response = new AppendResponse();
+    response.readObject(buffer, serializer);
+    assertEquals(response.term(), 2);
+    assertTrue(response.succeeded());
+    assertEquals(response.logIndex(), 10);
+    assertFalse(response.compactEntries());
+  }
+
+  /**
+   * Tests that error responses do not advertise compact entries support.
+   */
+  public void testErrorResponse() {
+    AppendResponse response = roundTrip(AppendResponse.builder()
+      .withStatus(Response.Status.ERROR)
+      .withError(RaftError.Type.NO_LEADER_ERROR)
+      .build());
+    assertEquals(response.status(), Response.Status.ERROR);
+    assertFalse(response.compactEntries());
+  }
+
+  /**
+   * Writes and reads the given response followed by unrelated bytes.
+   */
+  private AppendResponse roundTrip(AppendResponse response) {
+    Serializer serializer = new Serializer(new ServiceLoaderTypeResolver());
+    Buffer buffer = HeapBuffer.allocate(64);
+    response.writeObject(buffer, serializer);
+    buffer.writeLong(Long.MAX_VALUE);
+    buffer.flip();
+
+    AppendResponse result = new AppendResponse();
+    result.readObject(buffer, serializer);
+    assertEquals(buffer.readLong(), Long.MAX_VALUE);
+    return result;
+  }
+
+}
@@ -0,0 +1,72 @@
+/*
+ * Copyright 2015 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.atomix.copycat.server.state;
+
+import org.testng.annotations.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+import static org.testng.Assert.*;
+
+/**
+ * Commit queue test.
+ *
+ * @author <a href="http://github.com/kuujo">Jordan Halterman</a>
+ */
+@Test
+public class CommitQueueTest {
+
+  /**
+   * Tests completing futures in index order.
+   */
+  public void testCompleteInOrder() {
+    CommitQueue queue = new CommitQueue(2);
+    List<CompletableFuture<Long>> futures = new ArrayList<>();
+    for (long i = 1; i <= 10; i++) {
+      futures.add(queue.register(i));
+    }
+    assertEquals(queue.size(), 10);
+    assertEquals(queue.lastIndex(), 10);
+
+    queue.complete(4);
+    for (int i = 0; i < 10; i++) {
+      assertEquals(futures.get(i).isDone(), i < 4);
+    }
+    assertEquals(queue.size(), 6);
+
+    queue.complete(10);
+    assertEquals(queue.size(), 0);
+    assertEquals(futures.get(9).join().longValue(), 10);
+  }
+
+  /**
+   * Tests registering an index lower than the last registered index.
+   */
+  public void testRegisterPreviousIndex() {
+    CommitQueue queue = new CommitQueue();
+    CompletableFuture<Long> future = queue.register(5);
+    assertSame(queue.register(5), future);
+
+    CompletableFuture<Long> previous = queue.register(3);
+    assertEquals(queue.size(), 1);
+    queue.complete(5);
+    assertEquals(previous.join().longValue(), 3);
+    assertEquals(future.join().longValue(), 5);
+  }
+
+}
@@ -0,0 +1,132 @@
+/*
+ * Copyright 2015 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.atomix.copycat.server.state;
+
+import io.atomix.catalyst.util.concurrent.ThreadContext;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+import static org.testng.Assert.*;
+
+/**
+ * Completion queue test.
+ *
+ * @author <a href="http://github.com/kuujo">Jordan Halterman</a>
+ */
+@Test
+public class CompletionQueueTest {
+  private Queue<Runnable> executor;
+  private CompletionQueue queue;
+
+  @BeforeMethod
+  public void createQueue() {
+    executor = new LinkedList<>();
+    ThreadContext context = mock(ThreadContext.class);
+    when(context.executor()).thenReturn(executor::add);
+    queue = new CompletionQueue(context);
+  }
+
+  /**
+   * Runs all tasks submitted to the context executor.
+   */
+  private void runAll() {
+    Runnable task;
+    while ((task = executor.poll()) != null) {
+      task.run();
+    }
+  }
+
+  /**
+   * Tests that the context is woken once for all queued completions.
+   */
+  public void testBatchedWakeup() {
+    CompletableFuture<String> future1 = new CompletableFuture<>();
+    CompletableFuture<String> future2 = new CompletableFuture<>();
+    queue.complete(future1, "foo");
+    queue.complete(future2, "bar");
+    assertEquals(executor.size(), 1);
+    assertFalse(future1.isDone());
+    runAll();
+    assertEquals(future1.join(), "foo");
+    assertEquals(future2.join(), "bar");
+  }
+
+  /**
+   * Tests failing a future.
+   */
+  public void testFail() throws Throwable {
+    CompletableFuture<String> future = new CompletableFuture<>();
+    queue.fail(future, new IllegalStateException());
+    runAll();
+    try {
+      future.get();
+      fail();
+    } catch (ExecutionException e) {
+      assertTrue(e.getCause() instanceof IllegalStateException);
+    }
+  }
+
+  /**
+   * Tests that tasks and completions are run in the order in which they were added while a drain is scheduled.
+   */
+  public void testTaskOrder() {
+    List<Integer> order = new ArrayList<>();
+    CompletableFuture<Void> future1 = new CompletableFuture<>();
+    CompletableFuture<Void> future2 = new CompletableFuture<>();
+    future1.thenRun(() -> order.add(1));
+    future2.thenRun(() -> order.add(3));
+
+    queue.complete(future1, null);
+    queue.execute(() -> order.add(2));
+    queue.complete(future2, null);
+    queue.execute(() -> order.add(4));
+    runAll();
+    assertEquals(order, Arrays.asList(1, 2, 3, 4));
+  }
+
+  /**
+   * Tests that tasks remaining after a bounded drain run before tasks added later.
+   */
+  public void testTaskOrderAcrossDrains() {
+    List<Integer> order = new ArrayList<>();
+    for (int i = 0; i < 2000; i++) {
+      int value = i;
+      queue.execute(() -> order.add(value));
+    }
+
+    executor.poll().run();
+    assertTrue(order.size() < 2000);
+    assertEquals(executor.size(), 1);
+
+    queue.execute(() -> order.add(2000));
+    runAll();
+    assertEquals(order.size(), 2001);
+    for (int i = 0; i < order.size(); i++) {
+      assertEquals(order.get(i).intValue(), i);
+    }
+  }
+
+}
@@ -0,0 +1,304 @@
+/*
+ * Copyright 2015 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License
+ */
+package io.atomix.copycat.server.state;
+
+import io.atomix.catalyst.buffer.DirectBuffer;
+import io.atomix.copycat.client.response.Response;
+import io.atomix.copycat.server.request.AppendRequest;
+import io.atomix.copycat.server.request.InstallRequest;
+import io.atomix.copycat.server.response.AppendResponse;
+import io.atomix.copycat.server.storage.entry.Entry;
+import io.atomix.copycat.server.storage.snapshot.Snapshot;
+import io.atomix.copycat.server.storage.snapshot.SnapshotWriter;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Leader appender test.
+ */
+@Test
+public class LeaderAppenderTest extends AbstractStateTest<LeaderState> {
+  LeaderAppender appender;
+  MemberState member;
+
+  @BeforeMethod
+  @Override
+  void beforeMethod() throws Throwable {
+    super.beforeMethod();
+    runOnServer(() -> {
+      serverContext.setTerm(1);
+      append(10, 1);
+      appender = new LeaderAppender(new LeaderState(serverContext));
+      member = new MemberState(members.get(1), serverContext.getClusterState());
+    });
+  }
+
+  /**
+   * Tests that append requests are pipelined only within the append window.
+   */
+  public void testPipelineWithinAppendWindow() throws Throwable {
+    runOnServer(() -> {
+      serverContext.setAppendWindowSize(2);
+      member.setNextIndex(1);
+      threadAssertTrue(appender.canPipeline(member));
+
+      appender.lockAppend(member);
+      threadAssertTrue(appender.canPipeline(member));
+
+      appender.lockAppend(member);
+      threadAssertFalse(appender.canPipeline(member));
+    });
+  }
+
+  /**
+   * Tests that requests are not pipelined to a member after a failure.
+   */
+  public void testNoPipelineAfterFailure() throws Throwable {
+    runOnServer(() -> {
+      serverContext.setAppendWindowSize(4);
+      member.setNextIndex(1);
+      appender.lockAppend(member);
+      member.incrementFailureCount();
+      threadAssertFalse(appender.canPipeline(member));
+    });
+  }
+
+  /**
+   * Tests that a failed pipelined request rolls the next index back to the first entry in the request.
+   */
+  public void testRollbackFailedPipelinedRequest() throws Throwable {
+    runOnServer(() -> {
+      // Two requests for entries 1-5 and 6-10 are in flight, and the first request fails.
+      member.setNextIndex(11);
+      appender.rollbackNextIndex(member, request(0, 0, 1, 5));
+      threadAssertEquals(member.getNextIndex(), 1L);
+    });
+  }
+
+  /**
+   * Tests that a failed request never rolls the next index back below the match index of a later successful request.
+   */
+  public void testRollbackClampedToMatchIndex() throws Throwable {
+    runOnServer(() -> {
+      // The request for entries 6-10 succeeded before the request for entries 1-5 failed.
+      member.setNextIndex(11);
+      member.setMatchIndex(10);
+      appender.rollbackNextIndex(member, request(0, 0, 1, 5));
+      threadAssertEquals(member.getNextIndex(), 11L);
+
+      // A later request that partially overlaps the match index rolls back to just past the match index.
+      member.setMatchIndex(7);
+      appender.rollbackNextIndex(member, request(5, 1, 6, 10));
+      threadAssertEquals(member.getNextIndex(), 8L);
+    });
+  }
+
+  /**
+   * Tests that a stale failure response does not lower the match index while other requests are in flight.
+   */
+  public void testResetMatchIndexWithRequestsInFlight() throws Throwable {
+    runOnServer(() -> {
+      // A later request succeeded and another request is still in flight when a stale failure is received.
+      member.setMatchIndex(10);
+      appender.lockAppend(member);
+      appender.resetMatchIndex(member, failure(5));
+      threadAssertEquals(member.getMatchIndex(), 10L);
+
+      // A failure that reports a greater log index still advances the match index.
+      appender.resetMatchIndex(member, failure(12));
+      threadAssertEquals(member.getMatchIndex(), 12L);
+
+      // Once no other requests are in flight, the match index is reset to the member's log index.
+      appender.unlockAppend(member);
+      appender.resetMatchIndex(member, failure(5));
+      threadAssertEquals(member.getMatchIndex(), 5L);
+    });
+  }
+
+  /**
+   * Tests that an empty request does not roll back the next index.
+   */
+  public void testRollbackIgnoresEmptyRequest() throws Throwable {
+    runOnServer(() -> {
+      member.setNextIndex(11);
+      appender.rollbackNextIndex(member, AppendRequest.builder()
+        .withTerm(1)
+        .withLeader(members.get(0).hashCode())
+        .withLogIndex(0)
+        .withLogTerm(0)
+        .withEntries(new ArrayList<>())
+        .withCommitIndex(0)
+        .withGlobalIndex(0)
+        .build());
+      threadAssertEquals(member.getNextIndex(), 11L);
+    });
+  }
+
+  /**
+   * Tests that install requests are pipelined only within the install window.
+   */
+  public void testInstallWithinInstallWindow() throws Throwable {
+    runOnServer(() -> {
+      snapshot(4);
+      serverContext.setSnapshotChunkSize(8);
+      serverContext.setInstallWindowSize(2);
+
+      // The first chunk can always be sent when no install requests are in flight.
+      threadAssertTrue(appender.canInstall(member));
+      InstallRequest first = appender.buildInstallRequest(member);
+      appender.lockInstall(member);
+      threadAssertEquals(first.offset(), 0);
+      threadAssertFalse(first.complete());
+
+      threadAssertTrue(appender.canInstall(member));
+      InstallRequest second = appender.buildInstallRequest(member);
+      appender.lockInstall(member);
+      threadAssertEquals(second.offset(), 1);
+
+      // The window is full.
+      threadAssertFalse(appender.canInstall(member));
+
+      appender.unlockInstall(member);
+      threadAssertTrue(appender.canInstall(member));
+    });
+  }
+
+  /**
+   * Tests that install requests are not pipelined once all chunks of the snapshot have been sent.
+   */
+  public void testNoInstallAfterLastChunk() throws Throwable {
+    runOnServer(() -> {
+      snapshot(2);
+      serverContext.setSnapshotChunkSize(8);
+      serverContext.setInstallWindowSize(4);
+
+      appender.buildInstallRequest(member);
+      appender.lockInstall(member);
+      InstallRequest last = appender.buildInstallRequest(member);
+      appender.lockInstall(member);
+      threadAssertEquals(last.offset(), 1);
+      threadAssertTrue(last.complete());
+      threadAssertFalse(appender.canInstall(member));
+    });
+  }
+
+  /**
+   * Tests that a failed install request resets the snapshot and restarts it from the first chunk once drained.
+   */
+  public void testResetInstall() throws Throwable {
+    runOnServer(() -> {
+      Snapshot snapshot = snapshot(4);
+      serverContext.setSnapshotChunkSize(8);
+      serverContext.setInstallWindowSize(4);
+
+      InstallRequest first = appender.buildInstallRequest(member);
+      appender.lockInstall(member);
+      appender.buildInstallRequest(member);
+      appender.lockInstall(member);
+
+      // The first request fails while the second is still in flight.
+      appender.unlockInstall(member);
+      appender.handleInstallResponseError(member, first, null);
+      threadAssertEquals(member.getNextSnapshotIndex(), 0L);
+      threadAssertEquals(member.getNextSnapshotOffset(), 0);
+
+      // The snapshot cannot be restarted until all in-flight requests have completed.
+      threadAssertFalse(appender.canInstall(member));
+      appender.unlockInstall(member);
+      threadAssertTrue(appender.canInstall(member));
+
+      InstallRequest restart = appender.buildInstallRequest(member);
+      threadAssertEquals(restart.index(), snapshot.index());
+      threadAssertEquals(restart.offset(), 0);
+      threadAssertEquals(restart.data().readLong(), 1L);
+    });
+  }
+
+  /**
+   * Tests that a failed install request for a stale snapshot does not reset the current snapshot.
+   */
+  public void testResetInstallIgnoresStaleSnapshot() throws Throwable {
+    runOnServer(() -> {
+      snapshot(4);
+      serverContext.setSnapshotChunkSize(8);
+
+      appender.buildInstallRequest(member);
+      appender.lockInstall(member);
+
+      InstallRequest stale = InstallRequest.builder()
+        .withTerm(1)
+        .withLeader(members.get(0).hashCode())
+        .withIndex(member.getNextSnapshotIndex() - 1)
+        .withOffset(0)
+        .withData(DirectBuffer.allocate(8))
+        .withComplete(false)
+        .build();
+      appender.unlockInstall(member);
+      appender.handleInstallResponseError(member, stale, null);
+      threadAssertEquals(member.getNextSnapshotIndex(), serverContext.getSnapshotStore().currentSnapshot().index());
+      threadAssertEquals(member.getNextSnapshotOffset(), 1);
+    });
+  }
+
+  /**
+   * Creates a snapshot at index 10 containing the given number of longs numbered from 1.
+   */
+  private Snapshot snapshot(int count) {
+    Snapshot snapshot = serverContext.getSnapshotStore().createSnapshot(10);
+    try (SnapshotWriter writer = snapshot.writer()) {
+      for (long i = 1; i <= count; i++) {
+        writer.writeLong(i);
+      }
+    }
+    snapshot.complete();
+    return snapshot;
+  }
+
+  /**
+   * Builds an append request for the given range of entries in the server's log.
+   */
+  private AppendRequest request(long logIndex, long logTerm, long first, long last) throws Throwable {
+    List<Entry> entries = new ArrayList<>();
+    for (long i = first; i <= last; i++) {
+      entries.add(get(i));
+    }
+    return AppendRequest.builder()
+      .withTerm(1)
+      .withLeader(members.get(0).hashCode())
+      .withLogIndex(logIndex)
+      .withLogTerm(logTerm)
+      .withEntries(entries)
+      .withCommitIndex(0)
+      .withGlobalIndex(0)
+      .build();
+  }
+
+  /**
+   * Returns a failed append response with the given log index.
+   */
+  private AppendResponse failure(long logIndex) {
+    return AppendResponse.builder()
+      .withStatus(Response.Status.OK)
+      .withTerm(1)
+      .withSucceeded(false)
+      .withLogIndex(logIndex)
+      .build();
+  }
+
+}
@@ -16,14 +16,18 @@
 package io.atomix.copycat.server.state;
 
 import io.atomix.copycat.client.request.CommandRequest;
+import io.atomix.copycat.client.request.KeepAliveRequest;
 import io.atomix.copycat.server.CopycatServer;
 import io.atomix.copycat.server.TestStateMachine.TestCommand;
 import io.atomix.copycat.server.request.VoteRequest;
 import io.atomix.copycat.server.response.VoteResponse;
 import io.atomix.copycat.server.storage.entry.CommandEntry;
+import io.atomix.copycat.server.storage.entry.MultiKeepAliveEntry;
 import org.testng.annotations.BeforeMethod;
 import org.testng.annotations.Test;
 
+import java.time.Duration;
+import java.util.Arrays;
 import java.util.UUID;
 
 /**
@@ -116,4 +120,135 @@ public class LeaderStateTest extends AbstractStateTest<LeaderState> {
 
     await();
   }
+
+  /**
+   * Tests that a member's batch size starts at the minimum batch size.
+   */
+  public void testInitialAppendBatchSize() throws Throwable {
+    runOnServer(() -> {
+      LeaderAppender appender = new LeaderAppender(state);
+      MemberState member = new MemberState(members.get(1), serverContext.getClusterState());
+      threadAssertEquals(appender.batchSize(member), 1024 * 32);
+
+      serverContext.setMaxAppendBatchSize(1024);
+      threadAssertEquals(appender.batchSize(member), 1024);
+    });
+  }
+
+  /**
+   * Tests that a lagging member's batch size grows by at most double per round trip up to the maximum batch size.
+   */
+  public void testAppendBatchSizeGrowsForLaggingMember() throws Throwable {
+    runOnServer(() -> {
+      serverContext.setHeartbeatInterval(Duration.ofMillis(100)).setMaxAppendBatchSize(1024 * 96);
+      LeaderAppender appender = new LeaderAppender(state);
+      MemberState member = new MemberState(members.get(1), serverContext.getClusterState());
+
+      appender.updateBatchSize(member, 1024 * 32, 10, 1);
+      threadAssertEquals(member.getBatchSize(), 1024 * 64);
+
+      appender.updateBatchSize(member, 1024 * 64, 10, 1);
+      threadAssertEquals(member.getBatchSize(), 1024 * 96);
+    });
+  }
+
+  /**
+   * Tests that a member's batch size shrinks when throughput to the member drops.
+   */
+  public void testAppendBatchSizeShrinksForSlowMember() throws Throwable {
+    runOnServer(() -> {
+      serverContext.setHeartbeatInterval(Duration.ofMillis(100));
+      LeaderAppender appender = new LeaderAppender(state);
+      MemberState member = new MemberState(members.get(1), serverContext.getClusterState());
+      member.setBatchSize(1024 * 1024);
+
+      // 1MB in 10 seconds targets ~5KB per half heartbeat, which is clamped to the minimum batch size.
+      appender.updateBatchSize(member, 1024 * 1024, 10, 10000);
+      threadAssertEquals(member.getBatchSize(), 1024 * 32);
+    });
+  }
+
+  /**
+   * Tests that batches limited by the number of available entries do not change the batch size.
+   */
+  public void testAppendBatchSizeIgnoresUnderfullBatches() throws Throwable {
+    runOnServer(() -> {
+      LeaderAppender appender = new LeaderAppender(state);
+      MemberState member = new MemberState(members.get(1), serverContext.getClusterState());
+      appender.updateBatchSize(member, 1024, 1, 1);
+      threadAssertEquals(member.getBatchSize(), 0);
+      threadAssertEquals(member.getThroughput(), 0d);
+    });
+  }
+
+  /**
+   * Tests that append requests are limited to the maximum number of entries per batch.
+   */
+  public void testAppendBatchEntriesLimit() throws Throwable {
+    runOnServer(() -> {
+      serverContext.setTerm(1).setMaxAppendBatchEntries(4);
+      append(10, 1);
+      LeaderAppender appender = new LeaderAppender(state);
+      MemberState member = new MemberState(members.get(1), serverContext.getClusterState());
+      member.setNextIndex(1);
+      threadAssertEquals(appender.buildAppendEntriesRequest(member, 10).entries().size(), 4);
+    });
+  }
+
+  /**
+   * Tests that duplicate keep-alive requests for a session are merged by their highest sequence numbers.
+   */
+  public void testKeepAlivesMergedByHighestSequence() throws Throwable {
+    runOnServer(() -> {
+      serverContext.setTerm(1)
+        .setLeader(members.get(0).hashCode())
+        .setKeepAliveBatchInterval(Duration.ofMillis(10));
+      state.keepAlive(keepAlive(1, 5, 3));
+      state.keepAlive(keepAlive(1, 4, 6));
+      state.keepAlive(keepAlive(2, 1, 1));
+    });
+
+    Thread.sleep(200);
+
+    runOnServer(() -> {
+      MultiKeepAliveEntry entry = serverContext.getLog().get(serverContext.getLog().lastIndex());
+      threadAssertTrue(Arrays.equals(entry.getSessions(), new long[]{1, 2}));
+      threadAssertTrue(Arrays.equals(entry.getCommandSequences(), new long[]{5, 1}));
+      threadAssertTrue(Arrays.equals(entry.getEventIndexes(), new long[]{6, 1}));
+    });
+  }
+
+  /**
+   * Builds a keep-alive request.
+   */
+  private KeepAliveRequest keepAlive(long session, long commandSequence, long eventIndex) {
+    return KeepAliveRequest.builder()
+      .withSession(session)
+      .withCommandSequence(commandSequence)
+      .withEventIndex(eventIndex)
+      .build();
+  }
+
+  /**
+   * Tests that a new leader's read index includes entries committed in prior terms.
+   */
+  public void testReadIndexIncludesInitialEntry() throws Throwable {
+    runOnServer(() -> {
+      // Entries up to index 10 were committed in term 1, but the new leader has only learned of index 5.
+      serverContext.setTerm(1);
+      append(10, 1);
+      serverContext.setCommitIndex(5);
+      serverContext.setTerm(2);
+
+      // The leader's initial entry will be appended at index 11.
+      LeaderState leader = new LeaderState(serverContext);
+      threadAssertEquals(leader.nextReadIndex(), 11L);
+
+      // Once the commit index passes the initial entry, the read index is the commit index.
+      append(2, 2);
+      serverContext.setCommitIndex(12);
+      threadAssertEquals(leader.nextReadIndex(), 12L);
+    });
+  }
+
 }
@@ -15,6 +15,8 @@
  */
 package io.atomix.copycat.server.state;
 
+import io.atomix.catalyst.buffer.DirectBuffer;
+import io.atomix.copycat.client.error.RaftError;
 import io.atomix.copycat.client.request.CommandRequest;
 import io.atomix.copycat.client.request.QueryRequest;
 import io.atomix.copycat.client.response.CommandResponse;
@@ -25,10 +27,19 @@ import io.atomix.copycat.server.TestStateMachine.TestQuery;
 import io.atomix.copycat.server.request.*;
 import io.atomix.copycat.server.response.*;
 import io.atomix.copycat.server.storage.TestEntry;
+import io.atomix.copycat.server.storage.entry.CommandEntry;
+import io.atomix.copycat.server.storage.entry.RegisterEntry;
+import io.atomix.copycat.server.storage.snapshot.Snapshot;
+import io.atomix.copycat.server.storage.snapshot.SnapshotReader;
 import org.testng.annotations.BeforeMethod;
 import org.testng.annotations.Test;
 
 import java.util.Collections;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
 
 import static org.testng.Assert.*;
 
@@ -214,6 +225,169 @@ public class PassiveStateTest extends AbstractStateTest<PassiveState> {
     });
   }
 
+  /**
+   * Tests that a duplicate snapshot chunk is acknowledged without being written again.
+   */
+  public void testInstallDuplicateChunk() throws Throwable {
+    runOnServer(() -> {
+      serverContext.setTerm(1);
+      assertEquals(state.install(install(0, 1, false)).get().status(), Status.OK);
+      assertEquals(state.install(install(1, 2, false)).get().status(), Status.OK);
+      assertEquals(state.install(install(1, 2, false)).get().status(), Status.OK);
+      assertEquals(state.install(install(2, 3, true)).get().status(), Status.OK);
+      assertSnapshot(1, 2, 3);
+    });
+  }
+
+  /**
+   * Tests that a chunk beyond the next expected offset is rejected.
+   */
+  public void testInstallChunkOutOfOrder() throws Throwable {
+    runOnServer(() -> {
+      serverContext.setTerm(1);
+      assertEquals(state.install(install(0, 1, false)).get().status(), Status.OK);
+      assertIllegalMemberStateError(state.install(install(2, 3, false)).get());
+    });
+  }
+
+  /**
+   * Tests that a snapshot restarted from the first chunk discards the partially received snapshot.
+   */
+  public void testInstallRestartFromFirstChunk() throws Throwable {
+    runOnServer(() -> {
+      serverContext.setTerm(1);
+      assertEquals(state.install(install(0, 1, false)).get().status(), Status.OK);
+      assertEquals(state.install(install(1, 2, false)).get().status(), Status.OK);
+      assertEquals(state.install(install(0, 4, false)).get().status(), Status.OK);
+      assertEquals(state.install(install(1, 5, true)).get().status(), Status.OK);
+      assertSnapshot(4, 5);
+    });
+  }
+
+  /**
+   * Builds an install request for a chunk of the snapshot at index 10 containing the given value.
+   */
+  private InstallRequest install(int offset, long value, boolean complete) {
+    return InstallRequest.builder()
+      .withTerm(1)
+      .withLeader(members.get(1).hashCode())
+      .withIndex(10)
+      .withOffset(offset)
+      .withData(DirectBuffer.allocate(8).writeLong(value).flip())
+      .withComplete(complete)
+      .build();
+  }
+
+  /**
+   * Asserts that the installed snapshot contains exactly the given values.
+   */
+  private void assertSnapshot(long... values) {
+    Snapshot snapshot = serverContext.getSnapshotStore().currentSnapshot();
+    assertNotNull(snapshot);
+    assertEquals(snapshot.index(), 10L);
+    try (SnapshotReader reader = snapshot.reader()) {
+      for (long value : values) {
+        assertEquals(reader.readLong(), value);
+      }
+      assertFalse(reader.hasRemaining());
+    }
+  }
+
+  /**
+   * Tests that a follower read waits for the state machine to apply entries up to the leader's read index.
+   */
+  public void testQueryReadIndex() throws Throwable {
+    listen(3);
+
+    AtomicReference<CompletableFuture<QueryResponse>> future = new AtomicReference<>();
+    runOnServer(() -> {
+      prepareFollowerRead();
+      future.set(state.query(QueryRequest.builder().withSession(1).withSequence(0).withQuery(new TestQuery()).build()));
+    });
+
+    // The query cannot be applied until the state machine has applied the leader's read index.
+    Thread.sleep(200);
+    assertFalse(future.get().isDone());
+
+    runOnServer(() -> {
+      serverContext.setCommitIndex(3);
+      serverContext.getStateMachine().applyAll(3);
+    });
+
+    QueryResponse response = future.get().get(5, TimeUnit.SECONDS);
+    assertEquals(response.status(), Status.OK);
+    assertEquals(response.result(), "query");
+    assertTrue(response.index() >= 3);
+  }
+
+  /**
+   * Tests that a follower read fails if the state is closed before the leader's read index is received.
+   */
+  public void testQueryReadIndexAfterClose() throws Throwable {
+    listen(1);
+
+    AtomicReference<CompletableFuture<QueryResponse>> future = new AtomicReference<>();
+    runOnServer(() -> {
+      prepareFollowerRead();
+      future.set(state.query(QueryRequest.builder().withSession(1).withSequence(0).withQuery(new TestQuery()).build()));
+      state.close();
+    });
+
+    try {
+      future.get().get(5, TimeUnit.SECONDS);
+      fail("expected query to fail");
+    } catch (ExecutionException e) {
+      assertTrue(e.getCause() instanceof IllegalStateException);
+    }
+  }
+
+  /**
+   * Starts a leader that responds to read index requests with the given index and fails forwarded queries.
+   */
+  private void listen(long readIndex) throws Throwable {
+    runOnServer(() -> transport.server().listen(members.get(1).serverAddress(), connection -> {
+      connection.handler(ReadIndexRequest.class, request -> CompletableFuture.completedFuture(ReadIndexResponse.builder()
+        .withStatus(Status.OK)
+        .withIndex(readIndex)
+        .build()));
+      connection.handler(QueryRequest.class, request -> CompletableFuture.completedFuture(QueryResponse.builder()
+        .withStatus(Status.ERROR)
+        .withError(RaftError.Type.QUERY_ERROR)
+        .build()));
+    }));
+  }
+
+  /**
+   * Enables follower reads and applies a session registration, leaving two commands to be committed.
+   */
+  private void prepareFollowerRead() {
+    serverContext.setTerm(1)
+      .setLeader(members.get(1).hashCode())
+      .setFollowerReads(true);
+
+    try (RegisterEntry entry = serverContext.getLog().create(RegisterEntry.class)) {
+      entry.setTerm(1)
+        .setTimestamp(System.currentTimeMillis())
+        .setTimeout(5000)
+        .setClient(UUID.randomUUID());
+      serverContext.getLog().append(entry);
+    }
+
+    for (long sequence = 1; sequence <= 2; sequence++) {
+      try (CommandEntry entry = serverContext.getLog().create(CommandEntry.class)) {
+        entry.setTerm(1)
+          .setSession(1)
+          .setSequence(sequence)
+          .setTimestamp(System.currentTimeMillis())
+          .setCommand(new TestCommand("foo"));
+        serverContext.getLog().append(entry);
+      }
+    }
+
+    serverContext.setCommitIndex(1);
+    serverContext.getStateMachine().applyAll(1);
+  }
+
   public void testJoinWithoutLeader() throws Throwable {
     runOnServer(() -> {
       JoinRequest request = JoinRequest.builder().withMember(members.get(0)).build();
@@ -0,0 +1,60 @@
+/*
+ * Copyright 2015 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.atomix.copycat.server.state;
+
+import org.testng.annotations.Test;
+
+import static org.testng.Assert.*;
+
+/**
+ * Read index metrics test.
+ *
+ * @author <a href="http://github.com/kuujo">Jordan Halterman</a>
+ */
+@Test
+public class ReadIndexMetricsTest {
+
+  /**
+   * Tests metrics before any batches have been recorded.
+   */
+  public void testEmptyMetrics() {
+    ReadIndexMetrics metrics = new ReadIndexMetrics();
+    assertEquals(metrics.batches(), 0);
+    assertEquals(metrics.reads(), 0);
+    assertEquals(metrics.maxBatchSize(), 0);
+    assertEquals(metrics.averageBatchSize(), 0.0);
+    assertEquals(metrics.averageWaitTime(), 0.0);
+    assertEquals(metrics.maxWaitTime(), 0);
+  }
+
+  /**
+   * Tests recording batches of reads.
+   */
+  public void testRecordBatches() {
+    ReadIndexMetrics metrics = new ReadIndexMetrics();
+    metrics.record(4, 40, 20);
+    metrics.record(2, 20, 15);
+    metrics.record(6, 60, 10);
+
+    assertEquals(metrics.batches(), 3);
+    assertEquals(metrics.reads(), 12);
+    assertEquals(metrics.maxBatchSize(), 6);
+    assertEquals(metrics.averageBatchSize(), 4.0);
+    assertEquals(metrics.averageWaitTime(), 10.0);
+    assertEquals(metrics.maxWaitTime(), 20);
+  }
+
+}
@@ -0,0 +1,127 @@
+/*
+ * Copyright 2015 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License
+ */
+package io.atomix.copycat.server.state;
+
+import io.atomix.copycat.client.session.Session;
+import org.testng.annotations.Test;
+
+import java.util.UUID;
+
+import static org.mockito.Mockito.mock;
+import static org.testng.Assert.*;
+
+/**
+ * Server session manager test.
+ *
+ * @author <a href="http://github.com/kuujo>Jordan Halterman</a>
+ */
+@Test
+public class ServerSessionManagerTest {
+
+  /**
+   * Tests suspecting sessions that have timed out.
+   */
+  public void testSuspectSessions() throws Throwable {
+    ServerStateMachineContext context = mock(ServerStateMachineContext.class);
+    ServerSessionManager sessions = new ServerSessionManager().collectSuspects(true);
+    ServerSession session1 = sessions.registerSession(new ServerSession(1, UUID.randomUUID(), l -> {}, context, 1000));
+    ServerSession session2 = sessions.registerSession(new ServerSession(2, UUID.randomUUID(), l -> {}, context, 1000));
+    sessions.setTimestamp(session1, 1000);
+    sessions.setTimestamp(session2, 1500);
+
+    sessions.suspectSessions(0, 1800);
+    assertEquals(session1.state(), Session.State.OPEN);
+    assertEquals(session2.state(), Session.State.OPEN);
+
+    sessions.suspectSessions(0, 2200);
+    assertEquals(session1.state(), Session.State.UNSTABLE);
+    assertEquals(session2.state(), Session.State.OPEN);
+    assertTrue(sessions.suspects().contains(session1));
+    assertFalse(sessions.suspects().contains(session2));
+
+    sessions.setTimestamp(session2, 2000);
+    session1.trust();
+    sessions.setTimestamp(session1, 2200);
+    sessions.suspectSessions(2, 2700);
+    assertEquals(session1.state(), Session.State.OPEN);
+    assertEquals(session2.state(), Session.State.OPEN);
+
+    sessions.suspectSessions(0, 3100);
+    assertEquals(session1.state(), Session.State.OPEN);
+    assertEquals(session2.state(), Session.State.UNSTABLE);
+  }
+
+  /**
+   * Tests that unregistered sessions are not suspected.
+   */
+  public void testSuspectUnregisteredSession() throws Throwable {
+    ServerStateMachineContext context = mock(ServerStateMachineContext.class);
+    ServerSessionManager sessions = new ServerSessionManager();
+    ServerSession session = sessions.registerSession(new ServerSession(1, UUID.randomUUID(), l -> {}, context, 1000));
+    sessions.setTimestamp(session, 1000);
+    sessions.unregisterSession(1);
+    sessions.suspectSessions(0, 3000);
+    assertEquals(session.state(), Session.State.OPEN);
+    assertTrue(sessions.suspects().isEmpty());
+  }
+
+  /**
+   * Tests that suspects are only collected while enabled.
+   */
+  public void testCollectSuspects() throws Throwable {
+    ServerStateMachineContext context = mock(ServerStateMachineContext.class);
+    ServerSessionManager sessions = new ServerSessionManager();
+    ServerSession session = sessions.registerSession(new ServerSession(1, UUID.randomUUID(), l -> {}, context, 1000));
+    sessions.setTimestamp(session, 1000);
+
+    sessions.suspectSessions(0, 3000);
+    assertEquals(session.state(), Session.State.UNSTABLE);
+    assertTrue(sessions.suspects().isEmpty());
+
+    sessions.collectSuspects(true);
+    sessions.suspectSessions(0, 3100);
+    assertTrue(sessions.suspects().contains(session));
+
+    sessions.collectSuspects(false);
+    assertTrue(sessions.suspects().isEmpty());
+  }
+
+  /**
+   * Tests that untracked sessions are removed from suspects and are no longer suspected.
+   */
+  public void testUntrackSession() throws Throwable {
+    ServerStateMachineContext context = mock(ServerStateMachineContext.class);
+    ServerSessionManager sessions = new ServerSessionManager().collectSuspects(true);
+    ServerSession session1 = sessions.registerSession(new ServerSession(1, UUID.randomUUID(), l -> {}, context, 1000));
+    ServerSession session2 = sessions.registerSession(new ServerSession(2, UUID.randomUUID(), l -> {}, context, 1000));
+    sessions.setTimestamp(session1, 1000);
+    sessions.setTimestamp(session2, 1000);
+
+    sessions.suspectSessions(0, 3000);
+    assertTrue(sessions.suspects().contains(session1));
+    assertTrue(sessions.suspects().contains(session2));
+
+    sessions.untrackSession(session1);
+    assertFalse(sessions.suspects().contains(session1));
+    assertTrue(sessions.suspects().contains(session2));
+
+    sessions.suspects().clear();
+    sessions.suspectSessions(0, 4000);
+    assertFalse(sessions.suspects().contains(session1));
+    assertTrue(sessions.suspects().contains(session2));
+  }
+
+}
@@ -26,13 +26,18 @@ import io.atomix.catalyst.util.concurrent.ThreadContext;
 import io.atomix.copycat.client.Command;
 import io.atomix.copycat.client.Query;
 import io.atomix.copycat.client.session.Session;
+import io.atomix.copycat.server.AsyncSnapshottable;
 import io.atomix.copycat.server.Commit;
+import io.atomix.copycat.server.IncrementalSnapshottable;
 import io.atomix.copycat.server.StateMachine;
 import io.atomix.copycat.server.StateMachineExecutor;
 import io.atomix.copycat.server.cluster.Member;
 import io.atomix.copycat.server.storage.Storage;
 import io.atomix.copycat.server.storage.StorageLevel;
 import io.atomix.copycat.server.storage.entry.*;
+import io.atomix.copycat.server.storage.snapshot.Snapshot;
+import io.atomix.copycat.server.storage.snapshot.SnapshotReader;
+import io.atomix.copycat.server.storage.snapshot.SnapshotWriter;
 import net.jodah.concurrentunit.ConcurrentTestCase;
 import org.testng.annotations.AfterMethod;
 import org.testng.annotations.BeforeMethod;
@@ -40,8 +45,14 @@ import org.testng.annotations.Test;
 
 import java.util.Arrays;
 import java.util.Collection;
+import java.util.List;
+import java.util.Set;
 import java.util.UUID;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Consumer;
 
 import static org.testng.Assert.*;
 
@@ -52,6 +63,7 @@ import static org.testng.Assert.*;
  */
 @Test
 public class ServerStateMachineTest extends ConcurrentTestCase {
+  private Serializer serializer;
   private ThreadContext callerContext;
   private ThreadContext stateContext;
   private Transport transport;
@@ -61,14 +73,22 @@ public class ServerStateMachineTest extends ConcurrentTestCase {
 
   @BeforeMethod
   public void createStateMachine() throws Throwable {
-    Serializer serializer = new Serializer(new ServiceLoaderTypeResolver());
+    serializer = new Serializer(new ServiceLoaderTypeResolver());
     serializer.disableWhitelist();
 
     callerContext = new SingleThreadContext("caller", serializer.clone());
     stateContext = new SingleThreadContext("state", serializer.clone());
+    state = createState(new Storage(StorageLevel.MEMORY));
+    timestamp = System.currentTimeMillis();
+    sequence = new AtomicLong();
+  }
+
+  /**
+   * Creates a server context with the given storage.
+   */
+  private ServerContext createState(Storage storage) throws Throwable {
     LocalServerRegistry registry = new LocalServerRegistry();
     transport = new LocalTransport(registry);
-    Storage storage = new Storage(StorageLevel.MEMORY);
     ServerMember member = new ServerMember(Member.Type.ACTIVE, new Address("localhost", 5000), new Address("localhost", 6000));
     Collection<Address> members = Arrays.asList(
       new Address("localhost", 5000),
@@ -76,13 +96,13 @@ public class ServerStateMachineTest extends ConcurrentTestCase {
       new Address("localhost", 5000)
     );
 
+    AtomicReference<ServerContext> state = new AtomicReference<>();
     new SingleThreadContext("test", serializer.clone()).executor().execute(() -> {
-      state = new ServerContext("test", member.type(), member.serverAddress(), member.clientAddress(), members, storage, serializer, TestStateMachine::new, new ConnectionManager(new LocalTransport(registry).client()), callerContext);
+      state.set(new ServerContext("test", member.type(), member.serverAddress(), member.clientAddress(), members, storage, serializer, TestStateMachine::new, new ConnectionManager(new LocalTransport(registry).client()), callerContext));
       resume();
     });
     await(1000);
-    timestamp = System.currentTimeMillis();
-    sequence = new AtomicLong();
+    return state.get();
   }
 
   /**
@@ -136,6 +156,58 @@ public class ServerStateMachineTest extends ConcurrentTestCase {
     assertEquals(session.getTimestamp(), timestamp + 1000);
   }
 
+  /**
+   * Tests keeping multiple sessions alive with a single entry.
+   */
+  public void testSessionMultiKeepAlive() throws Throwable {
+    callerContext.execute(() -> {
+
+      long index;
+      try (RegisterEntry entry = state.getLog().create(RegisterEntry.class)) {
+        entry.setTerm(1)
+          .setTimestamp(timestamp)
+          .setTimeout(500)
+          .setClient(UUID.randomUUID());
+        index = state.getLog().append(entry);
+      }
+
+      state.getStateMachine().apply(index).whenComplete((result, error) -> {
+        threadAssertNull(error);
+        resume();
+      });
+    });
+
+    await();
+
+    ServerSession session = state.getStateMachine().executor().context().sessions().getSession(1);
+    assertNotNull(session);
+
+    callerContext.execute(() -> {
+
+      long index;
+      try (MultiKeepAliveEntry entry = state.getLog().create(MultiKeepAliveEntry.class)) {
+        entry.setTerm(1)
+          .setSessions(new long[]{1, 3})
+          .setCommandSequences(new long[]{0, 0})
+          .setEventIndexes(new long[]{0, 0})
+          .setTimestamp(timestamp + 1000);
+        index = state.getLog().append(entry);
+      }
+
+      state.getStateMachine().apply(index).whenComplete((result, error) -> {
+        threadAssertNull(error);
+        threadAssertTrue(((Set<?>) result).contains(1L));
+        threadAssertFalse(((Set<?>) result).contains(3L));
+        resume();
+      });
+    });
+
+    await();
+
+    assertEquals(session.getTimestamp(), timestamp + 1000);
+    assertTrue(session.state() == Session.State.OPEN);
+  }
+
   /**
    * Tests resetting session timeouts when a new leader is elected.
    */
@@ -457,6 +529,290 @@ public class ServerStateMachineTest extends ConcurrentTestCase {
     assertEquals(session.getTimestamp(), timestamp + 100);
   }
 
+  /**
+   * Tests executing a query with a reader.
+   */
+  public void testQueryReader() throws Throwable {
+    callerContext.execute(() -> {
+
+      long index;
+      try (RegisterEntry entry = state.getLog().create(RegisterEntry.class)) {
+        entry.setTerm(1)
+          .setTimestamp(timestamp)
+          .setTimeout(500)
+          .setClient(UUID.randomUUID());
+        index = state.getLog().append(entry);
+      }
+
+      state.getStateMachine().apply(index).whenComplete((result, error) -> {
+        threadAssertNull(error);
+        resume();
+      });
+    });
+
+    await();
+
+    callerContext.execute(() -> {
+
+      QueryEntry entry = state.getLog().create(QueryEntry.class);
+        entry.setIndex(1)
+          .setTerm(1)
+          .setSession(1)
+          .setTimestamp(timestamp + 200)
+          .setSequence(0)
+          .setQuery(new TestReader());
+
+      state.getStateMachine().apply(entry).whenComplete((result, error) -> {
+        threadAssertNull(error);
+        threadAssertTrue(((String) result).startsWith("copycat-query"));
+        resume();
+      });
+    });
+
+    await();
+  }
+
+  /**
+   * Tests that a reader observes the commands applied up to the query index.
+   */
+  public void testQueryReaderAfterCommand() throws Throwable {
+    register(state.getStateMachine());
+
+    callerContext.execute(() -> {
+      long index;
+      try (CommandEntry entry = state.getLog().create(CommandEntry.class)) {
+        entry.setTerm(1)
+          .setSession(1)
+          .setSequence(1)
+          .setTimestamp(timestamp + 100)
+          .setCommand(new SlowCommand());
+        index = state.getLog().append(entry);
+      }
+
+      state.getStateMachine().apply(index).whenComplete((result, error) -> {
+        threadAssertEquals(result, 1L);
+        resume();
+      });
+
+      QueryEntry entry = state.getLog().create(QueryEntry.class);
+      entry.setIndex(index)
+        .setTerm(1)
+        .setSession(1)
+        .setTimestamp(timestamp + 200)
+        .setSequence(1)
+        .setQuery(new SequenceReader());
+
+      state.getStateMachine().apply(entry).whenComplete((result, error) -> {
+        threadAssertNull(error);
+        threadAssertEquals(result, 1L);
+        resume();
+      });
+    });
+
+    await(1000, 2);
+  }
+
+  /**
+   * Tests writing an asynchronous snapshot.
+   */
+  public void testAsyncSnapshot() throws Throwable {
+    TestAsyncStateMachine machine = new TestAsyncStateMachine(false);
+    ServerStateMachine stateMachine = new ServerStateMachine(machine, state, new SingleThreadContext("async", state.getSerializer().clone()));
+    try {
+      register(stateMachine);
+
+      Snapshot snapshot = awaitSnapshot(1);
+      assertNotNull(snapshot);
+      assertEquals(machine.writes.get(), 1);
+      assertNotEquals(machine.writeThread, machine.captureThread);
+
+      callerContext.execute(() -> {
+        try (SnapshotReader reader = state.getSnapshotStore().currentSnapshot().reader()) {
+          threadAssertEquals(reader.readLong(), 42L);
+        }
+        resume();
+      });
+      await();
+    } finally {
+      stateMachine.close();
+    }
+  }
+
+  /**
+   * Tests that a failed asynchronous snapshot write is discarded and a new snapshot is taken.
+   */
+  public void testAsyncSnapshotFailure() throws Throwable {
+    TestAsyncStateMachine machine = new TestAsyncStateMachine(true);
+    ServerStateMachine stateMachine = new ServerStateMachine(machine, state, new SingleThreadContext("async", state.getSerializer().clone()));
+    try {
+      register(stateMachine);
+
+      // Wait for the failed write to be handled in the server thread.
+      for (int i = 0; i < 100 && machine.writes.get() == 0; i++) {
+        Thread.sleep(10);
+      }
+      Thread.sleep(100);
+      assertNull(currentSnapshot());
+
+      // The failed snapshot is discarded, so the next applied entry triggers a new snapshot.
+      register(stateMachine);
+      Snapshot snapshot = awaitSnapshot(2);
+      assertNotNull(snapshot);
+      assertEquals(machine.writes.get(), 2);
+    } finally {
+      stateMachine.close();
+    }
+  }
+
+  /**
+   * Tests building a chain of delta snapshots.
+   */
+  public void testDeltaSnapshotChain() throws Throwable {
+    // Store each entry in a separate segment so that the log becomes compactable after each entry is completed.
+    state.close();
+    state = createState(Storage.builder()
+      .withStorageLevel(StorageLevel.MEMORY)
+      .withMaxEntriesPerSegment(1)
+      .build());
+
+    TestIncrementalStateMachine machine = new TestIncrementalStateMachine();
+    ServerStateMachine stateMachine = new ServerStateMachine(machine, state, new SingleThreadContext("incremental", serializer.clone()));
+    try {
+      AtomicReference<Thread> stateThread = new AtomicReference<>();
+      stateMachine.executor().executor().execute(() -> {
+        stateThread.set(Thread.currentThread());
+        resume();
+      });
+      await();
+
+      Snapshot delta = null;
+      for (int i = 0; i < 20 && delta == null; i++) {
+        register(stateMachine);
+        Snapshot snapshot = currentSnapshot();
+        if (snapshot != null && snapshot.isDelta()) {
+          delta = snapshot;
+        }
+      }
+
+      assertNotNull(delta);
+      assertEquals(machine.snapshots.get(), 1);
+      assertTrue(machine.deltas.get() >= 1);
+      assertEquals(machine.snapshotThread, stateThread.get());
+      assertEquals(machine.deltaThread, stateThread.get());
+
+      List<Snapshot> chain = chain(delta);
+      assertEquals(chain.size(), 2);
+      assertFalse(chain.get(0).isDelta());
+      assertEquals(delta.previousIndex(), chain.get(0).index());
+      assertEquals(chain.get(1).index(), delta.index());
+    } finally {
+      stateMachine.close();
+    }
+  }
+
+  /**
+   * Tests installing a chain of delta snapshots.
+   */
+  public void testInstallDeltaSnapshotChain() throws Throwable {
+    callerContext.execute(() -> {
+      Snapshot snapshot = state.getSnapshotStore().createSnapshot(1);
+      try (SnapshotWriter writer = snapshot.writer()) {
+        writer.writeLong(1);
+      }
+      snapshot.complete();
+
+      for (long i = 2; i <= 3; i++) {
+        Snapshot delta = state.getSnapshotStore().createDeltaSnapshot(i, i - 1);
+        try (SnapshotWriter writer = delta.writer()) {
+          writer.writeLong(i);
+        }
+        delta.complete();
+      }
+      resume();
+    });
+    await();
+
+    TestIncrementalStateMachine machine = new TestIncrementalStateMachine();
+    ServerStateMachine stateMachine = new ServerStateMachine(machine, state, new SingleThreadContext("incremental", serializer.clone()));
+    try {
+      // The chain is installed once the index of the last delta snapshot is applied.
+      for (int i = 0; i < 3; i++) {
+        register(stateMachine);
+      }
+
+      stateMachine.executor().executor().execute(() -> resume());
+      await();
+
+      assertEquals(machine.installed, Arrays.asList(1L, 2L, 3L));
+      assertEquals(machine.snapshots.get(), 0);
+      assertEquals(machine.deltas.get(), 0);
+    } finally {
+      stateMachine.close();
+    }
+  }
+
+  /**
+   * Registers a session on the given state machine.
+   */
+  private void register(ServerStateMachine stateMachine) throws Throwable {
+    callerContext.execute(() -> {
+      long index;
+      try (RegisterEntry entry = state.getLog().create(RegisterEntry.class)) {
+        entry.setTerm(1)
+          .setTimestamp(timestamp)
+          .setTimeout(500)
+          .setClient(UUID.randomUUID());
+        index = state.getLog().append(entry);
+      }
+
+      stateMachine.apply(index).whenComplete((result, error) -> {
+        threadAssertNull(error);
+        resume();
+      });
+    });
+    await();
+  }
+
+  /**
+   * Returns the current snapshot, read in the server thread.
+   */
+  private Snapshot currentSnapshot() throws Throwable {
+    AtomicReference<Snapshot> snapshot = new AtomicReference<>();
+    callerContext.execute(() -> {
+      snapshot.set(state.getSnapshotStore().currentSnapshot());
+      resume();
+    });
+    await();
+    return snapshot.get();
+  }
+
+  /**
+   * Waits for a snapshot at the given index to be completed.
+   */
+  private Snapshot awaitSnapshot(long index) throws Throwable {
+    for (int i = 0; i < 100; i++) {
+      Snapshot snapshot = currentSnapshot();
+      if (snapshot != null && snapshot.index() == index) {
+        return snapshot;
+      }
+      Thread.sleep(50);
+    }
+    return null;
+  }
+
+  /**
+   * Returns the chain of the given snapshot, read in the server thread.
+   */
+  private List<Snapshot> chain(Snapshot snapshot) throws Throwable {
+    AtomicReference<List<Snapshot>> chain = new AtomicReference<>();
+    callerContext.execute(() -> {
+      chain.set(state.getSnapshotStore().chain(snapshot));
+      resume();
+    });
+    await();
+    return chain.get();
+  }
+
   @AfterMethod
   public void closeStateMachine() {
     state.close();
@@ -473,6 +829,9 @@ public class ServerStateMachineTest extends ConcurrentTestCase {
       executor.register(TestQuery.class, this::testQuery);
       executor.register(EventCommand.class, this::eventCommand);
       executor.register(TestExecute.class, this::testExecute);
+      executor.registerReader(TestReader.class, this::testReader);
+      executor.register(SlowCommand.class, this::slowCommand);
+      executor.registerReader(SequenceReader.class, this::sequenceReader);
     }
 
     private long testCommand(Commit<TestCommand> commit) {
@@ -487,6 +846,23 @@ public class ServerStateMachineTest extends ConcurrentTestCase {
       return sequence.incrementAndGet();
     }
 
+    private String testReader(Commit<TestReader> commit) {
+      return Thread.currentThread().getName();
+    }
+
+    private long slowCommand(Commit<SlowCommand> commit) {
+      try {
+        Thread.sleep(100);
+      } catch (InterruptedException e) {
+        throw new IllegalStateException(e);
+      }
+      return sequence.incrementAndGet();
+    }
+
+    private long sequenceReader(Commit<SequenceReader> commit) {
+      return sequence.get();
+    }
+
     private void testExecute(Commit<TestExecute> commit) {
       executor.execute((Runnable) () -> {
         threadAssertEquals(context.index(), 2L);
@@ -495,6 +871,69 @@ public class ServerStateMachineTest extends ConcurrentTestCase {
     }
   }
 
+  /**
+   * Asynchronously snapshottable test state machine.
+   */
+  private static class TestAsyncStateMachine extends StateMachine implements AsyncSnapshottable {
+    private final AtomicInteger writes = new AtomicInteger();
+    private final boolean failFirstWrite;
+    private volatile Thread captureThread;
+    private volatile Thread writeThread;
+
+    private TestAsyncStateMachine(boolean failFirstWrite) {
+      this.failFirstWrite = failFirstWrite;
+    }
+
+    @Override
+    public Consumer<SnapshotWriter> snapshot() {
+      captureThread = Thread.currentThread();
+      return writer -> {
+        writeThread = Thread.currentThread();
+        if (writes.incrementAndGet() == 1 && failFirstWrite) {
+          throw new IllegalStateException("snapshot write failed");
+        }
+        writer.writeLong(42);
+      };
+    }
+
+    @Override
+    public void install(SnapshotReader reader) {
+    }
+  }
+
+  /**
+   * Incrementally snapshottable test state machine.
+   */
+  private static class TestIncrementalStateMachine extends StateMachine implements IncrementalSnapshottable {
+    private final AtomicInteger snapshots = new AtomicInteger();
+    private final AtomicInteger deltas = new AtomicInteger();
+    private final List<Long> installed = new CopyOnWriteArrayList<>();
+    private volatile Thread snapshotThread;
+    private volatile Thread deltaThread;
+
+    @Override
+    public void snapshot(SnapshotWriter writer) {
+      snapshotThread = Thread.currentThread();
+      writer.writeLong(snapshots.incrementAndGet());
+    }
+
+    @Override
+    public void snapshotDelta(SnapshotWriter writer) {
+      deltaThread = Thread.currentThread();
+      writer.writeLong(deltas.incrementAndGet());
+    }
+
+    @Override
+    public void install(SnapshotReader reader) {
+      installed.add(reader.readLong());
+    }
+
+    @Override
+    public void installDelta(SnapshotReader reader) {
+      installed.add(reader.readLong());
+    }
+  }
+
   /**
    * Test command.
    */
@@ -513,6 +952,24 @@ public class ServerStateMachineTest extends ConcurrentTestCase {
   private static class TestQuery implements Query<Long> {
   }
 
+  /**
+   * Test reader.
+   */
+  private static class TestReader implements Query<String> {
+  }
+
+  /**
+   * Slow command.
+   */
+  private static class SlowCommand implements Command<Long> {
+  }
+
+  /**
+   * Sequence reader.
+   */
+  private static class SequenceReader implements Query<Long> {
+  }
+
   /**
    * Test execute.
    */
@@ -78,7 +78,7 @@ public abstract class AbstractLogTest {
     TestEntry entry = new TestEntry();
     entry.setPadding(entryPadding);
     serializer.writeObject(entry, buffer);
-    return (int) buffer.position() + Short.BYTES + Long.BYTES + Byte.BYTES;
+    return (int) buffer.position() + Integer.BYTES + Integer.BYTES + Long.BYTES + Byte.BYTES + Short.BYTES;
   }
 
   @BeforeMethod
@@ -16,11 +16,14 @@
 package io.atomix.copycat.server.storage;
 
 import io.atomix.copycat.server.storage.snapshot.Snapshot;
+import io.atomix.copycat.server.storage.snapshot.SnapshotCompression;
 import io.atomix.copycat.server.storage.snapshot.SnapshotReader;
 import io.atomix.copycat.server.storage.snapshot.SnapshotStore;
 import io.atomix.copycat.server.storage.snapshot.SnapshotWriter;
 import org.testng.annotations.Test;
 
+import java.util.List;
+
 import static org.testng.Assert.*;
 
 /**
@@ -74,4 +77,104 @@ public abstract class AbstractSnapshotStoreTest {
     }
   }
 
+  /**
+   * Tests retaining a chain of delta snapshots.
+   */
+  public void testDeltaSnapshotChain() {
+    SnapshotStore store = createSnapshotStore();
+    Snapshot base = store.createSnapshot(1);
+    try (SnapshotWriter writer = base.writer()) {
+      writer.writeLong(1);
+    }
+    base.complete();
+
+    for (long i = 2; i <= 3; i++) {
+      Snapshot delta = store.createDeltaSnapshot(i, i - 1);
+      assertTrue(delta.isDelta());
+      try (SnapshotWriter writer = delta.writer()) {
+        writer.writeLong(i);
+      }
+      delta.complete();
+    }
+
+    assertEquals(store.currentSnapshot().index(), 3);
+    assertEquals(store.snapshots().size(), 3);
+    List<Snapshot> chain = store.chain(store.currentSnapshot());
+    assertEquals(chain.size(), 3);
+    for (int i = 0; i < chain.size(); i++) {
+      assertEquals(chain.get(i).index(), i + 1);
+      try (SnapshotReader reader = chain.get(i).reader()) {
+        assertEquals(reader.readLong(), i + 1);
+      }
+    }
+
+    Snapshot snapshot = store.createSnapshot(4);
+    try (SnapshotWriter writer = snapshot.writer()) {
+      writer.writeLong(4);
+    }
+    snapshot.complete();
+
+    assertEquals(store.currentSnapshot().index(), 4);
+    assertEquals(store.snapshots().size(), 1);
+    assertEquals(store.chain(store.currentSnapshot()).size(), 1);
+  }
+
+  /**
+   * Tests writing and reading compressed snapshots.
+   */
+  public void testCompressedSnapshot() {
+    SnapshotStore store = createSnapshotStore();
+    for (SnapshotCompression compression : SnapshotCompression.values()) {
+      Snapshot snapshot = store.createSnapshot(compression.id() + 1, compression);
+      assertEquals(snapshot.compression(), compression);
+
+      try (SnapshotWriter writer = snapshot.writer()) {
+        for (int i = 0; i < 1024 * 32; i++) {
+          writer.writeLong(i % 100).writeInt(i);
+        }
+      }
+      snapshot.complete();
+
+      try (SnapshotReader reader = snapshot.reader()) {
+        assertEquals(reader.remaining(), 1024 * 32 * (Long.BYTES + Integer.BYTES));
+        for (int i = 0; i < 1024 * 32; i++) {
+          assertEquals(reader.readLong(), i % 100);
+          assertEquals(reader.readInt(), i);
+        }
+        assertFalse(reader.hasRemaining());
+      }
+    }
+  }
+
+  /**
+   * Tests copying the stored bytes of a compressed snapshot.
+   */
+  public void testCopyCompressedSnapshot() {
+    SnapshotStore store = createSnapshotStore();
+    Snapshot snapshot = store.createSnapshot(1, SnapshotCompression.LZ4);
+    try (SnapshotWriter writer = snapshot.writer()) {
+      for (int i = 0; i < 1024 * 32; i++) {
+        writer.writeLong(i);
+      }
+    }
+    snapshot.complete();
+
+    Snapshot copy = store.createSnapshot(2, snapshot.compression());
+    try (SnapshotReader reader = snapshot.rawReader()) {
+      assertTrue(reader.remaining() < 1024 * 32 * Long.BYTES);
+      byte[] bytes = new byte[(int) reader.remaining()];
+      reader.read(bytes);
+      try (SnapshotWriter writer = copy.rawWriter()) {
+        writer.write(bytes);
+      }
+    }
+    copy.complete();
+
+    try (SnapshotReader reader = copy.reader()) {
+      for (int i = 0; i < 1024 * 32; i++) {
+        assertEquals(reader.readLong(), i);
+      }
+    }
+  }
+
 }
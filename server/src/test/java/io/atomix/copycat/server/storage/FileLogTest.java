@@ -19,6 +19,9 @@ import io.atomix.copycat.server.storage.entry.Entry;
 import org.testng.annotations.Factory;
 import org.testng.annotations.Test;
 
+import java.io.File;
+import java.io.RandomAccessFile;
+
 import static org.testng.Assert.*;
 
 /**
@@ -116,4 +119,70 @@ public class FileLogTest extends LogTest {
     }
   }
 
+  /**
+   * Tests recovering from a partially written record at the end of the log.
+   */
+  public void testRecoverTornWrite() throws Throwable {
+    appendEntries(entriesPerSegment * 2);
+    long lastIndex = log.lastIndex();
+    Segment lastSegment = log.segments.lastSegment();
+    long position = lastSegment.position(lastSegment.offset(lastIndex, -1));
+    File file = SegmentFile.createSegmentFile(logId, storage.directory(), lastSegment.descriptor().id(), lastSegment.descriptor().version());
+    log.close();
+
+    // Corrupt a byte of the last entry in the segment.
+    try (RandomAccessFile raf = new RandomAccessFile(file, "rw")) {
+      long corruptPosition = SegmentDescriptor.BYTES + position + Integer.BYTES * 2 + Long.BYTES + 1 + Long.BYTES;
+      raf.seek(corruptPosition);
+      int value = raf.read();
+      raf.seek(corruptPosition);
+      raf.write(value ^ 0xFF);
+    }
+
+    try (Log log = createLog()) {
+      assertEquals(log.lastIndex(), lastIndex - 1);
+      try (Entry entry = log.get(lastIndex - 1)) {
+        assertEquals(entry.getIndex(), lastIndex - 1);
+      }
+    }
+  }
+
+  /**
+   * Tests recovering sealed segments from persisted index files.
+   */
+  public void testRecoverFromIndexFiles() throws Throwable {
+    appendEntries(entriesPerSegment * 3);
+    Segment firstSegment = log.segments.firstSegment();
+    Segment lastSegment = log.segments.lastSegment();
+
+    // Index files are written in the background, and closing the log waits for pending writes.
+    log.close();
+    assertTrue(SegmentFile.createIndexFile(logId, storage.directory(), firstSegment.descriptor().id(), firstSegment.descriptor().version()).exists());
+    assertFalse(SegmentFile.createIndexFile(logId, storage.directory(), lastSegment.descriptor().id(), lastSegment.descriptor().version()).exists());
+
+    try (Log log = createLog()) {
+      assertEquals(log.length(), entriesPerSegment * 3);
+      for (long i = log.firstIndex(); i <= log.lastIndex(); i++) {
+        try (Entry entry = log.get(i)) {
+          assertEquals(entry.getIndex(), i);
+          assertEquals(entry.getTerm(), 1);
+        }
+      }
+    }
+  }
+
+  /**
+   * Tests syncing entries to disk.
+   */
+  public void testSync() throws Throwable {
+    appendEntries(entriesPerSegment * 2);
+    assertEquals(log.syncIndex(), 0);
+    assertEquals(log.sync(log.lastIndex()).get().longValue(), entriesPerSegment * 2);
+    assertEquals(log.syncIndex(), entriesPerSegment * 2);
+    assertTrue(log.sync(1).isDone());
+
+    log.truncate(entriesPerSegment);
+    assertEquals(log.syncIndex(), entriesPerSegment);
+  }
+
 }
@@ -15,11 +15,16 @@
  */
 package io.atomix.copycat.server.storage;
 
+import io.atomix.catalyst.serializer.Serializer;
+import io.atomix.catalyst.serializer.ServiceLoaderTypeResolver;
 import io.atomix.copycat.server.storage.compaction.Compaction;
+import io.atomix.copycat.server.storage.entry.Entry;
+import io.atomix.copycat.server.storage.entry.RawEntry;
 import org.testng.annotations.Test;
 
 import java.io.File;
 import java.util.List;
+import java.util.UUID;
 
 import static org.testng.Assert.*;
 
@@ -79,6 +84,26 @@ public abstract class LogTest extends AbstractLogTest {
     }
   }
 
+  /**
+   * Asserts that entries larger than an unsigned short can be appended and read.
+   */
+  public void testAppendAndGetLargeEntry() {
+    try (TestEntry entry = log.create(TestEntry.class)) {
+      entry.setTerm(1).setPadding(1024 * 128);
+      assertEquals(log.append(entry), 1);
+      assertTrue(entry.size() > 1024 * 128);
+    }
+    appendEntries(entriesPerSegment);
+
+    try (TestEntry entry = log.get(1)) {
+      assertEquals(entry.getIndex(), 1);
+      assertEquals(entry.getPadding().length, 1024 * 128);
+    }
+    try (TestEntry entry = log.get(2)) {
+      assertEquals(entry.getIndex(), 2);
+    }
+  }
+
   @Test(expectedExceptions = IllegalStateException.class)
   public void appendEntryShouldThrowWhenClosed() throws Exception {
     log.close();
@@ -202,6 +227,79 @@ public abstract class LogTest extends AbstractLogTest {
     assertCompacted(entriesPerSegment + 1, entriesPerSegment * 2);
   }
 
+  /**
+   * Tests reading raw entries from one log and appending them to another.
+   */
+  public void testGetRawAndAppend() {
+    appendEntries(entriesPerSegment * 3);
+    try (Log copy = new Log(UUID.randomUUID().toString(), storage, new Serializer(new ServiceLoaderTypeResolver()))) {
+      for (long i = 1; i <= entriesPerSegment * 3; i++) {
+        try (RawEntry entry = log.getRaw(i)) {
+          assertNotNull(entry);
+          assertEquals(entry.getIndex(), i);
+          assertEquals(entry.getTerm(), log.term(i));
+          assertTrue(entry.isType(TestEntry.class));
+          assertEquals(copy.append(entry), i);
+        }
+      }
+
+      for (long i = 1; i <= entriesPerSegment * 3; i++) {
+        try (TestEntry entry = copy.get(i)) {
+          assertEquals(entry.getIndex(), i);
+          assertEquals(entry.getTerm(), log.term(i));
+        }
+        try (RawEntry entry = copy.getRaw(i)) {
+          assertTrue(entry.isType(TestEntry.class));
+        }
+      }
+    }
+  }
+
+  /**
+   * Tests reading entries sequentially across segments with a {@link LogReader}.
+   */
+  public void testReader() {
+    appendEntries(entriesPerSegment * 3);
+    log.commit(entriesPerSegment * 2);
+    try (LogReader reader = log.createReader(1)) {
+      for (long i = 1; i <= entriesPerSegment * 3; i++) {
+        assertTrue(reader.hasNext());
+        assertEquals(reader.nextIndex(), i);
+        try (TestEntry entry = reader.next()) {
+          assertEquals(entry.getIndex(), i);
+          assertEquals(entry.getTerm(), log.term(i));
+        }
+      }
+      assertFalse(reader.hasNext());
+
+      reader.reset(entriesPerSegment + 1);
+      try (Entry entry = reader.nextRaw()) {
+        assertEquals(entry.getIndex(), entriesPerSegment + 1);
+        assertTrue(((RawEntry) entry).isType(TestEntry.class));
+      }
+    }
+  }
+
+  /**
+   * Tests that a {@link LogReader} skips cleaned and compacted entries.
+   */
+  public void testReaderAfterCompaction() {
+    appendEntries(entriesPerSegment * 3);
+    log.commit(entriesPerSegment * 3).compactor().minorIndex(entriesPerSegment * 3).majorIndex(entriesPerSegment * 3);
+    cleanAndCompact(entriesPerSegment + 1, entriesPerSegment * 2 + 1);
+    try (LogReader reader = log.createReader(1)) {
+      for (long i = 1; i <= entriesPerSegment * 3; i++) {
+        try (TestEntry entry = reader.next()) {
+          if (i > entriesPerSegment && i <= entriesPerSegment * 2 + 1) {
+            assertNull(entry);
+          } else {
+            assertEquals(entry.getIndex(), i);
+          }
+        }
+      }
+    }
+  }
+
   /**
    * Tests {@link Log#isClosed()}.
    */
@@ -18,6 +18,8 @@ package io.atomix.copycat.server.storage;
 import org.testng.annotations.Factory;
 import org.testng.annotations.Test;
 
+import static org.testng.Assert.*;
+
 /**
  * Memory mapped file log test.
  *
@@ -35,4 +37,11 @@ public class MappedLogTest extends FileLogTest {
     return StorageLevel.MAPPED;
   }
 
+  /**
+   * Tests that mapped segments, which are remapped as they grow, are read under a lock.
+   */
+  public void testConcurrentReads() {
+    assertFalse(log.segments.currentSegment().isConcurrent());
+  }
+
 }
@@ -18,6 +18,8 @@ package io.atomix.copycat.server.storage;
 import org.testng.annotations.Factory;
 import org.testng.annotations.Test;
 
+import static org.testng.Assert.*;
+
 /**
  * In-memory log test.
  *
@@ -35,4 +37,11 @@ public class MemoryLogTest extends LogTest {
     return StorageLevel.MEMORY;
   }
 
+  /**
+   * Tests that memory segments are read without a lock.
+   */
+  public void testConcurrentReads() {
+    assertTrue(log.segments.currentSegment().isConcurrent());
+  }
+
 }
@@ -134,4 +134,58 @@ public class OffsetIndexTest {
     assertEquals(index.truncate(1), 30);
   }
 
+  /**
+   * Tests finding skipped entries using a hint.
+   */
+  public void testFindWithHint() {
+    OffsetIndex index = new OffsetIndex(HeapBuffer.allocate(1024 * 8));
+    index.index(0, 0);
+    index.index(2, 20);
+    index.index(3, 30);
+    index.index(5, 50);
+    assertEquals(index.find(0, -1), 0);
+    assertEquals(index.find(2, 0), 1);
+    assertEquals(index.find(3, 1), 2);
+    assertEquals(index.find(5, 2), 3);
+    assertEquals(index.find(4, 2), -1);
+    assertEquals(index.find(2, 3), 1);
+    assertEquals(index.positionAt(3), 50);
+  }
+
+  /**
+   * Tests looking up positions in a sparse index.
+   */
+  public void testSparseIndex() {
+    OffsetIndex index = new OffsetIndex(HeapBuffer.allocate(1024 * 8), 4, 1024).scanner(position -> position + 10);
+    for (int i = 0; i < 10; i++) {
+      index.index(i, i * 10);
+    }
+    assertTrue(index.isSparse());
+    assertEquals(index.size(), 10);
+    assertEquals(index.find(7), 7);
+    assertEquals(index.position(7), 70);
+    assertEquals(index.positionAt(9), 90);
+    assertEquals(index.truncate(5), 60);
+    assertEquals(index.lastOffset(), 5);
+    assertEquals(index.position(5), 50);
+    assertEquals(index.position(6), -1);
+  }
+
+  /**
+   * Tests that a sparse index is converted to a dense index when an offset is skipped.
+   */
+  public void testSparseIndexSkipped() {
+    OffsetIndex index = new OffsetIndex(HeapBuffer.allocate(1024 * 8), 4, 1024).scanner(position -> position + 10);
+    for (int i = 0; i < 6; i++) {
+      index.index(i, i * 10);
+    }
+    index.index(8, 60);
+    assertFalse(index.isSparse());
+    assertEquals(index.size(), 7);
+    assertEquals(index.position(3), 30);
+    assertEquals(index.position(7), -1);
+    assertEquals(index.find(8), 6);
+    assertEquals(index.positionAt(6), 60);
+  }
+
 }
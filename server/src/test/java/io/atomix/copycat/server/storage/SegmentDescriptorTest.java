@@ -116,6 +116,27 @@ public class SegmentDescriptorTest {
     Assert.assertEquals(descriptor.maxEntries(), 2048);
     Assert.assertEquals(descriptor.updated(), time);
     Assert.assertTrue(descriptor.locked());
+    Assert.assertEquals(descriptor.format(), SegmentDescriptor.CURRENT_FORMAT);
+  }
+
+  /**
+   * Tests building a descriptor with the original record format.
+   */
+  public void testDescriptorFormat() {
+    SegmentDescriptor descriptor = SegmentDescriptor.builder(FileBuffer.allocate(file, SegmentDescriptor.BYTES))
+      .withId(2)
+      .withVersion(3)
+      .withIndex(1025)
+      .withMaxSegmentSize(1024 * 1024)
+      .withMaxEntries(2048)
+      .withFormat(SegmentDescriptor.FORMAT_V0)
+      .build();
+    Assert.assertEquals(descriptor.format(), SegmentDescriptor.FORMAT_V0);
+    descriptor.close();
+
+    descriptor = new SegmentDescriptor(FileBuffer.allocate(file, SegmentDescriptor.BYTES));
+    Assert.assertEquals(descriptor.format(), SegmentDescriptor.FORMAT_V0);
+    Assert.assertEquals(descriptor.index(), 1025);
   }
 
   /**
@@ -0,0 +1,80 @@
+/*
+ * Copyright 2015 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License
+ */
+package io.atomix.copycat.server.storage;
+
+import org.testng.annotations.Test;
+
+import static org.testng.Assert.*;
+/**
+ * Term index test.
+ *
+ * @author <a href="http://github.com/kuujo>Jordan Halterman</a>
+ */
+@Test
+public class TermIndexTest {
+
+  /**
+   * Tests indexing and looking up terms.
+   */
+  public void testIndexAndLookup() {
+    TermIndex index = new TermIndex();
+    assertEquals(index.term(), 0);
+    assertEquals(index.lookup(0), 0);
+    index.index(0, 1);
+    index.index(5, 1);
+    index.index(10, 2);
+    assertEquals(index.term(), 2);
+    assertEquals(index.lookup(0), 1);
+    assertEquals(index.lookup(9), 1);
+    assertEquals(index.lookup(10), 2);
+    assertEquals(index.lookup(100), 2);
+  }
+
+  /**
+   * Tests indexing more terms than the initial capacity.
+   */
+  public void testIndexGrow() {
+    TermIndex index = new TermIndex();
+    for (int i = 1; i <= 100; i++) {
+      index.index(i * 10, i);
+    }
+    assertEquals(index.term(), 100);
+    assertEquals(index.lookup(5), 0);
+    for (int i = 1; i <= 100; i++) {
+      assertEquals(index.lookup(i * 10), i);
+      assertEquals(index.lookup(i * 10 + 9), i);
+    }
+  }
+
+  /**
+   * Tests truncating the index.
+   */
+  public void testTruncate() {
+    TermIndex index = new TermIndex();
+    index.index(0, 1);
+    index.index(10, 2);
+    index.index(20, 3);
+    index.truncate(15);
+    assertEquals(index.term(), 2);
+    assertEquals(index.lookup(25), 2);
+    index.index(16, 4);
+    assertEquals(index.lookup(15), 2);
+    assertEquals(index.lookup(16), 4);
+    index.truncate(5);
+    assertEquals(index.term(), 1);
+  }
+
+}